@@ -0,0 +1,96 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection.benchmark
+
+import androidx.benchmark.BenchmarkRule
+import androidx.collection.ConcurrentLruCache
+import androidx.collection.LruCache
+import androidx.test.filters.LargeTest
+import org.junit.After
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+
+/**
+ * Measures how long it takes for [threadCount] threads to each run [OPS_PER_THREAD] operations
+ * on a shared [LruCache] or [ConcurrentLruCache], mostly hits with [WRITE_PERCENT]% of puts.
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+class LruCacheBenchmark(private val threadCount: Int) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private val executor: ExecutorService = Executors.newFixedThreadPool(threadCount)
+
+    @After
+    fun tearDown() {
+        executor.shutdownNow()
+    }
+
+    @Test
+    fun lruCache() {
+        val cache = LruCache<Int, Int>(CACHE_SIZE)
+        measure({ cache.get(it) }, { cache.put(it, it) })
+    }
+
+    @Test
+    fun concurrentLruCache() {
+        val cache = ConcurrentLruCache<Int, Int>(CACHE_SIZE)
+        measure({ cache.get(it) }, { cache.put(it, it) })
+    }
+
+    private inline fun measure(crossinline get: (Int) -> Unit, crossinline put: (Int) -> Unit) {
+        for (key in 0 until CACHE_SIZE) {
+            put(key)
+        }
+        val tasks = List(threadCount) { thread ->
+            Callable {
+                for (i in 0 until OPS_PER_THREAD) {
+                    // a skewed key distribution, most reads go to a small set of hot keys
+                    val key = (i * 31 + thread * 17) % (if (i % 4 == 0) KEY_RANGE else HOT_KEYS)
+                    if (i % 100 < WRITE_PERCENT) {
+                        put(key)
+                    } else {
+                        get(key)
+                    }
+                }
+            }
+        }
+        while (benchmarkRule.state.keepRunning()) {
+            executor.invokeAll(tasks).forEach { it.get() }
+        }
+    }
+
+    companion object {
+
+        @JvmStatic
+        @Parameterized.Parameters(name = "threadCount={0}")
+        fun data(): List<Array<Any>> = listOf(1, 4, 16, 32).map { arrayOf<Any>(it) }
+
+        private const val CACHE_SIZE = 512
+        private const val KEY_RANGE = 2048
+        private const val HOT_KEYS = 128
+        private const val WRITE_PERCENT = 5
+        private const val OPS_PER_THREAD = 1000
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection.benchmark
+
+import androidx.benchmark.BenchmarkRule
+import androidx.collection.IntObjectMap
+import androidx.collection.IntSet
+import androidx.collection.LongObjectMap
+import androidx.collection.LongSparseArray
+import androidx.collection.SparseArrayCompat
+import androidx.test.filters.LargeTest
+import org.junit.Assume.assumeTrue
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import java.util.Random
+
+/**
+ * Compares the sparse arrays, which binary search sorted keys, to the primitive hash maps when
+ * adding [size] mappings in random key order, and when looking all of them up.
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+class PrimitiveMapBenchmark(private val size: Int) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private val intKeys = IntArray(size).also {
+        val random = Random(0)
+        val seen = IntSet(size)
+        var i = 0
+        while (i < size) {
+            val key = random.nextInt()
+            if (seen.add(key)) {
+                it[i++] = key
+            }
+        }
+    }
+
+    private val longKeys = LongArray(size) { intKeys[it] * LONG_KEY_STRIDE }
+
+    @Test
+    fun sparseArrayCompat_put() {
+        // inserting in random order moves half the array on average, too slow past this size
+        assumeTrue(size <= MAX_SPARSE_PUT_SIZE)
+        val state = benchmarkRule.state
+        while (state.keepRunning()) {
+            val map = SparseArrayCompat<Any>()
+            for (key in intKeys) {
+                map.put(key, VALUE)
+            }
+        }
+    }
+
+    @Test
+    fun intObjectMap_put() {
+        val state = benchmarkRule.state
+        while (state.keepRunning()) {
+            val map = IntObjectMap<Any>()
+            for (key in intKeys) {
+                map.put(key, VALUE)
+            }
+        }
+    }
+
+    @Test
+    fun sparseArrayCompat_get() {
+        val map = SparseArrayCompat<Any>(size)
+        for (key in intKeys.sortedArray()) {
+            map.append(key, VALUE)
+        }
+        val state = benchmarkRule.state
+        while (state.keepRunning()) {
+            for (key in intKeys) {
+                map.get(key)
+            }
+        }
+    }
+
+    @Test
+    fun intObjectMap_get() {
+        val map = IntObjectMap<Any>(size)
+        for (key in intKeys) {
+            map.put(key, VALUE)
+        }
+        val state = benchmarkRule.state
+        while (state.keepRunning()) {
+            for (key in intKeys) {
+                map.get(key)
+            }
+        }
+    }
+
+    @Test
+    fun longSparseArray_put() {
+        assumeTrue(size <= MAX_SPARSE_PUT_SIZE)
+        val state = benchmarkRule.state
+        while (state.keepRunning()) {
+            val map = LongSparseArray<Any>()
+            for (key in longKeys) {
+                map.put(key, VALUE)
+            }
+        }
+    }
+
+    @Test
+    fun longObjectMap_put() {
+        val state = benchmarkRule.state
+        while (state.keepRunning()) {
+            val map = LongObjectMap<Any>()
+            for (key in longKeys) {
+                map.put(key, VALUE)
+            }
+        }
+    }
+
+    @Test
+    fun longSparseArray_get() {
+        val map = LongSparseArray<Any>(size)
+        for (key in longKeys.sortedArray()) {
+            map.append(key, VALUE)
+        }
+        val state = benchmarkRule.state
+        while (state.keepRunning()) {
+            for (key in longKeys) {
+                map.get(key)
+            }
+        }
+    }
+
+    @Test
+    fun longObjectMap_get() {
+        val map = LongObjectMap<Any>(size)
+        for (key in longKeys) {
+            map.put(key, VALUE)
+        }
+        val state = benchmarkRule.state
+        while (state.keepRunning()) {
+            for (key in longKeys) {
+                map.get(key)
+            }
+        }
+    }
+
+    companion object {
+
+        @JvmStatic
+        @Parameterized.Parameters(name = "size={0}")
+        fun data(): List<Array<Any>> =
+            listOf(10, 100, 1_000, 10_000, 100_000, 1_000_000).map { arrayOf<Any>(it) }
+
+        private const val MAX_SPARSE_PUT_SIZE = 100_000
+        private const val LONG_KEY_STRIDE = 0x100000001L
+        private val VALUE = Any()
+    }
+}
@@ -42,7 +42,9 @@ import java.util.Set;
  * that may contain large numbers of items.  It is generally slower than a traditional
  * HashMap, since lookups require a binary search and adds and removes require inserting
  * and deleting entries in the array.  For containers holding up to hundreds of items,
- * the performance difference is not significant, less than 50%.</p>
+ * the performance difference is not significant, less than 50%.  Past a size threshold,
+ * entries are indexed by a hash table instead, see
+ * {@link SimpleArrayMap#setHashIndexThreshold(int)}.</p>
  *
  * <p>Because this container is intended to better balance memory use, unlike most other
  * standard Java containers it will shrink its array as items are removed from it.  Currently
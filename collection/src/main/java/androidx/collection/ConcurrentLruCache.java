@@ -0,0 +1,554 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A variant of {@link LruCache} for caches shared by many threads.
+ * <p>
+ * Entries are stored in a {@link ConcurrentHashMap}, so {@link #get} does not take a lock when
+ * the value is cached. Instead of reordering the recency queue on every hit, reads are recorded
+ * in per-thread-striped buffers that are replayed onto the queue in batches, by whichever thread
+ * next holds the eviction lock. When a buffer is full, further reads are dropped until it is
+ * drained, so the eviction order is an approximation of the least recently used order that
+ * favors entries hit often.
+ * <p>
+ * {@link #put}, {@link #remove} and the insertion of created values serialize on a single lock,
+ * like every operation of {@link LruCache} does.
+ * <p>
+ * The {@link #sizeOf}, {@link #create} and {@link #entryRemoved} hooks have the same contract as
+ * in {@link LruCache}.
+ *
+ * @param <K> The type of the keys.
+ * @param <V> The type of the values.
+ */
+public class ConcurrentLruCache<K, V> {
+    private static final int READ_BUFFER_SIZE = 16;
+    private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+    private static final int MAX_READ_BUFFER_COUNT = 64;
+
+    private final ConcurrentHashMap<K, Node<K, V>> mMap;
+    private final ReentrantLock mEvictionLock = new ReentrantLock();
+    private final ReadBuffer<K, V>[] mReadBuffers;
+    private final int mReadBufferMask;
+
+    // the recency queue, from the least to the most recently used entry, guarded by the lock
+    @Nullable
+    private Node<K, V> mHead;
+    @Nullable
+    private Node<K, V> mTail;
+
+    /** Size of this cache in units. Not necessarily the number of elements. */
+    private int mSize;
+    private volatile int mMaxSize;
+
+    private int mPutCount;
+    private int mCreateCount;
+    private int mEvictionCount;
+    private final AtomicInteger mHitCount = new AtomicInteger();
+    private final AtomicInteger mMissCount = new AtomicInteger();
+
+    /**
+     * @param maxSize for caches that do not override {@link #sizeOf}, this is
+     *     the maximum number of entries in the cache. For all other caches,
+     *     this is the maximum sum of the sizes of the entries in this cache.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public ConcurrentLruCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+        mMaxSize = maxSize;
+        mMap = new ConcurrentHashMap<>();
+        int bufferCount = 1;
+        final int processors = Runtime.getRuntime().availableProcessors();
+        while (bufferCount < processors && bufferCount < MAX_READ_BUFFER_COUNT) {
+            bufferCount <<= 1;
+        }
+        mReadBuffers = new ReadBuffer[bufferCount];
+        for (int i = 0; i < bufferCount; i++) {
+            mReadBuffers[i] = new ReadBuffer<>();
+        }
+        mReadBufferMask = bufferCount - 1;
+    }
+
+    /**
+     * Sets the size of the cache.
+     *
+     * @param maxSize The new maximum size.
+     */
+    public void resize(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+        mMaxSize = maxSize;
+        trimToSize(maxSize);
+    }
+
+    /**
+     * Returns the value for {@code key} if it exists in the cache or can be
+     * created by {@code #create}. If a value was returned, it is moved to the
+     * head of the queue. This returns null if a value is not cached and cannot
+     * be created.
+     */
+    @Nullable
+    public final V get(@NonNull K key) {
+        if (key == null) {
+            throw new NullPointerException("key == null");
+        }
+
+        final Node<K, V> node = mMap.get(key);
+        if (node != null) {
+            mHitCount.incrementAndGet();
+            recordRead(node);
+            return node.value;
+        }
+        mMissCount.incrementAndGet();
+
+        /*
+         * Attempt to create a value. This may take a long time, and the map
+         * may be different when create() returns. If a conflicting value was
+         * added to the map while create() was working, we leave that value in
+         * the map and release the created value.
+         */
+
+        V createdValue = create(key);
+        if (createdValue == null) {
+            return null;
+        }
+
+        final Node<K, V> createdNode = new Node<>(key, createdValue,
+                safeSizeOf(key, createdValue));
+        Node<K, V> existing;
+        mEvictionLock.lock();
+        try {
+            mCreateCount++;
+            // replay the earlier reads first so the new entry is the most recently used
+            drainReadBuffers();
+            existing = mMap.putIfAbsent(key, createdNode);
+            if (existing == null) {
+                linkLast(createdNode);
+                mSize += createdNode.size;
+            }
+        } finally {
+            mEvictionLock.unlock();
+        }
+
+        if (existing != null) {
+            entryRemoved(false, key, createdValue, existing.value);
+            return existing.value;
+        } else {
+            trimToSize(mMaxSize);
+            return createdValue;
+        }
+    }
+
+    /**
+     * Caches {@code value} for {@code key}. The value is moved to the head of
+     * the queue.
+     *
+     * @return the previous value mapped by {@code key}.
+     */
+    @Nullable
+    public final V put(@NonNull K key, @NonNull V value) {
+        if (key == null || value == null) {
+            throw new NullPointerException("key == null || value == null");
+        }
+
+        final Node<K, V> node = new Node<>(key, value, safeSizeOf(key, value));
+        Node<K, V> previous;
+        mEvictionLock.lock();
+        try {
+            mPutCount++;
+            drainReadBuffers();
+            mSize += node.size;
+            previous = mMap.put(key, node);
+            if (previous != null) {
+                unlink(previous);
+                mSize -= previous.size;
+            }
+            linkLast(node);
+        } finally {
+            mEvictionLock.unlock();
+        }
+
+        if (previous != null) {
+            entryRemoved(false, key, previous.value, value);
+        }
+
+        trimToSize(mMaxSize);
+        return previous != null ? previous.value : null;
+    }
+
+    /**
+     * Remove the eldest entries until the total of remaining entries is at or
+     * below the requested size.
+     *
+     * @param maxSize the maximum size of the cache before returning. May be -1
+     *            to evict even 0-sized elements.
+     */
+    public void trimToSize(int maxSize) {
+        while (true) {
+            Node<K, V> toEvict;
+            mEvictionLock.lock();
+            try {
+                if (mSize < 0 || (mHead == null && mSize != 0)) {
+                    throw new IllegalStateException(getClass().getName()
+                            + ".sizeOf() is reporting inconsistent results!");
+                }
+
+                // apply the pending reads so recently read entries are not evicted
+                drainReadBuffers();
+                toEvict = mHead;
+                if (mSize <= maxSize || toEvict == null) {
+                    break;
+                }
+
+                mMap.remove(toEvict.key, toEvict);
+                unlink(toEvict);
+                mSize -= toEvict.size;
+                mEvictionCount++;
+            } finally {
+                mEvictionLock.unlock();
+            }
+
+            entryRemoved(true, toEvict.key, toEvict.value, null);
+        }
+    }
+
+    /**
+     * Removes the entry for {@code key} if it exists.
+     *
+     * @return the previous value mapped by {@code key}.
+     */
+    @Nullable
+    public final V remove(@NonNull K key) {
+        if (key == null) {
+            throw new NullPointerException("key == null");
+        }
+
+        Node<K, V> previous;
+        mEvictionLock.lock();
+        try {
+            previous = mMap.remove(key);
+            if (previous != null) {
+                unlink(previous);
+                mSize -= previous.size;
+            }
+        } finally {
+            mEvictionLock.unlock();
+        }
+
+        if (previous != null) {
+            entryRemoved(false, key, previous.value, null);
+            return previous.value;
+        }
+        return null;
+    }
+
+    /**
+     * Called for entries that have been evicted or removed. This method is
+     * invoked when a value is evicted to make space, removed by a call to
+     * {@link #remove}, or replaced by a call to {@link #put}. The default
+     * implementation does nothing.
+     *
+     * <p>The method is called without synchronization: other threads may
+     * access the cache while this method is executing.
+     *
+     * @param evicted true if the entry is being removed to make space, false
+     *     if the removal was caused by a {@link #put} or {@link #remove}.
+     * @param newValue the new value for {@code key}, if it exists. If non-null,
+     *     this removal was caused by a {@link #put}. Otherwise it was caused by
+     *     an eviction or a {@link #remove}.
+     */
+    protected void entryRemoved(boolean evicted, @NonNull K key, @NonNull V oldValue,
+            @Nullable V newValue) {
+    }
+
+    /**
+     * Called after a cache miss to compute a value for the corresponding key.
+     * Returns the computed value or null if no value can be computed. The
+     * default implementation returns null.
+     *
+     * <p>The method is called without synchronization: other threads may
+     * access the cache while this method is executing.
+     *
+     * <p>If a value for {@code key} exists in the cache when this method
+     * returns, the created value will be released with {@link #entryRemoved}
+     * and discarded. This can occur when multiple threads request the same key
+     * at the same time (causing multiple values to be created), or when one
+     * thread calls {@link #put} while another is creating a value for the same
+     * key.
+     */
+    @Nullable
+    protected V create(@NonNull K key) {
+        return null;
+    }
+
+    private int safeSizeOf(K key, V value) {
+        int result = sizeOf(key, value);
+        if (result < 0) {
+            throw new IllegalStateException("Negative size: " + key + "=" + value);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the size of the entry for {@code key} and {@code value} in
+     * user-defined units.  The default implementation returns 1 so that size
+     * is the number of entries and max size is the maximum number of entries.
+     *
+     * <p>An entry's size must not change while it is in the cache.
+     */
+    protected int sizeOf(@NonNull K key, @NonNull V value) {
+        return 1;
+    }
+
+    /**
+     * Clear the cache, calling {@link #entryRemoved} on each removed entry.
+     */
+    public final void evictAll() {
+        trimToSize(-1); // -1 will evict 0-sized elements
+    }
+
+    /**
+     * For caches that do not override {@link #sizeOf}, this returns the number
+     * of entries in the cache. For all other caches, this returns the sum of
+     * the sizes of the entries in this cache.
+     */
+    public final int size() {
+        mEvictionLock.lock();
+        try {
+            return mSize;
+        } finally {
+            mEvictionLock.unlock();
+        }
+    }
+
+    /**
+     * For caches that do not override {@link #sizeOf}, this returns the maximum
+     * number of entries in the cache. For all other caches, this returns the
+     * maximum sum of the sizes of the entries in this cache.
+     */
+    public final int maxSize() {
+        return mMaxSize;
+    }
+
+    /**
+     * Returns the number of times {@link #get} returned a value that was
+     * already present in the cache.
+     */
+    public final int hitCount() {
+        return mHitCount.get();
+    }
+
+    /**
+     * Returns the number of times {@link #get} returned null or required a new
+     * value to be created.
+     */
+    public final int missCount() {
+        return mMissCount.get();
+    }
+
+    /**
+     * Returns the number of times {@link #create(Object)} returned a value.
+     */
+    public final int createCount() {
+        mEvictionLock.lock();
+        try {
+            return mCreateCount;
+        } finally {
+            mEvictionLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of times {@link #put} was called.
+     */
+    public final int putCount() {
+        mEvictionLock.lock();
+        try {
+            return mPutCount;
+        } finally {
+            mEvictionLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of values that have been evicted.
+     */
+    public final int evictionCount() {
+        mEvictionLock.lock();
+        try {
+            return mEvictionCount;
+        } finally {
+            mEvictionLock.unlock();
+        }
+    }
+
+    /**
+     * Returns a copy of the current contents of the cache, ordered from least
+     * recently accessed to most recently accessed. Reads dropped because their
+     * buffer was full are not reflected in this order.
+     */
+    public final Map<K, V> snapshot() {
+        mEvictionLock.lock();
+        try {
+            drainReadBuffers();
+            final LinkedHashMap<K, V> snapshot = new LinkedHashMap<>(mMap.size());
+            for (Node<K, V> node = mHead; node != null; node = node.next) {
+                snapshot.put(node.key, node.value);
+            }
+            return snapshot;
+        } finally {
+            mEvictionLock.unlock();
+        }
+    }
+
+    @Override public final String toString() {
+        int hitCount = mHitCount.get();
+        int accesses = hitCount + mMissCount.get();
+        int hitPercent = accesses != 0 ? (100 * hitCount / accesses) : 0;
+        return String.format(Locale.US,
+                "ConcurrentLruCache[maxSize=%d,hits=%d,misses=%d,hitRate=%d%%]",
+                mMaxSize, hitCount, accesses - hitCount, hitPercent);
+    }
+
+    private void recordRead(Node<K, V> node) {
+        final long id = Thread.currentThread().getId();
+        final int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        final ReadBuffer<K, V> buffer = mReadBuffers[(hash >>> 16) & mReadBufferMask];
+        if (!buffer.offer(node) && mEvictionLock.tryLock()) {
+            // the buffer is full, drain it unless another thread is already doing it
+            try {
+                drainReadBuffers();
+            } finally {
+                mEvictionLock.unlock();
+            }
+        }
+    }
+
+    // must hold the lock
+    private void drainReadBuffers() {
+        for (ReadBuffer<K, V> buffer : mReadBuffers) {
+            long readCount = buffer.mReadCount;
+            final long writeCount = buffer.mWriteCount.get();
+            while (readCount < writeCount) {
+                final int index = (int) readCount & READ_BUFFER_MASK;
+                final Node<K, V> node = buffer.mNodes.get(index);
+                if (node == null) {
+                    // the slot was claimed but not published yet
+                    break;
+                }
+                buffer.mNodes.lazySet(index, null);
+                readCount++;
+                if (node.linked) {
+                    unlink(node);
+                    linkLast(node);
+                }
+            }
+            buffer.mReadCount = readCount;
+        }
+    }
+
+    // must hold the lock
+    private void linkLast(Node<K, V> node) {
+        node.prev = mTail;
+        node.next = null;
+        if (mTail == null) {
+            mHead = node;
+        } else {
+            mTail.next = node;
+        }
+        mTail = node;
+        node.linked = true;
+    }
+
+    // must hold the lock
+    private void unlink(Node<K, V> node) {
+        final Node<K, V> prev = node.prev;
+        final Node<K, V> next = node.next;
+        if (prev == null) {
+            mHead = next;
+        } else {
+            prev.next = next;
+        }
+        if (next == null) {
+            mTail = prev;
+        } else {
+            next.prev = prev;
+        }
+        node.prev = null;
+        node.next = null;
+        node.linked = false;
+    }
+
+    private static final class Node<K, V> {
+        final K key;
+        final V value;
+        final int size;
+        // guarded by the eviction lock
+        @Nullable
+        Node<K, V> prev;
+        @Nullable
+        Node<K, V> next;
+        boolean linked;
+
+        Node(K key, V value, int size) {
+            this.key = key;
+            this.value = value;
+            this.size = size;
+        }
+    }
+
+    /**
+     * A bounded, lossy buffer of reads. Any thread can add to it, only the thread holding the
+     * eviction lock removes from it.
+     */
+    private static final class ReadBuffer<K, V> {
+        final AtomicReferenceArray<Node<K, V>> mNodes =
+                new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+        final AtomicLong mWriteCount = new AtomicLong();
+        volatile long mReadCount;
+
+        /**
+         * @return false if the buffer is full and should be drained.
+         */
+        boolean offer(Node<K, V> node) {
+            final long writeCount = mWriteCount.get();
+            if (writeCount - mReadCount >= READ_BUFFER_SIZE) {
+                return false;
+            }
+            if (mWriteCount.compareAndSet(writeCount, writeCount + 1)) {
+                mNodes.lazySet((int) writeCount & READ_BUFFER_MASK, node);
+            }
+            // when losing the race, the read is dropped rather than retried
+            return true;
+        }
+    }
+}
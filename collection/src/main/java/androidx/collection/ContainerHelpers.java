@@ -80,6 +80,143 @@ class ContainerHelpers {
         return ~lo;  // value not present
     }
 
+    // Hash tables of the primitive maps and sets. The keys are kept in a dense array, and the
+    // table maps each key to its position in that array, plus one. A 0 marks an empty slot.
+    // Collisions are resolved by linear probing, and the table is kept at most half full.
+
+    static int hash(int key) {
+        final int h = key * 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+
+    static int hash(long key) {
+        return hash((int) (key ^ (key >>> 32)));
+    }
+
+    /** Returns the length of a table that can index {@code capacity} keys. */
+    static int hashTableSize(int capacity) {
+        int size = 4;
+        while (size < capacity * 2 && size < (1 << 30)) {
+            size <<= 1;
+        }
+        return size;
+    }
+
+    static int[] buildHashTable(int[] keys, int size, int capacity) {
+        final int[] table = new int[hashTableSize(capacity)];
+        for (int i = 0; i < size; i++) {
+            insertIndex(table, hash(keys[i]), i);
+        }
+        return table;
+    }
+
+    static int[] buildHashTable(long[] keys, int size, int capacity) {
+        final int[] table = new int[hashTableSize(capacity)];
+        for (int i = 0; i < size; i++) {
+            insertIndex(table, hash(keys[i]), i);
+        }
+        return table;
+    }
+
+    /** Returns the position of {@code key} in {@code keys}, or -1 if it is not indexed. */
+    static int indexOf(int[] table, int[] keys, int key) {
+        if (table.length == 0) {
+            return -1;
+        }
+        final int mask = table.length - 1;
+        int slot = hash(key) & mask;
+        int entry;
+        while ((entry = table[slot]) != 0) {
+            if (keys[entry - 1] == key) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    static int indexOf(int[] table, long[] keys, long key) {
+        if (table.length == 0) {
+            return -1;
+        }
+        final int mask = table.length - 1;
+        int slot = hash(key) & mask;
+        int entry;
+        while ((entry = table[slot]) != 0) {
+            if (keys[entry - 1] == key) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /** Indexes the key with the given hash at {@code index}. The table must have room for it. */
+    static void insertIndex(int[] table, int hash, int index) {
+        final int mask = table.length - 1;
+        int slot = hash & mask;
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = index + 1;
+    }
+
+    /** Makes the slot indexing the key with the given hash at {@code from} point to {@code to}. */
+    static void moveIndex(int[] table, int hash, int from, int to) {
+        final int mask = table.length - 1;
+        int slot = hash & mask;
+        while (table[slot] != from + 1) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = to + 1;
+    }
+
+    /** Removes the slot indexing {@code keys[index]}, shifting back the entries probed after it. */
+    static void removeIndex(int[] table, int[] keys, int index) {
+        final int mask = table.length - 1;
+        int hole = hash(keys[index]) & mask;
+        while (table[hole] != index + 1) {
+            hole = (hole + 1) & mask;
+        }
+        int slot = (hole + 1) & mask;
+        int entry;
+        while ((entry = table[slot]) != 0) {
+            // move the entry to the hole unless its ideal slot lies after the hole
+            final int ideal = hash(keys[entry - 1]) & mask;
+            if (((slot - ideal) & mask) >= ((slot - hole) & mask)) {
+                table[hole] = entry;
+                hole = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        table[hole] = 0;
+    }
+
+    static void removeIndex(int[] table, long[] keys, int index) {
+        final int mask = table.length - 1;
+        int hole = hash(keys[index]) & mask;
+        while (table[hole] != index + 1) {
+            hole = (hole + 1) & mask;
+        }
+        int slot = (hole + 1) & mask;
+        int entry;
+        while ((entry = table[slot]) != 0) {
+            // move the entry to the hole unless its ideal slot lies after the hole
+            final int ideal = hash(keys[entry - 1]) & mask;
+            if (((slot - ideal) & mask) >= ((slot - hole) & mask)) {
+                table[hole] = entry;
+                hole = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        table[hole] = 0;
+    }
+
+    /** Returns the capacity to grow dense arrays holding {@code size} elements to. */
+    static int growSize(int size) {
+        return size < 4 ? 4 : size + (size >> 1);
+    }
+
     private ContainerHelpers() {
     }
 }
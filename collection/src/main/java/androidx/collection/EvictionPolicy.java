@@ -0,0 +1,72 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Decides which entry an {@link LruCache} evicts when it grows over its maximum size.
+ * <p>
+ * A policy is notified of every change to the entries of the cache it was given to, and must
+ * not be shared between caches. It is always called while holding the lock of the cache, so it
+ * does not need to be thread safe.
+ *
+ * @param <K> The type of the keys of the cache.
+ * @see LruCache#LruCache(int, EvictionPolicy)
+ * @see WindowTinyLfuPolicy
+ */
+public interface EvictionPolicy<K> {
+    /**
+     * Called with the maximum size of the cache when the policy is given to a cache, and each
+     * time the cache is resized.
+     *
+     * @param maxSize The maximum sum of the sizes of the entries in the cache.
+     */
+    void setMaxSize(int maxSize);
+
+    /**
+     * Called each time a value is looked up, whether the cache has an entry for the key or not.
+     *
+     * @param key The key that was looked up.
+     */
+    void recordAccess(@NonNull K key);
+
+    /**
+     * Called when an entry is added to the cache, or when its value is replaced.
+     *
+     * @param key  The key of the entry.
+     * @param size The size of the entry, as returned by {@link LruCache#sizeOf}.
+     */
+    void onAdded(@NonNull K key, int size);
+
+    /**
+     * Called when an entry is removed from the cache by any other means than an eviction
+     * selected by this policy.
+     *
+     * @param key The key of the removed entry.
+     */
+    void onRemoved(@NonNull K key);
+
+    /**
+     * Selects the entry to evict to make space in the cache and stops tracking it. Only called
+     * when the cache is not empty.
+     *
+     * @return The key of the entry to evict.
+     */
+    @NonNull
+    K selectVictim();
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * A map from longs to longs, backed by a hash table so that lookups, insertions and removals
+ * take constant time on average, however many mappings it holds. Unlike
+ * {@link LongSparseArray}, it does not keep its keys sorted, and unlike a
+ * {@link java.util.HashMap}, it does not box its keys and values or allocate an entry object per
+ * mapping.
+ *
+ * <p>It is possible to iterate over the mappings in this container using {@link #keyAt(int)}
+ * and {@link #valueAt(int)} with indices in the range <code>0...size()-1</code>. Mappings are
+ * kept in the order they were added in, except that removing a mapping moves the last mapping
+ * in its place. Iterating with descending indices allows calling {@link #removeAt(int)} on the
+ * current index.</p>
+ */
+public class LongLongMap implements Cloneable {
+    private long[] mKeys;
+    private long[] mValues;
+    private int[] mTable;
+    private int mSize;
+
+    /**
+     * Creates a new LongLongMap containing no mappings.
+     */
+    public LongLongMap() {
+        this(10);
+    }
+
+    /**
+     * Creates a new LongLongMap containing no mappings that will not require any additional
+     * memory allocation to store the specified number of mappings. If you supply an initial
+     * capacity of 0, the map will be initialized with a light-weight representation not
+     * requiring any additional array allocations.
+     */
+    public LongLongMap(int initialCapacity) {
+        if (initialCapacity == 0) {
+            mKeys = ContainerHelpers.EMPTY_LONGS;
+            mValues = ContainerHelpers.EMPTY_LONGS;
+            mTable = ContainerHelpers.EMPTY_INTS;
+        } else {
+            mKeys = new long[initialCapacity];
+            mValues = new long[initialCapacity];
+            mTable = new int[ContainerHelpers.hashTableSize(initialCapacity)];
+        }
+        mSize = 0;
+    }
+
+    @Override
+    public LongLongMap clone() {
+        LongLongMap clone;
+        try {
+            clone = (LongLongMap) super.clone();
+            clone.mKeys = mKeys.clone();
+            clone.mValues = mValues.clone();
+            clone.mTable = mTable.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e); // Cannot happen as we implement Cloneable.
+        }
+        return clone;
+    }
+
+    /**
+     * Gets the long mapped from the specified key, or <code>0</code>
+     * if no such mapping has been made.
+     */
+    public long get(long key) {
+        return get(key, 0);
+    }
+
+    /**
+     * Gets the long mapped from the specified key, or the specified value
+     * if no such mapping has been made.
+     */
+    public long get(long key, long valueIfKeyNotFound) {
+        final int index = ContainerHelpers.indexOf(mTable, mKeys, key);
+        return index < 0 ? valueIfKeyNotFound : mValues[index];
+    }
+
+    /**
+     * Adds a mapping from the specified key to the specified value,
+     * replacing the previous mapping from the specified key if there
+     * was one.
+     */
+    public void put(long key, long value) {
+        final int index = ContainerHelpers.indexOf(mTable, mKeys, key);
+        if (index >= 0) {
+            mValues[index] = value;
+            return;
+        }
+        if (mSize >= mKeys.length) {
+            final int n = ContainerHelpers.growSize(mSize);
+            mKeys = Arrays.copyOf(mKeys, n);
+            mValues = Arrays.copyOf(mValues, n);
+            mTable = ContainerHelpers.buildHashTable(mKeys, mSize, n);
+        }
+        mKeys[mSize] = key;
+        mValues[mSize] = value;
+        ContainerHelpers.insertIndex(mTable, ContainerHelpers.hash(key), mSize);
+        mSize++;
+    }
+
+    /**
+     * Copies all of the mappings from the {@code other} to this map. The effect of this call is
+     * equivalent to that of calling {@link #put(long, long)} on this map once for
+     * each mapping from key to value in {@code other}.
+     */
+    public void putAll(@NonNull LongLongMap other) {
+        for (int i = 0, size = other.size(); i < size; i++) {
+            put(other.keyAt(i), other.valueAt(i));
+        }
+    }
+
+    /**
+     * Removes the mapping from the specified key, if there was any.
+     */
+    public void remove(long key) {
+        final int index = ContainerHelpers.indexOf(mTable, mKeys, key);
+        if (index >= 0) {
+            removeAt(index);
+        }
+    }
+
+    /**
+     * Removes the mapping at the specified index. The last mapping is moved to that index.
+     * @throws ArrayIndexOutOfBoundsException if {@code index} is not less than {@link #size()}.
+     */
+    public void removeAt(int index) {
+        if (index >= mSize) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        final int last = mSize - 1;
+        ContainerHelpers.removeIndex(mTable, mKeys, index);
+        if (index != last) {
+            ContainerHelpers.moveIndex(mTable, ContainerHelpers.hash(mKeys[last]), last, index);
+            mKeys[index] = mKeys[last];
+            mValues[index] = mValues[last];
+        }
+        mSize = last;
+    }
+
+    /**
+     * Returns the number of key-value mappings that this map currently stores.
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Return true if size() is 0.
+     * @return true if size() is 0.
+     */
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    /**
+     * Given an index in the range <code>0...size()-1</code>, returns
+     * the key from the <code>index</code>th key-value mapping that this
+     * map stores.
+     */
+    public long keyAt(int index) {
+        return mKeys[index];
+    }
+
+    /**
+     * Given an index in the range <code>0...size()-1</code>, returns
+     * the value from the <code>index</code>th key-value mapping that this
+     * map stores.
+     */
+    public long valueAt(int index) {
+        return mValues[index];
+    }
+
+    /**
+     * Given an index in the range <code>0...size()-1</code>, sets a new
+     * value for the <code>index</code>th key-value mapping that this
+     * map stores.
+     */
+    public void setValueAt(int index, long value) {
+        mValues[index] = value;
+    }
+
+    /**
+     * Returns the index for which {@link #keyAt} would return the
+     * specified key, or a negative number if the specified
+     * key is not mapped.
+     */
+    public int indexOfKey(long key) {
+        return ContainerHelpers.indexOf(mTable, mKeys, key);
+    }
+
+    /** Returns true if the specified key is mapped. */
+    public boolean containsKey(long key) {
+        return ContainerHelpers.indexOf(mTable, mKeys, key) >= 0;
+    }
+
+    /**
+     * Removes all key-value mappings from this map.
+     */
+    public void clear() {
+        Arrays.fill(mTable, 0);
+        mSize = 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>This implementation composes a string by iterating over its mappings.
+     */
+    @Override
+    public String toString() {
+        if (mSize <= 0) {
+            return "{}";
+        }
+
+        StringBuilder buffer = new StringBuilder(mSize * 16);
+        buffer.append('{');
+        for (int i = 0; i < mSize; i++) {
+            if (i > 0) {
+                buffer.append(", ");
+            }
+            buffer.append(mKeys[i]);
+            buffer.append('=');
+            buffer.append(mValues[i]);
+        }
+        buffer.append('}');
+        return buffer.toString();
+    }
+}
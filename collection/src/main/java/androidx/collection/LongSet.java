@@ -0,0 +1,219 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * A set of longs, backed by a hash table so that lookups, insertions and removals take constant
+ * time on average, however many values it holds. Unlike a {@link java.util.HashSet}, it does
+ * not box its values or allocate an entry object per value.
+ *
+ * <p>It is possible to iterate over the values in this container using {@link #valueAt(int)}
+ * with indices in the range <code>0...size()-1</code>. Values are kept in the order they were
+ * added in, except that removing a value moves the last value in its place. Iterating with
+ * descending indices allows calling {@link #removeAt(int)} on the current index.</p>
+ */
+public class LongSet implements Cloneable {
+    private long[] mValues;
+    private int[] mTable;
+    private int mSize;
+
+    /**
+     * Creates a new empty LongSet.
+     */
+    public LongSet() {
+        this(10);
+    }
+
+    /**
+     * Creates a new empty LongSet that will not require any additional memory allocation to store
+     * the specified number of values. If you supply an initial capacity of 0, the set will be
+     * initialized with a light-weight representation not requiring any additional array
+     * allocations.
+     */
+    public LongSet(int initialCapacity) {
+        if (initialCapacity == 0) {
+            mValues = ContainerHelpers.EMPTY_LONGS;
+            mTable = ContainerHelpers.EMPTY_INTS;
+        } else {
+            mValues = new long[initialCapacity];
+            mTable = new int[ContainerHelpers.hashTableSize(initialCapacity)];
+        }
+        mSize = 0;
+    }
+
+    @Override
+    public LongSet clone() {
+        LongSet clone;
+        try {
+            clone = (LongSet) super.clone();
+            clone.mValues = mValues.clone();
+            clone.mTable = mTable.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e); // Cannot happen as we implement Cloneable.
+        }
+        return clone;
+    }
+
+    /**
+     * Adds the specified value to the set.
+     * @param value the value to add.
+     * @return true if this set did not already contain the specified value.
+     */
+    public boolean add(long value) {
+        if (ContainerHelpers.indexOf(mTable, mValues, value) >= 0) {
+            return false;
+        }
+        if (mSize >= mValues.length) {
+            final int n = ContainerHelpers.growSize(mSize);
+            mValues = Arrays.copyOf(mValues, n);
+            mTable = ContainerHelpers.buildHashTable(mValues, mSize, n);
+        }
+        mValues[mSize] = value;
+        ContainerHelpers.insertIndex(mTable, ContainerHelpers.hash(value), mSize);
+        mSize++;
+        return true;
+    }
+
+    /**
+     * Adds all the values in the specified set to this set.
+     * @param other the set whose values are to be added to this set.
+     * @return true if this set changed as a result of the call.
+     */
+    public boolean addAll(@NonNull LongSet other) {
+        boolean changed = false;
+        for (int i = 0, size = other.size(); i < size; i++) {
+            changed |= add(other.valueAt(i));
+        }
+        return changed;
+    }
+
+    /**
+     * Removes the specified value from this set.
+     * @param value the value to remove.
+     * @return true if this set contained the specified value.
+     */
+    public boolean remove(long value) {
+        final int index = ContainerHelpers.indexOf(mTable, mValues, value);
+        if (index >= 0) {
+            removeAt(index);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Removes the value at the given index. The last value is moved to that index.
+     * @param index The desired index, must be between 0 and {@link #size()}-1.
+     * @throws ArrayIndexOutOfBoundsException if {@code index} is not less than {@link #size()}.
+     */
+    public void removeAt(int index) {
+        if (index >= mSize) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        final int last = mSize - 1;
+        ContainerHelpers.removeIndex(mTable, mValues, index);
+        if (index != last) {
+            ContainerHelpers.moveIndex(mTable, ContainerHelpers.hash(mValues[last]), last, index);
+            mValues[index] = mValues[last];
+        }
+        mSize = last;
+    }
+
+    /**
+     * Check whether a value exists in the set.
+     * @param value The value to search for.
+     * @return Returns true if the value exists, else false.
+     */
+    public boolean contains(long value) {
+        return ContainerHelpers.indexOf(mTable, mValues, value) >= 0;
+    }
+
+    /**
+     * Returns the index of a value in the set.
+     * @param value The value to search for.
+     * @return Returns the index of the value if it exists, else a negative integer.
+     */
+    public int indexOf(long value) {
+        return ContainerHelpers.indexOf(mTable, mValues, value);
+    }
+
+    /**
+     * Return the value at the given index in the set.
+     * @param index The desired index, must be between 0 and {@link #size()}-1.
+     * @return Returns the value stored at the given index.
+     */
+    public long valueAt(int index) {
+        return mValues[index];
+    }
+
+    /**
+     * Return the number of values in this set.
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Return true if the set contains no values.
+     */
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    /**
+     * Removes all values from this set.
+     */
+    public void clear() {
+        Arrays.fill(mTable, 0);
+        mSize = 0;
+    }
+
+    /**
+     * Returns a new array containing the values of this set, in iteration order.
+     */
+    @NonNull
+    public long[] toArray() {
+        return Arrays.copyOf(mValues, mSize);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>This implementation composes a string by iterating over its values.
+     */
+    @Override
+    public String toString() {
+        if (mSize <= 0) {
+            return "{}";
+        }
+
+        StringBuilder buffer = new StringBuilder(mSize * 8);
+        buffer.append('{');
+        for (int i = 0; i < mSize; i++) {
+            if (i > 0) {
+                buffer.append(", ");
+            }
+            buffer.append(mValues[i]);
+        }
+        buffer.append('}');
+        return buffer.toString();
+    }
+}
@@ -32,6 +32,8 @@ import java.util.Map;
  */
 public class LruCache<K, V> {
     private final LinkedHashMap<K, V> map;
+    @Nullable
+    private final EvictionPolicy<K> policy;
 
     /** Size of this cache in units. Not necessarily the number of elements. */
     private int size;
@@ -54,6 +56,29 @@ public class LruCache<K, V> {
         }
         this.maxSize = maxSize;
         this.map = new LinkedHashMap<K, V>(0, 0.75f, true);
+        this.policy = null;
+    }
+
+    /**
+     * Creates a cache that evicts the entries chosen by {@code policy} instead of the least
+     * recently used ones.
+     *
+     * @param maxSize for caches that do not override {@link #sizeOf}, this is
+     *     the maximum number of entries in the cache. For all other caches,
+     *     this is the maximum sum of the sizes of the entries in this cache.
+     * @param policy the policy selecting the entries to evict. It must not be
+     *     used by any other cache.
+     * @see WindowTinyLfuPolicy
+     */
+    public LruCache(int maxSize, @NonNull EvictionPolicy<K> policy) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+        this.maxSize = maxSize;
+        // the policy keeps track of the order, the map is only used for lookups
+        this.map = new LinkedHashMap<K, V>(0, 0.75f, false);
+        this.policy = policy;
+        policy.setMaxSize(maxSize);
     }
 
     /**
@@ -68,6 +93,9 @@ public class LruCache<K, V> {
 
         synchronized (this) {
             this.maxSize = maxSize;
+            if (policy != null) {
+                policy.setMaxSize(maxSize);
+            }
         }
         trimToSize(maxSize);
     }
@@ -87,6 +115,9 @@ public class LruCache<K, V> {
         V mapValue;
         synchronized (this) {
             mapValue = map.get(key);
+            if (policy != null) {
+                policy.recordAccess(key);
+            }
             if (mapValue != null) {
                 hitCount++;
                 return mapValue;
@@ -114,7 +145,11 @@ public class LruCache<K, V> {
                 // There was a conflict so undo that last put
                 map.put(key, mapValue);
             } else {
-                size += safeSizeOf(key, createdValue);
+                final int createdSize = safeSizeOf(key, createdValue);
+                size += createdSize;
+                if (policy != null) {
+                    policy.onAdded(key, createdSize);
+                }
             }
         }
 
@@ -142,11 +177,15 @@ public class LruCache<K, V> {
         V previous;
         synchronized (this) {
             putCount++;
-            size += safeSizeOf(key, value);
+            final int valueSize = safeSizeOf(key, value);
+            size += valueSize;
             previous = map.put(key, value);
             if (previous != null) {
                 size -= safeSizeOf(key, previous);
             }
+            if (policy != null) {
+                policy.onAdded(key, valueSize);
+            }
         }
 
         if (previous != null) {
@@ -178,9 +217,18 @@ public class LruCache<K, V> {
                     break;
                 }
 
-                Map.Entry<K, V> toEvict = map.entrySet().iterator().next();
-                key = toEvict.getKey();
-                value = toEvict.getValue();
+                if (policy != null) {
+                    key = policy.selectVictim();
+                    value = map.get(key);
+                    if (value == null) {
+                        throw new IllegalStateException(policy.getClass().getName()
+                                + ".selectVictim() returned a key that is not in the cache");
+                    }
+                } else {
+                    Map.Entry<K, V> toEvict = map.entrySet().iterator().next();
+                    key = toEvict.getKey();
+                    value = toEvict.getValue();
+                }
                 map.remove(key);
                 size -= safeSizeOf(key, value);
                 evictionCount++;
@@ -206,6 +254,9 @@ public class LruCache<K, V> {
             previous = map.remove(key);
             if (previous != null) {
                 size -= safeSizeOf(key, previous);
+                if (policy != null) {
+                    policy.onRemoved(key);
+                }
             }
         }
 
@@ -338,7 +389,8 @@ public class LruCache<K, V> {
 
     /**
      * Returns a copy of the current contents of the cache, ordered from least
-     * recently accessed to most recently accessed.
+     * recently accessed to most recently accessed. For caches created with an
+     * {@link EvictionPolicy}, the entries are in insertion order instead.
      */
     public synchronized final Map<K, V> snapshot() {
         return new LinkedHashMap<K, V>(map);
@@ -19,6 +19,7 @@ package androidx.collection;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import java.util.Arrays;
 import java.util.ConcurrentModificationException;
 import java.util.Map;
 
@@ -29,6 +30,14 @@ import java.util.Map;
  * easier to use as a drop-in replacement for HashMap.  If you don't need them, this
  * class can be preferrable since it doesn't bring in any of the implementation of those
  * APIs, allowing that code to be stripped by ProGuard.
+ *
+ * <p>Entries are kept sorted by the hash codes of their keys, which are binary searched. Once a
+ * map grows over its {@linkplain #setHashIndexThreshold hash index threshold}, adding entries in
+ * the middle of the arrays and searching them gets slow, so the map stops keeping them sorted
+ * and indexes them with an open addressing hash table instead. Entries are then appended at the
+ * end of the arrays, and removing one moves the last entry in its place. The map goes back to
+ * sorted arrays the next time an entry is added once it has shrunk to less than half the
+ * threshold.</p>
  */
 public class SimpleArrayMap<K, V> {
     private static final boolean DEBUG = false;
@@ -57,6 +66,11 @@ public class SimpleArrayMap<K, V> {
      */
     private static final int CACHE_SIZE = 10;
 
+    /**
+     * The default size above which a map indexes its entries with a hash table.
+     */
+    private static final int DEFAULT_HASH_INDEX_THRESHOLD = 1024;
+
     /**
      * Caches of small array objects to avoid spamming garbage.  The cache
      * Object[] variable is a pointer to a linked list of array objects.
@@ -72,6 +86,13 @@ public class SimpleArrayMap<K, V> {
     Object[] mArray;
     int mSize;
 
+    /**
+     * When not null, the entries are not sorted by hash and this table indexes them: each slot
+     * holds the index of an entry plus one, or 0 if empty. See ContainerHelpers.
+     */
+    @Nullable private int[] mHashIndex;
+    private int mHashIndexThreshold = DEFAULT_HASH_INDEX_THRESHOLD;
+
     private static int binarySearchHashes(int[] hashes, int N, int hash) {
         try {
             return ContainerHelpers.binarySearch(hashes, N, hash);
@@ -85,6 +106,10 @@ public class SimpleArrayMap<K, V> {
     }
 
     int indexOf(Object key, int hash) {
+        final int[] hashIndex = mHashIndex;
+        if (hashIndex != null) {
+            return indexOfIndexed(hashIndex, key, hash);
+        }
         final int N = mSize;
 
         // Important fast case: if nothing is in here, nothing to look for.
@@ -123,6 +148,10 @@ public class SimpleArrayMap<K, V> {
     }
 
     int indexOfNull() {
+        final int[] hashIndex = mHashIndex;
+        if (hashIndex != null) {
+            return indexOfIndexed(hashIndex, null, 0);
+        }
         final int N = mSize;
 
         // Important fast case: if nothing is in here, nothing to look for.
@@ -160,6 +189,65 @@ public class SimpleArrayMap<K, V> {
         return ~end;
     }
 
+    /**
+     * Looks up a key in the hash index. Returns the complement of the size of the map if it is
+     * not found, as new entries are appended at the end of the arrays.
+     */
+    private int indexOfIndexed(int[] hashIndex, @Nullable Object key, int hash) {
+        final int mask = hashIndex.length - 1;
+        int slot = ContainerHelpers.hash(hash) & mask;
+        int entry;
+        try {
+            while ((entry = hashIndex[slot]) != 0) {
+                final int index = entry - 1;
+                if (mHashes[index] == hash && ContainerHelpers.equal(key, mArray[index << 1])) {
+                    return index;
+                }
+                slot = (slot + 1) & mask;
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            if (CONCURRENT_MODIFICATION_EXCEPTIONS) {
+                throw new ConcurrentModificationException();
+            } else {
+                throw e;
+            }
+        }
+        return ~mSize;
+    }
+
+    /**
+     * Switches to an unsorted layout indexed by a hash table, if the map grew over the threshold,
+     * or back to sorted arrays if it shrank to less than half of it.
+     */
+    private void updateHashIndex() {
+        if (mHashIndex == null) {
+            if (mSize > mHashIndexThreshold) {
+                if (DEBUG) System.out.println(TAG + " indexing " + mSize + " entries");
+                mHashIndex = ContainerHelpers.buildHashTable(mHashes, mSize, mHashes.length);
+            }
+        } else if (mSize < mHashIndexThreshold / 2) {
+            if (DEBUG) System.out.println(TAG + " sorting " + mSize + " entries");
+            final int osize = mSize;
+            final long[] order = new long[osize];
+            for (int i = 0; i < osize; i++) {
+                // the hash in the high bits sorts by hash, the index in the low bits is kept
+                order[i] = ((long) mHashes[i] << 32) | i;
+            }
+            Arrays.sort(order);
+            final int[] ohashes = mHashes;
+            final Object[] oarray = mArray;
+            allocArrays(ohashes.length);
+            for (int i = 0; i < osize; i++) {
+                final int from = (int) order[i];
+                mHashes[i] = ohashes[from];
+                mArray[i << 1] = oarray[from << 1];
+                mArray[(i << 1) + 1] = oarray[(from << 1) + 1];
+            }
+            mHashIndex = null;
+            freeArrays(ohashes, oarray, osize);
+        }
+    }
+
     @SuppressWarnings("ArrayToString")
     private void allocArrays(final int size) {
         if (size == (BASE_SIZE*2)) {
@@ -263,6 +351,25 @@ public class SimpleArrayMap<K, V> {
         }
     }
 
+    /**
+     * Sets the size above which this map stops keeping its entries sorted by hash code and
+     * indexes them with a hash table instead, making lookups, insertions and removals take
+     * constant time on average. The map goes back to sorted arrays once it has shrunk to less
+     * than half the threshold. The default is 1024.
+     * <p>
+     * Use {@link Integer#MAX_VALUE} to never index the entries, or 0 to always do. Like adding an
+     * entry, this may move all the entries, so it must not be called while iterating.
+     *
+     * @param threshold The size above which entries are indexed by a hash table.
+     */
+    public void setHashIndexThreshold(int threshold) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException("threshold must not be negative: " + threshold);
+        }
+        mHashIndexThreshold = threshold;
+        updateHashIndex();
+    }
+
     /**
      * Make the array map empty.  All storage is released.
      */
@@ -273,6 +380,7 @@ public class SimpleArrayMap<K, V> {
             final int osize = mSize;
             mHashes = ContainerHelpers.EMPTY_INTS;
             mArray = ContainerHelpers.EMPTY_OBJECTS;
+            mHashIndex = null;
             mSize = 0;
             freeArrays(ohashes, oarray, osize);
         }
@@ -295,6 +403,9 @@ public class SimpleArrayMap<K, V> {
                 System.arraycopy(ohashes, 0, mHashes, 0, osize);
                 System.arraycopy(oarray, 0, mArray, 0, osize<<1);
             }
+            if (mHashIndex != null) {
+                mHashIndex = ContainerHelpers.buildHashTable(mHashes, osize, mHashes.length);
+            }
             freeArrays(ohashes, oarray, osize);
         }
         if (CONCURRENT_MODIFICATION_EXCEPTIONS && mSize != osize) {
@@ -429,6 +540,11 @@ public class SimpleArrayMap<K, V> {
      */
     @Nullable
     public V put(K key, V value) {
+        if (mHashIndex != null) {
+            // shrunk enough to go back to sorted arrays, done here rather than in removeAt() so
+            // that removing entries while iterating never reorders them
+            updateHashIndex();
+        }
         final int osize = mSize;
         final int hash;
         int index;
@@ -466,6 +582,9 @@ public class SimpleArrayMap<K, V> {
                 System.arraycopy(ohashes, 0, mHashes, 0, ohashes.length);
                 System.arraycopy(oarray, 0, mArray, 0, oarray.length);
             }
+            if (mHashIndex != null) {
+                mHashIndex = ContainerHelpers.buildHashTable(mHashes, osize, mHashes.length);
+            }
 
             freeArrays(ohashes, oarray, osize);
         }
@@ -487,6 +606,12 @@ public class SimpleArrayMap<K, V> {
         mArray[index<<1] = key;
         mArray[(index<<1)+1] = value;
         mSize++;
+        final int[] hashIndex = mHashIndex;
+        if (hashIndex != null) {
+            ContainerHelpers.insertIndex(hashIndex, ContainerHelpers.hash(hash), index);
+        } else if (mSize > mHashIndexThreshold) {
+            updateHashIndex();
+        }
         return null;
     }
 
@@ -497,11 +622,12 @@ public class SimpleArrayMap<K, V> {
     public void putAll(@NonNull SimpleArrayMap<? extends K, ? extends V> array) {
         final int N = array.mSize;
         ensureCapacity(mSize + N);
-        if (mSize == 0) {
+        if (mSize == 0 && array.mHashIndex == null) {
             if (N > 0) {
                 System.arraycopy(array.mHashes, 0, mHashes, 0, N);
                 System.arraycopy(array.mArray, 0, mArray, 0, N<<1);
                 mSize = N;
+                updateHashIndex();
             }
         } else {
             for (int i=0; i<N; i++) {
@@ -576,7 +702,11 @@ public class SimpleArrayMap<K, V> {
             freeArrays(mHashes, mArray, osize);
             mHashes = ContainerHelpers.EMPTY_INTS;
             mArray = ContainerHelpers.EMPTY_OBJECTS;
+            mHashIndex = null;
             nsize = 0;
+        } else if (mHashIndex != null) {
+            nsize = osize - 1;
+            removeIndexedAt(mHashIndex, index, nsize);
         } else {
             nsize = osize - 1;
             if (mHashes.length > (BASE_SIZE*2) && mSize < mHashes.length/3) {
@@ -626,6 +756,38 @@ public class SimpleArrayMap<K, V> {
         return (V)old;
     }
 
+    /**
+     * Removes the entry at {@code index} from the hash index and moves the last entry, at
+     * {@code last}, in its place.
+     */
+    private void removeIndexedAt(int[] hashIndex, int index, int last) {
+        ContainerHelpers.removeIndex(hashIndex, mHashes, index);
+        if (index < last) {
+            if (DEBUG) System.out.println(TAG + " remove: move " + last + " to " + index);
+            ContainerHelpers.moveIndex(hashIndex, ContainerHelpers.hash(mHashes[last]), last,
+                    index);
+            mHashes[index] = mHashes[last];
+            mArray[index << 1] = mArray[last << 1];
+            mArray[(index << 1) + 1] = mArray[(last << 1) + 1];
+        }
+        mArray[last << 1] = null;
+        mArray[(last << 1) + 1] = null;
+
+        if (mHashes.length > (BASE_SIZE*2) && last < mHashes.length/3) {
+            final int n = last > (BASE_SIZE*2) ? (last + (last>>1)) : (BASE_SIZE*2);
+
+            if (DEBUG) System.out.println(TAG + " remove: shrink from " + mHashes.length + " to " + n);
+
+            final int[] ohashes = mHashes;
+            final Object[] oarray = mArray;
+            allocArrays(n);
+            System.arraycopy(ohashes, 0, mHashes, 0, last);
+            System.arraycopy(oarray, 0, mArray, 0, last << 1);
+            mHashIndex = ContainerHelpers.buildHashTable(mHashes, last, n);
+            freeArrays(ohashes, oarray, last);
+        }
+    }
+
     /**
      * Replace the mapping for {@code key} only if it is already mapped to a value.
      * @param key The key of the mapping to replace.
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An {@link EvictionPolicy} that only keeps new entries if they are accessed more often than the
+ * entries they would replace, so that one-off scans do not flush frequently used entries.
+ * <p>
+ * New entries go to a small admission window, 1% of the cache, kept in least recently used
+ * order. Entries leaving the window move to the main area as long as it has room. Once the
+ * cache is full, the oldest entry of the window and the least recently used entry of the main
+ * area compete: the one accessed less often recently is evicted. The main area is split into a
+ * probation segment and a protected segment, 80% of the main area, holding the entries accessed
+ * again after entering the main area.
+ * <p>
+ * Access frequencies are estimated with a count-min sketch, which is aged periodically by
+ * halving all counts.
+ *
+ * @param <K> The type of the keys of the cache.
+ */
+public final class WindowTinyLfuPolicy<K> implements EvictionPolicy<K> {
+    private static final int WINDOW_PERCENT = 1;
+    private static final int PROTECTED_PERCENT = 80;
+    // the sketch is sized up front for at most that many entries, and grows with the number of
+    // entries beyond it. Weighted caches may hold far fewer entries than their maximum size.
+    private static final int INITIAL_SKETCH_CAPACITY = 1024;
+
+    private final FrequencySketch mSketch = new FrequencySketch();
+    // the sizes of the entries of each area, from the least to the most recently used
+    private final LinkedHashMap<K, Integer> mWindow = new LinkedHashMap<>();
+    private final LinkedHashMap<K, Integer> mProbation = new LinkedHashMap<>();
+    private final LinkedHashMap<K, Integer> mProtected = new LinkedHashMap<>();
+    private int mWindowSize;
+    private int mProbationSize;
+    private int mProtectedSize;
+    private int mMaxWindowSize;
+    private int mMaxMainSize;
+    private int mMaxProtectedSize;
+
+    @Override
+    public void setMaxSize(int maxSize) {
+        mMaxWindowSize = Math.max(1, (int) ((long) maxSize * WINDOW_PERCENT / 100));
+        mMaxMainSize = Math.max(0, maxSize - mMaxWindowSize);
+        mMaxProtectedSize = (int) ((long) mMaxMainSize * PROTECTED_PERCENT / 100);
+        mSketch.ensureCapacity(Math.min(maxSize, INITIAL_SKETCH_CAPACITY));
+        demoteProtected();
+    }
+
+    @Override
+    public void recordAccess(@NonNull K key) {
+        mSketch.increment(key);
+        Integer size = mWindow.remove(key);
+        if (size != null) {
+            mWindow.put(key, size);
+            return;
+        }
+        size = mProbation.remove(key);
+        if (size != null) {
+            // accessed again while on probation, protect it
+            mProbationSize -= size;
+            mProtected.put(key, size);
+            mProtectedSize += size;
+            demoteProtected();
+            return;
+        }
+        size = mProtected.remove(key);
+        if (size != null) {
+            mProtected.put(key, size);
+        }
+    }
+
+    @Override
+    public void onAdded(@NonNull K key, int size) {
+        onRemoved(key);
+        mSketch.increment(key);
+        mWindow.put(key, size);
+        mWindowSize += size;
+        mSketch.ensureCapacity(mWindow.size() + mProbation.size() + mProtected.size());
+        // move the entries leaving the window to the main area while it is not full
+        final Iterator<Map.Entry<K, Integer>> iterator = mWindow.entrySet().iterator();
+        while (mWindowSize > mMaxWindowSize && iterator.hasNext()) {
+            final Map.Entry<K, Integer> eldest = iterator.next();
+            final K eldestKey = eldest.getKey();
+            final int eldestSize = eldest.getValue();
+            if (mProbationSize + mProtectedSize + eldestSize > mMaxMainSize) {
+                break;
+            }
+            iterator.remove();
+            mWindowSize -= eldestSize;
+            mProbation.put(eldestKey, eldestSize);
+            mProbationSize += eldestSize;
+        }
+    }
+
+    @Override
+    public void onRemoved(@NonNull K key) {
+        Integer size = mWindow.remove(key);
+        if (size != null) {
+            mWindowSize -= size;
+            return;
+        }
+        size = mProbation.remove(key);
+        if (size != null) {
+            mProbationSize -= size;
+            return;
+        }
+        size = mProtected.remove(key);
+        if (size != null) {
+            mProtectedSize -= size;
+        }
+    }
+
+    @NonNull
+    @Override
+    public K selectVictim() {
+        Map.Entry<K, Integer> mainVictim = eldest(mProbation);
+        if (mainVictim == null) {
+            mainVictim = eldest(mProtected);
+        }
+        final Map.Entry<K, Integer> candidate = eldest(mWindow);
+        if (candidate == null || (mainVictim != null && mWindowSize <= mMaxWindowSize)) {
+            // the window is within its size, evict from the main area
+            if (mainVictim == null) {
+                throw new IllegalStateException("selectVictim() called on an empty cache");
+            }
+            return removeFromMain(mainVictim);
+        }
+        final K key = candidate.getKey();
+        final int size = candidate.getValue();
+        if (mainVictim == null
+                || mSketch.frequency(key) <= mSketch.frequency(mainVictim.getKey())) {
+            // not admitted
+            mWindow.remove(key);
+            mWindowSize -= size;
+            return key;
+        }
+        // admit the candidate to the main area in place of the victim
+        final K victim = removeFromMain(mainVictim);
+        mWindow.remove(key);
+        mWindowSize -= size;
+        mProbation.put(key, size);
+        mProbationSize += size;
+        return victim;
+    }
+
+    private K removeFromMain(Map.Entry<K, Integer> entry) {
+        final K key = entry.getKey();
+        final int size = entry.getValue();
+        if (mProbation.remove(key) != null) {
+            mProbationSize -= size;
+        } else {
+            mProtected.remove(key);
+            mProtectedSize -= size;
+        }
+        return key;
+    }
+
+    private void demoteProtected() {
+        final Iterator<Map.Entry<K, Integer>> iterator = mProtected.entrySet().iterator();
+        while (mProtectedSize > mMaxProtectedSize && iterator.hasNext()) {
+            final Map.Entry<K, Integer> eldest = iterator.next();
+            final K key = eldest.getKey();
+            final int size = eldest.getValue();
+            iterator.remove();
+            mProtectedSize -= size;
+            mProbation.put(key, size);
+            mProbationSize += size;
+        }
+    }
+
+    @Nullable
+    private static <K> Map.Entry<K, Integer> eldest(LinkedHashMap<K, Integer> area) {
+        return area.isEmpty() ? null : area.entrySet().iterator().next();
+    }
+}
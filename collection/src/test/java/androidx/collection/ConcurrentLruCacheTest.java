@@ -0,0 +1,174 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(JUnit4.class)
+public class ConcurrentLruCacheTest {
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<>(3);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.put("c", "C");
+        assertEquals("A", cache.get("a"));
+        cache.put("d", "D");
+
+        assertEquals(Arrays.asList("c", "a", "d"), new ArrayList<>(cache.snapshot().keySet()));
+        assertNull(cache.get("b"));
+        assertEquals(1, cache.evictionCount());
+        assertEquals(4, cache.putCount());
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+    }
+
+    @Test
+    public void sizeOfAndEntryRemoved() {
+        final List<String> removed = new ArrayList<>();
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<String, String>(10) {
+            @Override
+            protected int sizeOf(@NonNull String key, @NonNull String value) {
+                return value.length();
+            }
+
+            @Override
+            protected void entryRemoved(boolean evicted, @NonNull String key,
+                    @NonNull String oldValue, @Nullable String newValue) {
+                removed.add(key + "=" + oldValue + (evicted ? " evicted" : ""));
+            }
+        };
+        cache.put("a", "aaaa");
+        cache.put("b", "bbbb");
+        cache.put("a", "aa");
+        assertEquals(6, cache.size());
+        cache.put("c", "cccccc");
+
+        assertEquals(Arrays.asList("a=aaaa", "b=bbbb evicted"), removed);
+        assertEquals(8, cache.size());
+        assertEquals("cccccc", cache.remove("c"));
+        assertEquals(2, cache.size());
+        cache.evictAll();
+        assertEquals(0, cache.size());
+        assertEquals(Arrays.asList("a=aaaa", "b=bbbb evicted", "c=cccccc", "a=aa evicted"),
+                removed);
+    }
+
+    @Test
+    public void create() {
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<String, String>(2) {
+            @Override
+            protected String create(@NonNull String key) {
+                return key.equals("none") ? null : key.toUpperCase();
+            }
+        };
+        assertEquals("A", cache.get("a"));
+        assertEquals("A", cache.get("a"));
+        assertNull(cache.get("none"));
+
+        assertEquals(1, cache.createCount());
+        assertEquals(1, cache.hitCount());
+        assertEquals(2, cache.missCount());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void resize() {
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<>(3);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.put("c", "C");
+        cache.resize(1);
+        assertEquals(1, cache.maxSize());
+        assertEquals(Arrays.asList("c"), new ArrayList<>(cache.snapshot().keySet()));
+    }
+
+    @Test
+    public void frequentlyReadEntriesSurvive() {
+        ConcurrentLruCache<Integer, Integer> cache = new ConcurrentLruCache<>(10);
+        cache.put(0, 0);
+        for (int i = 1; i < 100; i++) {
+            // more reads than a read buffer holds
+            for (int j = 0; j < 20; j++) {
+                cache.get(0);
+            }
+            cache.put(i, i);
+        }
+        assertEquals(0, (int) cache.get(0));
+    }
+
+    @Test
+    public void concurrentAccess() throws InterruptedException {
+        final int threadCount = 8;
+        final ConcurrentLruCache<Integer, Integer> cache =
+                new ConcurrentLruCache<Integer, Integer>(64) {
+                    @Override
+                    protected Integer create(@NonNull Integer key) {
+                        return key;
+                    }
+                };
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicInteger failures = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            final int seed = t;
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int i = 0; i < 10000; i++) {
+                            int key = (i * 31 + seed) % 128;
+                            if (i % 10 == 0) {
+                                cache.remove(key);
+                            } else if (!Integer.valueOf(key).equals(cache.get(key))) {
+                                failures.incrementAndGet();
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        failures.incrementAndGet();
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, failures.get());
+        assertTrue(cache.size() <= 64);
+        assertEquals(cache.size(), cache.snapshot().size());
+        assertEquals(threadCount * 9000, cache.hitCount() + cache.missCount());
+    }
+}
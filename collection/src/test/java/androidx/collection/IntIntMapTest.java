@@ -0,0 +1,150 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+@RunWith(JUnit4.class)
+public class IntIntMapTest {
+    @Test
+    public void putGetRemove() {
+        IntIntMap map = new IntIntMap(0);
+        map.put(0, 0);
+        map.put(-1, -3);
+        map.put(42, 126);
+        assertEquals(3, map.size());
+        assertEquals(0, map.get(0));
+        assertEquals(-3, map.get(-1));
+        assertEquals(0, map.get(7));
+        assertEquals(21, map.get(7, 21));
+        assertFalse(map.containsKey(7));
+
+        map.put(0, 3);
+        assertEquals(3, map.size());
+        assertEquals(3, map.get(0));
+
+        map.remove(-1);
+        map.remove(7);
+        assertEquals(2, map.size());
+        assertFalse(map.containsKey(-1));
+        assertTrue(map.containsKey(42));
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertFalse(map.containsKey(0));
+    }
+
+    @Test
+    public void iteratesInInsertionOrder() {
+        IntIntMap map = new IntIntMap();
+        for (int key = 100; key > 0; key -= 10) {
+            map.put(key, key * 3);
+        }
+        map.put(50, 0);
+        for (int i = 0; i < map.size(); i++) {
+            assertEquals(100 - i * 10, map.keyAt(i));
+        }
+        assertEquals(5, map.indexOfKey(50));
+        assertEquals(0, map.valueAt(5));
+
+        IntIntMap small = new IntIntMap();
+        small.put(3, 9);
+        small.put(1, 3);
+        assertEquals("{3=9, 1=3}", small.toString());
+    }
+
+    @Test
+    public void removeWhileIteratingBackwards() {
+        IntIntMap map = new IntIntMap();
+        for (int key = 0; key < 100; key++) {
+            map.put(key, key * 3);
+        }
+        for (int i = map.size() - 1; i >= 0; i--) {
+            if (map.keyAt(i) % 3 == 0) {
+                map.removeAt(i);
+            }
+        }
+        assertEquals(66, map.size());
+        for (int key = 0; key < 100; key++) {
+            assertEquals(key % 3 != 0, map.containsKey(key));
+        }
+    }
+
+    @Test
+    public void cloneIsIndependent() {
+        IntIntMap map = new IntIntMap();
+        map.put(1, 3);
+        IntIntMap clone = map.clone();
+        clone.put(2, 6);
+        map.remove(1);
+        assertEquals(0, map.size());
+        assertEquals(2, clone.size());
+        assertEquals(3, clone.get(1));
+    }
+
+    @Test
+    public void matchesHashMap() {
+        Random random = new Random(0);
+        IntIntMap map = new IntIntMap();
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 100000; i++) {
+            int key = random.nextInt(2000) - 1000;
+            if (random.nextInt(3) == 0) {
+                map.remove(key);
+                expected.remove(key);
+            } else {
+                map.put(key, i * 3);
+                expected.put(key, i * 3);
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (int i = 0; i < map.size(); i++) {
+            Integer value = Integer.valueOf(map.valueAt(i));
+            assertEquals(expected.get(map.keyAt(i)), value);
+        }
+        for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+            Integer value = Integer.valueOf(map.get(entry.getKey()));
+            assertEquals(entry.getValue(), value);
+        }
+    }
+
+    @Test(expected = ArrayIndexOutOfBoundsException.class, timeout = 1000)
+    public void removeAtOutOfRangeThrows() {
+        IntIntMap map = new IntIntMap();
+        map.put(1, 1);
+        map.removeAt(3);
+    }
+
+    @Test(expected = ArrayIndexOutOfBoundsException.class, timeout = 1000)
+    public void removeAtAfterClearThrows() {
+        IntIntMap map = new IntIntMap();
+        map.put(1, 1);
+        map.put(2, 2);
+        map.clear();
+        map.removeAt(0);
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+@RunWith(JUnit4.class)
+public class IntObjectMapTest {
+    @Test
+    public void putGetRemove() {
+        IntObjectMap<String> map = new IntObjectMap<>(0);
+        map.put(0, "0");
+        map.put(-1, "-1");
+        map.put(42, "42");
+        assertEquals(3, map.size());
+        assertEquals("0", map.get(0));
+        assertEquals("-1", map.get(-1));
+        assertNull(map.get(7));
+        assertEquals("7", map.get(7, "7"));
+        assertFalse(map.containsKey(7));
+
+        map.put(0, "1");
+        assertEquals(3, map.size());
+        assertEquals("1", map.get(0));
+
+        map.remove(-1);
+        map.remove(7);
+        assertEquals(2, map.size());
+        assertFalse(map.containsKey(-1));
+        assertTrue(map.containsKey(42));
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertFalse(map.containsKey(0));
+    }
+
+    @Test
+    public void iteratesInInsertionOrder() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        for (int key = 100; key > 0; key -= 10) {
+            map.put(key, String.valueOf(key));
+        }
+        map.put(50, "0");
+        for (int i = 0; i < map.size(); i++) {
+            assertEquals(100 - i * 10, map.keyAt(i));
+        }
+        assertEquals(5, map.indexOfKey(50));
+        assertEquals("0", map.valueAt(5));
+
+        IntObjectMap<String> small = new IntObjectMap<>();
+        small.put(3, "3");
+        small.put(1, "1");
+        assertEquals("{3=3, 1=1}", small.toString());
+    }
+
+    @Test
+    public void removeWhileIteratingBackwards() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        for (int key = 0; key < 100; key++) {
+            map.put(key, String.valueOf(key));
+        }
+        for (int i = map.size() - 1; i >= 0; i--) {
+            if (map.keyAt(i) % 3 == 0) {
+                map.removeAt(i);
+            }
+        }
+        assertEquals(66, map.size());
+        for (int key = 0; key < 100; key++) {
+            assertEquals(key % 3 != 0, map.containsKey(key));
+        }
+    }
+
+    @Test
+    public void cloneIsIndependent() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        map.put(1, "1");
+        IntObjectMap<String> clone = map.clone();
+        clone.put(2, "2");
+        map.remove(1);
+        assertEquals(0, map.size());
+        assertEquals(2, clone.size());
+        assertEquals("1", clone.get(1));
+    }
+
+    @Test
+    public void matchesHashMap() {
+        Random random = new Random(0);
+        IntObjectMap<String> map = new IntObjectMap<>();
+        Map<Integer, String> expected = new HashMap<>();
+        for (int i = 0; i < 100000; i++) {
+            int key = random.nextInt(2000) - 1000;
+            if (random.nextInt(3) == 0) {
+                map.remove(key);
+                expected.remove(key);
+            } else {
+                map.put(key, String.valueOf(i));
+                expected.put(key, String.valueOf(i));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (int i = 0; i < map.size(); i++) {
+            String value = map.valueAt(i);
+            assertEquals(expected.get(map.keyAt(i)), value);
+        }
+        for (Map.Entry<Integer, String> entry : expected.entrySet()) {
+            String value = map.get(entry.getKey());
+            assertEquals(entry.getValue(), value);
+        }
+    }
+
+    @Test(expected = ArrayIndexOutOfBoundsException.class, timeout = 1000)
+    public void removeAtOutOfRangeThrows() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        map.put(1, "one");
+        map.removeAt(3);
+    }
+
+    @Test(expected = ArrayIndexOutOfBoundsException.class, timeout = 1000)
+    public void removeAtAfterClearThrows() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        map.put(1, "one");
+        map.put(2, "two");
+        map.clear();
+        map.removeAt(0);
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+@RunWith(JUnit4.class)
+public class IntSetTest {
+    @Test
+    public void addContainsRemove() {
+        IntSet set = new IntSet(0);
+        assertTrue(set.add(0));
+        assertTrue(set.add(-1));
+        assertFalse(set.add(0));
+        assertEquals(2, set.size());
+        assertTrue(set.contains(0));
+        assertFalse(set.contains(1));
+        assertTrue(set.remove(0));
+        assertFalse(set.remove(0));
+        assertArrayEquals(new int[] {-1}, set.toArray());
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertEquals("{}", set.toString());
+    }
+
+    @Test
+    public void removeAtMovesLastValue() {
+        IntSet set = new IntSet();
+        for (int value = 1; value <= 4; value++) {
+            set.add(value);
+        }
+        set.removeAt(1);
+        assertEquals("{1, 4, 3}", set.toString());
+        assertEquals(1, set.indexOf(4));
+        assertEquals(-1, set.indexOf(2));
+    }
+
+    @Test
+    public void matchesHashSet() {
+        Random random = new Random(0);
+        IntSet set = new IntSet();
+        IntSet other = new IntSet();
+        Set<Integer> expected = new HashSet<>();
+        for (int i = 0; i < 100000; i++) {
+            int value = random.nextInt(2000) - 1000;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), set.remove(value));
+            } else if (random.nextInt(10) == 0) {
+                other.add(value);
+            } else {
+                assertEquals(expected.add(value), set.add(value));
+            }
+        }
+        for (int i = 0; i < other.size(); i++) {
+            expected.add(other.valueAt(i));
+        }
+        set.addAll(other);
+        assertEquals(expected.size(), set.size());
+        for (int value : set.toArray()) {
+            assertTrue(expected.contains(value));
+        }
+    }
+
+    @Test(expected = ArrayIndexOutOfBoundsException.class, timeout = 1000)
+    public void removeAtOutOfRangeThrows() {
+        IntSet set = new IntSet();
+        set.add(1);
+        set.removeAt(3);
+    }
+
+    @Test(expected = ArrayIndexOutOfBoundsException.class, timeout = 1000)
+    public void removeAtAfterClearThrows() {
+        IntSet set = new IntSet();
+        set.add(1);
+        set.add(2);
+        set.clear();
+        set.removeAt(0);
+    }
+}
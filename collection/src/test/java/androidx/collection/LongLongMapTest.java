@@ -0,0 +1,150 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+@RunWith(JUnit4.class)
+public class LongLongMapTest {
+    @Test
+    public void putGetRemove() {
+        LongLongMap map = new LongLongMap(0);
+        map.put(0L, 0L);
+        map.put(-1L, -3L);
+        map.put(42L, 126L);
+        assertEquals(3, map.size());
+        assertEquals(0L, map.get(0L));
+        assertEquals(-3L, map.get(-1L));
+        assertEquals(0, map.get(7L));
+        assertEquals(21L, map.get(7L, 21L));
+        assertFalse(map.containsKey(7L));
+
+        map.put(0L, 3L);
+        assertEquals(3, map.size());
+        assertEquals(3L, map.get(0L));
+
+        map.remove(-1L);
+        map.remove(7L);
+        assertEquals(2, map.size());
+        assertFalse(map.containsKey(-1L));
+        assertTrue(map.containsKey(42L));
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertFalse(map.containsKey(0L));
+    }
+
+    @Test
+    public void iteratesInInsertionOrder() {
+        LongLongMap map = new LongLongMap();
+        for (long key = 100; key > 0; key -= 10) {
+            map.put(key, key * 3L);
+        }
+        map.put(50L, 0L);
+        for (int i = 0; i < map.size(); i++) {
+            assertEquals(100 - i * 10, map.keyAt(i));
+        }
+        assertEquals(5, map.indexOfKey(50L));
+        assertEquals(0L, map.valueAt(5));
+
+        LongLongMap small = new LongLongMap();
+        small.put(3L, 9L);
+        small.put(1L, 3L);
+        assertEquals("{3=9, 1=3}", small.toString());
+    }
+
+    @Test
+    public void removeWhileIteratingBackwards() {
+        LongLongMap map = new LongLongMap();
+        for (long key = 0; key < 100; key++) {
+            map.put(key, key * 3L);
+        }
+        for (int i = map.size() - 1; i >= 0; i--) {
+            if (map.keyAt(i) % 3 == 0) {
+                map.removeAt(i);
+            }
+        }
+        assertEquals(66, map.size());
+        for (long key = 0; key < 100; key++) {
+            assertEquals(key % 3 != 0, map.containsKey(key));
+        }
+    }
+
+    @Test
+    public void cloneIsIndependent() {
+        LongLongMap map = new LongLongMap();
+        map.put(1L, 3L);
+        LongLongMap clone = map.clone();
+        clone.put(2L, 6L);
+        map.remove(1L);
+        assertEquals(0, map.size());
+        assertEquals(2, clone.size());
+        assertEquals(3L, clone.get(1L));
+    }
+
+    @Test
+    public void matchesHashMap() {
+        Random random = new Random(0);
+        LongLongMap map = new LongLongMap();
+        Map<Long, Long> expected = new HashMap<>();
+        for (int i = 0; i < 100000; i++) {
+            long key = (random.nextInt(2000) - 1000) * 0x100000001L;
+            if (random.nextInt(3) == 0) {
+                map.remove(key);
+                expected.remove(key);
+            } else {
+                map.put(key, i * 3L);
+                expected.put(key, i * 3L);
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (int i = 0; i < map.size(); i++) {
+            Long value = Long.valueOf(map.valueAt(i));
+            assertEquals(expected.get(map.keyAt(i)), value);
+        }
+        for (Map.Entry<Long, Long> entry : expected.entrySet()) {
+            Long value = Long.valueOf(map.get(entry.getKey()));
+            assertEquals(entry.getValue(), value);
+        }
+    }
+
+    @Test(expected = ArrayIndexOutOfBoundsException.class, timeout = 1000)
+    public void removeAtOutOfRangeThrows() {
+        LongLongMap map = new LongLongMap();
+        map.put(1L, 1L);
+        map.removeAt(3);
+    }
+
+    @Test(expected = ArrayIndexOutOfBoundsException.class, timeout = 1000)
+    public void removeAtAfterClearThrows() {
+        LongLongMap map = new LongLongMap();
+        map.put(1L, 1L);
+        map.put(2L, 2L);
+        map.clear();
+        map.removeAt(0);
+    }
+}
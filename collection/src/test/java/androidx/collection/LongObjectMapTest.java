@@ -0,0 +1,151 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+@RunWith(JUnit4.class)
+public class LongObjectMapTest {
+    @Test
+    public void putGetRemove() {
+        LongObjectMap<String> map = new LongObjectMap<>(0);
+        map.put(0L, "0");
+        map.put(-1L, "-1");
+        map.put(42L, "42");
+        assertEquals(3, map.size());
+        assertEquals("0", map.get(0L));
+        assertEquals("-1", map.get(-1L));
+        assertNull(map.get(7L));
+        assertEquals("7", map.get(7L, "7"));
+        assertFalse(map.containsKey(7L));
+
+        map.put(0L, "1");
+        assertEquals(3, map.size());
+        assertEquals("1", map.get(0L));
+
+        map.remove(-1L);
+        map.remove(7L);
+        assertEquals(2, map.size());
+        assertFalse(map.containsKey(-1L));
+        assertTrue(map.containsKey(42L));
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertFalse(map.containsKey(0L));
+    }
+
+    @Test
+    public void iteratesInInsertionOrder() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        for (long key = 100; key > 0; key -= 10) {
+            map.put(key, String.valueOf(key));
+        }
+        map.put(50L, "0");
+        for (int i = 0; i < map.size(); i++) {
+            assertEquals(100 - i * 10, map.keyAt(i));
+        }
+        assertEquals(5, map.indexOfKey(50L));
+        assertEquals("0", map.valueAt(5));
+
+        LongObjectMap<String> small = new LongObjectMap<>();
+        small.put(3L, "3");
+        small.put(1L, "1");
+        assertEquals("{3=3, 1=1}", small.toString());
+    }
+
+    @Test
+    public void removeWhileIteratingBackwards() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        for (long key = 0; key < 100; key++) {
+            map.put(key, String.valueOf(key));
+        }
+        for (int i = map.size() - 1; i >= 0; i--) {
+            if (map.keyAt(i) % 3 == 0) {
+                map.removeAt(i);
+            }
+        }
+        assertEquals(66, map.size());
+        for (long key = 0; key < 100; key++) {
+            assertEquals(key % 3 != 0, map.containsKey(key));
+        }
+    }
+
+    @Test
+    public void cloneIsIndependent() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        map.put(1L, "1");
+        LongObjectMap<String> clone = map.clone();
+        clone.put(2L, "2");
+        map.remove(1L);
+        assertEquals(0, map.size());
+        assertEquals(2, clone.size());
+        assertEquals("1", clone.get(1L));
+    }
+
+    @Test
+    public void matchesHashMap() {
+        Random random = new Random(0);
+        LongObjectMap<String> map = new LongObjectMap<>();
+        Map<Long, String> expected = new HashMap<>();
+        for (int i = 0; i < 100000; i++) {
+            long key = (random.nextInt(2000) - 1000) * 0x100000001L;
+            if (random.nextInt(3) == 0) {
+                map.remove(key);
+                expected.remove(key);
+            } else {
+                map.put(key, String.valueOf(i));
+                expected.put(key, String.valueOf(i));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (int i = 0; i < map.size(); i++) {
+            String value = map.valueAt(i);
+            assertEquals(expected.get(map.keyAt(i)), value);
+        }
+        for (Map.Entry<Long, String> entry : expected.entrySet()) {
+            String value = map.get(entry.getKey());
+            assertEquals(entry.getValue(), value);
+        }
+    }
+
+    @Test(expected = ArrayIndexOutOfBoundsException.class, timeout = 1000)
+    public void removeAtOutOfRangeThrows() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        map.put(1L, "one");
+        map.removeAt(3);
+    }
+
+    @Test(expected = ArrayIndexOutOfBoundsException.class, timeout = 1000)
+    public void removeAtAfterClearThrows() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        map.put(1L, "one");
+        map.put(2L, "two");
+        map.clear();
+        map.removeAt(0);
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+@RunWith(JUnit4.class)
+public class LongSetTest {
+    @Test
+    public void addContainsRemove() {
+        LongSet set = new LongSet(0);
+        assertTrue(set.add(0L));
+        assertTrue(set.add(-1L));
+        assertFalse(set.add(0L));
+        assertEquals(2, set.size());
+        assertTrue(set.contains(0L));
+        assertFalse(set.contains(1L));
+        assertTrue(set.remove(0L));
+        assertFalse(set.remove(0L));
+        assertArrayEquals(new long[] {-1}, set.toArray());
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertEquals("{}", set.toString());
+    }
+
+    @Test
+    public void removeAtMovesLastValue() {
+        LongSet set = new LongSet();
+        for (long value = 1; value <= 4; value++) {
+            set.add(value);
+        }
+        set.removeAt(1);
+        assertEquals("{1, 4, 3}", set.toString());
+        assertEquals(1, set.indexOf(4L));
+        assertEquals(-1, set.indexOf(2L));
+    }
+
+    @Test
+    public void matchesHashSet() {
+        Random random = new Random(0);
+        LongSet set = new LongSet();
+        LongSet other = new LongSet();
+        Set<Long> expected = new HashSet<>();
+        for (int i = 0; i < 100000; i++) {
+            long value = (random.nextInt(2000) - 1000) * 0x100000001L;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), set.remove(value));
+            } else if (random.nextInt(10) == 0) {
+                other.add(value);
+            } else {
+                assertEquals(expected.add(value), set.add(value));
+            }
+        }
+        for (int i = 0; i < other.size(); i++) {
+            expected.add(other.valueAt(i));
+        }
+        set.addAll(other);
+        assertEquals(expected.size(), set.size());
+        for (long value : set.toArray()) {
+            assertTrue(expected.contains(value));
+        }
+    }
+
+    @Test(expected = ArrayIndexOutOfBoundsException.class, timeout = 1000)
+    public void removeAtOutOfRangeThrows() {
+        LongSet set = new LongSet();
+        set.add(1L);
+        set.removeAt(3);
+    }
+
+    @Test(expected = ArrayIndexOutOfBoundsException.class, timeout = 1000)
+    public void removeAtAfterClearThrows() {
+        LongSet set = new LongSet();
+        set.add(1L);
+        set.add(2L);
+        set.clear();
+        set.removeAt(0);
+    }
+}
@@ -27,7 +27,11 @@ import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
 import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 @RunWith(JUnit4.class)
@@ -252,6 +256,78 @@ public class SimpleArrayMapTest {
         done.set(true);
     }
 
+    @Test
+    public void hashIndexedMatchesHashMap() {
+        Random random = new Random(0);
+        SimpleArrayMap<Integer, String> map = new SimpleArrayMap<>();
+        map.setHashIndexThreshold(64);
+        Map<Integer, String> expected = new HashMap<>();
+        for (int i = 0; i < 100000; i++) {
+            // keys sharing hash codes modulo the table size, and a null key
+            int n = random.nextInt(300);
+            Integer key = n == 0 ? null : n * 1024;
+            // grow and shrink across the threshold
+            boolean remove = random.nextInt(1000) < ((i / 20000) % 2 == 0 ? 400 : 900);
+            if (remove) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, "v" + i), map.put(key, "v" + i));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (Map.Entry<Integer, String> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+        assertEquals(expected.hashCode(), map.hashCode());
+        assertTrue(map.equals(expected));
+    }
+
+    @Test
+    public void removeWhileIteratingHashIndexed() {
+        ArrayMap<String, Integer> map = new ArrayMap<>();
+        for (int i = 0; i < 3000; i++) {
+            map.put("key " + i, i);
+        }
+        Iterator<Map.Entry<String, Integer>> iterator = map.entrySet().iterator();
+        int count = 0;
+        while (iterator.hasNext()) {
+            Map.Entry<String, Integer> entry = iterator.next();
+            count++;
+            if (entry.getValue() % 2 == 0) {
+                iterator.remove();
+            }
+        }
+        assertEquals(3000, count);
+        assertEquals(1500, map.size());
+        for (int i = 0; i < 3000; i++) {
+            assertEquals(i % 2 == 1, map.containsKey("key " + i));
+        }
+    }
+
+    @Test
+    public void setHashIndexThresholdKeepsMappings() {
+        SimpleArrayMap<String, String> map = new SimpleArrayMap<>();
+        for (int i = 0; i < 100; i++) {
+            map.put("key " + i, "value " + i);
+        }
+        map.setHashIndexThreshold(0);
+        map.put("added", "value");
+        map.remove("key 0");
+        map.setHashIndexThreshold(Integer.MAX_VALUE);
+        assertEquals(100, map.size());
+        for (int i = 1; i < 100; i++) {
+            assertEquals("value " + i, map.get("key " + i));
+        }
+        assertEquals("value", map.get("added"));
+        SimpleArrayMap<String, String> copy = new SimpleArrayMap<>(map);
+        assertEquals(map, copy);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setHashIndexThresholdRejectsNegative() {
+        new SimpleArrayMap<String, String>().setHashIndexThreshold(-1);
+    }
+
     /**
      * Check to make sure the same operations behave as expected in a single thread.
      */
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+@RunWith(JUnit4.class)
+public class WindowTinyLfuPolicyTest {
+    private static final int CACHE_SIZE = 200;
+    private static final int KEY_COUNT = 5000;
+    private static final int TRACE_LENGTH = 200000;
+    // the minimum difference in hit rate between W-TinyLFU and LRU on every trace
+    private static final double MIN_HIT_RATE_GAIN = 0.05;
+
+    @Test
+    public void scanDoesNotFlushFrequentEntries() {
+        LruCache<Integer, Integer> lru = new LruCache<>(100);
+        LruCache<Integer, Integer> tinyLfu =
+                new LruCache<>(100, new WindowTinyLfuPolicy<Integer>());
+        // LRU only hits the frequently used entries cached before the scan reached them
+        assertTrue(scanWhileUsingHotEntries(lru) < 50);
+        assertEquals(500, scanWhileUsingHotEntries(tinyLfu));
+        assertEquals(100, tinyLfu.size());
+    }
+
+    /**
+     * Runs a scan over more keys than the cache holds, accessing one of 50 frequently used keys
+     * every 2 keys scanned, and returns the number of hits on the frequently used keys.
+     */
+    private static int scanWhileUsingHotEntries(LruCache<Integer, Integer> cache) {
+        for (int round = 0; round < 10; round++) {
+            for (int key = 0; key < 50; key++) {
+                get(cache, key);
+            }
+        }
+        int hits = 0;
+        for (int i = 0; i < 1000; i++) {
+            get(cache, 1000 + i);
+            if (i % 2 == 1) {
+                int hotKey = (i / 2) % 50;
+                if (cache.get(hotKey) != null) {
+                    hits++;
+                } else {
+                    cache.put(hotKey, hotKey);
+                }
+            }
+        }
+        return hits;
+    }
+
+    @Test
+    public void evictionCallbacksAndSizes() {
+        final List<String> removed = new ArrayList<>();
+        LruCache<String, String> cache = new LruCache<String, String>(10,
+                new WindowTinyLfuPolicy<String>()) {
+            @Override
+            protected int sizeOf(@NonNull String key, @NonNull String value) {
+                return value.length();
+            }
+
+            @Override
+            protected void entryRemoved(boolean evicted, @NonNull String key,
+                    @NonNull String oldValue, @Nullable String newValue) {
+                removed.add(key + (evicted ? " evicted" : ""));
+            }
+        };
+        cache.put("a", "aaaa");
+        cache.put("b", "bbbb");
+        cache.put("a", "aa");
+        assertEquals(6, cache.size());
+        assertEquals("bbbb", cache.remove("b"));
+        cache.put("c", "cccccc");
+        cache.put("d", "dddddd");
+        assertTrue(cache.size() <= 10);
+        assertEquals(Arrays.asList("a", "b"), removed.subList(0, 2));
+        assertEquals(1, cache.evictionCount());
+
+        cache.evictAll();
+        assertEquals(0, cache.size());
+        assertNull(cache.get("a"));
+        cache.resize(1);
+        cache.put("e", "e");
+        assertEquals(1, cache.size());
+    }
+
+    /**
+     * Replays traces on caches of the same size with each policy and checks that the hit rate of
+     * W-TinyLFU exceeds the one of LRU by at least {@link #MIN_HIT_RATE_GAIN}.
+     */
+    @Test
+    public void hitRateComparison() {
+        List<Trace> traces = Arrays.asList(
+                new Trace("zipf", zipf(new Random(1), TRACE_LENGTH, 0)),
+                new Trace("zipf+scans", zipf(new Random(2), TRACE_LENGTH, 2000)),
+                new Trace("loop", loop(TRACE_LENGTH, CACHE_SIZE * 5 / 4)));
+        for (Trace trace : traces) {
+            double lru = hitRate(new LruCache<Integer, Integer>(CACHE_SIZE), trace.mKeys);
+            double tinyLfu = hitRate(new LruCache<>(CACHE_SIZE,
+                    new WindowTinyLfuPolicy<Integer>()), trace.mKeys);
+            assertTrue(trace.mName + ": lru=" + lru + " w-tinylfu=" + tinyLfu,
+                    tinyLfu - lru >= MIN_HIT_RATE_GAIN);
+        }
+    }
+
+    private static double hitRate(LruCache<Integer, Integer> cache, int[] keys) {
+        for (int key : keys) {
+            get(cache, key);
+        }
+        return cache.hitCount() / (double) keys.length;
+    }
+
+    private static void get(LruCache<Integer, Integer> cache, int key) {
+        if (cache.get(key) == null) {
+            cache.put(key, key);
+        }
+    }
+
+    /**
+     * Keys following a Zipf distribution, interrupted every {@code scanInterval} accesses by a
+     * scan over keys that are never accessed again.
+     */
+    private static int[] zipf(Random random, int length, int scanInterval) {
+        final double[] cdf = new double[KEY_COUNT];
+        double sum = 0;
+        for (int i = 0; i < KEY_COUNT; i++) {
+            sum += 1 / Math.pow(i + 1, 0.9);
+            cdf[i] = sum;
+        }
+        final int[] keys = new int[length];
+        int scanKey = KEY_COUNT;
+        for (int i = 0; i < length; i++) {
+            if (scanInterval > 0 && i % scanInterval >= scanInterval - CACHE_SIZE) {
+                keys[i] = scanKey++;
+            } else {
+                int index = Arrays.binarySearch(cdf, random.nextDouble() * sum);
+                keys[i] = index >= 0 ? index : Math.min(-index - 1, KEY_COUNT - 1);
+            }
+        }
+        return keys;
+    }
+
+    /** Keys repeatedly accessed in the same order, a worst case for LRU. */
+    private static int[] loop(int length, int keyCount) {
+        final int[] keys = new int[length];
+        for (int i = 0; i < length; i++) {
+            keys[i] = i % keyCount;
+        }
+        return keys;
+    }
+
+    private static class Trace {
+        final String mName;
+        final int[] mKeys;
+
+        Trace(String name, int[] keys) {
+            mName = name;
+            mKeys = keys;
+        }
+    }
+}
@@ -60,4 +60,12 @@ abstract class ContiguousDataSource<Key, Value> extends DataSource<Key, Value> {
     boolean supportsPageDropping() {
         return true;
     }
+
+    /**
+     * Called on the main thread when loaded pages are dropped from the start or the end of the
+     * list to respect {@link PagedList.Config#maxSize}, including a page dropped right after
+     * being loaded. Pages are only dropped from a side that is not loading.
+     */
+    void onPagesDropped(boolean fromStart, int pageCount) {
+    }
 }
@@ -39,6 +39,9 @@ class ContiguousPagedList<K, V> extends PagedList<V> implements PagedStorage.Cal
     @SuppressWarnings("WeakerAccess") /* synthetic access */
     final boolean mShouldTrim;
 
+    // Number of dropped pages already reported to the DataSource
+    private int mReportedDroppedPageCount = 0;
+
     @SuppressWarnings("WeakerAccess") /* synthetic access */
     PageResult.Receiver<V> mReceiver = new PageResult.Receiver<V>() {
         // Creation thread for initial synchronous load, otherwise main thread
@@ -81,6 +84,8 @@ class ContiguousPagedList<K, V> extends PagedList<V> implements PagedStorage.Cal
                 if (resultType == PageResult.APPEND) {
                     if (skipNewPage && !trimFromFront) {
                         // don't append this data, drop it
+                        mStorage.dropNewPage(false);
+                        reportDroppedPages(false);
                         mAppendItemsRequested = 0;
                         mLoadStateManager.setState(LoadType.END, LoadState.IDLE, null);
                     } else {
@@ -89,6 +94,8 @@ class ContiguousPagedList<K, V> extends PagedList<V> implements PagedStorage.Cal
                 } else if (resultType == PageResult.PREPEND) {
                     if (skipNewPage && trimFromFront) {
                         // don't append this data, drop it
+                        mStorage.dropNewPage(true);
+                        reportDroppedPages(true);
                         mPrependItemsRequested = 0;
                         mLoadStateManager.setState(LoadType.START, LoadState.IDLE, null);
                     } else {
@@ -176,8 +183,21 @@ class ContiguousPagedList<K, V> extends PagedList<V> implements PagedStorage.Cal
             @NonNull Config config,
             @Nullable K key,
             int lastLoad) {
+        this(dataSource, mainThreadExecutor, backgroundThreadExecutor, boundaryCallback, config,
+                null, key, lastLoad);
+    }
+
+    ContiguousPagedList(
+            @NonNull ContiguousDataSource<K, V> dataSource,
+            @NonNull Executor mainThreadExecutor,
+            @NonNull Executor backgroundThreadExecutor,
+            @Nullable BoundaryCallback<V> boundaryCallback,
+            @NonNull Config config,
+            @Nullable MetricsCallback<V> metricsCallback,
+            @Nullable K key,
+            int lastLoad) {
         super(new PagedStorage<V>(), mainThreadExecutor, backgroundThreadExecutor,
-                boundaryCallback, config);
+                boundaryCallback, config, metricsCallback);
         mDataSource = dataSource;
         mLastLoad = lastLoad;
 
@@ -189,7 +209,7 @@ class ContiguousPagedList<K, V> extends PagedList<V> implements PagedStorage.Cal
                     mConfig.pageSize,
                     mConfig.enablePlaceholders,
                     mMainThreadExecutor,
-                    mReceiver);
+                    measureLoad(mReceiver));
         }
         mShouldTrim = mDataSource.supportsPageDropping()
                 && mConfig.maxSize != Config.MAX_SIZE_UNBOUNDED;
@@ -291,7 +311,7 @@ class ContiguousPagedList<K, V> extends PagedList<V> implements PagedStorage.Cal
                     detach();
                 } else {
                     mDataSource.dispatchLoadBefore(position, item, mConfig.pageSize,
-                            mMainThreadExecutor, mReceiver);
+                            mMainThreadExecutor, measureLoad(mReceiver));
                 }
             }
         });
@@ -316,7 +336,7 @@ class ContiguousPagedList<K, V> extends PagedList<V> implements PagedStorage.Cal
                     detach();
                 } else {
                     mDataSource.dispatchLoadAfter(position, item, mConfig.pageSize,
-                            mMainThreadExecutor, mReceiver);
+                            mMainThreadExecutor, measureLoad(mReceiver));
                 }
             }
         });
@@ -410,11 +430,25 @@ class ContiguousPagedList<K, V> extends PagedList<V> implements PagedStorage.Cal
 
     @Override
     public void onPagesRemoved(int startOfDrops, int count) {
+        // pages are dropped up to the first loaded item, or after the last one
+        reportDroppedPages(startOfDrops <= mStorage.getLeadingNullCount());
         notifyRemoved(startOfDrops, count);
     }
 
     @Override
     public void onPagesSwappedToPlaceholder(int startOfDrops, int count) {
+        reportDroppedPages(startOfDrops <= mStorage.getLeadingNullCount());
         notifyChanged(startOfDrops, count);
     }
+
+    /**
+     * Lets the DataSource know where to load the pages dropped since the last call from, before
+     * dispatching the change, which may trigger a load.
+     */
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    void reportDroppedPages(boolean fromStart) {
+        final int droppedPageCount = mStorage.getDroppedPageCount();
+        mDataSource.onPagesDropped(fromStart, droppedPageCount - mReportedDroppedPageCount);
+        mReportedDroppedPageCount = droppedPageCount;
+    }
 }
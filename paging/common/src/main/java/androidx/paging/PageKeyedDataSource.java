@@ -21,6 +21,7 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.arch.core.util.Function;
 
+import java.util.ArrayDeque;
 import java.util.List;
 import java.util.concurrent.Executor;
 
@@ -52,25 +53,96 @@ public abstract class PageKeyedDataSource<Key, Value> extends ContiguousDataSour
     @GuardedBy("mKeyLock")
     private Key mPreviousKey = null;
 
+    /**
+     * Stands for the key of the page loaded by {@link #loadInitial}, which has none.
+     */
+    private static final Object INITIAL_PAGE_KEY = new Object();
+
+    /**
+     * Keys the loaded pages were loaded with, in order, so that the pages dropped to respect
+     * {@link PagedList.Config#maxSize} can be loaded again.
+     */
+    @GuardedBy("mKeyLock")
+    private final ArrayDeque<Object> mPageKeys = new ArrayDeque<>();
+
+    /**
+     * Whether the page before (or after) the loaded pages is the initial page, which was dropped,
+     * and must be loaded again with {@link #loadInitial}.
+     */
+    @GuardedBy("mKeyLock")
+    private boolean mInitialPageBefore = false;
+    @GuardedBy("mKeyLock")
+    private boolean mInitialPageAfter = false;
+
+    private int mInitialLoadSize;
+
     @SuppressWarnings("WeakerAccess") /* synthetic access */
     void initKeys(@Nullable Key previousKey, @Nullable Key nextKey) {
         synchronized (mKeyLock) {
             mPreviousKey = previousKey;
             mNextKey = nextKey;
+            mInitialPageBefore = false;
+            mInitialPageAfter = false;
+            mPageKeys.clear();
+            mPageKeys.add(INITIAL_PAGE_KEY);
         }
     }
 
     @SuppressWarnings("WeakerAccess") /* synthetic access */
-    void setPreviousKey(@Nullable Key previousKey) {
+    void setPreviousKey(@Nullable Key previousKey, @NonNull Object pageKey, boolean loaded) {
         synchronized (mKeyLock) {
             mPreviousKey = previousKey;
+            mInitialPageBefore = false;
+            if (loaded) {
+                mPageKeys.addFirst(pageKey);
+            }
         }
     }
 
     @SuppressWarnings("WeakerAccess") /* synthetic access */
-    void setNextKey(@Nullable Key nextKey) {
+    void setNextKey(@Nullable Key nextKey, @NonNull Object pageKey, boolean loaded) {
         synchronized (mKeyLock) {
             mNextKey = nextKey;
+            mInitialPageAfter = false;
+            if (loaded) {
+                mPageKeys.addLast(pageKey);
+            }
+        }
+    }
+
+    @Override
+    void onPagesDropped(boolean fromStart, int pageCount) {
+        synchronized (mKeyLock) {
+            // the last page dropped is the one next to the pages left
+            Object adjacentPageKey = null;
+            for (int i = 0; i < pageCount && !mPageKeys.isEmpty(); i++) {
+                adjacentPageKey = fromStart ? mPageKeys.removeFirst() : mPageKeys.removeLast();
+            }
+            if (adjacentPageKey == null) {
+                return;
+            }
+            final boolean initialPage = adjacentPageKey == INITIAL_PAGE_KEY;
+            //noinspection unchecked
+            final Key key = initialPage ? null : (Key) adjacentPageKey;
+            if (fromStart) {
+                mPreviousKey = key;
+                mInitialPageBefore = initialPage;
+            } else {
+                mNextKey = key;
+                mInitialPageAfter = initialPage;
+            }
+        }
+    }
+
+    private boolean isInitialPageBefore() {
+        synchronized (mKeyLock) {
+            return mInitialPageBefore;
+        }
+    }
+
+    private boolean isInitialPageAfter() {
+        synchronized (mKeyLock) {
+            return mInitialPageAfter;
         }
     }
 
@@ -358,21 +430,70 @@ public abstract class PageKeyedDataSource<Key, Value> extends ContiguousDataSour
     static class LoadCallbackImpl<Key, Value> extends LoadCallback<Key, Value> {
         final LoadCallbackHelper<Value> mCallbackHelper;
         private final PageKeyedDataSource<Key, Value> mDataSource;
+        private final Key mKey;
         LoadCallbackImpl(@NonNull PageKeyedDataSource<Key, Value> dataSource,
-                @PageResult.ResultType int type, @Nullable Executor mainThreadExecutor,
+                @NonNull Key key, @PageResult.ResultType int type,
+                @Nullable Executor mainThreadExecutor,
                 @NonNull PageResult.Receiver<Value> receiver) {
             mCallbackHelper = new LoadCallbackHelper<>(
                     dataSource, type, mainThreadExecutor, receiver);
             mDataSource = dataSource;
+            mKey = key;
         }
 
         @Override
         public void onResult(@NonNull List<Value> data, @Nullable Key adjacentPageKey) {
             if (!mCallbackHelper.dispatchInvalidResultIfInvalid()) {
                 if (mCallbackHelper.mResultType == PageResult.APPEND) {
-                    mDataSource.setNextKey(adjacentPageKey);
+                    mDataSource.setNextKey(adjacentPageKey, mKey, !data.isEmpty());
                 } else {
-                    mDataSource.setPreviousKey(adjacentPageKey);
+                    mDataSource.setPreviousKey(adjacentPageKey, mKey, !data.isEmpty());
+                }
+                mCallbackHelper.dispatchResultToReceiver(new PageResult<>(data, 0, 0, 0));
+            }
+        }
+
+        @Override
+        public void onError(@NonNull Throwable error) {
+            mCallbackHelper.dispatchErrorToReceiver(error, false);
+        }
+
+        @Override
+        public void onRetryableError(@NonNull Throwable error) {
+            mCallbackHelper.dispatchErrorToReceiver(error, true);
+        }
+    }
+
+    /**
+     * Loads the initial page again with {@link #loadInitial}, after it was dropped, as a page
+     * before or after the loaded pages.
+     */
+    static class ReloadInitialCallbackImpl<Key, Value> extends LoadInitialCallback<Key, Value> {
+        final LoadCallbackHelper<Value> mCallbackHelper;
+        private final PageKeyedDataSource<Key, Value> mDataSource;
+        ReloadInitialCallbackImpl(@NonNull PageKeyedDataSource<Key, Value> dataSource,
+                @PageResult.ResultType int type, @Nullable Executor mainThreadExecutor,
+                @NonNull PageResult.Receiver<Value> receiver) {
+            mCallbackHelper = new LoadCallbackHelper<>(
+                    dataSource, type, mainThreadExecutor, receiver);
+            mDataSource = dataSource;
+        }
+
+        @Override
+        public void onResult(@NonNull List<Value> data, int position, int totalCount,
+                @Nullable Key previousPageKey, @Nullable Key nextPageKey) {
+            // position and count are already known from the first initial load
+            onResult(data, previousPageKey, nextPageKey);
+        }
+
+        @Override
+        public void onResult(@NonNull List<Value> data, @Nullable Key previousPageKey,
+                @Nullable Key nextPageKey) {
+            if (!mCallbackHelper.dispatchInvalidResultIfInvalid()) {
+                if (mCallbackHelper.mResultType == PageResult.APPEND) {
+                    mDataSource.setNextKey(nextPageKey, INITIAL_PAGE_KEY, !data.isEmpty());
+                } else {
+                    mDataSource.setPreviousKey(previousPageKey, INITIAL_PAGE_KEY, !data.isEmpty());
                 }
                 mCallbackHelper.dispatchResultToReceiver(new PageResult<>(data, 0, 0, 0));
             }
@@ -396,22 +517,11 @@ public abstract class PageKeyedDataSource<Key, Value> extends ContiguousDataSour
         return null;
     }
 
-    @Override
-    boolean supportsPageDropping() {
-        /* To support page dropping when PageKeyed, we'll need to:
-         *    - Stash keys for every page we have loaded (can id by index relative to loadInitial)
-         *    - Drop keys for any page not adjacent to loaded content
-         *    - And either:
-         *        - Allow impl to signal previous page key: onResult(data, nextPageKey, prevPageKey)
-         *        - Re-trigger loadInitial, and break assumption it will only occur once.
-         */
-        return false;
-    }
-
     @Override
     final void dispatchLoadInitial(@Nullable Key key, int initialLoadSize, int pageSize,
             boolean enablePlaceholders, @NonNull Executor mainThreadExecutor,
             @NonNull PageResult.Receiver<Value> receiver) {
+        mInitialLoadSize = initialLoadSize;
         LoadInitialCallbackImpl<Key, Value> callback =
                 new LoadInitialCallbackImpl<>(this, enablePlaceholders, receiver);
         loadInitial(new LoadInitialParams<Key>(initialLoadSize, enablePlaceholders), callback);
@@ -429,8 +539,12 @@ public abstract class PageKeyedDataSource<Key, Value> extends ContiguousDataSour
             @NonNull PageResult.Receiver<Value> receiver) {
         @Nullable Key key = getNextKey();
         if (key != null) {
-            loadAfter(new LoadParams<>(key, pageSize),
-                    new LoadCallbackImpl<>(this, PageResult.APPEND, mainThreadExecutor, receiver));
+            loadAfter(new LoadParams<>(key, pageSize), new LoadCallbackImpl<>(
+                    this, key, PageResult.APPEND, mainThreadExecutor, receiver));
+        } else if (isInitialPageAfter()) {
+            loadInitial(new LoadInitialParams<Key>(mInitialLoadSize, false),
+                    new ReloadInitialCallbackImpl<>(
+                            this, PageResult.APPEND, mainThreadExecutor, receiver));
         } else {
             receiver.onPageResult(PageResult.APPEND, PageResult.<Value>getEmptyResult());
         }
@@ -442,8 +556,12 @@ public abstract class PageKeyedDataSource<Key, Value> extends ContiguousDataSour
             @NonNull PageResult.Receiver<Value> receiver) {
         @Nullable Key key = getPreviousKey();
         if (key != null) {
-            loadBefore(new LoadParams<>(key, pageSize),
-                    new LoadCallbackImpl<>(this, PageResult.PREPEND, mainThreadExecutor, receiver));
+            loadBefore(new LoadParams<>(key, pageSize), new LoadCallbackImpl<>(
+                    this, key, PageResult.PREPEND, mainThreadExecutor, receiver));
+        } else if (isInitialPageBefore()) {
+            loadInitial(new LoadInitialParams<Key>(mInitialLoadSize, false),
+                    new ReloadInitialCallbackImpl<>(
+                            this, PageResult.PREPEND, mainThreadExecutor, receiver));
         } else {
             receiver.onPageResult(PageResult.PREPEND, PageResult.<Value>getEmptyResult());
         }
@@ -460,6 +578,10 @@ public abstract class PageKeyedDataSource<Key, Value> extends ContiguousDataSour
      * <p>
      * {@link LoadInitialParams#requestedLoadSize} is a hint, not a requirement, so it may be may be
      * altered or ignored.
+     * <p>
+     * If the PagedList drops pages to respect {@link PagedList.Config#maxSize}, this method may be
+     * called again to load the initial page after it was dropped, with placeholders disabled. It
+     * should then return the same page as the first time.
      *
      * @param params Parameters for initial load, including requested load size.
      * @param callback Callback that receives initial load data.
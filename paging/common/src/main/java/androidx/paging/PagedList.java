@@ -334,6 +334,13 @@ public abstract class PagedList<T> extends AbstractList<T> {
     final Config mConfig;
     @NonNull
     final PagedStorage<T> mStorage;
+    @Nullable
+    final MetricsCallback<T> mMetricsCallback;
+
+    // page counts last passed to mMetricsCallback
+    private int mReportedLoadedPageCount = 0;
+    private int mReportedDroppedPageCount = 0;
+    private int mReportedReloadedPageCount = 0;
 
     /**
      * Last access location, in total position space (including offset).
@@ -392,11 +399,21 @@ public abstract class PagedList<T> extends AbstractList<T> {
             @NonNull Executor backgroundThreadExecutor,
             @Nullable BoundaryCallback<T> boundaryCallback,
             @NonNull Config config) {
+        this(storage, mainThreadExecutor, backgroundThreadExecutor, boundaryCallback, config, null);
+    }
+
+    PagedList(@NonNull PagedStorage<T> storage,
+            @NonNull Executor mainThreadExecutor,
+            @NonNull Executor backgroundThreadExecutor,
+            @Nullable BoundaryCallback<T> boundaryCallback,
+            @NonNull Config config,
+            @Nullable MetricsCallback<T> metricsCallback) {
         mStorage = storage;
         mMainThreadExecutor = mainThreadExecutor;
         mBackgroundThreadExecutor = backgroundThreadExecutor;
         mBoundaryCallback = boundaryCallback;
         mConfig = config;
+        mMetricsCallback = metricsCallback;
         mRequiredRemainder = mConfig.prefetchDistance * 2 + mConfig.pageSize;
     }
 
@@ -412,6 +429,7 @@ public abstract class PagedList<T> extends AbstractList<T> {
      *                      should be a background thread.
      * @param boundaryCallback Optional boundary callback to attach to the list.
      * @param config PagedList Config, which defines how the PagedList will load data.
+     * @param metricsCallback Optional metrics callback to attach to the list.
      * @param <K> Key type that indicates to the DataSource what data to load.
      * @param <T> Type of items to be held and loaded by the PagedList.
      *
@@ -424,6 +442,7 @@ public abstract class PagedList<T> extends AbstractList<T> {
             @NonNull Executor fetchExecutor,
             @Nullable BoundaryCallback<T> boundaryCallback,
             @NonNull Config config,
+            @Nullable MetricsCallback<T> metricsCallback,
             @Nullable K key) {
         if (dataSource.isContiguous() || !config.enablePlaceholders) {
             int lastLoad = ContiguousPagedList.LAST_LOAD_UNSPECIFIED;
@@ -441,6 +460,7 @@ public abstract class PagedList<T> extends AbstractList<T> {
                     fetchExecutor,
                     boundaryCallback,
                     config,
+                    metricsCallback,
                     key,
                     lastLoad);
         } else {
@@ -449,6 +469,7 @@ public abstract class PagedList<T> extends AbstractList<T> {
                     fetchExecutor,
                     boundaryCallback,
                     config,
+                    metricsCallback,
                     (key != null) ? (Integer) key : 0);
         }
     }
@@ -476,6 +497,7 @@ public abstract class PagedList<T> extends AbstractList<T> {
         private Executor mNotifyExecutor;
         private Executor mFetchExecutor;
         private BoundaryCallback mBoundaryCallback;
+        private MetricsCallback mMetricsCallback;
         private Key mInitialKey;
 
         /**
@@ -557,6 +579,23 @@ public abstract class PagedList<T> extends AbstractList<T> {
             return this;
         }
 
+        /**
+         * The MetricsCallback for load timing and memory events.
+         * <p>
+         * Pass a MetricsCallback to measure how the PagedList loads data, for example in tests
+         * with a fake DataSource, or to log slow loads.
+         *
+         * @param metricsCallback MetricsCallback for listening to load timing and memory events.
+         * @return this
+         */
+        @SuppressWarnings("unused")
+        @NonNull
+        public Builder<Key, Value> setMetricsCallback(
+                @Nullable MetricsCallback metricsCallback) {
+            mMetricsCallback = metricsCallback;
+            return this;
+        }
+
         /**
          * Sets the initial key the DataSource should load around as part of initialization.
          *
@@ -614,6 +653,7 @@ public abstract class PagedList<T> extends AbstractList<T> {
                     mFetchExecutor,
                     mBoundaryCallback,
                     mConfig,
+                    mMetricsCallback,
                     mInitialKey);
         }
     }
@@ -648,6 +688,9 @@ public abstract class PagedList<T> extends AbstractList<T> {
         }
 
         mLastLoad = index + getPositionOffset();
+        if (mMetricsCallback != null) {
+            mMetricsCallback.onItemRequested(index, mStorage.get(index) != null);
+        }
         loadAroundInternal(index);
 
         mLowestIndexAccessed = Math.min(mLowestIndexAccessed, index);
@@ -697,6 +740,9 @@ public abstract class PagedList<T> extends AbstractList<T> {
                     //noinspection ConstantConditions
                     if (deferEmpty) {
                         mBoundaryCallback.onZeroItemsLoaded();
+                        if (mMetricsCallback != null) {
+                            mMetricsCallback.onBoundaryCallbackDispatched(LoadType.REFRESH);
+                        }
                     }
 
                     // for other callbacks, mark deferred, and only dispatch if loadAround
@@ -752,10 +798,85 @@ public abstract class PagedList<T> extends AbstractList<T> {
         if (begin) {
             //noinspection ConstantConditions
             mBoundaryCallback.onItemAtFrontLoaded(mStorage.getFirstLoadedItem());
+            if (mMetricsCallback != null) {
+                mMetricsCallback.onBoundaryCallbackDispatched(LoadType.START);
+            }
         }
         if (end) {
             //noinspection ConstantConditions
             mBoundaryCallback.onItemAtEndLoaded(mStorage.getLastLoadedItem());
+            if (mMetricsCallback != null) {
+                mMetricsCallback.onBoundaryCallbackDispatched(LoadType.END);
+            }
+        }
+    }
+
+    /**
+     * Wraps the receiver of a load about to be dispatched to the DataSource, to pass the time it
+     * took, and how it changed the pages held, to the MetricsCallback.
+     */
+    @AnyThread
+    @NonNull
+    PageResult.Receiver<T> measureLoad(@NonNull final PageResult.Receiver<T> receiver) {
+        if (mMetricsCallback == null) {
+            return receiver;
+        }
+        final long startNanos = System.nanoTime();
+        return new PageResult.Receiver<T>() {
+            @Override
+            public void onPageResult(int type, @NonNull PageResult<T> pageResult) {
+                final long durationNanos = System.nanoTime() - startNanos;
+                receiver.onPageResult(type, pageResult);
+                if (!pageResult.isInvalid() && !isDetached()) {
+                    dispatchLoadMetrics(type, pageResult, durationNanos);
+                }
+            }
+
+            @Override
+            public void onPageError(int type, @NonNull Throwable error, boolean retryable) {
+                receiver.onPageError(type, error, retryable);
+            }
+        };
+    }
+
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    void dispatchLoadMetrics(@PageResult.ResultType int type, @NonNull PageResult<T> pageResult,
+            long durationNanos) {
+        final MetricsCallback<T> metricsCallback = mMetricsCallback;
+        //noinspection ConstantConditions
+        final List<T> page = pageResult.page;
+        long estimatedBytes = 0;
+        for (int i = 0; i < page.size(); i++) {
+            final T item = page.get(i);
+            if (item != null) {
+                estimatedBytes += metricsCallback.estimateItemBytes(item);
+            }
+        }
+
+        final LoadType loadType;
+        if (type == PageResult.INIT) {
+            loadType = LoadType.REFRESH;
+        } else if (type == PageResult.PREPEND) {
+            loadType = LoadType.START;
+        } else if (type == PageResult.APPEND) {
+            loadType = LoadType.END;
+        } else {
+            // tiles are loaded in both directions, relative to the last access
+            loadType = pageResult.positionOffset < mLastLoad ? LoadType.START : LoadType.END;
+        }
+        metricsCallback.onLoadCompleted(loadType, page.size(), estimatedBytes, durationNanos);
+
+        final int loadedPageCount = mStorage.getLoadedPageCount();
+        final int droppedPageCount = mStorage.getDroppedPageCount();
+        final int reloadedPageCount = mStorage.getReloadedPageCount();
+        if (loadedPageCount != mReportedLoadedPageCount
+                || droppedPageCount != mReportedDroppedPageCount
+                || reloadedPageCount != mReportedReloadedPageCount) {
+            mReportedLoadedPageCount = loadedPageCount;
+            mReportedDroppedPageCount = droppedPageCount;
+            mReportedReloadedPageCount = reloadedPageCount;
+            metricsCallback.onPageCountsChanged(
+                    loadedPageCount, droppedPageCount, reloadedPageCount);
         }
     }
 
@@ -800,6 +921,44 @@ public abstract class PagedList<T> extends AbstractList<T> {
         return mStorage.getLoadedCount();
     }
 
+    /**
+     * Returns the number of pages loaded in the PagedList.
+     * <p>
+     * If {@link Config#maxSize} is set, this stays bounded as pages are dropped.
+     *
+     * @return Number of pages currently loaded.
+     *
+     * @see #getDroppedPageCount()
+     */
+    public int getLoadedPageCount() {
+        return mStorage.getLoadedPageCount();
+    }
+
+    /**
+     * Returns the number of loaded pages dropped by the PagedList to respect
+     * {@link Config#maxSize}, including pages dropped right after being loaded.
+     *
+     * @return Number of pages dropped since the PagedList was created.
+     *
+     * @see #getReloadedPageCount()
+     */
+    public int getDroppedPageCount() {
+        return mStorage.getDroppedPageCount();
+    }
+
+    /**
+     * Returns the number of pages loaded again by the PagedList after being dropped to respect
+     * {@link Config#maxSize}.
+     * <p>
+     * A high count relative to {@link #getDroppedPageCount()} means the list is scrolled back and
+     * forth over more items than {@link Config#maxSize}.
+     *
+     * @return Number of pages reloaded since the PagedList was created.
+     */
+    public int getReloadedPageCount() {
+        return mStorage.getReloadedPageCount();
+    }
+
     /**
      * Returns whether the list is immutable.
      *
@@ -1437,4 +1596,97 @@ public abstract class PagedList<T> extends AbstractList<T> {
          */
         public void onItemAtEndLoaded(@NonNull T itemAtEnd) {}
     }
+
+    /**
+     * Signals how a PagedList loads data, and how much of it it holds.
+     * <p>
+     * A MetricsCallback can be set with {@link Builder#setMetricsCallback(MetricsCallback)}, and
+     * is meant for measuring the effect of a {@link Config}, or of changes to a
+     * {@link DataSource}, including from JVM tests using a fake DataSource and direct executors.
+     * <p>
+     * Methods are called on the notify executor of the PagedList, except for the initial load,
+     * which is signalled on the thread building the PagedList if the DataSource loads it
+     * synchronously.
+     *
+     * @param <T> Type loaded by the PagedList.
+     */
+    public abstract static class MetricsCallback<T> {
+        /**
+         * Called to estimate the memory used by an item, to be summed up for each load passed to
+         * {@link #onLoadCompleted(LoadType, int, long, long)}.
+         * <p>
+         * The default implementation returns 0.
+         *
+         * @param item A loaded item.
+         * @return The estimated number of bytes used by the item.
+         */
+        public long estimateItemBytes(@NonNull T item) {
+            return 0;
+        }
+
+        /**
+         * Called when a load from the DataSource completes, after its items are added to the
+         * PagedList.
+         * <p>
+         * Loads of tiles of a PagedList presenting placeholders from a
+         * {@link PositionalDataSource} are signalled as {@link LoadType#START} or
+         * {@link LoadType#END} depending on whether they are before or after the last accessed
+         * position.
+         *
+         * @param type The type of the load, {@link LoadType#REFRESH} for the initial load.
+         * @param itemCount The number of items loaded.
+         * @param estimatedBytes The sum of {@link #estimateItemBytes(Object)} for the items
+         *                       loaded.
+         * @param durationNanos The time between the dispatch of the load to the DataSource, and
+         *                      the result being received on the notify executor.
+         */
+        public void onLoadCompleted(@NonNull LoadType type, int itemCount, long estimatedBytes,
+                long durationNanos) {}
+
+        /**
+         * Called after a load when the number of pages held or dropped by the PagedList changed.
+         *
+         * @param loadedPageCount The number of pages currently loaded.
+         * @param droppedPageCount The number of pages dropped to respect {@link Config#maxSize}.
+         * @param reloadedPageCount The number of pages loaded again after being dropped.
+         *
+         * @see PagedList#getLoadedPageCount()
+         * @see PagedList#getDroppedPageCount()
+         * @see PagedList#getReloadedPageCount()
+         */
+        public void onPageCountsChanged(int loadedPageCount, int droppedPageCount,
+                int reloadedPageCount) {}
+
+        /**
+         * Called when an item is requested with {@link PagedList#loadAround(int)}, typically when
+         * it is bound to a view.
+         * <p>
+         * If the item is not loaded yet, a placeholder is presented in its place: prefetching did
+         * not load its page early enough.
+         *
+         * @param index The index of the item.
+         * @param loaded Whether the item was loaded when it was requested.
+         */
+        public void onItemRequested(int index, boolean loaded) {}
+
+        /**
+         * Called when a {@link BoundaryCallback} method is called.
+         *
+         * @param type {@link LoadType#REFRESH} for {@link BoundaryCallback#onZeroItemsLoaded()},
+         *             {@link LoadType#START} for
+         *             {@link BoundaryCallback#onItemAtFrontLoaded(Object)}, and
+         *             {@link LoadType#END} for {@link BoundaryCallback#onItemAtEndLoaded(Object)}.
+         */
+        public void onBoundaryCallbackDispatched(@NonNull LoadType type) {}
+
+        /**
+         * Called when {@code AsyncPagedListDiffer} presents this PagedList in place of another one,
+         * after computing the difference between the items of both lists.
+         *
+         * @param previousItemCount The number of items in the PagedList replaced.
+         * @param itemCount The number of items in this PagedList.
+         * @param durationNanos The time spent computing the difference, on the background thread.
+         */
+        public void onListDiffed(int previousItemCount, int itemCount, long durationNanos) {}
+    }
 }
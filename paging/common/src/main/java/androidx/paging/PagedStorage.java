@@ -21,6 +21,7 @@ import androidx.annotation.Nullable;
 
 import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 
 /**
@@ -75,6 +76,17 @@ final class PagedStorage<T> extends AbstractList<T> {
     private int mNumberPrepended;
     private int mNumberAppended;
 
+    // Number of loaded pages dropped to respect maxSize, and loaded again after being dropped.
+    private int mDroppedPageCount;
+    private int mReloadedPageCount;
+
+    // Contiguous - number of pages dropped from each end, that appending or prepending loads again
+    private int mDroppedFromFrontCount;
+    private int mDroppedFromEndCount;
+
+    // Tiled - indices of the pages that have been loaded, so inserting one of them is a reload
+    private final BitSet mLoadedPageIndices;
+
     PagedStorage() {
         mLeadingNullCount = 0;
         mPages = new ArrayList<>();
@@ -85,6 +97,7 @@ final class PagedStorage<T> extends AbstractList<T> {
         mPageSize = 1;
         mNumberPrepended = 0;
         mNumberAppended = 0;
+        mLoadedPageIndices = new BitSet();
     }
 
     PagedStorage(int leadingNulls, List<T> page, int trailingNulls) {
@@ -102,6 +115,11 @@ final class PagedStorage<T> extends AbstractList<T> {
         mPageSize = other.mPageSize;
         mNumberPrepended = other.mNumberPrepended;
         mNumberAppended = other.mNumberAppended;
+        mDroppedPageCount = other.mDroppedPageCount;
+        mReloadedPageCount = other.mReloadedPageCount;
+        mDroppedFromFrontCount = other.mDroppedFromFrontCount;
+        mDroppedFromEndCount = other.mDroppedFromEndCount;
+        mLoadedPageIndices = (BitSet) other.mLoadedPageIndices.clone();
     }
 
     PagedStorage<T> snapshot() {
@@ -209,6 +227,28 @@ final class PagedStorage<T> extends AbstractList<T> {
         return mLoadedCount;
     }
 
+    int getLoadedPageCount() {
+        if (mLoadedCount == 0) {
+            return 0;
+        }
+        int count = 0;
+        for (int i = 0; i < mPages.size(); i++) {
+            List<T> page = mPages.get(i);
+            if (page != null && page != PLACEHOLDER_LIST) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    int getDroppedPageCount() {
+        return mDroppedPageCount;
+    }
+
+    int getReloadedPageCount() {
+        return mReloadedPageCount;
+    }
+
     interface Callback {
         void onInitialized(int count);
         void onPagePrepended(int leadingNulls, int changed, int added);
@@ -300,6 +340,10 @@ final class PagedStorage<T> extends AbstractList<T> {
             totalRemoved += removed;
             mStorageCount -= removed;
             mLoadedCount -= (page == null) ? 0 : page.size();
+            if (page != null) {
+                mDroppedPageCount++;
+                mDroppedFromFrontCount++;
+            }
         }
 
         if (totalRemoved > 0) {
@@ -326,6 +370,10 @@ final class PagedStorage<T> extends AbstractList<T> {
             totalRemoved += removed;
             mStorageCount -= removed;
             mLoadedCount -= (page == null) ? 0 : page.size();
+            if (page != null) {
+                mDroppedPageCount++;
+                mDroppedFromEndCount++;
+            }
         }
 
         if (totalRemoved > 0) {
@@ -344,6 +392,19 @@ final class PagedStorage<T> extends AbstractList<T> {
 
     // ---------------- Contiguous API -------------------
 
+    /**
+     * Records that a page loaded at the front or end was dropped instead of being added, as
+     * decided with {@link #shouldPreTrimNewPage(int, int, int)}.
+     */
+    void dropNewPage(boolean atFront) {
+        mDroppedPageCount++;
+        if (atFront) {
+            mDroppedFromFrontCount++;
+        } else {
+            mDroppedFromEndCount++;
+        }
+    }
+
     T getFirstLoadedItem() {
         // safe to access first page's first item here:
         // If contiguous, mPages can't be empty, can't hold null Pages, and items can't be empty
@@ -377,6 +438,10 @@ final class PagedStorage<T> extends AbstractList<T> {
         mPages.add(0, page);
         mLoadedCount += count;
         mStorageCount += count;
+        if (mDroppedFromFrontCount > 0) {
+            mDroppedFromFrontCount--;
+            mReloadedPageCount++;
+        }
 
         final int changedCount = Math.min(mLeadingNullCount, count);
         final int addedCount = count - changedCount;
@@ -410,6 +475,10 @@ final class PagedStorage<T> extends AbstractList<T> {
         mPages.add(page);
         mLoadedCount += count;
         mStorageCount += count;
+        if (mDroppedFromEndCount > 0) {
+            mDroppedFromEndCount--;
+            mReloadedPageCount++;
+        }
 
         final int changedCount = Math.min(mTrailingNullCount, count);
         final int addedCount = count - changedCount;
@@ -478,6 +547,7 @@ final class PagedStorage<T> extends AbstractList<T> {
                 // Trailing nulls for first page includes other pages in multiPageList
                 int initialTrailingNulls = trailingNulls + multiPageList.size() - sublist.size();
                 init(leadingNulls, sublist, initialTrailingNulls, positionOffset);
+                mLoadedPageIndices.set(leadingNulls / pageSize);
             } else {
                 int insertPosition = leadingNulls + beginInclusive;
                 insertPage(insertPosition, sublist, null);
@@ -506,6 +576,8 @@ final class PagedStorage<T> extends AbstractList<T> {
             // trim would have us drop the page we just loaded - swap it to null
             int localPageIndex = (position - mLeadingNullCount) / mPageSize;
             mPages.set(localPageIndex, null);
+            mDroppedPageCount++;
+            mLoadedPageIndices.set(position / mPageSize);
 
             // note: we also remove it, so we don't have to guess how large a 'null' page is later
             mStorageCount -= page.size();
@@ -562,6 +634,11 @@ final class PagedStorage<T> extends AbstractList<T> {
         }
         mPages.set(localPageIndex, page);
         mLoadedCount += newPageSize;
+        if (mLoadedPageIndices.get(pageIndex)) {
+            mReloadedPageCount++;
+        } else {
+            mLoadedPageIndices.set(pageIndex);
+        }
         if (callback != null) {
             callback.onPageInserted(position, newPageSize);
         }
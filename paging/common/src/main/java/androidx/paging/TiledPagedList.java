@@ -93,8 +93,20 @@ class TiledPagedList<T> extends PagedList<T>
             @Nullable BoundaryCallback<T> boundaryCallback,
             @NonNull Config config,
             int position) {
+        this(dataSource, mainThreadExecutor, backgroundThreadExecutor, boundaryCallback, config,
+                null, position);
+    }
+
+    @WorkerThread
+    TiledPagedList(@NonNull PositionalDataSource<T> dataSource,
+            @NonNull Executor mainThreadExecutor,
+            @NonNull Executor backgroundThreadExecutor,
+            @Nullable BoundaryCallback<T> boundaryCallback,
+            @NonNull Config config,
+            @Nullable MetricsCallback<T> metricsCallback,
+            int position) {
         super(new PagedStorage<T>(), mainThreadExecutor, backgroundThreadExecutor,
-                boundaryCallback, config);
+                boundaryCallback, config, metricsCallback);
         mDataSource = dataSource;
 
         final int pageSize = mConfig.pageSize;
@@ -110,7 +122,7 @@ class TiledPagedList<T> extends PagedList<T>
             final int roundedPageStart = Math.max(0, idealStart / pageSize * pageSize);
 
             mDataSource.dispatchLoadInitial(true, roundedPageStart, firstLoadSize,
-                    pageSize, mMainThreadExecutor, mReceiver);
+                    pageSize, mMainThreadExecutor, measureLoad(mReceiver));
         }
     }
 
@@ -211,8 +223,8 @@ class TiledPagedList<T> extends PagedList<T>
                 } else {
                     int startPosition = pageIndex * pageSize;
                     int count = Math.min(pageSize, mStorage.size() - startPosition);
-                    mDataSource.dispatchLoadRange(
-                            PageResult.TILE, startPosition, count, mMainThreadExecutor, mReceiver);
+                    mDataSource.dispatchLoadRange(PageResult.TILE, startPosition, count,
+                            mMainThreadExecutor, measureLoad(mReceiver));
                 }
             }
         });
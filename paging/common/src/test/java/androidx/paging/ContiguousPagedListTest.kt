@@ -209,7 +209,8 @@ class ContiguousPagedListTest(private val placeholdersEnabled: Boolean) {
         listData: List<Item> = ITEMS,
         boundaryCallback: PagedList.BoundaryCallback<Item>? = null,
         lastLoad: Int = ContiguousPagedList.LAST_LOAD_UNSPECIFIED,
-        maxSize: Int = PagedList.Config.MAX_SIZE_UNBOUNDED
+        maxSize: Int = PagedList.Config.MAX_SIZE_UNBOUNDED,
+        metricsCallback: PagedList.MetricsCallback<Item>? = null
     ): ContiguousPagedList<Int, Item> {
         return ContiguousPagedList(
             TestSource(listData),
@@ -222,6 +223,7 @@ class ContiguousPagedListTest(private val placeholdersEnabled: Boolean) {
                 .setPrefetchDistance(prefetchDistance)
                 .setMaxSize(maxSize)
                 .build(),
+            metricsCallback,
             initialPosition,
             lastLoad)
     }
@@ -916,6 +918,112 @@ class ContiguousPagedListTest(private val placeholdersEnabled: Boolean) {
         verifyNoMoreInteractions(boundaryCallback)
     }
 
+    private class MetricsCapture : PagedList.MetricsCallback<Item>() {
+        val loads = mutableListOf<String>()
+        val pageCounts = mutableListOf<List<Int>>()
+        val requests = mutableListOf<Pair<Int, Boolean>>()
+        val boundaries = mutableListOf<PagedList.LoadType>()
+
+        override fun estimateItemBytes(item: Item) = item.name.length.toLong()
+
+        override fun onLoadCompleted(
+            type: PagedList.LoadType,
+            itemCount: Int,
+            estimatedBytes: Long,
+            durationNanos: Long
+        ) {
+            assertTrue(durationNanos >= 0)
+            loads.add("$type $itemCount $estimatedBytes")
+        }
+
+        override fun onPageCountsChanged(
+            loadedPageCount: Int,
+            droppedPageCount: Int,
+            reloadedPageCount: Int
+        ) {
+            pageCounts.add(listOf(loadedPageCount, droppedPageCount, reloadedPageCount))
+        }
+
+        override fun onItemRequested(index: Int, loaded: Boolean) {
+            requests.add(index to loaded)
+        }
+
+        override fun onBoundaryCallbackDispatched(type: PagedList.LoadType) {
+            boundaries.add(type)
+        }
+    }
+
+    @Test
+    fun metricsCallback_loads() {
+        val metrics = MetricsCapture()
+        val pagedList = createCountedPagedList(
+                initialPosition = 0,
+                pageSize = 20,
+                initLoadSize = 20,
+                prefetchDistance = 1,
+                maxSize = 70,
+                metricsCallback = metrics)
+        // "Item 0" to "Item 9" are 6 bytes, "Item 10" to "Item 99" are 7 bytes
+        assertEquals(listOf("REFRESH 20 130"), metrics.loads.getAllAndClear())
+        assertEquals(listOf(listOf(1, 0, 0)), metrics.pageCounts.getAllAndClear())
+
+        pagedList.loadAround(19)
+        drain()
+        pagedList.loadAround(39)
+        drain()
+        assertEquals(listOf("END 20 140", "END 20 140"), metrics.loads.getAllAndClear())
+        assertEquals(listOf(listOf(2, 0, 0), listOf(3, 0, 0)),
+                metrics.pageCounts.getAllAndClear())
+
+        // load 4th page, drop 1st
+        pagedList.loadAround(59)
+        drain()
+        verifyRange(20, 60, pagedList)
+        assertEquals(listOf("END 20 140"), metrics.loads.getAllAndClear())
+        assertEquals(listOf(listOf(3, 1, 0)), metrics.pageCounts.getAllAndClear())
+
+        // load 1st page again, drop 4th
+        pagedList.loadAround(if (placeholdersEnabled) 20 else 0)
+        drain()
+        verifyRange(0, 60, pagedList)
+        assertEquals(listOf("START 20 130"), metrics.loads.getAllAndClear())
+        assertEquals(listOf(listOf(3, 2, 1)), metrics.pageCounts.getAllAndClear())
+    }
+
+    @Test
+    fun metricsCallback_itemRequested() {
+        val metrics = MetricsCapture()
+        val pagedList = createCountedPagedList(
+                initialPosition = 0,
+                initLoadSize = 20,
+                metricsCallback = metrics)
+
+        pagedList.loadAround(10)
+        if (placeholdersEnabled) {
+            // placeholder presented, prefetch hasn't loaded the page yet
+            pagedList.loadAround(30)
+            drain()
+            pagedList.loadAround(30)
+            assertEquals(listOf(10 to true, 30 to false, 30 to true), metrics.requests)
+        } else {
+            assertEquals(listOf(10 to true), metrics.requests)
+        }
+    }
+
+    @Test
+    fun metricsCallback_boundaryCallback() {
+        val metrics = MetricsCapture()
+        val shortList = ITEMS.subList(0, 4)
+        val pagedList = createCountedPagedList(0, listData = shortList,
+                initLoadSize = shortList.size,
+                boundaryCallback = object : PagedList.BoundaryCallback<Item>() {},
+                metricsCallback = metrics)
+        drain()
+        pagedList.loadAround(0)
+        drain()
+        assertEquals(listOf(PagedList.LoadType.START, PagedList.LoadType.END), metrics.boundaries)
+    }
+
     private fun drain() {
         var executed: Boolean
         do {
@@ -17,7 +17,6 @@
 package androidx.paging
 
 import org.junit.Assert.assertEquals
-import org.junit.Assert.assertFalse
 import org.junit.Assert.assertTrue
 import org.junit.Assert.fail
 import org.junit.Test
@@ -191,8 +190,50 @@ class PageKeyedDataSourceTest {
     }
 
     @Test
-    fun pageDroppingNotSupported() {
-        assertFalse(ItemDataSource().supportsPageDropping())
+    fun pageDroppingSupported() {
+        assertTrue(ItemDataSource().supportsPageDropping())
+    }
+
+    private fun assertLoadedWindow(pagedList: PagedList<Item>) {
+        val start = ITEM_LIST.indexOf(pagedList[0])
+        assertEquals(ITEM_LIST.subList(start, start + pagedList.size), pagedList)
+    }
+
+    @Test
+    fun pageDroppingReloadsDroppedPages() {
+        val pagedList = ContiguousPagedList<String, Item>(ItemDataSource(),
+                mMainThread, mBackgroundThread,
+                null, PagedList.Config.Builder()
+                        .setPageSize(4)
+                        .setPrefetchDistance(4)
+                        .setMaxSize(12)
+                        .setEnablePlaceholders(false)
+                        .build(),
+                null,
+                ContiguousPagedList.LAST_LOAD_UNSPECIFIED)
+
+        // scroll to the end, dropping the pages at the front, including the initial page
+        for (i in 0..PAGE_MAP.keys.size) {
+            pagedList.loadAround(pagedList.size - 1)
+            drain()
+            assertLoadedWindow(pagedList)
+            assertTrue(pagedList.loadedPageCount <= 3)
+        }
+        assertEquals(ITEM_LIST.last(), pagedList.last())
+        assertTrue(pagedList.droppedPageCount > 0)
+        assertEquals(0, pagedList.reloadedPageCount)
+
+        // scroll back to the front, loading the dropped pages again
+        for (i in 0..PAGE_MAP.keys.size) {
+            pagedList.loadAround(0)
+            drain()
+            assertLoadedWindow(pagedList)
+            assertTrue(pagedList.loadedPageCount <= 3)
+        }
+        assertEquals(ITEM_LIST.first(), pagedList.first())
+        // the initial page is loaded again with loadInitial, and the first one with loadBefore
+        assertEquals(2, pagedList.reloadedPageCount)
+        assertEquals(3, pagedList.loadedPageCount)
     }
 
     @Test
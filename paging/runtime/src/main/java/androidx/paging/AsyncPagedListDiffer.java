@@ -19,6 +19,8 @@ package androidx.paging;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.arch.core.executor.ArchTaskExecutor;
+import androidx.core.os.CancellationSignal;
+import androidx.core.os.OperationCanceledException;
 import androidx.lifecycle.LiveData;
 import androidx.recyclerview.widget.AdapterListUpdateCallback;
 import androidx.recyclerview.widget.AsyncDifferConfig;
@@ -153,6 +155,10 @@ public class AsyncPagedListDiffer<T> {
     @SuppressWarnings("WeakerAccess") /* synthetic access */
     int mMaxScheduledGeneration;
 
+    // Cancels the diff of the currently scheduled runnable, if any
+    @Nullable
+    private CancellationSignal mDiffCancellationSignal;
+
     @SuppressWarnings("WeakerAccess") /* synthetic access */
     final PagedList.LoadStateManager mLoadStateManager = new PagedList.LoadStateManager() {
         @Override
@@ -281,6 +287,8 @@ public class AsyncPagedListDiffer<T> {
      * The commit callback can be used to know when the PagedList is committed, but note that it
      * may not be executed. If PagedList B is submitted immediately after PagedList A, and is
      * committed directly, the callback associated with PagedList A will not be run.
+     * <p>
+     * If the diff of a previously submitted PagedList is still being computed, it is canceled.
      *
      * @param pagedList The new PagedList.
      * @param commitCallback Optional runnable that is executed when the PagedList is committed, if
@@ -302,6 +310,11 @@ public class AsyncPagedListDiffer<T> {
 
         // incrementing generation means any currently-running diffs are discarded when they finish
         final int runGeneration = ++mMaxScheduledGeneration;
+        // and they can stop right away
+        if (mDiffCancellationSignal != null) {
+            mDiffCancellationSignal.cancel();
+            mDiffCancellationSignal = null;
+        }
 
         if (pagedList == mPagedList) {
             // nothing to do (Note - still had to inc generation, since may have ongoing work)
@@ -357,14 +370,28 @@ public class AsyncPagedListDiffer<T> {
 
         final PagedList<T> oldSnapshot = mSnapshot;
         final PagedList<T> newSnapshot = (PagedList<T>) pagedList.snapshot();
+        final CancellationSignal cancellationSignal = new CancellationSignal();
+        mDiffCancellationSignal = cancellationSignal;
         mConfig.getBackgroundThreadExecutor().execute(new Runnable() {
             @Override
             public void run() {
+                if (cancellationSignal.isCanceled()) {
+                    // a newer list was submitted before the diff started
+                    return;
+                }
+                final long startNanos = System.nanoTime();
                 final DiffUtil.DiffResult result;
-                result = PagedStorageDiffHelper.computeDiff(
-                        oldSnapshot.mStorage,
-                        newSnapshot.mStorage,
-                        mConfig.getDiffCallback());
+                try {
+                    result = PagedStorageDiffHelper.computeDiff(
+                            oldSnapshot.mStorage,
+                            newSnapshot.mStorage,
+                            mConfig.getDiffCallback(),
+                            cancellationSignal);
+                } catch (OperationCanceledException e) {
+                    // a newer list was submitted while diffing, its diff replaces this one
+                    return;
+                }
+                final long diffNanos = System.nanoTime() - startNanos;
 
                 mMainThreadExecutor.execute(new Runnable() {
                     @Override
@@ -372,6 +399,10 @@ public class AsyncPagedListDiffer<T> {
                         if (mMaxScheduledGeneration == runGeneration) {
                             latchPagedList(pagedList, newSnapshot, result,
                                     oldSnapshot.mLastLoad, commitCallback);
+                            if (pagedList.mMetricsCallback != null) {
+                                pagedList.mMetricsCallback.onListDiffed(
+                                        oldSnapshot.size(), newSnapshot.size(), diffNanos);
+                            }
                         }
                     }
                 });
@@ -43,6 +43,7 @@ public final class LivePagedListBuilder<Key, Value> {
     private PagedList.Config mConfig;
     private DataSource.Factory<Key, Value> mDataSourceFactory;
     private PagedList.BoundaryCallback mBoundaryCallback;
+    private PagedList.MetricsCallback mMetricsCallback;
     @SuppressLint("RestrictedApi")
     private Executor mFetchExecutor = ArchTaskExecutor.getIOThreadExecutor();
 
@@ -127,6 +128,24 @@ public final class LivePagedListBuilder<Key, Value> {
         return this;
     }
 
+    /**
+     * Sets a {@link PagedList.MetricsCallback} on each PagedList created, to measure how they load
+     * data.
+     * <p>
+     * As with a BoundaryCallback, the same callback receives the events of each
+     * PagedList/DataSource pair.
+     *
+     * @param metricsCallback The metrics callback for listening to load timing and memory events.
+     * @return this
+     */
+    @SuppressWarnings("unused")
+    @NonNull
+    public LivePagedListBuilder<Key, Value> setMetricsCallback(
+            @Nullable PagedList.MetricsCallback<Value> metricsCallback) {
+        mMetricsCallback = metricsCallback;
+        return this;
+    }
+
     /**
      * Sets executor used for background fetching of PagedLists, and the pages within.
      * <p>
@@ -154,8 +173,8 @@ public final class LivePagedListBuilder<Key, Value> {
     @NonNull
     @SuppressLint("RestrictedApi")
     public LiveData<PagedList<Value>> build() {
-        return create(mInitialLoadKey, mConfig, mBoundaryCallback, mDataSourceFactory,
-                ArchTaskExecutor.getMainThreadExecutor(), mFetchExecutor);
+        return create(mInitialLoadKey, mConfig, mBoundaryCallback, mMetricsCallback,
+                mDataSourceFactory, ArchTaskExecutor.getMainThreadExecutor(), mFetchExecutor);
     }
 
     @AnyThread
@@ -165,6 +184,7 @@ public final class LivePagedListBuilder<Key, Value> {
             @Nullable final Key initialLoadKey,
             @NonNull final PagedList.Config config,
             @Nullable final PagedList.BoundaryCallback boundaryCallback,
+            @Nullable final PagedList.MetricsCallback metricsCallback,
             @NonNull final DataSource.Factory<Key, Value> dataSourceFactory,
             @NonNull final Executor notifyExecutor,
             @NonNull final Executor fetchExecutor) {
@@ -202,6 +222,7 @@ public final class LivePagedListBuilder<Key, Value> {
                             .setNotifyExecutor(notifyExecutor)
                             .setFetchExecutor(fetchExecutor)
                             .setBoundaryCallback(boundaryCallback)
+                            .setMetricsCallback(metricsCallback)
                             .setInitialKey(initializeKey)
                             .build();
                 } while (mList.isDetached());
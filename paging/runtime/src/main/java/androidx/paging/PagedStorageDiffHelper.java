@@ -18,6 +18,7 @@ package androidx.paging;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.core.os.CancellationSignal;
 import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.ListUpdateCallback;
 
@@ -40,10 +41,25 @@ class PagedStorageDiffHelper {
     private PagedStorageDiffHelper() {
     }
 
+    // A running diff checks whether it was canceled after that many item comparisons
+    private static final int CANCELLATION_CHECK_INTERVAL = 256;
+
     static <T> DiffUtil.DiffResult computeDiff(
             final PagedStorage<T> oldList,
             final PagedStorage<T> newList,
             final DiffUtil.ItemCallback<T> diffCallback) {
+        return computeDiff(oldList, newList, diffCallback, null);
+    }
+
+    /**
+     * Computes the diff, throwing an {@link androidx.core.os.OperationCanceledException} if the
+     * given signal is canceled before it completes.
+     */
+    static <T> DiffUtil.DiffResult computeDiff(
+            final PagedStorage<T> oldList,
+            final PagedStorage<T> newList,
+            final DiffUtil.ItemCallback<T> diffCallback,
+            @Nullable final CancellationSignal cancellationSignal) {
         final int oldOffset = oldList.computeLeadingNulls();
         final int newOffset = newList.computeLeadingNulls();
 
@@ -51,6 +67,17 @@ class PagedStorageDiffHelper {
         final int newSize = newList.size() - newOffset - newList.computeTrailingNulls();
 
         return DiffUtil.calculateDiff(new DiffUtil.Callback() {
+            // item comparisons since the last check for cancellation
+            private int mUncheckedCalls;
+
+            private void throwIfCanceled() {
+                if (cancellationSignal != null
+                        && ++mUncheckedCalls >= CANCELLATION_CHECK_INTERVAL) {
+                    mUncheckedCalls = 0;
+                    cancellationSignal.throwIfCanceled();
+                }
+            }
+
             @Nullable
             @Override
             public Object getChangePayload(int oldItemPosition, int newItemPosition) {
@@ -74,6 +101,7 @@ class PagedStorageDiffHelper {
 
             @Override
             public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+                throwIfCanceled();
                 T oldItem = oldList.get(oldItemPosition + oldOffset);
                 T newItem = newList.get(newItemPosition + newList.getLeadingNullCount());
                 if (oldItem == newItem) {
@@ -88,6 +116,7 @@ class PagedStorageDiffHelper {
 
             @Override
             public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+                throwIfCanceled();
                 T oldItem = oldList.get(oldItemPosition + oldOffset);
                 T newItem = newList.get(newItemPosition + newList.getLeadingNullCount());
                 if (oldItem == newItem) {
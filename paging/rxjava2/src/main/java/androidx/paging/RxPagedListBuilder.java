@@ -54,6 +54,7 @@ public final class RxPagedListBuilder<Key, Value> {
     private PagedList.Config mConfig;
     private DataSource.Factory<Key, Value> mDataSourceFactory;
     private PagedList.BoundaryCallback mBoundaryCallback;
+    private PagedList.MetricsCallback mMetricsCallback;
     private Executor mNotifyExecutor;
     private Executor mFetchExecutor;
     private Scheduler mFetchScheduler;
@@ -141,6 +142,24 @@ public final class RxPagedListBuilder<Key, Value> {
         return this;
     }
 
+    /**
+     * Sets a {@link PagedList.MetricsCallback} on each PagedList created, to measure how they load
+     * data.
+     * <p>
+     * As with a BoundaryCallback, the same callback receives the events of each
+     * PagedList/DataSource pair.
+     *
+     * @param metricsCallback The metrics callback for listening to load timing and memory events.
+     * @return this
+     */
+    @SuppressWarnings("unused")
+    @NonNull
+    public RxPagedListBuilder<Key, Value> setMetricsCallback(
+            @Nullable PagedList.MetricsCallback<Value> metricsCallback) {
+        mMetricsCallback = metricsCallback;
+        return this;
+    }
+
     /**
      * Sets scheduler which will be used for observing new PagedLists, as well as loading updates
      * within the PagedLists.
@@ -223,6 +242,7 @@ public final class RxPagedListBuilder<Key, Value> {
                 mInitialLoadKey,
                 mConfig,
                 mBoundaryCallback,
+                mMetricsCallback,
                 mDataSourceFactory,
                 mNotifyExecutor,
                 mFetchExecutor))
@@ -258,6 +278,8 @@ public final class RxPagedListBuilder<Key, Value> {
         private final PagedList.Config mConfig;
         @Nullable
         private final PagedList.BoundaryCallback mBoundaryCallback;
+        @Nullable
+        private final PagedList.MetricsCallback mMetricsCallback;
         @NonNull
         private final DataSource.Factory<Key, Value> mDataSourceFactory;
         @NonNull
@@ -275,12 +297,14 @@ public final class RxPagedListBuilder<Key, Value> {
         PagingObservableOnSubscribe(@Nullable Key initialLoadKey,
                 @NonNull PagedList.Config config,
                 @Nullable PagedList.BoundaryCallback boundaryCallback,
+                @Nullable PagedList.MetricsCallback metricsCallback,
                 @NonNull DataSource.Factory<Key, Value> dataSourceFactory,
                 @NonNull Executor notifyExecutor,
                 @NonNull Executor fetchExecutor) {
             mInitialLoadKey = initialLoadKey;
             mConfig = config;
             mBoundaryCallback = boundaryCallback;
+            mMetricsCallback = metricsCallback;
             mDataSourceFactory = dataSourceFactory;
             mNotifyExecutor = notifyExecutor;
             mFetchExecutor = fetchExecutor;
@@ -334,6 +358,7 @@ public final class RxPagedListBuilder<Key, Value> {
                         .setNotifyExecutor(mNotifyExecutor)
                         .setFetchExecutor(mFetchExecutor)
                         .setBoundaryCallback(mBoundaryCallback)
+                        .setMetricsCallback(mMetricsCallback)
                         .setInitialKey(initializeKey)
                         .build();
             } while (mList.isDetached());
@@ -30,6 +30,7 @@ import android.os.Build;
 import android.os.CancellationSignal;
 import android.util.Pair;
 
+import androidx.annotation.Nullable;
 import androidx.sqlite.db.SimpleSQLiteQuery;
 import androidx.sqlite.db.SupportSQLiteDatabase;
 import androidx.sqlite.db.SupportSQLiteQuery;
@@ -48,7 +49,12 @@ class FrameworkSQLiteDatabase implements SupportSQLiteDatabase {
             {"", " OR ROLLBACK ", " OR ABORT ", " OR FAIL ", " OR IGNORE ", " OR REPLACE "};
     private static final String[] EMPTY_STRING_ARRAY = new String[0];
 
+    // the default size of the prepared statement cache of a framework connection
+    private static final int DEFAULT_SQL_CACHE_SIZE = 25;
+
     private final SQLiteDatabase mDelegate;
+    @Nullable
+    private final FrameworkSQLiteStatementCache mStatementCache;
 
     /**
      * Creates a wrapper around {@link SQLiteDatabase}.
@@ -56,12 +62,38 @@ class FrameworkSQLiteDatabase implements SupportSQLiteDatabase {
      * @param delegate The delegate to receive all calls.
      */
     FrameworkSQLiteDatabase(SQLiteDatabase delegate) {
+        this(delegate, 0);
+    }
+
+    /**
+     * Creates a wrapper around {@link SQLiteDatabase} which caches compiled statements.
+     *
+     * @param delegate           The delegate to receive all calls.
+     * @param statementCacheSize The capacity of the statement cache, 0 to disable it.
+     */
+    FrameworkSQLiteDatabase(SQLiteDatabase delegate, int statementCacheSize) {
         mDelegate = delegate;
+        if (statementCacheSize > 0) {
+            mStatementCache = new FrameworkSQLiteStatementCache(statementCacheSize);
+            if (statementCacheSize > DEFAULT_SQL_CACHE_SIZE) {
+                // queries are prepared through the connection cache, never shrink it.
+                mDelegate.setMaxSqlCacheSize(
+                        Math.min(statementCacheSize, SQLiteDatabase.MAX_SQL_CACHE_SIZE));
+            }
+        } else {
+            mStatementCache = null;
+        }
     }
 
     @Override
     public SupportSQLiteStatement compileStatement(String sql) {
-        return new FrameworkSQLiteStatement(mDelegate.compileStatement(sql));
+        final FrameworkSQLiteStatementCache cache = mStatementCache;
+        if (cache == null) {
+            return new FrameworkSQLiteStatement(mDelegate.compileStatement(sql));
+        }
+        final int generation = cache.getGeneration();
+        return new FrameworkSQLiteStatement(cache.acquire(mDelegate, sql), cache, sql,
+                generation);
     }
 
     @Override
@@ -194,8 +226,12 @@ class FrameworkSQLiteDatabase implements SupportSQLiteDatabase {
         String query = "DELETE FROM " + table
                 + (isEmpty(whereClause) ? "" : " WHERE " + whereClause);
         SupportSQLiteStatement statement = compileStatement(query);
-        SimpleSQLiteQuery.bind(statement, whereArgs);
-        return statement.executeUpdateDelete();
+        try {
+            SimpleSQLiteQuery.bind(statement, whereArgs);
+            return statement.executeUpdateDelete();
+        } finally {
+            closeQuietly(statement);
+        }
     }
 
 
@@ -233,18 +269,30 @@ class FrameworkSQLiteDatabase implements SupportSQLiteDatabase {
             sql.append(whereClause);
         }
         SupportSQLiteStatement stmt = compileStatement(sql.toString());
-        SimpleSQLiteQuery.bind(stmt, bindArgs);
-        return stmt.executeUpdateDelete();
+        try {
+            SimpleSQLiteQuery.bind(stmt, bindArgs);
+            return stmt.executeUpdateDelete();
+        } finally {
+            closeQuietly(stmt);
+        }
     }
 
     @Override
     public void execSQL(String sql) throws SQLException {
         mDelegate.execSQL(sql);
+        onSqlExecuted(sql);
     }
 
     @Override
     public void execSQL(String sql, Object[] bindArgs) throws SQLException {
         mDelegate.execSQL(sql, bindArgs);
+        onSqlExecuted(sql);
+    }
+
+    private void onSqlExecuted(String sql) {
+        if (mStatementCache != null && FrameworkSQLiteStatementCache.isSchemaChange(sql)) {
+            mStatementCache.clear();
+        }
     }
 
     @Override
@@ -312,9 +360,32 @@ class FrameworkSQLiteDatabase implements SupportSQLiteDatabase {
 
     @Override
     public void close() throws IOException {
+        clearStatementCache();
         mDelegate.close();
     }
 
+    /**
+     * Closes the idle statements of the statement cache, if any, before the delegate is closed.
+     */
+    void clearStatementCache() {
+        if (mStatementCache != null) {
+            mStatementCache.clear();
+        }
+    }
+
+    @Nullable
+    FrameworkSQLiteStatementCache getStatementCache() {
+        return mStatementCache;
+    }
+
+    private static void closeQuietly(SupportSQLiteStatement statement) {
+        try {
+            statement.close();
+        } catch (IOException ignored) {
+            // FrameworkSQLiteStatement does not throw
+        }
+    }
+
     /**
      * Checks if this object delegates to the same given database reference.
      */
@@ -29,12 +29,18 @@ class FrameworkSQLiteOpenHelper implements SupportSQLiteOpenHelper {
     private final OpenHelper mDelegate;
 
     FrameworkSQLiteOpenHelper(Context context, String name, Callback callback) {
-        mDelegate = createDelegate(context, name, callback);
+        this(context, name, callback, 0);
     }
 
-    private OpenHelper createDelegate(Context context, String name, Callback callback) {
+    FrameworkSQLiteOpenHelper(Context context, String name, Callback callback,
+            int statementCacheSize) {
+        mDelegate = createDelegate(context, name, callback, statementCacheSize);
+    }
+
+    private OpenHelper createDelegate(Context context, String name, Callback callback,
+            int statementCacheSize) {
         final FrameworkSQLiteDatabase[] dbRef = new FrameworkSQLiteDatabase[1];
-        return new OpenHelper(context, name, dbRef, callback);
+        return new OpenHelper(context, name, dbRef, callback, statementCacheSize);
     }
 
     @Override
@@ -71,20 +77,22 @@ class FrameworkSQLiteOpenHelper implements SupportSQLiteOpenHelper {
          */
         final FrameworkSQLiteDatabase[] mDbRef;
         final Callback mCallback;
+        final int mStatementCacheSize;
         // see b/78359448
         private boolean mMigrated;
 
         OpenHelper(Context context, String name, final FrameworkSQLiteDatabase[] dbRef,
-                final Callback callback) {
+                final Callback callback, final int statementCacheSize) {
             super(context, name, null, callback.version,
                     new DatabaseErrorHandler() {
                         @Override
                         public void onCorruption(SQLiteDatabase dbObj) {
-                            callback.onCorruption(getWrappedDb(dbRef, dbObj));
+                            callback.onCorruption(getWrappedDb(dbRef, dbObj, statementCacheSize));
                         }
                     });
             mCallback = callback;
             mDbRef = dbRef;
+            mStatementCacheSize = statementCacheSize;
         }
 
         synchronized SupportSQLiteDatabase getWritableSupportDatabase() {
@@ -110,7 +118,7 @@ class FrameworkSQLiteOpenHelper implements SupportSQLiteOpenHelper {
         }
 
         FrameworkSQLiteDatabase getWrappedDb(SQLiteDatabase sqLiteDatabase) {
-            return getWrappedDb(mDbRef, sqLiteDatabase);
+            return getWrappedDb(mDbRef, sqLiteDatabase, mStatementCacheSize);
         }
 
         @Override
@@ -145,15 +153,18 @@ class FrameworkSQLiteOpenHelper implements SupportSQLiteOpenHelper {
 
         @Override
         public synchronized void close() {
+            if (mDbRef[0] != null) {
+                mDbRef[0].clearStatementCache();
+            }
             super.close();
             mDbRef[0] = null;
         }
 
         static FrameworkSQLiteDatabase getWrappedDb(FrameworkSQLiteDatabase[] refHolder,
-                SQLiteDatabase sqLiteDatabase) {
+                SQLiteDatabase sqLiteDatabase, int statementCacheSize) {
             FrameworkSQLiteDatabase dbRef = refHolder[0];
             if (dbRef == null || !dbRef.isDelegate(sqLiteDatabase)) {
-                refHolder[0] = new FrameworkSQLiteDatabase(sqLiteDatabase);
+                refHolder[0] = new FrameworkSQLiteDatabase(sqLiteDatabase, statementCacheSize);
             }
             return refHolder[0];
         }
@@ -24,9 +24,36 @@ import androidx.sqlite.db.SupportSQLiteOpenHelper;
  */
 @SuppressWarnings("unused")
 public final class FrameworkSQLiteOpenHelperFactory implements SupportSQLiteOpenHelper.Factory {
+    private final int mStatementCacheSize;
+
+    /**
+     * Creates a factory for databases which compile a new statement for each call to
+     * {@link androidx.sqlite.db.SupportSQLiteDatabase#compileStatement(String)}.
+     */
+    public FrameworkSQLiteOpenHelperFactory() {
+        this(0);
+    }
+
+    /**
+     * Creates a factory for databases which keep up to {@code statementCacheSize} compiled
+     * statements in a {@link FrameworkSQLiteStatementCache}, so statements compiled again with
+     * the same SQL after being closed are reused.
+     *
+     * @param statementCacheSize The maximum number of idle statements to cache per database,
+     *                           0 to disable the cache.
+     */
+    public FrameworkSQLiteOpenHelperFactory(int statementCacheSize) {
+        if (statementCacheSize < 0) {
+            throw new IllegalArgumentException("Statement cache size cannot be negative, was "
+                    + statementCacheSize);
+        }
+        mStatementCacheSize = statementCacheSize;
+    }
+
     @Override
     public SupportSQLiteOpenHelper create(SupportSQLiteOpenHelper.Configuration configuration) {
         return new FrameworkSQLiteOpenHelper(
-                configuration.context, configuration.name, configuration.callback);
+                configuration.context, configuration.name, configuration.callback,
+                mStatementCacheSize);
     }
 }
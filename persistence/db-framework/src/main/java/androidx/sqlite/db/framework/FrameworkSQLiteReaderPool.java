@@ -0,0 +1,356 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.sqlite.db.framework;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A fixed size pool of read-only connections to a database file in write-ahead logging mode.
+ * <p>
+ * In WAL mode, readers do not block each other nor the writer, so queries leased from this pool
+ * can run concurrently with each other and with the single writer connection owned by the
+ * {@link FrameworkSQLiteOpenHelperFactory open helper}. Connections are opened lazily, the first
+ * time they are needed.
+ * <p>
+ * Each {@link #acquire()} returns a {@link Lease} which must be released once the caller is done
+ * with the connection and any {@link android.database.Cursor} it returned. Callers that must not
+ * wait for a connection, e.g. because the thread holding it may be waiting for them, use
+ * {@link #tryAcquire()} instead. A lease can be released
+ * from any thread, e.g. by a cursor closed on another thread than the one that queried it.
+ * <p>
+ * Leases are reentrant per thread: a thread that acquires a connection while it already holds one
+ * receives the same connection, so nested queries cannot deadlock on a small pool. The connection
+ * returns to the pool once all of its leases are released.
+ * <p>
+ * The database must have been created and migrated by the writer before the pool is used.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class FrameworkSQLiteReaderPool {
+    private final File mDatabaseFile;
+    private final Object mLock = new Object();
+    private final FrameworkSQLiteDatabase[] mConnections;
+    private final int[] mLeaseCounts;
+    private final int[] mGenerations;
+    private final long[] mAcquireCounts;
+    private final long[] mWaitTimeNanos;
+    private long mMaxWaitTimeNanos;
+    private boolean mClosed;
+
+    private final ThreadLocal<Lease> mThreadLease = new ThreadLocal<>();
+
+    /**
+     * Creates a pool of read-only connections to the given database file.
+     *
+     * @param databaseFile The database file, usually obtained from
+     *                     {@link android.content.Context#getDatabasePath(String)}.
+     * @param size         The maximum number of concurrently open read connections.
+     */
+    public FrameworkSQLiteReaderPool(@NonNull File databaseFile, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Pool size must be at least 1, was " + size);
+        }
+        mDatabaseFile = databaseFile;
+        mConnections = new FrameworkSQLiteDatabase[size];
+        mLeaseCounts = new int[size];
+        mGenerations = new int[size];
+        mAcquireCounts = new long[size];
+        mWaitTimeNanos = new long[size];
+    }
+
+    /**
+     * Leases a read-only connection, waiting for one to be released if all connections are in use.
+     *
+     * @return A lease on a read-only database connection which must be released once the caller
+     * is done with it and any {@link android.database.Cursor} it returned.
+     * @throws IllegalStateException If the pool is closed.
+     */
+    @NonNull
+    public Lease acquire() {
+        final Lease reentrant = acquireReentrant();
+        if (reentrant != null) {
+            return reentrant;
+        }
+        final long start = System.nanoTime();
+        final int index;
+        final int generation;
+        boolean interrupted = false;
+        synchronized (mLock) {
+            while (true) {
+                throwIfClosedLocked();
+                int free = findFreeLocked();
+                if (free >= 0) {
+                    index = free;
+                    break;
+                }
+                try {
+                    mLock.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            generation = leaseLocked(index, System.nanoTime() - start);
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return openLease(index, generation);
+    }
+
+    /**
+     * Leases a read-only connection if one is free, without waiting for one to be released.
+     * <p>
+     * Like {@link #acquire()}, this returns another lease on the same connection if the calling
+     * thread already holds one, and later calls to {@link #acquire()} on the calling thread do not
+     * wait as long as the returned lease is not released.
+     *
+     * @return A lease on a read-only database connection which must be released once the caller
+     * is done with it, or null if all connections are in use.
+     * @throws IllegalStateException If the pool is closed.
+     */
+    @Nullable
+    public Lease tryAcquire() {
+        final Lease reentrant = acquireReentrant();
+        if (reentrant != null) {
+            return reentrant;
+        }
+        final int index;
+        final int generation;
+        synchronized (mLock) {
+            throwIfClosedLocked();
+            index = findFreeLocked();
+            if (index < 0) {
+                return null;
+            }
+            generation = leaseLocked(index, 0);
+        }
+        return openLease(index, generation);
+    }
+
+    private Lease acquireReentrant() {
+        final Lease current = mThreadLease.get();
+        if (current == null) {
+            return null;
+        }
+        synchronized (mLock) {
+            throwIfClosedLocked();
+            // the leases of this thread may have been released by another thread since
+            if (mLeaseCounts[current.mIndex] > 0
+                    && mGenerations[current.mIndex] == current.mGeneration) {
+                mLeaseCounts[current.mIndex]++;
+                return new Lease(this, current.mIndex, current.mGeneration,
+                        current.mConnection);
+            }
+        }
+        mThreadLease.remove();
+        return null;
+    }
+
+    private int leaseLocked(int index, long waited) {
+        mLeaseCounts[index] = 1;
+        mAcquireCounts[index]++;
+        mWaitTimeNanos[index] += waited;
+        if (waited > mMaxWaitTimeNanos) {
+            mMaxWaitTimeNanos = waited;
+        }
+        return ++mGenerations[index];
+    }
+
+    private Lease openLease(int index, int generation) {
+        final FrameworkSQLiteDatabase connection;
+        try {
+            connection = openConnection(index);
+        } catch (RuntimeException e) {
+            release(index);
+            throw e;
+        }
+        final Lease lease = new Lease(this, index, generation, connection);
+        mThreadLease.set(lease);
+        return lease;
+    }
+
+    void release(int index) {
+        synchronized (mLock) {
+            if (--mLeaseCounts[index] > 0) {
+                return;
+            }
+            if (mClosed) {
+                closeConnectionLocked(index);
+            }
+            mLock.notify();
+        }
+    }
+
+    /**
+     * Closes all idle connections. Connections currently leased are closed as soon as they are
+     * released. After this call, {@link #acquire()} and {@link #tryAcquire()} throw an
+     * {@link IllegalStateException}.
+     */
+    public void close() {
+        synchronized (mLock) {
+            mClosed = true;
+            for (int i = 0; i < mConnections.length; i++) {
+                if (mLeaseCounts[i] == 0) {
+                    closeConnectionLocked(i);
+                }
+            }
+            mLock.notifyAll();
+        }
+    }
+
+    /**
+     * @return The maximum number of read connections in this pool.
+     */
+    public int getSize() {
+        return mConnections.length;
+    }
+
+    /**
+     * @param connectionIndex The connection index, between 0 and {@link #getSize()} exclusive.
+     * @return The number of times the connection was leased, not counting reentrant acquisitions.
+     */
+    public long getAcquireCount(int connectionIndex) {
+        synchronized (mLock) {
+            return mAcquireCounts[connectionIndex];
+        }
+    }
+
+    /**
+     * @param connectionIndex The connection index, between 0 and {@link #getSize()} exclusive.
+     * @return The total time, in nanoseconds, callers waited before leasing the connection.
+     */
+    public long getWaitTimeNanos(int connectionIndex) {
+        synchronized (mLock) {
+            return mWaitTimeNanos[connectionIndex];
+        }
+    }
+
+    /**
+     * @return The total time, in nanoseconds, callers waited for any connection in this pool.
+     */
+    public long getTotalWaitTimeNanos() {
+        synchronized (mLock) {
+            long total = 0;
+            for (long waitTime : mWaitTimeNanos) {
+                total += waitTime;
+            }
+            return total;
+        }
+    }
+
+    /**
+     * @return The longest time, in nanoseconds, a single caller waited for a connection.
+     */
+    public long getMaxWaitTimeNanos() {
+        synchronized (mLock) {
+            return mMaxWaitTimeNanos;
+        }
+    }
+
+    private void throwIfClosedLocked() {
+        if (mClosed) {
+            throw new IllegalStateException("Cannot acquire a connection from a closed pool.");
+        }
+    }
+
+    private int findFreeLocked() {
+        // prefer connections that are already open
+        int unopened = -1;
+        for (int i = 0; i < mConnections.length; i++) {
+            if (mLeaseCounts[i] == 0) {
+                if (mConnections[i] != null) {
+                    return i;
+                }
+                if (unopened == -1) {
+                    unopened = i;
+                }
+            }
+        }
+        return unopened;
+    }
+
+    private FrameworkSQLiteDatabase openConnection(int index) {
+        // only the first lease of a slot opens its connection, before it can be shared
+        FrameworkSQLiteDatabase connection = mConnections[index];
+        if (connection == null) {
+            connection = new FrameworkSQLiteDatabase(SQLiteDatabase.openDatabase(
+                    mDatabaseFile.getPath(), null, SQLiteDatabase.OPEN_READONLY));
+            synchronized (mLock) {
+                mConnections[index] = connection;
+            }
+        }
+        return connection;
+    }
+
+    private void closeConnectionLocked(int index) {
+        final FrameworkSQLiteDatabase connection = mConnections[index];
+        if (connection != null) {
+            mConnections[index] = null;
+            try {
+                connection.close();
+            } catch (IOException ignored) {
+                // FrameworkSQLiteDatabase never throws
+            }
+        }
+    }
+
+    /**
+     * A connection leased from a {@link FrameworkSQLiteReaderPool}.
+     * <p>
+     * A lease is not tied to the thread that acquired it: it can be released from any thread, and
+     * releasing it more than once has no effect.
+     */
+    public static final class Lease {
+        final FrameworkSQLiteReaderPool mPool;
+        final int mIndex;
+        final int mGeneration;
+        final FrameworkSQLiteDatabase mConnection;
+        private final AtomicBoolean mReleased = new AtomicBoolean();
+
+        Lease(FrameworkSQLiteReaderPool pool, int index, int generation,
+                FrameworkSQLiteDatabase connection) {
+            mPool = pool;
+            mIndex = index;
+            mGeneration = generation;
+            mConnection = connection;
+        }
+
+        /**
+         * @return The leased read-only connection. It must not be used after {@link #release()}.
+         */
+        @NonNull
+        public SupportSQLiteDatabase getConnection() {
+            return mConnection;
+        }
+
+        /**
+         * Returns the connection to the pool once all leases on it are released.
+         */
+        public void release() {
+            if (mReleased.compareAndSet(false, true)) {
+                mPool.release(mIndex);
+            }
+        }
+    }
+}
@@ -18,6 +18,7 @@ package androidx.sqlite.db.framework;
 
 import android.database.sqlite.SQLiteStatement;
 
+import androidx.annotation.Nullable;
 import androidx.sqlite.db.SupportSQLiteStatement;
 
 /**
@@ -25,6 +26,11 @@ import androidx.sqlite.db.SupportSQLiteStatement;
  */
 class FrameworkSQLiteStatement extends FrameworkSQLiteProgram implements SupportSQLiteStatement {
     private final SQLiteStatement mDelegate;
+    @Nullable
+    private final FrameworkSQLiteStatementCache mCache;
+    private final String mSql;
+    private final int mCacheGeneration;
+    private boolean mReleased;
 
     /**
      * Creates a wrapper around a framework {@link SQLiteStatement}.
@@ -32,8 +38,35 @@ class FrameworkSQLiteStatement extends FrameworkSQLiteProgram implements Support
      * @param delegate The SQLiteStatement to delegate calls to.
      */
     FrameworkSQLiteStatement(SQLiteStatement delegate) {
+        this(delegate, null, null, 0);
+    }
+
+    /**
+     * Creates a wrapper around a framework {@link SQLiteStatement} leased from a statement cache,
+     * which is given back to the cache when this statement is closed.
+     *
+     * @param delegate   The SQLiteStatement to delegate calls to.
+     * @param cache      The cache the delegate was leased from.
+     * @param sql        The SQL of the delegate.
+     * @param generation The generation of the cache when the delegate was leased.
+     */
+    FrameworkSQLiteStatement(SQLiteStatement delegate,
+            @Nullable FrameworkSQLiteStatementCache cache, String sql, int generation) {
         super(delegate);
         mDelegate = delegate;
+        mCache = cache;
+        mSql = sql;
+        mCacheGeneration = generation;
+    }
+
+    @Override
+    public void close() {
+        if (mCache == null) {
+            super.close();
+        } else if (!mReleased) {
+            mReleased = true;
+            mCache.release(mSql, mDelegate, mCacheGeneration);
+        }
     }
 
     @Override
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.sqlite.db.framework;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A least recently used cache of compiled statements, keyed by their SQL text.
+ * <p>
+ * Statements returned by {@link SupportSQLiteDatabase#compileStatement(String)} are leased from
+ * this cache and go back to it, with their bindings cleared, when they are closed. A statement is
+ * only leased to one caller at a time, so callers must not use a statement after closing it.
+ * Statements that are never closed are simply not reused.
+ * <p>
+ * All idle statements are evicted when the schema changes through
+ * {@link SupportSQLiteDatabase#execSQL(String)} or when the database is closed.
+ * <p>
+ * Cursors are always created from a new program by the framework, so queries do not go through
+ * this cache. Instead, the prepared statement cache of the underlying connection is grown to the
+ * capacity of this cache, up to {@link SQLiteDatabase#MAX_SQL_CACHE_SIZE}.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class FrameworkSQLiteStatementCache {
+    private static final String[] SCHEMA_CHANGE_PREFIXES = {"CREATE", "DROP", "ALTER"};
+
+    private final int mCapacity;
+    // access ordered, so the eldest entry is the least recently released statement
+    private final LinkedHashMap<String, SQLiteStatement> mIdleStatements =
+            new LinkedHashMap<>(16, 0.75f, true);
+    private long mHitCount;
+    private long mMissCount;
+    private long mEvictionCount;
+    // incremented each time the cache is cleared, so statements leased before are not reused
+    private int mGeneration;
+
+    FrameworkSQLiteStatementCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1, was " + capacity);
+        }
+        mCapacity = capacity;
+    }
+
+    /**
+     * Returns the statement cache of the given database, if it was opened by a
+     * {@link FrameworkSQLiteOpenHelperFactory} created with a statement cache.
+     *
+     * @param database The database.
+     * @return The statement cache of the database, or null if it has none.
+     */
+    @Nullable
+    public static FrameworkSQLiteStatementCache of(@NonNull SupportSQLiteDatabase database) {
+        if (database instanceof FrameworkSQLiteDatabase) {
+            return ((FrameworkSQLiteDatabase) database).getStatementCache();
+        }
+        return null;
+    }
+
+    SQLiteStatement acquire(SQLiteDatabase database, String sql) {
+        synchronized (this) {
+            final SQLiteStatement statement = mIdleStatements.remove(sql);
+            if (statement != null) {
+                mHitCount++;
+                return statement;
+            }
+            mMissCount++;
+        }
+        return database.compileStatement(sql);
+    }
+
+    synchronized int getGeneration() {
+        return mGeneration;
+    }
+
+    void release(String sql, SQLiteStatement statement, int generation) {
+        statement.clearBindings();
+        final List<SQLiteStatement> stale = new ArrayList<>(1);
+        synchronized (this) {
+            if (generation != mGeneration) {
+                // compiled before the last schema change
+                stale.add(statement);
+            } else {
+                final SQLiteStatement previous = mIdleStatements.put(sql, statement);
+                if (previous != null && previous != statement) {
+                    // another lease of the same SQL went back first, keep the latest one
+                    stale.add(previous);
+                }
+                final Iterator<Map.Entry<String, SQLiteStatement>> iterator =
+                        mIdleStatements.entrySet().iterator();
+                while (mIdleStatements.size() > mCapacity) {
+                    stale.add(iterator.next().getValue());
+                    iterator.remove();
+                    mEvictionCount++;
+                }
+            }
+        }
+        for (SQLiteStatement evicted : stale) {
+            evicted.close();
+        }
+    }
+
+    /**
+     * Evicts all idle statements. Statements currently leased are closed instead of being cached
+     * when they are released.
+     */
+    public void clear() {
+        final List<SQLiteStatement> evicted;
+        synchronized (this) {
+            evicted = new ArrayList<>(mIdleStatements.values());
+            mEvictionCount += evicted.size();
+            mIdleStatements.clear();
+            mGeneration++;
+        }
+        for (SQLiteStatement statement : evicted) {
+            statement.close();
+        }
+    }
+
+    static boolean isSchemaChange(String sql) {
+        final String trimmed = sql.trim();
+        for (String prefix : SCHEMA_CHANGE_PREFIXES) {
+            if (trimmed.regionMatches(true, 0, prefix, 0, prefix.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The maximum number of idle statements kept by this cache.
+     */
+    public int getCapacity() {
+        return mCapacity;
+    }
+
+    /**
+     * @return The number of idle statements currently in the cache.
+     */
+    public synchronized int getSize() {
+        return mIdleStatements.size();
+    }
+
+    /**
+     * @return The number of times a compiled statement was reused.
+     */
+    public synchronized long getHitCount() {
+        return mHitCount;
+    }
+
+    /**
+     * @return The number of times a statement had to be compiled.
+     */
+    public synchronized long getMissCount() {
+        return mMissCount;
+    }
+
+    /**
+     * @return The number of idle statements closed to make room for others or because the
+     * schema changed.
+     */
+    public synchronized long getEvictionCount() {
+        return mEvictionCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        final long accesses = mHitCount + mMissCount;
+        final int hitPercent = accesses != 0 ? (int) (100 * mHitCount / accesses) : 0;
+        return String.format(Locale.US,
+                "FrameworkSQLiteStatementCache[capacity=%d,hits=%d,misses=%d,hitRate=%d%%]",
+                mCapacity, mHitCount, mMissCount, hitPercent);
+    }
+}
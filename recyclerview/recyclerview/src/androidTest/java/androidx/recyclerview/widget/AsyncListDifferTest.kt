@@ -18,8 +18,10 @@ package androidx.recyclerview.widget
 
 import androidx.test.filters.SmallTest
 import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
 import org.junit.Assert.assertNotSame
 import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
 import org.junit.Assert.fail
 import org.junit.Test
 import org.junit.runner.RunWith
@@ -32,7 +34,12 @@ import org.mockito.Mockito.verifyZeroInteractions
 import java.lang.UnsupportedOperationException
 import java.util.Collections.emptyList
 import java.util.LinkedList
+import java.util.Random
+import java.util.concurrent.CountDownLatch
 import java.util.concurrent.Executor
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
 
 class TestExecutor : Executor {
     private val mTasks = LinkedList<Runnable>()
@@ -365,6 +372,138 @@ class AsyncListDifferTest {
         verifyNoMoreInteractions(listener)
     }
 
+    @Test
+    fun supersededDiffIsCanceled() {
+        val comparedItems = mutableListOf<String>()
+        val differ = AsyncListDiffer(IGNORE_CALLBACK,
+                AsyncDifferConfig.Builder(object : DiffUtil.ItemCallback<String>() {
+                    override fun areItemsTheSame(oldItem: String, newItem: String): Boolean {
+                        comparedItems.add(newItem)
+                        return oldItem == newItem
+                    }
+
+                    override fun areContentsTheSame(oldItem: String, newItem: String): Boolean {
+                        return oldItem == newItem
+                    }
+                })
+                        .setMainThreadExecutor(mMainThread)
+                        .setBackgroundThreadExecutor(mBackgroundThread)
+                        .build())
+
+        differ.submitList(listOf("a", "b"))
+        // never diffed, since it is replaced before the background executor runs
+        differ.submitList(listOf("a", "c"))
+        differ.submitList(listOf("a", "d"))
+        drain()
+        assertEquals(listOf("a", "d"), differ.currentList)
+        assertFalse(comparedItems.contains("c"))
+    }
+
+    @Test
+    fun parallelDiff() {
+        val oldList = (0 until 5000).map { "item$it" }
+        val newList = shuffle(oldList)
+
+        val recorder = ListUpdateRecorder()
+        val differ = AsyncListDiffer(recorder,
+                AsyncDifferConfig.Builder(STRING_EQUALS_CALLBACK)
+                        .setMainThreadExecutor(mMainThread)
+                        .setBackgroundThreadExecutor(mBackgroundThread)
+                        .setDiffParallelism(4)
+                        .build())
+        differ.submitList(oldList)
+        recorder.items = oldList.toMutableList()
+
+        differ.submitList(newList)
+        drain()
+        assertEquals(newList, differ.currentList)
+        // inserted items are recorded as null
+        assertEquals(newList.map { if (it.startsWith("new")) null else it }, recorder.items)
+    }
+
+    @Test
+    fun runningParallelDiffIsCanceled() {
+        val oldList = (0 until 5000).map { "item$it" }
+        val newList = shuffle(oldList)
+        val comparisons = AtomicInteger()
+        val blocked = CountDownLatch(1)
+        val release = CountDownLatch(1)
+        val executor = Executors.newFixedThreadPool(4)
+        val differ = AsyncListDiffer(IGNORE_CALLBACK,
+                AsyncDifferConfig.Builder(object : DiffUtil.ItemCallback<String>() {
+                    override fun areItemsTheSame(oldItem: String, newItem: String): Boolean {
+                        // past the prefix, suffix and anchors, so the segments are being diffed
+                        if (comparisons.incrementAndGet() == 10000) {
+                            blocked.countDown()
+                            release.await()
+                        }
+                        return oldItem == newItem
+                    }
+
+                    override fun areContentsTheSame(oldItem: String, newItem: String): Boolean {
+                        return oldItem == newItem
+                    }
+                })
+                        .setMainThreadExecutor(mMainThread)
+                        .setBackgroundThreadExecutor(executor)
+                        .setDiffParallelism(4)
+                        .build())
+        try {
+            differ.submitList(oldList)
+            differ.submitList(newList)
+            assertTrue(blocked.await(10, TimeUnit.SECONDS))
+            differ.submitList(null)
+            val canceledComparisons = comparisons.get()
+            release.countDown()
+            executor.shutdown()
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS))
+
+            // the segments stop at their next check for cancellation, and no result is posted
+            assertTrue(comparisons.get() - canceledComparisons < 4 * 4 * 256)
+            assertFalse(mMainThread.executeAll())
+            assertEquals(emptyList<String>(), differ.currentList)
+        } finally {
+            release.countDown()
+            executor.shutdownNow()
+        }
+    }
+
+    /**
+     * Returns a copy of a list with 200 items moved, removed and inserted.
+     */
+    private fun shuffle(list: List<String>): List<String> {
+        val shuffled = list.toMutableList()
+        val random = Random(0)
+        repeat(200) {
+            shuffled.add(random.nextInt(shuffled.size),
+                    shuffled.removeAt(random.nextInt(shuffled.size)))
+            shuffled.removeAt(random.nextInt(shuffled.size))
+            shuffled.add(random.nextInt(shuffled.size), "new$it")
+        }
+        return shuffled
+    }
+
+    /**
+     * Applies updates to a list, adding nulls for inserted items.
+     */
+    private class ListUpdateRecorder : ListUpdateCallback {
+        var items: MutableList<String?> = mutableListOf()
+
+        override fun onInserted(position: Int, count: Int) {
+            items.addAll(position, arrayOfNulls<String>(count).toList())
+        }
+
+        override fun onRemoved(position: Int, count: Int) {
+            repeat(count) { items.removeAt(position) }
+        }
+
+        override fun onMoved(fromPosition: Int, toPosition: Int) {
+            items.add(toPosition, items.removeAt(fromPosition))
+        }
+
+        override fun onChanged(position: Int, count: Int, payload: Any?) {}
+    }
+
     private fun drain() {
         var executed: Boolean
         do {
@@ -393,6 +532,16 @@ class AsyncListDifferTest {
             }
         }
 
+        private val STRING_EQUALS_CALLBACK = object : DiffUtil.ItemCallback<String>() {
+            override fun areItemsTheSame(oldItem: String, newItem: String): Boolean {
+                return oldItem == newItem
+            }
+
+            override fun areContentsTheSame(oldItem: String, newItem: String): Boolean {
+                return oldItem == newItem
+            }
+        }
+
         private val IGNORE_CALLBACK = object : ListUpdateCallback {
             override fun onInserted(position: Int, count: Int) {}
 
@@ -0,0 +1,319 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.recyclerview.widget;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import androidx.annotation.NonNull;
+import androidx.test.filters.SmallTest;
+import androidx.test.runner.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Tests the tile loading of {@link AsyncListUtil} with a load executor. The main and the
+ * background thread are both the test thread, and loads run when the test says so.
+ */
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class AsyncListUtilLoadingTest {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int TILE_SIZE = 10;
+    private static final int ITEM_COUNT = 100;
+    // a tile of 10 four byte items, plus 4 bytes of header per item
+    private static final int STORED_TILE_BYTES = 80;
+
+    private static final TileStore.ItemCodec<String> STRING_CODEC =
+            new TileStore.ItemCodec<String>() {
+                @Override
+                public void encode(@NonNull String item, @NonNull ByteBuffer out) {
+                    out.put(item.getBytes(UTF_8));
+                }
+
+                @NonNull
+                @Override
+                public String decode(@NonNull ByteBuffer in) {
+                    byte[] bytes = new byte[in.remaining()];
+                    in.get(bytes);
+                    return new String(bytes, UTF_8);
+                }
+            };
+
+    private final QueueExecutor mExecutor = new QueueExecutor();
+    // tileLoaded messages posted to the background thread by the loads
+    private final ArrayDeque<Runnable> mBackgroundMessages = new ArrayDeque<>();
+    private final TestDataCallback mDataCallback = new TestDataCallback();
+    private final TestViewCallback mViewCallback = new TestViewCallback();
+    private AsyncListUtil<String> mAsyncListUtil;
+
+    @Test
+    public void parallelLoads() {
+        createAsyncListUtil(2, null);
+        // tiles 0, 10 and 20 are visible, the last one waits for a free load
+        assertThat(mExecutor.size(), is(2));
+
+        runNextLoad();
+        assertThat(mDataCallback.mFilledTiles, is(Arrays.asList(0)));
+        assertThat(mExecutor.size(), is(2));
+
+        runAllLoads();
+        assertThat(mDataCallback.mFilledTiles, is(Arrays.asList(0, 10, 20)));
+        assertThat(mExecutor.mMaxQueued, is(2));
+        assertLoaded(0, 29);
+    }
+
+    @Test
+    public void pendingLoadsReplacedByNewRange() {
+        createAsyncListUtil(1, null);
+        assertThat(mExecutor.size(), is(1));
+
+        mViewCallback.scrollTo(50);
+        runAllLoads();
+        // tile 0 was already loading, tiles 10 and 20 are no longer needed
+        assertThat(mDataCallback.mFilledTiles, is(Arrays.asList(0, 50, 60, 70)));
+        assertLoaded(50, 74);
+    }
+
+    @Test
+    public void refreshWaitsForRunningLoads() {
+        createAsyncListUtil(2, null);
+        assertThat(mDataCallback.mRefreshCount, is(1));
+
+        mAsyncListUtil.refresh();
+        // tiles 0 and 10 may still read the data
+        assertThat(mDataCallback.mRefreshCount, is(1));
+        runNextLoad();
+        assertThat(mDataCallback.mRefreshCount, is(1));
+        runNextLoad();
+        assertThat(mDataCallback.mRefreshCount, is(2));
+        // tiles of the previous generation are recycled, tile 20 never started
+        assertThat(mDataCallback.mRecycledTiles, is(Arrays.asList(0, 10)));
+
+        runAllLoads();
+        assertThat(mDataCallback.mFilledTiles, is(Arrays.asList(0, 10, 0, 10, 20)));
+        assertLoaded(0, 29);
+    }
+
+    @Test
+    public void evictsTilesOverByteBudget() {
+        TileStore<String> store = TileStore.allocateDirect(3 * STORED_TILE_BYTES, STRING_CODEC);
+        createAsyncListUtil(1, store);
+        runAllLoads();
+        assertThat(store.getUsedBytes(), is(3 * STORED_TILE_BYTES));
+
+        mViewCallback.scrollTo(50);
+        runAllLoads();
+        // the tile count limit is not reached, but the tiles furthest from the new range were
+        // evicted to make room in the store
+        assertThat(mAsyncListUtil.getItem(0), nullValue());
+        assertThat(mAsyncListUtil.getItem(10), nullValue());
+        assertThat(mAsyncListUtil.getItem(20), is("1020"));
+        assertLoaded(50, 74);
+        assertThat(store.getUsedBytes() <= store.getByteBudget(), is(true));
+    }
+
+    private void createAsyncListUtil(int maxParallelLoads, TileStore<String> tileStore) {
+        AsyncListUtilConfig.Builder<String> builder = new AsyncListUtilConfig.Builder<String>()
+                .setLoadExecutor(mExecutor, maxParallelLoads);
+        if (tileStore != null) {
+            builder.setTileStore(tileStore);
+        }
+        mAsyncListUtil = new AsyncListUtil<>(String.class, TILE_SIZE, mDataCallback,
+                mViewCallback, builder.build(),
+                new SynchronousThreadUtil<String>(mBackgroundMessages));
+    }
+
+    private void runNextLoad() {
+        mExecutor.runNext();
+        while (!mBackgroundMessages.isEmpty()) {
+            mBackgroundMessages.poll().run();
+        }
+    }
+
+    private void runAllLoads() {
+        while (mExecutor.size() > 0) {
+            runNextLoad();
+        }
+    }
+
+    private void assertLoaded(int first, int last) {
+        for (int position = first; position <= last; position++) {
+            assertThat("item @" + position, mAsyncListUtil.getItem(position), notNullValue());
+        }
+    }
+
+    private class TestDataCallback extends AsyncListUtil.DataCallback<String> {
+        final List<Integer> mFilledTiles = new ArrayList<>();
+        final List<Integer> mRecycledTiles = new ArrayList<>();
+        int mRefreshCount;
+
+        @Override
+        public int refreshData() {
+            assertThat("refreshed while loading", mExecutor.mRunning, is(false));
+            assertThat(mExecutor.size(), is(0));
+            mRefreshCount++;
+            return ITEM_COUNT;
+        }
+
+        @Override
+        public void fillData(@NonNull String[] data, int startPosition, int itemCount) {
+            assertThat(mExecutor.mRunning, is(true));
+            mFilledTiles.add(startPosition);
+            for (int i = 0; i < itemCount; i++) {
+                data[i] = String.valueOf(1000 + startPosition + i);
+            }
+        }
+
+        @Override
+        public void recycleData(@NonNull String[] data, int itemCount) {
+            if (!mExecutor.mRunning) {
+                // not moved to the store right after being filled, so evicted or out of date
+                mRecycledTiles.add(Integer.parseInt(data[0]) - 1000);
+            }
+        }
+
+        @Override
+        public int getMaxCachedTiles() {
+            return 100;
+        }
+    }
+
+    private class TestViewCallback extends AsyncListUtil.ViewCallback {
+        int mFirstVisibleItem;
+
+        @Override
+        public void getItemRangeInto(@NonNull int[] outRange) {
+            outRange[0] = mFirstVisibleItem;
+            outRange[1] = mFirstVisibleItem + 24;
+        }
+
+        @Override
+        public void extendRangeInto(@NonNull int[] range, @NonNull int[] outRange,
+                int scrollHint) {
+            outRange[0] = range[0];
+            outRange[1] = range[1];
+        }
+
+        @Override
+        public void onDataRefresh() {
+        }
+
+        @Override
+        public void onItemLoaded(int position) {
+        }
+
+        void scrollTo(int position) {
+            mFirstVisibleItem = position;
+            mAsyncListUtil.onRangeChanged();
+        }
+    }
+
+    /**
+     * Delivers the messages to the main and the background thread right away, except the
+     * messages of finished loads, which are queued until the load returns.
+     */
+    private static class SynchronousThreadUtil<T> implements ThreadUtil<T> {
+        private final ArrayDeque<Runnable> mTileLoadedMessages;
+
+        SynchronousThreadUtil(ArrayDeque<Runnable> tileLoadedMessages) {
+            mTileLoadedMessages = tileLoadedMessages;
+        }
+
+        @Override
+        public MainThreadCallback<T> getMainThreadProxy(MainThreadCallback<T> callback) {
+            return callback;
+        }
+
+        @Override
+        public BackgroundCallback<T> getBackgroundProxy(final BackgroundCallback<T> callback) {
+            return new BackgroundCallback<T>() {
+                @Override
+                public void refresh(int generation) {
+                    callback.refresh(generation);
+                }
+
+                @Override
+                public void updateRange(int rangeStart, int rangeEnd, int extRangeStart,
+                        int extRangeEnd, int scrollHint) {
+                    callback.updateRange(rangeStart, rangeEnd, extRangeStart, extRangeEnd,
+                            scrollHint);
+                }
+
+                @Override
+                public void loadTile(int position, int scrollHint) {
+                    callback.loadTile(position, scrollHint);
+                }
+
+                @Override
+                public void recycleTile(TileList.Tile<T> tile) {
+                    callback.recycleTile(tile);
+                }
+
+                @Override
+                public void tileLoaded(final int generation, final TileList.Tile<T> tile) {
+                    mTileLoadedMessages.add(new Runnable() {
+                        @Override
+                        public void run() {
+                            callback.tileLoaded(generation, tile);
+                        }
+                    });
+                }
+            };
+        }
+    }
+
+    /**
+     * Runs the loads on the test thread, one at a time, when asked to.
+     */
+    private static class QueueExecutor implements Executor {
+        private final ArrayDeque<Runnable> mTasks = new ArrayDeque<>();
+        boolean mRunning;
+        int mMaxQueued;
+
+        @Override
+        public void execute(@NonNull Runnable command) {
+            mTasks.add(command);
+            mMaxQueued = Math.max(mMaxQueued, mTasks.size());
+        }
+
+        int size() {
+            return mTasks.size();
+        }
+
+        void runNext() {
+            Runnable task = mTasks.poll();
+            mRunning = true;
+            try {
+                task.run();
+            } finally {
+                mRunning = false;
+            }
+        }
+    }
+}
@@ -105,6 +105,13 @@ public class ThreadUtilTest {
                                 assertBackgroundThread();
                                 setResultData("recycleTile", data);
                             }
+
+                            @Override
+                            public void tileLoaded(int generation,
+                                    TileList.Tile<Integer> data) {
+                                assertBackgroundThread();
+                                setResultData("tileLoaded", generation, data);
+                            }
                         });
             }
         });
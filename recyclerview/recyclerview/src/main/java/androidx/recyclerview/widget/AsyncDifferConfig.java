@@ -39,15 +39,18 @@ public final class AsyncDifferConfig<T> {
     private final Executor mBackgroundThreadExecutor;
     @NonNull
     private final DiffUtil.ItemCallback<T> mDiffCallback;
+    private final int mDiffParallelism;
 
     @SuppressWarnings("WeakerAccess") /* synthetic access */
     AsyncDifferConfig(
             @Nullable Executor mainThreadExecutor,
             @NonNull Executor backgroundThreadExecutor,
-            @NonNull DiffUtil.ItemCallback<T> diffCallback) {
+            @NonNull DiffUtil.ItemCallback<T> diffCallback,
+            int diffParallelism) {
         mMainThreadExecutor = mainThreadExecutor;
         mBackgroundThreadExecutor = backgroundThreadExecutor;
         mDiffCallback = diffCallback;
+        mDiffParallelism = diffParallelism;
     }
 
     /** @hide */
@@ -70,6 +73,14 @@ public final class AsyncDifferConfig<T> {
         return mDiffCallback;
     }
 
+    /**
+     * Returns the maximum number of segments of a large list diffed at the same time.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public int getDiffParallelism() {
+        return mDiffParallelism;
+    }
+
     /**
      * Builder class for {@link AsyncDifferConfig}.
      *
@@ -80,6 +91,7 @@ public final class AsyncDifferConfig<T> {
         private Executor mMainThreadExecutor;
         private Executor mBackgroundThreadExecutor;
         private final DiffUtil.ItemCallback<T> mDiffCallback;
+        private int mDiffParallelism = 1;
 
         public Builder(@NonNull DiffUtil.ItemCallback<T> diffCallback) {
             mDiffCallback = diffCallback;
@@ -119,6 +131,38 @@ public final class AsyncDifferConfig<T> {
             return this;
         }
 
+        /**
+         * If greater than 1, large lists are split in up to this many segments, which are diffed
+         * at the same time on the background executor. The executor should then have at least
+         * as many threads.
+         * <p>
+         * Segments start at items found in both lists, after the items that did not change at the
+         * start and at the end of the lists. The resulting updates are correct, but may include
+         * more moves, removals and insertions than when diffing the whole lists at once.
+         * <p>
+         * The segments call the {@link DiffUtil.ItemCallback} from several threads at once, so it
+         * must be thread-safe when parallelism is greater than 1.
+         * <p>
+         * Lists whose {@link DiffUtil.ItemCallback} returns keys from
+         * {@link DiffUtil.ItemCallback#getItemKey(Object)} are diffed by key in linear time
+         * instead, and are not split.
+         * <p>
+         * If not provided, defaults to 1: lists are diffed on a single thread.
+         *
+         * @param parallelism The maximum number of segments diffed at the same time.
+         * @return this
+         */
+        @SuppressWarnings({"unused", "WeakerAccess"})
+        @NonNull
+        public Builder<T> setDiffParallelism(int parallelism) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException(
+                        "parallelism must be positive: " + parallelism);
+            }
+            mDiffParallelism = parallelism;
+            return this;
+        }
+
         /**
          * Creates a {@link AsyncListDiffer} with the given parameters.
          *
@@ -137,7 +181,8 @@ public final class AsyncDifferConfig<T> {
             return new AsyncDifferConfig<>(
                     mMainThreadExecutor,
                     mBackgroundThreadExecutor,
-                    mDiffCallback);
+                    mDiffCallback,
+                    mDiffParallelism);
         }
 
         // TODO: remove the below once supportlib has its own appropriate executors
@@ -21,6 +21,8 @@ import android.os.Looper;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.core.os.CancellationSignal;
+import androidx.core.os.OperationCanceledException;
 
 import java.util.Collections;
 import java.util.List;
@@ -113,6 +115,9 @@ import java.util.concurrent.Executor;
  * @see AdapterListUpdateCallback
  */
 public class AsyncListDiffer<T> {
+    // A running diff checks whether it was canceled after that many item comparisons
+    private static final int CANCELLATION_CHECK_INTERVAL = 256;
+
     private final ListUpdateCallback mUpdateCallback;
     @SuppressWarnings("WeakerAccess") /* synthetic access */
     final AsyncDifferConfig<T> mConfig;
@@ -200,6 +205,10 @@ public class AsyncListDiffer<T> {
     @SuppressWarnings("WeakerAccess") /* synthetic access */
     int mMaxScheduledGeneration;
 
+    // Cancels the diff of the currently scheduled runnable, if any
+    @Nullable
+    private CancellationSignal mDiffCancellationSignal;
+
     /**
      * Get the current List - any diffing to present this list has already been computed and
      * dispatched via the ListUpdateCallback.
@@ -242,6 +251,8 @@ public class AsyncListDiffer<T> {
      * The commit callback can be used to know when the List is committed, but note that it
      * may not be executed. If List B is submitted immediately after List A, and is
      * committed directly, the callback associated with List A will not be run.
+     * <p>
+     * If the diff of a previously submitted List is still being computed, it is canceled.
      *
      * @param newList The new List.
      * @param commitCallback Optional runnable that is executed when the List is committed, if
@@ -252,6 +263,11 @@ public class AsyncListDiffer<T> {
             @Nullable final Runnable commitCallback) {
         // incrementing generation means any currently-running diffs are discarded when they finish
         final int runGeneration = ++mMaxScheduledGeneration;
+        // and they can stop right away
+        if (mDiffCancellationSignal != null) {
+            mDiffCancellationSignal.cancel();
+            mDiffCancellationSignal = null;
+        }
 
         if (newList == mList) {
             // nothing to do (Note - still had to inc generation, since may have ongoing work)
@@ -286,10 +302,27 @@ public class AsyncListDiffer<T> {
         }
 
         final List<T> oldList = mList;
+        final CancellationSignal cancellationSignal = new CancellationSignal();
+        mDiffCancellationSignal = cancellationSignal;
         mConfig.getBackgroundThreadExecutor().execute(new Runnable() {
             @Override
             public void run() {
-                final DiffUtil.DiffResult result = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+                if (cancellationSignal.isCanceled()) {
+                    // a newer list was submitted before the diff started
+                    return;
+                }
+                final DiffUtil.Callback callback = new DiffUtil.Callback() {
+                    // item comparisons since the last check for cancellation, updated racily
+                    // when diffing in parallel
+                    private int mUncheckedCalls;
+
+                    private void throwIfCanceled() {
+                        if (++mUncheckedCalls >= CANCELLATION_CHECK_INTERVAL) {
+                            mUncheckedCalls = 0;
+                            cancellationSignal.throwIfCanceled();
+                        }
+                    }
+
                     @Override
                     public int getOldListSize() {
                         return oldList.size();
@@ -302,6 +335,7 @@ public class AsyncListDiffer<T> {
 
                     @Override
                     public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+                        throwIfCanceled();
                         T oldItem = oldList.get(oldItemPosition);
                         T newItem = newList.get(newItemPosition);
                         if (oldItem != null && newItem != null) {
@@ -313,6 +347,7 @@ public class AsyncListDiffer<T> {
 
                     @Override
                     public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+                        throwIfCanceled();
                         T oldItem = oldList.get(oldItemPosition);
                         T newItem = newList.get(newItemPosition);
                         if (oldItem != null && newItem != null) {
@@ -342,7 +377,39 @@ public class AsyncListDiffer<T> {
                         // non-null which is the only case handled above.
                         throw new AssertionError();
                     }
-                });
+
+                    @Nullable
+                    @Override
+                    public Object getOldItemKey(int oldItemPosition) {
+                        throwIfCanceled();
+                        T oldItem = oldList.get(oldItemPosition);
+                        return oldItem == null
+                                ? null : mConfig.getDiffCallback().getItemKey(oldItem);
+                    }
+
+                    @Nullable
+                    @Override
+                    public Object getNewItemKey(int newItemPosition) {
+                        throwIfCanceled();
+                        T newItem = newList.get(newItemPosition);
+                        return newItem == null
+                                ? null : mConfig.getDiffCallback().getItemKey(newItem);
+                    }
+                };
+
+                final DiffUtil.DiffResult result;
+                try {
+                    if (mConfig.getDiffParallelism() > 1) {
+                        result = DiffUtil.calculateDiff(callback, true,
+                                mConfig.getBackgroundThreadExecutor(),
+                                mConfig.getDiffParallelism());
+                    } else {
+                        result = DiffUtil.calculateDiff(callback);
+                    }
+                } catch (OperationCanceledException e) {
+                    // a newer list was submitted while diffing, its diff replaces this one
+                    return;
+                }
 
                 mMainThreadExecutor.execute(new Runnable() {
                     @Override
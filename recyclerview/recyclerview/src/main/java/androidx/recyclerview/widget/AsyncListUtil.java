@@ -23,8 +23,12 @@ import android.util.SparseIntArray;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.UiThread;
+import androidx.annotation.VisibleForTesting;
 import androidx.annotation.WorkerThread;
 
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+
 /**
  * A utility class that supports asynchronous content loading.
  * <p>
@@ -39,8 +43,10 @@ import androidx.annotation.WorkerThread;
  * {@link ViewCallback} when the data is loaded. It may load some extra items for smoother
  * scrolling.
  * <p>
- * Note that this class uses a single thread to load the data, so it suitable to load data from
- * secondary storage such as disk, but not from network.
+ * Note that by default this class uses a single thread to load the data, so it suitable to load
+ * data from secondary storage such as disk, but not from network. An
+ * {@link AsyncListUtilConfig} can provide an executor loading several tiles at the same time, and
+ * a {@link TileStore} keeping loaded tiles outside of the Java heap.
  * <p>
  * This class is designed to work with {@link RecyclerView}, but it does
  * not depend on it and can be used with other list views.
@@ -55,6 +61,11 @@ public class AsyncListUtil<T> {
     final int mTileSize;
     final DataCallback<T> mDataCallback;
     final ViewCallback mViewCallback;
+    @Nullable
+    final Executor mLoadExecutor;
+    final int mMaxParallelLoads;
+    @Nullable
+    final TileStore<T> mTileStore;
 
     final TileList<T> mTileList;
 
@@ -89,14 +100,39 @@ public class AsyncListUtil<T> {
      */
     public AsyncListUtil(@NonNull Class<T> klass, int tileSize,
             @NonNull DataCallback<T> dataCallback, @NonNull ViewCallback viewCallback) {
+        this(klass, tileSize, dataCallback, viewCallback,
+                new AsyncListUtilConfig.Builder<T>().build());
+    }
+
+    /**
+     * Creates an AsyncListUtil loading and keeping tiles as defined by the given config.
+     *
+     * @param klass Class of the data item.
+     * @param tileSize Number of item per chunk loaded at once.
+     * @param dataCallback Data access callback.
+     * @param viewCallback Callback for querying visible item range and update notifications.
+     * @param config Config defining where tiles are loaded and kept.
+     */
+    public AsyncListUtil(@NonNull Class<T> klass, int tileSize,
+            @NonNull DataCallback<T> dataCallback, @NonNull ViewCallback viewCallback,
+            @NonNull AsyncListUtilConfig<T> config) {
+        this(klass, tileSize, dataCallback, viewCallback, config, new MessageThreadUtil<T>());
+    }
+
+    @VisibleForTesting
+    AsyncListUtil(@NonNull Class<T> klass, int tileSize,
+            @NonNull DataCallback<T> dataCallback, @NonNull ViewCallback viewCallback,
+            @NonNull AsyncListUtilConfig<T> config, @NonNull ThreadUtil<T> threadUtil) {
         mTClass = klass;
         mTileSize = tileSize;
         mDataCallback = dataCallback;
         mViewCallback = viewCallback;
+        mLoadExecutor = config.getLoadExecutor();
+        mMaxParallelLoads = config.getMaxParallelLoads();
+        mTileStore = config.getTileStore();
 
         mTileList = new TileList<T>(mTileSize);
 
-        ThreadUtil<T> threadUtil = new MessageThreadUtil<T>();
         mMainThreadProxy = threadUtil.getMainThreadProxy(mMainThreadCallback);
         mBackgroundProxy = threadUtil.getBackgroundProxy(mBackgroundCallback);
 
@@ -293,20 +329,45 @@ public class AsyncListUtil<T> {
     private final ThreadUtil.BackgroundCallback<T>
             mBackgroundCallback = new ThreadUtil.BackgroundCallback<T>() {
 
+        // Accessed by the threads loading tiles, guarded by mRecycledLock.
         private TileList.Tile<T> mRecycledRoot;
+        private final Object mRecycledLock = new Object();
 
         final SparseBooleanArray mLoadedTiles = new SparseBooleanArray();
 
+        // Tiles being loaded on mLoadExecutor, and tiles waiting for a free load in request order.
+        final SparseBooleanArray mLoadingTiles = new SparseBooleanArray();
+        final ArrayDeque<Integer> mPendingLoads = new ArrayDeque<>();
+        private boolean mRefreshPending;
+
+        // Bytes used in mTileStore by each loaded tile.
+        final SparseIntArray mLoadedTileBytes = new SparseIntArray();
+        private int mLoadedBytes;
+
         private int mGeneration;
         private int mItemCount;
 
         private int mFirstRequiredTileStart;
         private int mLastRequiredTileStart;
+        private int mScrollHint = ViewCallback.HINT_SCROLL_NONE;
 
         @Override
         public void refresh(int generation) {
             mGeneration = generation;
             mLoadedTiles.clear();
+            mLoadedTileBytes.clear();
+            mLoadedBytes = 0;
+            mPendingLoads.clear();
+            if (mLoadingTiles.size() > 0) {
+                // Tiles still being loaded may access the data, refresh once they are done.
+                mRefreshPending = true;
+                return;
+            }
+            refreshData();
+        }
+
+        private void refreshData() {
+            mRefreshPending = false;
             mItemCount = mDataCallback.refreshData();
             mMainThreadProxy.updateItemCount(mGeneration, mItemCount);
         }
@@ -319,9 +380,11 @@ public class AsyncListUtil<T> {
                         rangeStart, rangeEnd, extRangeStart, extRangeEnd, scrollHint);
             }
 
-            if (rangeStart > rangeEnd) {
+            if (rangeStart > rangeEnd || mRefreshPending) {
                 return;
             }
+            mScrollHint = scrollHint;
+            mPendingLoads.clear();
 
             final int firstVisibleTileStart = getTileStart(rangeStart);
             final int lastVisibleTileStart = getTileStart(rangeEnd);
@@ -369,12 +432,79 @@ public class AsyncListUtil<T> {
                 }
                 return;
             }
+            if (mLoadExecutor == null) {
+                TileList.Tile<T> tile =
+                        fillTile(position, Math.min(mTileSize, mItemCount - position));
+                flushTileCache(scrollHint);
+                addTile(tile);
+            } else if (mLoadingTiles.size() < mMaxParallelLoads) {
+                startLoad(position);
+            } else {
+                mPendingLoads.add(position);
+            }
+        }
+
+        private void startLoad(final int position) {
+            if (DEBUG) {
+                log("start loading tile @%d", position);
+            }
+            mLoadingTiles.put(position, true);
+            final int generation = mGeneration;
+            final int itemCount = Math.min(mTileSize, mItemCount - position);
+            mLoadExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    mBackgroundProxy.tileLoaded(generation, fillTile(position, itemCount));
+                }
+            });
+        }
+
+        @Override
+        public void tileLoaded(int generation, TileList.Tile<T> tile) {
+            mLoadingTiles.delete(tile.mStartPosition);
+            if (generation != mGeneration) {
+                if (DEBUG) {
+                    log("recycling an older generation tile @%d", tile.mStartPosition);
+                }
+                recycleTile(tile);
+            } else {
+                flushTileCache(mScrollHint);
+                addTile(tile);
+            }
+            if (mRefreshPending) {
+                if (mLoadingTiles.size() == 0) {
+                    refreshData();
+                }
+                return;
+            }
+            while (!mPendingLoads.isEmpty() && mLoadingTiles.size() < mMaxParallelLoads) {
+                final int position = mPendingLoads.poll();
+                if (!isTileLoaded(position)) {
+                    startLoad(position);
+                }
+            }
+        }
+
+        /**
+         * Fills a tile and moves it to the tile store if there is one. Called on the background
+         * thread, or on a thread of mLoadExecutor.
+         */
+        private TileList.Tile<T> fillTile(int position, int itemCount) {
             TileList.Tile<T> tile = acquireTile();
             tile.mStartPosition = position;
-            tile.mItemCount = Math.min(mTileSize, mItemCount - tile.mStartPosition);
+            tile.mItemCount = itemCount;
             mDataCallback.fillData(tile.mItems, tile.mStartPosition, tile.mItemCount);
-            flushTileCache(scrollHint);
-            addTile(tile);
+            if (mTileStore == null) {
+                return tile;
+            }
+            TileList.Tile<T> storedTile = mTileStore.store(tile);
+            if (storedTile == null) {
+                // The store is full, keep the tile on the heap.
+                return tile;
+            }
+            mDataCallback.recycleData(tile.mItems, tile.mItemCount);
+            releaseTile(tile);
+            return storedTile;
         }
 
         @Override
@@ -382,27 +512,42 @@ public class AsyncListUtil<T> {
             if (DEBUG) {
                 log("recycling tile @%d", tile.mStartPosition);
             }
+            if (tile.isStored()) {
+                mTileStore.free(tile);
+                return;
+            }
             mDataCallback.recycleData(tile.mItems, tile.mItemCount);
-
-            tile.mNext = mRecycledRoot;
-            mRecycledRoot = tile;
+            releaseTile(tile);
         }
 
         private TileList.Tile<T> acquireTile() {
-            if (mRecycledRoot != null) {
-                TileList.Tile<T> result = mRecycledRoot;
-                mRecycledRoot = mRecycledRoot.mNext;
-                return result;
+            synchronized (mRecycledLock) {
+                if (mRecycledRoot != null) {
+                    TileList.Tile<T> result = mRecycledRoot;
+                    mRecycledRoot = mRecycledRoot.mNext;
+                    return result;
+                }
             }
             return new TileList.Tile<T>(mTClass, mTileSize);
         }
 
+        private void releaseTile(TileList.Tile<T> tile) {
+            synchronized (mRecycledLock) {
+                tile.mNext = mRecycledRoot;
+                mRecycledRoot = tile;
+            }
+        }
+
         private boolean isTileLoaded(int position) {
-            return mLoadedTiles.get(position);
+            return mLoadedTiles.get(position) || mLoadingTiles.get(position);
         }
 
         private void addTile(TileList.Tile<T> tile) {
             mLoadedTiles.put(tile.mStartPosition, true);
+            if (tile.isStored()) {
+                mLoadedTileBytes.put(tile.mStartPosition, tile.mByteLength);
+                mLoadedBytes += tile.mByteLength;
+            }
             mMainThreadProxy.addTile(mGeneration, tile);
             if (DEBUG) {
                 log("loaded tile @%d, total tiles: %d", tile.mStartPosition, mLoadedTiles.size());
@@ -411,6 +556,8 @@ public class AsyncListUtil<T> {
 
         private void removeTile(int position) {
             mLoadedTiles.delete(position);
+            mLoadedBytes -= mLoadedTileBytes.get(position);
+            mLoadedTileBytes.delete(position);
             mMainThreadProxy.removeTile(mGeneration, position);
             if (DEBUG) {
                 log("flushed tile @%d, total tiles: %s", position, mLoadedTiles.size());
@@ -419,7 +566,7 @@ public class AsyncListUtil<T> {
 
         private void flushTileCache(int scrollHint) {
             final int cacheSizeLimit = mDataCallback.getMaxCachedTiles();
-            while (mLoadedTiles.size() >= cacheSizeLimit) {
+            while (mLoadedTiles.size() >= cacheSizeLimit || isOverByteBudget()) {
                 int firstLoadedTileStart = mLoadedTiles.keyAt(0);
                 int lastLoadedTileStart = mLoadedTiles.keyAt(mLoadedTiles.size() - 1);
                 int startMargin = mFirstRequiredTileStart - firstLoadedTileStart;
@@ -437,6 +584,13 @@ public class AsyncListUtil<T> {
             }
         }
 
+        private boolean isOverByteBudget() {
+            // Make room in the store for another tile of the average size.
+            return mTileStore != null && mLoadedTiles.size() > 0
+                    && mLoadedBytes + mTileStore.getAverageTileBytes()
+                    > mTileStore.getByteBudget();
+        }
+
         private void log(String s, Object... args) {
             Log.d(TAG, "[BKGR] " + String.format(s, args));
         }
@@ -446,7 +600,10 @@ public class AsyncListUtil<T> {
      * The callback that provides data access for {@link AsyncListUtil}.
      *
      * <p>
-     * All methods are called on the background thread.
+     * All methods are called on the background thread, except {@link #fillData} which is called
+     * on the load executor of the {@link AsyncListUtilConfig} if there is one.
+     * {@link #recycleData} is called there too for a tile moved to the {@link TileStore} right
+     * after being filled, and on the background thread for a tile evicted from the cache.
      */
     public static abstract class DataCallback<T> {
 
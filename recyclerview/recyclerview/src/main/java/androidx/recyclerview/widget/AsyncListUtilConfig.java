@@ -0,0 +1,140 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.recyclerview.widget;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Configuration object for {@link AsyncListUtil}, defining where tiles are loaded and kept.
+ * <p>
+ * By default, tiles are loaded one at a time on a single background thread, and kept on the
+ * Java heap.
+ *
+ * @param <T> Type of the items.
+ */
+public final class AsyncListUtilConfig<T> {
+    @Nullable
+    private final Executor mLoadExecutor;
+    private final int mMaxParallelLoads;
+    @Nullable
+    private final TileStore<T> mTileStore;
+
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    AsyncListUtilConfig(@Nullable Executor loadExecutor, int maxParallelLoads,
+            @Nullable TileStore<T> tileStore) {
+        mLoadExecutor = loadExecutor;
+        mMaxParallelLoads = maxParallelLoads;
+        mTileStore = tileStore;
+    }
+
+    /**
+     * Returns the executor loading tiles, or null if they are loaded on the background thread
+     * of the {@link AsyncListUtil}.
+     */
+    @SuppressWarnings("WeakerAccess")
+    @Nullable
+    public Executor getLoadExecutor() {
+        return mLoadExecutor;
+    }
+
+    /**
+     * Returns the maximum number of tiles loaded at the same time on the load executor.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public int getMaxParallelLoads() {
+        return mMaxParallelLoads;
+    }
+
+    /**
+     * Returns the store keeping loaded tiles, or null if they are kept on the heap.
+     */
+    @SuppressWarnings("WeakerAccess")
+    @Nullable
+    public TileStore<T> getTileStore() {
+        return mTileStore;
+    }
+
+    /**
+     * Builder class for {@link AsyncListUtilConfig}.
+     *
+     * @param <T> Type of the items.
+     */
+    public static final class Builder<T> {
+        @Nullable
+        private Executor mLoadExecutor;
+        private int mMaxParallelLoads = 1;
+        @Nullable
+        private TileStore<T> mTileStore;
+
+        /**
+         * If provided, tiles are loaded on the given executor, up to {@code maxParallelLoads} at
+         * a time, starting with the tiles in the visible range and then in the scroll direction.
+         * <p>
+         * {@link AsyncListUtil.DataCallback#fillData(Object[], int, int)} and
+         * {@link AsyncListUtil.DataCallback#recycleData(Object[], int)} may then be called
+         * concurrently on different threads, so they must be thread safe if
+         * {@code maxParallelLoads} is greater than 1. They are never called while
+         * {@link AsyncListUtil.DataCallback#refreshData()} is.
+         * <p>
+         * If not provided, tiles are loaded one at a time on the background thread of the
+         * {@link AsyncListUtil}.
+         *
+         * @param executor The executor to load tiles on.
+         * @param maxParallelLoads The maximum number of tiles to load at the same time.
+         * @return this
+         */
+        @NonNull
+        public Builder<T> setLoadExecutor(@NonNull Executor executor, int maxParallelLoads) {
+            if (maxParallelLoads < 1) {
+                throw new IllegalArgumentException(
+                        "maxParallelLoads must be positive: " + maxParallelLoads);
+            }
+            mLoadExecutor = executor;
+            mMaxParallelLoads = maxParallelLoads;
+            return this;
+        }
+
+        /**
+         * If provided, loaded tiles are serialized in the given store instead of being kept on
+         * the heap.
+         * <p>
+         * {@link AsyncListUtil.DataCallback#getMaxCachedTiles()} still limits the number of
+         * cached tiles, and should be raised to take advantage of the store.
+         *
+         * @param tileStore The store to keep tiles in.
+         * @return this
+         */
+        @NonNull
+        public Builder<T> setTileStore(@NonNull TileStore<T> tileStore) {
+            mTileStore = tileStore;
+            return this;
+        }
+
+        /**
+         * Creates a {@link AsyncListUtilConfig} with the given parameters.
+         *
+         * @return A new AsyncListUtilConfig.
+         */
+        @NonNull
+        public AsyncListUtilConfig<T> build() {
+            return new AsyncListUtilConfig<>(mLoadExecutor, mMaxParallelLoads, mTileStore);
+        }
+    }
+}
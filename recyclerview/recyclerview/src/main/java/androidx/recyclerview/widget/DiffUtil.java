@@ -25,7 +25,12 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * DiffUtil is a utility class that calculates the difference between two lists and outputs a
@@ -70,6 +75,13 @@ import java.util.List;
  *     <li>1000 items and 200 modifications without moves: 13.54 ms, median: 13.36 ms
  * </ul>
  * <p>
+ * If the items of both lists have unique keys, such as database ids, the {@link Callback} can
+ * return them from {@link Callback#getOldItemKey(int)} and {@link Callback#getNewItemKey(int)}.
+ * DiffUtil then matches items by key instead of running Myers's algorithm, in O(N) time plus
+ * O(M log M) time to find the fewest moves, where M is the number of items in both lists. This is
+ * much faster when many items are added, removed or moved, for example when a large list is
+ * reordered.
+ * <p>
  * Due to implementation constraints, the max size of the list can be 2^26.
  *
  * @see ListAdapter
@@ -81,6 +93,13 @@ public class DiffUtil {
         // utility class, no instance.
     }
 
+    // segments diffed in parallel are at least that long, so that larger lists are split
+    private static final int MIN_PARALLEL_SEGMENT_SIZE = 1000;
+    // anchors are searched among that many old items, each compared to the new items at most
+    // that far from the expected position
+    private static final int ANCHOR_OLD_CANDIDATES = 8;
+    private static final int ANCHOR_SEARCH_RADIUS = 32;
+
     private static final Comparator<Snake> SNAKE_COMPARATOR = new Comparator<Snake>() {
         @Override
         public int compare(Snake o1, Snake o2) {
@@ -120,17 +139,16 @@ public class DiffUtil {
      */
     @NonNull
     public static DiffResult calculateDiff(@NonNull Callback cb, boolean detectMoves) {
+        final DiffResult keyedResult = calculateKeyedDiff(cb, detectMoves);
+        if (keyedResult != null) {
+            return keyedResult;
+        }
+
         final int oldSize = cb.getOldListSize();
         final int newSize = cb.getNewListSize();
 
         final List<Snake> snakes = new ArrayList<>();
 
-        // instead of a recursive implementation, we keep our own stack to avoid potential stack
-        // overflow exceptions
-        final List<Range> stack = new ArrayList<>();
-
-        stack.add(new Range(0, oldSize, 0, newSize));
-
         final int max = oldSize + newSize + Math.abs(oldSize - newSize);
         // allocate forward and backward k-lines. K lines are diagonal lines in the matrix. (see the
         // paper for details)
@@ -138,6 +156,223 @@ public class DiffUtil {
         final int[] forward = new int[max * 2];
         final int[] backward = new int[max * 2];
 
+        diffRange(cb, new Range(0, oldSize, 0, newSize), snakes, forward, backward, max);
+
+        // sort snakes
+        Collections.sort(snakes, SNAKE_COMPARATOR);
+
+        return new DiffResult(cb, snakes, forward, backward, detectMoves);
+
+    }
+
+    /**
+     * Calculates the list of update operations that can covert one list into the other one,
+     * splitting large lists in segments that are diffed at the same time on the given executor.
+     * <p>
+     * After skipping the items that did not change at the start and at the end of the lists, the
+     * remaining items are split at anchors: items found in both lists, near the same proportion
+     * of each list. Each segment is diffed with Myers' algorithm, and the calling thread diffs
+     * segments too, so that this never waits for tasks that did not start. Items moving between
+     * segments are still detected as moves, but the result may have more updates than the one of
+     * {@link #calculateDiff(Callback, boolean)}.
+     * <p>
+     * If the callback returns keys for all items, the lists are diffed by key on the calling
+     * thread instead.
+     *
+     * @param cb The callback that acts as a gateway to the backing list data
+     * @param detectMoves True if DiffUtil should try to detect moved items, false otherwise.
+     * @param executor The executor to diff segments on, in addition to the calling thread.
+     * @param parallelism The maximum number of segments diffed at the same time.
+     *
+     * @return A DiffResult that contains the information about the edit sequence to convert the
+     * old list into the new list.
+     */
+    @NonNull
+    static DiffResult calculateDiff(@NonNull final Callback cb, boolean detectMoves,
+            @NonNull Executor executor, int parallelism) {
+        final DiffResult keyedResult = calculateKeyedDiff(cb, detectMoves);
+        if (keyedResult != null) {
+            return keyedResult;
+        }
+        final int oldSize = cb.getOldListSize();
+        final int newSize = cb.getNewListSize();
+
+        // unchanged items at the start and at the end are always part of a minimal diff
+        int prefix = 0;
+        while (prefix < oldSize && prefix < newSize && cb.areItemsTheSame(prefix, prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < oldSize - prefix && suffix < newSize - prefix
+                && cb.areItemsTheSame(oldSize - suffix - 1, newSize - suffix - 1)) {
+            suffix++;
+        }
+
+        final List<Range> segments = findSegments(cb, new Range(prefix, oldSize - suffix,
+                prefix, newSize - suffix), parallelism);
+        final List<List<Snake>> segmentSnakes =
+                diffSegments(cb, segments, executor, parallelism);
+
+        final List<Snake> snakes = new ArrayList<>();
+        if (prefix > 0) {
+            snakes.add(createSnake(0, 0, prefix));
+        }
+        for (int i = 0; i < segmentSnakes.size(); i++) {
+            snakes.addAll(segmentSnakes.get(i));
+        }
+        if (suffix > 0) {
+            snakes.add(createSnake(oldSize - suffix, newSize - suffix, suffix));
+        }
+        Collections.sort(snakes, SNAKE_COMPARATOR);
+        return new DiffResult(cb, snakes, new int[oldSize], new int[newSize], detectMoves);
+    }
+
+    private static Snake createSnake(int x, int y, int size) {
+        final Snake snake = new Snake();
+        snake.x = x;
+        snake.y = y;
+        snake.size = size;
+        return snake;
+    }
+
+    /**
+     * Splits a range of both lists in up to {@code maxSegments} segments, starting at anchors.
+     * <p>
+     * Each anchor is looked for near the same proportion of the range in both lists, shifted by
+     * the difference between the positions of the previous anchor.
+     */
+    private static List<Range> findSegments(Callback cb, Range range, int maxSegments) {
+        final int oldSize = range.oldListEnd - range.oldListStart;
+        final int newSize = range.newListEnd - range.newListStart;
+        final int segmentCount = Math.min(maxSegments,
+                Math.min(oldSize, newSize) / MIN_PARALLEL_SEGMENT_SIZE);
+        final List<Range> segments = new ArrayList<>();
+        int oldStart = range.oldListStart;
+        int newStart = range.newListStart;
+        for (int i = 1; i < segmentCount; i++) {
+            final int oldTarget = range.oldListStart + (int) ((long) oldSize * i / segmentCount);
+            final int newTarget = range.newListStart + (int) ((long) newSize * i / segmentCount);
+            // shift the new position by the drift seen at the previous anchor
+            final int drift = (newStart - range.newListStart) - (int) ((long) (oldStart
+                    - range.oldListStart) * newSize / oldSize);
+            final long anchor = findAnchor(cb, oldTarget, newTarget + drift,
+                    oldStart, range.oldListEnd, newStart, range.newListEnd);
+            if (anchor < 0) {
+                continue;
+            }
+            final int oldAnchor = (int) (anchor >> 32);
+            final int newAnchor = (int) anchor;
+            segments.add(new Range(oldStart, oldAnchor, newStart, newAnchor));
+            oldStart = oldAnchor;
+            newStart = newAnchor;
+        }
+        segments.add(new Range(oldStart, range.oldListEnd, newStart, range.newListEnd));
+        return segments;
+    }
+
+    /**
+     * Looks for the same item in both lists, starting at the given old position, and near the
+     * given new position.
+     *
+     * @return The old position in the high 32 bits and the new position in the low 32 bits, or
+     * -1 if no anchor was found.
+     */
+    private static long findAnchor(Callback cb, int oldTarget, int newTarget, int oldMin,
+            int oldMax, int newMin, int newMax) {
+        // anchors must leave room for the segments on both sides
+        final int oldFrom = Math.max(oldTarget, oldMin + 1);
+        final int oldTo = Math.min(oldFrom + ANCHOR_OLD_CANDIDATES, oldMax - 1);
+        final int newFrom = Math.max(newTarget - ANCHOR_SEARCH_RADIUS, newMin + 1);
+        final int newTo = Math.min(newTarget + ANCHOR_SEARCH_RADIUS, newMax - 1);
+        for (int oldPos = oldFrom; oldPos < oldTo; oldPos++) {
+            for (int newPos = newFrom; newPos < newTo; newPos++) {
+                if (cb.areItemsTheSame(oldPos, newPos)) {
+                    return ((long) oldPos << 32) | newPos;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Runs Myers' algorithm on each segment, on the calling thread and on up to
+     * {@code parallelism - 1} tasks of the executor.
+     *
+     * @return The snakes of each segment.
+     */
+    private static List<List<Snake>> diffSegments(final Callback cb, final List<Range> segments,
+            Executor executor, int parallelism) {
+        final int count = segments.size();
+        final List<List<Snake>> results = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            results.add(null);
+        }
+        final AtomicInteger nextSegment = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(count);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final Runnable worker = new Runnable() {
+            @Override
+            public void run() {
+                int index;
+                // a task only runs the segments no one started yet, so waiting for the others
+                // never waits for a task queued behind this one
+                while ((index = nextSegment.getAndIncrement()) < count) {
+                    try {
+                        final Range segment = segments.get(index);
+                        final int oldSize = segment.oldListEnd - segment.oldListStart;
+                        final int newSize = segment.newListEnd - segment.newListStart;
+                        final int max = oldSize + newSize + Math.abs(oldSize - newSize);
+                        final List<Snake> snakes = new ArrayList<>();
+                        diffRange(cb, segment, snakes, new int[max * 2], new int[max * 2], max);
+                        results.set(index, snakes);
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }
+        };
+        for (int i = 1; i < Math.min(parallelism, count); i++) {
+            executor.execute(worker);
+        }
+        worker.run();
+
+        boolean interrupted = false;
+        while (true) {
+            try {
+                done.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        final Throwable throwable = failure.get();
+        if (throwable instanceof RuntimeException) {
+            throw (RuntimeException) throwable;
+        } else if (throwable instanceof Error) {
+            throw (Error) throwable;
+        } else if (throwable != null) {
+            throw new RuntimeException(throwable);
+        }
+        // the latch makes the results of the other threads visible
+        return results;
+    }
+
+    /**
+     * Runs Myers' algorithm on a range of both lists, adding the snakes found to the given list.
+     */
+    private static void diffRange(Callback cb, Range initialRange, List<Snake> snakes,
+            int[] forward, int[] backward, int max) {
+        // instead of a recursive implementation, we keep our own stack to avoid potential stack
+        // overflow exceptions
+        final List<Range> stack = new ArrayList<>();
+
+        stack.add(initialRange);
+
         // We pool the ranges to avoid allocations for each recursive call.
         final List<Range> rangePool = new ArrayList<>();
         while (!stack.isEmpty()) {
@@ -192,11 +427,114 @@ public class DiffUtil {
             }
 
         }
-        // sort snakes
-        Collections.sort(snakes, SNAKE_COMPARATOR);
+    }
 
-        return new DiffResult(cb, snakes, forward, backward, detectMoves);
+    /**
+     * Matches the items of both lists by key, if the callback returns a key for every item.
+     * <p>
+     * The matched items that keep their relative order are the longest sequence of matched items
+     * in the new list whose old positions are increasing. They become the snakes of the result, and
+     * all other matched items are moves.
+     *
+     * @return The DiffResult, or null if the callback does not return a key for every item.
+     */
+    @Nullable
+    private static DiffResult calculateKeyedDiff(Callback cb, boolean detectMoves) {
+        final int oldSize = cb.getOldListSize();
+        final int newSize = cb.getNewListSize();
+        if (oldSize == 0 || newSize == 0 || cb.getOldItemKey(0) == null) {
+            return null;
+        }
+        final HashMap<Object, Integer> oldPositions = new HashMap<>(oldSize * 4 / 3 + 1);
+        for (int i = 0; i < oldSize; i++) {
+            final Object key = cb.getOldItemKey(i);
+            if (key == null) {
+                return null;
+            }
+            // if keys are duplicated, only the first item can be matched
+            if (!oldPositions.containsKey(key)) {
+                oldPositions.put(key, i);
+            }
+        }
+        // the old position of each new item, or -1 if it was added
+        final int[] newToOld = new int[newSize];
+        for (int i = 0; i < newSize; i++) {
+            final Object key = cb.getNewItemKey(i);
+            if (key == null) {
+                return null;
+            }
+            final Integer oldPosition = oldPositions.remove(key);
+            newToOld[i] = oldPosition == null ? -1 : oldPosition;
+        }
+
+        final boolean[] inPlace = findItemsInPlace(newToOld);
+        final List<Snake> snakes = new ArrayList<>();
+        Snake snake = null;
+        for (int i = 0; i < newSize; i++) {
+            if (!inPlace[i]) {
+                continue;
+            }
+            final int oldPosition = newToOld[i];
+            if (snake != null && snake.x + snake.size == oldPosition
+                    && snake.y + snake.size == i) {
+                snake.size++;
+            } else {
+                snake = new Snake();
+                snake.x = oldPosition;
+                snake.y = i;
+                snake.size = 1;
+                snakes.add(snake);
+            }
+        }
+        return new DiffResult(cb, snakes, newToOld, detectMoves);
+    }
 
+    /**
+     * Finds the longest sequence of matched items in the new list whose old positions are
+     * increasing, with patience sorting.
+     *
+     * @return Whether the item at each new position is part of the sequence.
+     */
+    private static boolean[] findItemsInPlace(int[] newToOld) {
+        final int size = newToOld.length;
+        // tails[k] is the new position ending the increasing sequence of length k + 1 which ends
+        // with the smallest old position found so far
+        final int[] tails = new int[size];
+        // the previous new position in the sequence ending at each new position
+        final int[] previous = new int[size];
+        int length = 0;
+        for (int i = 0; i < size; i++) {
+            final int oldPosition = newToOld[i];
+            if (oldPosition < 0) {
+                continue;
+            }
+            int low;
+            if (length == 0 || newToOld[tails[length - 1]] < oldPosition) {
+                // common case of items still in order
+                low = length;
+            } else {
+                low = 0;
+                int high = length - 1;
+                while (low < high) {
+                    final int mid = (low + high) >>> 1;
+                    if (newToOld[tails[mid]] < oldPosition) {
+                        low = mid + 1;
+                    } else {
+                        high = mid;
+                    }
+                }
+            }
+            previous[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if (low == length) {
+                length++;
+            }
+        }
+        final boolean[] inPlace = new boolean[size];
+        for (int i = length > 0 ? tails[length - 1] : -1; i >= 0; i = previous[i]) {
+            inPlace[i] = true;
+        }
+        return inPlace;
     }
 
     private static Snake diffPartial(Callback cb, int startOld, int endOld,
@@ -359,6 +697,44 @@ public class DiffUtil {
         public Object getChangePayload(int oldItemPosition, int newItemPosition) {
             return null;
         }
+
+        /**
+         * Returns a key uniquely identifying the item at the given position of the old list, such
+         * as its database id, or {@code null} if items do not have keys.
+         * <p>
+         * If both this method and {@link #getNewItemKey(int)} return a key for every item, DiffUtil
+         * matches items by key in linear time instead of calling
+         * {@link #areItemsTheSame(int, int)}. Two items must have equal keys if and only if they
+         * represent the same item. If keys are duplicated, only one of the items with the same key
+         * is matched, and the other ones are removed and added.
+         * <p>
+         * Default implementation returns {@code null}.
+         *
+         * @param oldItemPosition The position of the item in the old list
+         *
+         * @return The key of the item, compared with {@link Object#equals(Object)}.
+         */
+        @Nullable
+        public Object getOldItemKey(int oldItemPosition) {
+            return null;
+        }
+
+        /**
+         * Returns a key uniquely identifying the item at the given position of the new list, or
+         * {@code null} if items do not have keys.
+         * <p>
+         * Default implementation returns {@code null}.
+         *
+         * @param newItemPosition The position of the item in the new list
+         *
+         * @return The key of the item, compared with {@link Object#equals(Object)}.
+         *
+         * @see #getOldItemKey(int)
+         */
+        @Nullable
+        public Object getNewItemKey(int newItemPosition) {
+            return null;
+        }
     }
 
     /**
@@ -433,6 +809,24 @@ public class DiffUtil {
         public Object getChangePayload(@NonNull T oldItem, @NonNull T newItem) {
             return null;
         }
+
+        /**
+         * Returns a key uniquely identifying the item, such as its database id, or {@code null}
+         * if items do not have keys.
+         * <p>
+         * If a key is returned for every item, items are matched by key in linear time instead of
+         * calling {@link #areItemsTheSame(T, T)}. Lists containing {@code null} items are diffed
+         * without keys.
+         * <p>
+         * Default implementation returns {@code null}.
+         *
+         * @see Callback#getOldItemKey(int)
+         */
+        @SuppressWarnings({"WeakerAccess", "unused"})
+        @Nullable
+        public Object getItemKey(@NonNull T item) {
+            return null;
+        }
     }
 
     /**
@@ -578,6 +972,25 @@ public class DiffUtil {
             findMatchingItems();
         }
 
+        /**
+         * @param callback The callback that was used to calculate the diff
+         * @param snakes The matched items that did not move, sorted
+         * @param newToOld The position in the old list of each new item, or -1 if it was added
+         * @param detectMoves True if this DiffResult will dispatch moves of the other matched
+         *                    items
+         */
+        DiffResult(Callback callback, List<Snake> snakes, int[] newToOld, boolean detectMoves) {
+            mSnakes = snakes;
+            mCallback = callback;
+            mOldListSize = callback.getOldListSize();
+            mNewListSize = callback.getNewListSize();
+            mOldItemStatuses = new int[mOldListSize];
+            mNewItemStatuses = new int[mNewListSize];
+            mDetectMoves = detectMoves;
+            addRootSnake();
+            findKeyedMatchingItems(newToOld);
+        }
+
         /**
          * We always add a Snake to 0/0 so that we can run loops from end to beginning and be done
          * when we run out of snakes.
@@ -642,6 +1055,63 @@ public class DiffUtil {
             }
         }
 
+        /**
+         * Flags the items of the snakes, then the moved items given the position in the old list
+         * of each new item.
+         * <p>
+         * Updates are dispatched by walking the gaps between snakes from the end of the lists,
+         * dispatching the removals then the additions of each gap. Of the two sides of a move, the
+         * one reached first is ignored and the other one dispatches the move, as in
+         * {@link #findMatchingItem(int, int, int, boolean)}.
+         */
+        private void findKeyedMatchingItems(int[] newToOld) {
+            for (int i = 0; i < mSnakes.size(); i++) {
+                final Snake snake = mSnakes.get(i);
+                for (int j = 0; j < snake.size; j++) {
+                    final int oldItemPos = snake.x + j;
+                    final int newItemPos = snake.y + j;
+                    final boolean theSame = mCallback
+                            .areContentsTheSame(oldItemPos, newItemPos);
+                    final int changeFlag = theSame ? FLAG_NOT_CHANGED : FLAG_CHANGED;
+                    mOldItemStatuses[oldItemPos] = (newItemPos << FLAG_OFFSET) | changeFlag;
+                    mNewItemStatuses[newItemPos] = (oldItemPos << FLAG_OFFSET) | changeFlag;
+                }
+            }
+            if (!mDetectMoves) {
+                return;
+            }
+            // the index of the snake before the gap holding each old item
+            final int[] oldGaps = new int[mOldListSize];
+            int snakeIndex = 0;
+            for (int pos = 0; pos < mOldListSize; pos++) {
+                while (snakeIndex + 1 < mSnakes.size() && mSnakes.get(snakeIndex + 1).x <= pos) {
+                    snakeIndex++;
+                }
+                oldGaps[pos] = snakeIndex;
+            }
+            snakeIndex = 0;
+            for (int pos = 0; pos < mNewListSize; pos++) {
+                while (snakeIndex + 1 < mSnakes.size() && mSnakes.get(snakeIndex + 1).y <= pos) {
+                    snakeIndex++;
+                }
+                final int oldPos = newToOld[pos];
+                if (oldPos < 0 || mNewItemStatuses[pos] != 0) {
+                    // added, or in a snake
+                    continue;
+                }
+                final boolean theSame = mCallback.areContentsTheSame(oldPos, pos);
+                final int changeFlag = theSame ? FLAG_MOVED_NOT_CHANGED : FLAG_MOVED_CHANGED;
+                if (oldGaps[oldPos] >= snakeIndex) {
+                    // the removal is reached first
+                    mOldItemStatuses[oldPos] = (pos << FLAG_OFFSET) | FLAG_IGNORE;
+                    mNewItemStatuses[pos] = (oldPos << FLAG_OFFSET) | changeFlag;
+                } else {
+                    mNewItemStatuses[pos] = (oldPos << FLAG_OFFSET) | FLAG_IGNORE;
+                    mOldItemStatuses[oldPos] = (pos << FLAG_OFFSET) | changeFlag;
+                }
+            }
+        }
+
         private void findAddition(int x, int y, int snakeIndex) {
             if (mOldItemStatuses[x - 1] != 0) {
                 return; // already set by a latter item
@@ -93,6 +93,7 @@ class MessageThreadUtil<T> implements ThreadUtil<T> {
             static final int UPDATE_RANGE = 2;
             static final int LOAD_TILE = 3;
             static final int RECYCLE_TILE = 4;
+            static final int TILE_LOADED = 5;
 
             @Override
             public void refresh(int generation) {
@@ -116,6 +117,11 @@ class MessageThreadUtil<T> implements ThreadUtil<T> {
                 sendMessage(SyncQueueItem.obtainMessage(RECYCLE_TILE, 0, tile));
             }
 
+            @Override
+            public void tileLoaded(int generation, TileList.Tile<T> tile) {
+                sendMessage(SyncQueueItem.obtainMessage(TILE_LOADED, generation, tile));
+            }
+
             private void sendMessage(SyncQueueItem msg) {
                 mQueue.sendMessage(msg);
                 maybeExecuteBackgroundRunnable();
@@ -158,6 +164,10 @@ class MessageThreadUtil<T> implements ThreadUtil<T> {
                                 //noinspection unchecked
                                 callback.recycleTile((TileList.Tile<T>) msg.data);
                                 break;
+                            case TILE_LOADED:
+                                //noinspection unchecked
+                                callback.tileLoaded(msg.arg1, (TileList.Tile<T>) msg.data);
+                                break;
                             default:
                                 Log.e("ThreadUtil", "Unsupported message, what=" + msg.what);
                         }
@@ -51,6 +51,20 @@ public class SortedList<T> {
     private static final int LOOKUP = 1 << 2;
     T[] mData;
 
+    /**
+     * The free slots of mData are kept together in a gap, which is moved to where items are added
+     * or removed. Consecutive changes close to each other only move the items between them.
+     * Items are in [0, mGapStart) and [mGapEnd, mData.length).
+     */
+    int mGapStart;
+    int mGapEnd;
+
+    /**
+     * Whether {@link #addAll} is adding items one by one, which must not be interrupted by other
+     * changes.
+     */
+    private boolean mAddingSorted;
+
     /**
      * A reference to the previous set of data that is kept during a mutation operation (addAll or
      * replaceAll).
@@ -103,6 +117,8 @@ public class SortedList<T> {
         mData = (T[]) Array.newInstance(klass, initialCapacity);
         mCallback = callback;
         mSize = 0;
+        mGapStart = 0;
+        mGapEnd = initialCapacity;
     }
 
     /**
@@ -149,6 +165,11 @@ public class SortedList<T> {
      * except the callback events may be in a different order/granularity since addAll can batch
      * them for better performance.
      * <p>
+     * If few items are added compared to the size of the list, they are added one by one, each
+     * searched for from where the previous one was added, so that only the items between the first
+     * and last new items are moved. Adding small batches of items repeatedly is then cheap.
+     * Otherwise, the new items are merged with the list in a single pass.
+     * <p>
      * If allowed, will reference the input array during, and possibly after, the operation to avoid
      * extra memory allocation, in which case you should not continue to reference or modify the
      * array yourself.
@@ -256,9 +277,15 @@ public class SortedList<T> {
         final int newSize = sortAndDedup(newItems);
 
         if (mSize == 0) {
+            // drop the references to the duplicates left after the deduplicated items
+            Arrays.fill(newItems, newSize, newItems.length, null);
             mData = newItems;
             mSize = newSize;
+            resetGap();
             mCallback.onInserted(0, newSize);
+        } else if (newSize < mSize / (32 - Integer.numberOfLeadingZeros(mSize))) {
+            // searching for each new item is cheaper than comparing every item of the list
+            addSorted(newItems, newSize);
         } else {
             merge(newItems, newSize);
         }
@@ -270,6 +297,7 @@ public class SortedList<T> {
             beginBatchedUpdates();
         }
 
+        closeGap();
         mOldDataStart = 0;
         mOldDataSize = mSize;
         mOldData = mData;
@@ -277,6 +305,8 @@ public class SortedList<T> {
         mNewDataStart = 0;
         int newSize = sortAndDedup(newData);
         mData = (T[]) Array.newInstance(mTClass, newSize);
+        // the new items are added in order, leave the gap after them
+        mGapStart = mGapEnd = newSize;
 
         while (mNewDataStart < newSize || mOldDataStart < mOldDataSize) {
             if (mOldDataStart >= mOldDataSize) {
@@ -324,6 +354,7 @@ public class SortedList<T> {
         }
 
         mOldData = null;
+        resetGap();
 
         if (forceBatchedUpdates) {
             endBatchedUpdates();
@@ -410,12 +441,14 @@ public class SortedList<T> {
             beginBatchedUpdates();
         }
 
+        closeGap();
         mOldData = mData;
         mOldDataStart = 0;
         mOldDataSize = mSize;
 
         final int mergedCapacity = mSize + newDataSize + CAPACITY_GROWTH;
         mData = (T[]) Array.newInstance(mTClass, mergedCapacity);
+        mGapStart = mGapEnd = mergedCapacity;
         mNewDataStart = 0;
 
         int newDataStart = 0;
@@ -465,6 +498,50 @@ public class SortedList<T> {
         }
 
         mOldData = null;
+        resetGap();
+
+        if (forceBatchedUpdates) {
+            endBatchedUpdates();
+        }
+    }
+
+    /**
+     * Adds items one by one, searching for each item from where the previous one was added. Only
+     * the items between the first and the last insertion points are moved.
+     * <p>
+     * This method assumes that newItems are sorted and deduplicated.
+     */
+    private void addSorted(T[] newData, int newDataSize) {
+        final boolean forceBatchedUpdates = !(mCallback instanceof BatchedCallback);
+        if (forceBatchedUpdates) {
+            beginBatchedUpdates();
+        }
+
+        mAddingSorted = true;
+        // All the items before this index are lower than the remaining new items.
+        int searchStart = 0;
+        for (int i = 0; i < newDataSize; i++) {
+            final T item = newData[i];
+            // Gallop forward until an item is higher than the new item. The items before left are
+            // lower, so the items with the same sort order, if any, are in [left, right).
+            int left = searchStart;
+            int right = searchStart;
+            int step = 1;
+            while (right < mSize) {
+                final int cmp = mCallback.compare(itemAt(mData, right), item);
+                if (cmp > 0) {
+                    break;
+                }
+                if (cmp < 0) {
+                    left = right + 1;
+                }
+                right = Math.min(searchStart + step, mSize);
+                step <<= 1;
+            }
+            add(item, findIndexOf(item, mData, left, right, INSERTION), true);
+            searchStart = left;
+        }
+        mAddingSorted = false;
 
         if (forceBatchedUpdates) {
             endBatchedUpdates();
@@ -476,7 +553,7 @@ public class SortedList<T> {
      * replaceAll).
      */
     private void throwIfInMutationOperation() {
-        if (mOldData != null) {
+        if (mOldData != null || mAddingSorted) {
             throw new IllegalStateException("Data cannot be mutated in the middle of a batch "
                     + "update operation such as addAll or replaceAll.");
         }
@@ -539,18 +616,26 @@ public class SortedList<T> {
     }
 
     private int add(T item, boolean notify) {
-        int index = findIndexOf(item, mData, 0, mSize, INSERTION);
+        int index = findIndexAtGap(item);
+        if (index == INVALID_POSITION) {
+            index = findIndexOf(item, mData, 0, mSize, INSERTION);
+        }
+        return add(item, index, notify);
+    }
+
+    private int add(T item, int index, boolean notify) {
         if (index == INVALID_POSITION) {
             index = 0;
         } else if (index < mSize) {
-            T existing = mData[index];
+            final int dataIndex = toDataIndex(index);
+            T existing = mData[dataIndex];
             if (mCallback.areItemsTheSame(existing, item)) {
                 if (mCallback.areContentsTheSame(existing, item)) {
                     //no change but still replace the item
-                    mData[index] = item;
+                    mData[dataIndex] = item;
                     return index;
                 } else {
-                    mData[index] = item;
+                    mData[dataIndex] = item;
                     mCallback.onChanged(index, 1, mCallback.getChangePayload(existing, item));
                     return index;
                 }
@@ -599,9 +684,15 @@ public class SortedList<T> {
     }
 
     private void removeItemAtIndex(int index, boolean notify) {
-        System.arraycopy(mData, index + 1, mData, index, mSize - index - 1);
+        // grow the gap from whichever side is closer to the item
+        if (index < mGapStart) {
+            moveGap(index + 1);
+            mData[--mGapStart] = null;
+        } else {
+            moveGap(index);
+            mData[mGapEnd++] = null;
+        }
         mSize--;
-        mData[mSize] = null;
         if (notify) {
             mCallback.onRemoved(index, 1);
         }
@@ -636,7 +727,7 @@ public class SortedList<T> {
             // different items, we can use comparison and may avoid lookup
             final int cmp = mCallback.compare(existing, item);
             if (cmp == 0) {
-                mData[index] = item;
+                mData[toDataIndex(index)] = item;
                 if (contentsChanged) {
                     mCallback.onChanged(index, 1, mCallback.getChangePayload(existing, item));
                 }
@@ -713,7 +804,7 @@ public class SortedList<T> {
                 return mOldData[index - mNewDataStart + mOldDataStart];
             }
         }
-        return mData[index];
+        return mData[toDataIndex(index)];
     }
 
     /**
@@ -739,10 +830,28 @@ public class SortedList<T> {
         return findIndexOf(item, mData, 0, mSize, LOOKUP);
     }
 
-    private int findIndexOf(T item, T[] mData, int left, int right, int reason) {
+    /**
+     * Returns the index at which the item is added if it sorts strictly between the items around
+     * the gap, or {@link #INVALID_POSITION} if it does not. The gap is where the last item was
+     * added or removed, so this avoids searching when items are added in order.
+     */
+    private int findIndexAtGap(T item) {
+        if (mSize == 0) {
+            return INVALID_POSITION;
+        }
+        if (mGapStart > 0 && mCallback.compare(mData[mGapStart - 1], item) >= 0) {
+            return INVALID_POSITION;
+        }
+        if (mGapStart < mSize && mCallback.compare(item, mData[mGapEnd]) >= 0) {
+            return INVALID_POSITION;
+        }
+        return mGapStart;
+    }
+
+    private int findIndexOf(T item, T[] data, int left, int right, int reason) {
         while (left < right) {
             final int middle = (left + right) / 2;
-            T myItem = mData[middle];
+            T myItem = itemAt(data, middle);
             final int cmp = mCallback.compare(myItem, item);
             if (cmp < 0) {
                 left = middle + 1;
@@ -750,7 +859,7 @@ public class SortedList<T> {
                 if (mCallback.areItemsTheSame(myItem, item)) {
                     return middle;
                 } else {
-                    int exact = linearEqualitySearch(item, middle, left, right);
+                    int exact = linearEqualitySearch(item, data, middle, left, right);
                     if (reason == INSERTION) {
                         return exact == INVALID_POSITION ? middle : exact;
                     } else {
@@ -764,10 +873,10 @@ public class SortedList<T> {
         return reason == INSERTION ? left : INVALID_POSITION;
     }
 
-    private int linearEqualitySearch(T item, int middle, int left, int right) {
+    private int linearEqualitySearch(T item, T[] data, int middle, int left, int right) {
         // go left
         for (int next = middle - 1; next >= left; next--) {
-            T nextItem = mData[next];
+            T nextItem = itemAt(data, next);
             int cmp = mCallback.compare(nextItem, item);
             if (cmp != 0) {
                 break;
@@ -777,7 +886,7 @@ public class SortedList<T> {
             }
         }
         for (int next = middle + 1; next < right; next++) {
-            T nextItem = mData[next];
+            T nextItem = itemAt(data, next);
             int cmp = mCallback.compare(nextItem, item);
             if (cmp != 0) {
                 break;
@@ -794,21 +903,73 @@ public class SortedList<T> {
             throw new IndexOutOfBoundsException(
                     "cannot add item to " + index + " because size is " + mSize);
         }
-        if (mSize == mData.length) {
-            // we are at the limit enlarge
-            T[] newData = (T[]) Array.newInstance(mTClass, mData.length + CAPACITY_GROWTH);
+        if (mGapStart == mGapEnd) {
+            // we are at the limit enlarge, growing with the size so that adding is amortized O(1),
+            // and leave the new gap where the item goes
+            final int growth = Math.max(CAPACITY_GROWTH, mData.length / 2);
+            T[] newData = (T[]) Array.newInstance(mTClass, mData.length + growth);
             System.arraycopy(mData, 0, newData, 0, index);
-            newData[index] = item;
-            System.arraycopy(mData, index, newData, index + 1, mSize - index);
+            System.arraycopy(mData, index, newData, index + growth, mSize - index);
             mData = newData;
+            mGapStart = index;
+            mGapEnd = index + growth;
         } else {
-            // just shift, we fit
-            System.arraycopy(mData, index, mData, index + 1, mSize - index);
-            mData[index] = item;
+            moveGap(index);
         }
+        mData[mGapStart++] = item;
         mSize++;
     }
 
+    /**
+     * Returns the index in mData of the item at the given position.
+     */
+    private int toDataIndex(int index) {
+        return index < mGapStart ? index : index + mGapEnd - mGapStart;
+    }
+
+    /**
+     * Returns the item at the given position of mData, which has a gap, or of another array, which
+     * does not.
+     */
+    private T itemAt(T[] data, int index) {
+        return data == mData ? mData[toDataIndex(index)] : data[index];
+    }
+
+    /**
+     * Moves the items between the gap and the given position to the other side of the gap, so
+     * that the gap starts at the given position.
+     */
+    private void moveGap(int index) {
+        if (index < mGapStart) {
+            final int count = mGapStart - index;
+            System.arraycopy(mData, index, mData, mGapEnd - count, count);
+            Arrays.fill(mData, index, Math.min(mGapStart, mGapEnd - count), null);
+            mGapStart = index;
+            mGapEnd -= count;
+        } else if (index > mGapStart) {
+            final int count = index - mGapStart;
+            System.arraycopy(mData, mGapEnd, mData, mGapStart, count);
+            Arrays.fill(mData, Math.max(mGapEnd, index), mGapEnd + count, null);
+            mGapStart = index;
+            mGapEnd += count;
+        }
+    }
+
+    /**
+     * Moves the gap to the end of mData, so that the items are at [0, mSize).
+     */
+    private void closeGap() {
+        moveGap(mSize);
+    }
+
+    /**
+     * Sets the gap after the items, once they have been written at [0, mSize) of mData.
+     */
+    private void resetGap() {
+        mGapStart = mSize;
+        mGapEnd = mData.length;
+    }
+
     private T[] copyArray(T[] items) {
         T[] copy = (T[]) Array.newInstance(mTClass, items.length);
         System.arraycopy(items, 0, copy, 0, items.length);
@@ -824,8 +985,10 @@ public class SortedList<T> {
             return;
         }
         final int prevSize = mSize;
-        Arrays.fill(mData, 0, prevSize, null);
+        Arrays.fill(mData, 0, mGapStart, null);
+        Arrays.fill(mData, mGapEnd, mData.length, null);
         mSize = 0;
+        resetGap();
         mCallback.onRemoved(0, prevSize);
     }
 
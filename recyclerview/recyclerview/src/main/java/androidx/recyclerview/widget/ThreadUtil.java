@@ -37,6 +37,8 @@ interface ThreadUtil<T> {
         void loadTile(int position, int scrollHint);
 
         void recycleTile(TileList.Tile<T> tile);
+
+        void tileLoaded(int generation, TileList.Tile<T> tile);
     }
 
     MainThreadCallback<T> getMainThreadProxy(MainThreadCallback<T> callback);
@@ -84,14 +84,37 @@ class TileList<T> {
     }
 
     public static class Tile<T> {
+        // Null if the items are kept in a TileStore.
         public final T[] mItems;
         public int mStartPosition;
         public int mItemCount;
         Tile<T> mNext;  // Used only for pooling recycled tiles.
 
+        // The store the items were written to, and where, for tiles not holding their items.
+        final TileStore<T> mStore;
+        final int mByteOffset;
+        final int mByteLength;
+
         public Tile(Class<T> klass, int size) {
             //noinspection unchecked
             mItems = (T[]) Array.newInstance(klass, size);
+            mStore = null;
+            mByteOffset = -1;
+            mByteLength = 0;
+        }
+
+        Tile(TileStore<T> store, int startPosition, int itemCount, int byteOffset,
+                int byteLength) {
+            mItems = null;
+            mStartPosition = startPosition;
+            mItemCount = itemCount;
+            mStore = store;
+            mByteOffset = byteOffset;
+            mByteLength = byteLength;
+        }
+
+        boolean isStored() {
+            return mStore != null;
         }
 
         boolean containsPosition(int pos) {
@@ -99,6 +122,9 @@ class TileList<T> {
         }
 
         T getByPosition(int pos) {
+            if (mStore != null) {
+                return mStore.read(this, pos - mStartPosition);
+            }
             return mItems[pos - mStartPosition];
         }
     }
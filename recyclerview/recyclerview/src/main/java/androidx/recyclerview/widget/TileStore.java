@@ -0,0 +1,263 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.recyclerview.widget;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keeps the tiles loaded by an {@link AsyncListUtil} serialized outside of the Java heap, so
+ * that many more items can be cached ahead of the visible range.
+ * <p>
+ * Tiles are encoded with an {@link ItemCodec} right after being filled by
+ * {@link AsyncListUtil.DataCallback#fillData(Object[], int, int)}, and items are decoded one at a
+ * time when {@link AsyncListUtil#getItem(int)} is called, so each call returns a new instance.
+ * <p>
+ * The store holds at most the number of bytes it was created with. When it is full, tiles are
+ * kept on the heap instead, and {@link AsyncListUtil} evicts tiles furthest from the visible
+ * range until the tiles it keeps fit in the store.
+ * <p>
+ * A store must only be used by one {@link AsyncListUtil}.
+ *
+ * @param <T> Type of the items.
+ * @see AsyncListUtilConfig.Builder#setTileStore(TileStore)
+ */
+public final class TileStore<T> {
+
+    /**
+     * Converts items to and from bytes.
+     * <p>
+     * Methods are called on the threads loading tiles for {@link #encode}, and on the main thread
+     * for {@link #decode}.
+     *
+     * @param <T> Type of the items.
+     */
+    public interface ItemCodec<T> {
+        /**
+         * Writes an item at the position of the given buffer.
+         * <p>
+         * If the buffer is too small, this may throw a {@link BufferOverflowException}, and will
+         * be called again with a larger buffer.
+         *
+         * @param item The item to write.
+         * @param out The buffer to write the item into.
+         */
+        void encode(@NonNull T item, @NonNull ByteBuffer out);
+
+        /**
+         * Reads an item written by {@link #encode}.
+         *
+         * @param in A buffer holding exactly the bytes written for the item.
+         * @return The item.
+         */
+        @NonNull
+        T decode(@NonNull ByteBuffer in);
+    }
+
+    private static final int INITIAL_SCRATCH_SIZE = 4096;
+    private static final int NULL_ITEM = 0x80000000;
+
+    private final ByteBuffer mBuffer;
+    private final ItemCodec<T> mCodec;
+
+    // Offsets of the free regions of the buffer, mapped to their lengths. Guarded by this.
+    private final TreeMap<Integer, Integer> mFreeRegions = new TreeMap<>();
+    private int mUsedBytes;
+    private int mStoredTileCount;
+
+    private TileStore(@NonNull ByteBuffer buffer, @NonNull ItemCodec<T> codec) {
+        mBuffer = buffer;
+        mCodec = codec;
+        if (buffer.capacity() > 0) {
+            mFreeRegions.put(0, buffer.capacity());
+        }
+    }
+
+    /**
+     * Creates a store keeping tiles in a direct {@link ByteBuffer}.
+     *
+     * @param byteBudget The size of the buffer.
+     * @param codec Converts items to and from bytes.
+     * @return A new TileStore.
+     */
+    @NonNull
+    public static <T> TileStore<T> allocateDirect(int byteBudget, @NonNull ItemCodec<T> codec) {
+        return new TileStore<>(ByteBuffer.allocateDirect(byteBudget), codec);
+    }
+
+    /**
+     * Creates a store keeping tiles in a memory-mapped file, letting the system page them out
+     * under memory pressure. The file is resized to the byte budget and its content is
+     * overwritten.
+     *
+     * @param file The file to map, usually in the cache directory of the application.
+     * @param byteBudget The size of the file.
+     * @param codec Converts items to and from bytes.
+     * @return A new TileStore.
+     * @throws IOException If the file cannot be created or mapped.
+     */
+    @NonNull
+    public static <T> TileStore<T> mapFile(@NonNull File file, int byteBudget,
+            @NonNull ItemCodec<T> codec) throws IOException {
+        final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            randomAccessFile.setLength(byteBudget);
+            // the mapping stays valid after the file is closed
+            return new TileStore<>(randomAccessFile.getChannel().map(
+                    FileChannel.MapMode.READ_WRITE, 0, byteBudget), codec);
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    /**
+     * Returns the maximum number of bytes the store holds.
+     */
+    public int getByteBudget() {
+        return mBuffer.capacity();
+    }
+
+    /**
+     * Returns the number of bytes used by the tiles in the store.
+     */
+    public synchronized int getUsedBytes() {
+        return mUsedBytes;
+    }
+
+    /**
+     * Returns the average size of the tiles in the store, or 0 if it is empty.
+     */
+    synchronized int getAverageTileBytes() {
+        return mStoredTileCount == 0 ? 0 : mUsedBytes / mStoredTileCount;
+    }
+
+    /**
+     * Encodes the items of a tile in the store.
+     *
+     * @return A tile decoding its items from the store, or null if there is not enough room.
+     */
+    @Nullable
+    TileList.Tile<T> store(@NonNull TileList.Tile<T> tile) {
+        // Each tile starts with the end offset of each of its items, relative to the end of that
+        // header. A null item is stored as an empty range, flagged with NULL_ITEM.
+        final int count = tile.mItemCount;
+        final int headerSize = count * 4;
+        ByteBuffer scratch = ByteBuffer.allocate(headerSize + INITIAL_SCRATCH_SIZE);
+        scratch.position(headerSize);
+        for (int i = 0; i < count; i++) {
+            final T item = tile.mItems[i];
+            if (item == null) {
+                scratch.putInt(i * 4, (scratch.position() - headerSize) | NULL_ITEM);
+                continue;
+            }
+            final int start = scratch.position();
+            while (true) {
+                try {
+                    mCodec.encode(item, scratch);
+                    break;
+                } catch (BufferOverflowException e) {
+                    // drop what was written of the item and retry in a larger buffer
+                    final ByteBuffer larger = ByteBuffer.allocate(scratch.capacity() * 2);
+                    scratch.position(0);
+                    scratch.limit(start);
+                    larger.put(scratch);
+                    scratch = larger;
+                }
+            }
+            scratch.putInt(i * 4, scratch.position() - headerSize);
+        }
+        final int length = scratch.position();
+        final int offset = allocate(length);
+        if (offset < 0) {
+            return null;
+        }
+        final ByteBuffer region = mBuffer.duplicate();
+        region.position(offset);
+        scratch.flip();
+        region.put(scratch);
+        return new TileList.Tile<>(this, tile.mStartPosition, tile.mItemCount, offset, length);
+    }
+
+    /**
+     * Decodes an item of a tile returned by {@link #store}.
+     */
+    @Nullable
+    T read(@NonNull TileList.Tile<T> tile, int index) {
+        final ByteBuffer view = mBuffer.duplicate();
+        final int dataStart = tile.mByteOffset + tile.mItemCount * 4;
+        final int end = view.getInt(tile.mByteOffset + index * 4);
+        if ((end & NULL_ITEM) != 0) {
+            return null;
+        }
+        final int start = index == 0
+                ? 0 : view.getInt(tile.mByteOffset + (index - 1) * 4) & ~NULL_ITEM;
+        view.limit(dataStart + end);
+        view.position(dataStart + start);
+        return mCodec.decode(view.slice());
+    }
+
+    /**
+     * Releases the bytes used by a tile returned by {@link #store}.
+     */
+    synchronized void free(@NonNull TileList.Tile<T> tile) {
+        int offset = tile.mByteOffset;
+        int length = tile.mByteLength;
+        mUsedBytes -= length;
+        mStoredTileCount--;
+        // merge with the adjacent free regions
+        final Map.Entry<Integer, Integer> before = mFreeRegions.floorEntry(offset);
+        if (before != null && before.getKey() + before.getValue() == offset) {
+            offset = before.getKey();
+            length += before.getValue();
+        }
+        final Integer after = mFreeRegions.remove(tile.mByteOffset + tile.mByteLength);
+        if (after != null) {
+            length += after;
+        }
+        mFreeRegions.put(offset, length);
+    }
+
+    private synchronized int allocate(int length) {
+        final Iterator<Map.Entry<Integer, Integer>> iterator =
+                mFreeRegions.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Map.Entry<Integer, Integer> region = iterator.next();
+            final int offset = region.getKey();
+            final int regionLength = region.getValue();
+            if (regionLength >= length) {
+                iterator.remove();
+                if (regionLength > length) {
+                    mFreeRegions.put(offset + length, regionLength - length);
+                }
+                mUsedBytes += length;
+                mStoredTileCount++;
+                return offset;
+            }
+        }
+        return -1;
+    }
+}
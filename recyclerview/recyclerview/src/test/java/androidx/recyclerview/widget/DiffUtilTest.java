@@ -39,6 +39,8 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @RunWith(JUnit4.class)
 @SmallTest
@@ -82,6 +84,44 @@ public class DiffUtilTest {
         }
     };
 
+    private DiffUtil.Callback mKeyedCallback = new DiffUtil.Callback() {
+        @Override
+        public int getOldListSize() {
+            return mCallback.getOldListSize();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return mCallback.getNewListSize();
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldItemIndex, int newItemIndex) {
+            throw new AssertionError("items should be matched by key");
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldItemIndex, int newItemIndex) {
+            return mCallback.areContentsTheSame(oldItemIndex, newItemIndex);
+        }
+
+        @Nullable
+        @Override
+        public Object getChangePayload(int oldItemIndex, int newItemIndex) {
+            return mCallback.getChangePayload(oldItemIndex, newItemIndex);
+        }
+
+        @Override
+        public Object getOldItemKey(int oldItemIndex) {
+            return mBefore.get(oldItemIndex).id;
+        }
+
+        @Override
+        public Object getNewItemKey(int newItemIndex) {
+            return mAfter.get(newItemIndex).id;
+        }
+    };
+
     @Rule
     public TestWatcher mLogOnExceptionWatcher = new TestWatcher() {
         @Override
@@ -278,6 +318,141 @@ public class DiffUtilTest {
         assertThat(applied.contains(mBefore.get(0)), is(false));
     }
 
+    @Test
+    public void testKeyedDisableMoveDetection() {
+        initWithSize(5);
+        move(0, 4);
+        List<Item> applied = applyUpdates(mBefore, DiffUtil.calculateDiff(mKeyedCallback, false));
+        assertThat(applied.size(), is(5));
+        assertThat(applied.get(4).newItem, is(true));
+        assertThat(applied.contains(mBefore.get(0)), is(false));
+    }
+
+    @Test
+    public void testKeyedRandom() {
+        Random random = new Random(0);
+        for (int i = 0; i < 300; i++) {
+            testRandom(random, random.nextInt(60), 2 + random.nextInt(40));
+        }
+    }
+
+    @Test
+    public void testKeyedMovesAreMinimal() {
+        initWithSize(10);
+        // reverse the list, then move 2 items back in order
+        for (int i = 0; i < 10; i++) {
+            move(9, i);
+        }
+        move(9, 8);
+        move(0, 9);
+        DiffUtil.DiffResult result = DiffUtil.calculateDiff(mKeyedCallback);
+        final int[] counts = new int[4];
+        result.dispatchUpdatesTo(new ListUpdateCallback() {
+            @Override
+            public void onInserted(int position, int count) {
+                counts[0] += count;
+            }
+
+            @Override
+            public void onRemoved(int position, int count) {
+                counts[1] += count;
+            }
+
+            @Override
+            public void onMoved(int fromPosition, int toPosition) {
+                counts[2]++;
+            }
+
+            @Override
+            public void onChanged(int position, int count, Object payload) {
+                counts[3] += count;
+            }
+        });
+        assertThat(counts[0], is(0));
+        assertThat(counts[1], is(0));
+        assertThat(counts[3], is(0));
+        // only the 3 items in their old relative order stay in place
+        assertThat(counts[2], is(7));
+    }
+
+    @Test
+    public void testKeyedDuplicateKeys() {
+        initWithSize(3);
+        mAfter.add(1, new Item(mBefore.get(0)));
+        mAfter.add(new Item(mBefore.get(2)));
+        List<Item> applied = applyUpdates(mBefore,
+                DiffUtil.calculateDiff(mKeyedCallback));
+        assertThat(applied.size(), is(5));
+        assertThat(applied.get(0), equalTo(mAfter.get(0)));
+        assertThat(applied.get(1).newItem, is(true));
+        assertThat(applied.get(2), equalTo(mAfter.get(2)));
+        assertThat(applied.get(3), equalTo(mAfter.get(3)));
+        assertThat(applied.get(4).newItem, is(true));
+    }
+
+    @Test
+    public void testKeyedFallsBackWithoutKeys() {
+        initWithSize(5);
+        move(0, 3);
+        add(2);
+        DiffUtil.DiffResult result = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+            @Override
+            public int getOldListSize() {
+                return mCallback.getOldListSize();
+            }
+
+            @Override
+            public int getNewListSize() {
+                return mCallback.getNewListSize();
+            }
+
+            @Override
+            public boolean areItemsTheSame(int oldItemIndex, int newItemIndex) {
+                return mCallback.areItemsTheSame(oldItemIndex, newItemIndex);
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldItemIndex, int newItemIndex) {
+                return mCallback.areContentsTheSame(oldItemIndex, newItemIndex);
+            }
+
+            @Override
+            public Object getOldItemKey(int oldItemIndex) {
+                // keys missing for some items
+                return oldItemIndex < 2 ? mBefore.get(oldItemIndex).id : null;
+            }
+
+            @Override
+            public Object getNewItemKey(int newItemIndex) {
+                return mAfter.get(newItemIndex).id;
+            }
+        });
+        assertEquals(applyUpdates(mBefore, result), mAfter);
+    }
+
+    @Test
+    public void testParallelRandom() {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            Random rand = new Random(17);
+            for (int i = 0; i < 20; i++) {
+                // few edits on a large list leave anchors to split the diff on
+                testRandom(rand, 5000, 1 + rand.nextInt(200));
+                List<Item> applied = applyUpdates(mBefore,
+                        DiffUtil.calculateDiff(mCallback, true, executor, 4));
+                assertEquals(applied, mAfter);
+            }
+            for (int i = 0; i < 100; i++) {
+                testRandom(rand, rand.nextInt(100), rand.nextInt(100));
+                List<Item> applied = applyUpdates(mBefore,
+                        DiffUtil.calculateDiff(mCallback, true, executor, 4));
+                assertEquals(applied, mAfter);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     @Test(expected = IndexOutOfBoundsException.class)
     public void convertOldPositionToNew_tooSmall() {
         initWithSize(2);
@@ -307,35 +482,39 @@ public class DiffUtilTest {
     }
 
     private void testRandom(int initialSize, int operationCount) {
+        testRandom(sRand, initialSize, operationCount);
+    }
+
+    private void testRandom(Random rand, int initialSize, int operationCount) {
         mLog.setLength(0);
         initWithSize(initialSize);
         for (int i = 0; i < operationCount; i++) {
-            int op = sRand.nextInt(5);
+            int op = rand.nextInt(5);
             switch (op) {
                 case 0:
-                    add(sRand.nextInt(mAfter.size() + 1));
+                    add(rand.nextInt(mAfter.size() + 1));
                     break;
                 case 1:
                     if (!mAfter.isEmpty()) {
-                        delete(sRand.nextInt(mAfter.size()));
+                        delete(rand.nextInt(mAfter.size()));
                     }
                     break;
                 case 2:
                     // move
                     if (mAfter.size() > 0) {
-                        move(sRand.nextInt(mAfter.size()), sRand.nextInt(mAfter.size()));
+                        move(rand.nextInt(mAfter.size()), rand.nextInt(mAfter.size()));
                     }
                     break;
                 case 3:
                     // update
                     if (mAfter.size() > 0) {
-                        update(sRand.nextInt(mAfter.size()));
+                        update(rand.nextInt(mAfter.size()));
                     }
                     break;
                 case 4:
                     // update with payload
                     if (mAfter.size() > 0) {
-                        updateWithPayload(sRand.nextInt(mAfter.size()));
+                        updateWithPayload(rand.nextInt(mAfter.size()));
                     }
                     break;
             }
@@ -344,7 +523,12 @@ public class DiffUtilTest {
     }
 
     private void check() {
-        DiffUtil.DiffResult result = DiffUtil.calculateDiff(mCallback);
+        check(mCallback);
+        check(mKeyedCallback);
+    }
+
+    private void check(DiffUtil.Callback callback) {
+        DiffUtil.DiffResult result = DiffUtil.calculateDiff(callback);
         log("before", mBefore);
         log("after", mAfter);
         log("snakes", result.getSnakes());
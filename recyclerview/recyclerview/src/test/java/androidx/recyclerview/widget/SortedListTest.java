@@ -38,8 +38,10 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -323,11 +325,14 @@ public class SortedListTest {
                     assertTrue(copy.contains(mList.get(index)));
                 }
 
-                for (int index = 0; index < mList.size(); index++) {
-                    assertNotNull(mList.mData[index]);
-                }
-                for (int index = mList.size(); index < mList.mData.length; index++) {
-                    assertNull(mList.mData[index]);
+                assertEquals(mList.size(),
+                        mList.mData.length - (mList.mGapEnd - mList.mGapStart));
+                for (int index = 0; index < mList.mData.length; index++) {
+                    if (index >= mList.mGapStart && index < mList.mGapEnd) {
+                        assertNull(mList.mData[index]);
+                    } else {
+                        assertNotNull(mList.mData[index]);
+                    }
                 }
             }
         } catch (Throwable t) {
@@ -625,6 +630,56 @@ public class SortedListTest {
     }
 
 
+    @Test
+    public void testAddAllFewItems() {
+        mList.addAll(createItems(0, 998, 2));
+        mAdditions.clear();
+
+        // Few items compared to the size of the list are added one by one.
+        List<Item> items = new ArrayList<>(Arrays.asList(createItems(401, 409, 2)));
+        items.addAll(Arrays.asList(createItems(1001, 1009, 2)));
+        items.add(new Item(600, 600, 1));
+        mList.addAll(items);
+
+        assertIntegrity(510, "addAll, few items");
+        assertEquals(6, mAdditions.size());
+        for (int i = 0; i < 5; i++) {
+            assertTrue(mAdditions.contains(new Pair(201 + i * 2, 1)));
+        }
+        assertTrue(mAdditions.contains(new Pair(505, 5)));
+        assertEquals(1, mUpdates.size());
+        assertTrue(mUpdates.contains(new Pair(305, 1)));
+        assertEquals(1, mList.get(305).data);
+        assertEquals(0, mRemovals.size());
+        assertEquals(0, mMoves.size());
+    }
+
+    @Test
+    public void testAddAllFewItemsRandom() {
+        Random random = new Random(7);
+        Map<Integer, Item> expected = new HashMap<>();
+        int nextId = 0;
+        for (int batch = 0; batch < 200; batch++) {
+            // large batches of new items first, merged with the list, then small batches of new
+            // and existing items, added one by one
+            final boolean small = batch >= 10;
+            Item[] items = new Item[1 + random.nextInt(small ? 10 : 100)];
+            for (int i = 0; i < items.length; i++) {
+                int id = small && random.nextBoolean() ? random.nextInt(nextId) : nextId++;
+                Item existing = expected.get(id);
+                // items with many others of the same sort order, which keep their sort order
+                int cmpField = existing == null ? random.nextInt(300) : existing.cmpField;
+                items[i] = new Item(id, cmpField, random.nextInt(3));
+                expected.put(id, items[i]);
+            }
+            mList.addAll(items);
+            assertIntegrity(expected.size(), "addAll, batch " + batch);
+        }
+        for (int i = 0; i < size(); i++) {
+            assertSame(expected.get(mList.get(i).id), mList.get(i));
+        }
+    }
+
     @Test
     public void testAddAllAccessFromCallbacks() {
         // Add first 5 even numbers.
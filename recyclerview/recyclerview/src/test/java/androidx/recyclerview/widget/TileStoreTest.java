@@ -0,0 +1,167 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package androidx.recyclerview.widget;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import androidx.annotation.NonNull;
+import androidx.test.filters.SmallTest;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+@RunWith(JUnit4.class)
+@SmallTest
+public class TileStoreTest {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int TILE_SIZE = 4;
+
+    private static final TileStore.ItemCodec<String> STRING_CODEC =
+            new TileStore.ItemCodec<String>() {
+                @Override
+                public void encode(@NonNull String item, @NonNull ByteBuffer out) {
+                    out.put(item.getBytes(UTF_8));
+                }
+
+                @NonNull
+                @Override
+                public String decode(@NonNull ByteBuffer in) {
+                    byte[] bytes = new byte[in.remaining()];
+                    in.get(bytes);
+                    return new String(bytes, UTF_8);
+                }
+            };
+
+    @Test
+    public void storeAndRead() {
+        TileStore<String> store = TileStore.allocateDirect(1024, STRING_CODEC);
+        TileList.Tile<String> stored = store.store(tile(8, "a", null, "", "dddd"));
+        assertNotNull(stored);
+        assertTrue(stored.isStored());
+        assertEquals(8, stored.mStartPosition);
+        assertEquals(4, stored.mItemCount);
+        assertEquals("a", stored.getByPosition(8));
+        assertNull(stored.getByPosition(9));
+        assertEquals("", stored.getByPosition(10));
+        assertEquals("dddd", stored.getByPosition(11));
+        assertEquals(stored.mByteLength, store.getUsedBytes());
+    }
+
+    @Test
+    public void partialTile() {
+        TileStore<String> store = TileStore.allocateDirect(1024, STRING_CODEC);
+        TileList.Tile<String> stored = store.store(tile(0, "x", "yy"));
+        assertNotNull(stored);
+        assertEquals(2, stored.mItemCount);
+        assertEquals("yy", stored.getByPosition(1));
+    }
+
+    @Test
+    public void largeItems() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            builder.append((char) ('a' + i % 26));
+        }
+        String large = builder.toString();
+        TileStore<String> store = TileStore.allocateDirect(65536, STRING_CODEC);
+        TileList.Tile<String> stored = store.store(tile(0, "first", large, large, "last"));
+        assertNotNull(stored);
+        assertEquals("first", stored.getByPosition(0));
+        assertEquals(large, stored.getByPosition(1));
+        assertEquals(large, stored.getByPosition(2));
+        assertEquals("last", stored.getByPosition(3));
+    }
+
+    @Test
+    public void fullStore() {
+        TileStore<String> store = TileStore.allocateDirect(64, STRING_CODEC);
+        // 16 bytes of header and 16 bytes of data
+        TileList.Tile<String> first = store.store(tile(0, "aaaa", "bbbb", "cccc", "dddd"));
+        TileList.Tile<String> second = store.store(tile(4, "eeee", "ffff", "gggg", "hhhh"));
+        assertNotNull(first);
+        assertNotNull(second);
+        assertEquals(64, store.getUsedBytes());
+        assertEquals(32, store.getAverageTileBytes());
+        assertNull(store.store(tile(8, "i")));
+
+        store.free(first);
+        assertEquals(32, store.getUsedBytes());
+        TileList.Tile<String> third = store.store(tile(8, "iiii", "jjjj", "kkkk", "llll"));
+        assertNotNull(third);
+        assertEquals("kkkk", third.getByPosition(10));
+        assertEquals("gggg", second.getByPosition(6));
+    }
+
+    @Test
+    public void freeRegionsMerge() {
+        TileStore<String> store = TileStore.allocateDirect(96, STRING_CODEC);
+        TileList.Tile<String> first = store.store(tile(0, "aaaa", "bbbb", "cccc", "dddd"));
+        TileList.Tile<String> second = store.store(tile(4, "eeee", "ffff", "gggg", "hhhh"));
+        TileList.Tile<String> third = store.store(tile(8, "iiii", "jjjj", "kkkk", "llll"));
+        assertNotNull(first);
+        assertNotNull(second);
+        assertNotNull(third);
+        store.free(first);
+        store.free(third);
+        store.free(second);
+        assertEquals(0, store.getUsedBytes());
+        // only fits if the three free regions were merged
+        TileList.Tile<String> large = store.store(
+                tile(0, repeat('x', 20), repeat('y', 20), repeat('z', 20), repeat('w', 20)));
+        assertNotNull(large);
+        assertEquals(96, large.mByteLength);
+        assertEquals(repeat('w', 20), large.getByPosition(3));
+    }
+
+    @Test
+    public void mapFile() throws IOException {
+        File file = File.createTempFile("tiles", null);
+        try {
+            TileStore<String> store = TileStore.mapFile(file, 4096, STRING_CODEC);
+            assertEquals(4096, store.getByteBudget());
+            assertEquals(4096, file.length());
+            TileList.Tile<String> stored = store.store(tile(0, "a", "b", "c"));
+            assertNotNull(stored);
+            assertEquals("c", stored.getByPosition(2));
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static TileList.Tile<String> tile(int startPosition, String... items) {
+        TileList.Tile<String> tile = new TileList.Tile<>(String.class, TILE_SIZE);
+        tile.mStartPosition = startPosition;
+        tile.mItemCount = items.length;
+        System.arraycopy(items, 0, tile.mItems, 0, items.length);
+        return tile;
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.benchmark
+
+import androidx.benchmark.BenchmarkRule
+import androidx.room.EntityInsertionAdapter
+import androidx.room.Room
+import androidx.room.RoomDatabase
+import androidx.test.InstrumentationRegistry
+import androidx.test.filters.LargeTest
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+
+/**
+ * Compares inserting a list of entities with multi-row INSERT statements against binding and
+ * executing the single row statement once per entity. Both run the same `@Insert` method, which
+ * inserts the whole list in a single transaction.
+ *
+ * Divide the sample size by the reported time per iteration to get rows per second.
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+class InsertBenchmark(private val sampleSize: Int, private val batched: Boolean) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    val context = InstrumentationRegistry.getTargetContext()
+
+    private lateinit var db: TestDatabase
+
+    @Before
+    fun setup() {
+        EntityInsertionAdapter.setMultiRowInsertEnabled(batched)
+        context.deleteDatabase(DB_NAME)
+        db = Room.databaseBuilder(context, TestDatabase::class.java, DB_NAME)
+            .setJournalMode(RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING)
+            .build()
+    }
+
+    @After
+    fun tearDown() {
+        db.close()
+        context.deleteDatabase(DB_NAME)
+        EntityInsertionAdapter.setMultiRowInsertEnabled(true)
+    }
+
+    @Test
+    fun insert() {
+        val users = List(sampleSize) { User(it, "name$it") }
+        val dao = db.getUserDao()
+        while (benchmarkRule.state.keepRunning()) {
+            dao.insertAll(users)
+
+            benchmarkRule.state.pauseTiming()
+            assertEquals(sampleSize, dao.deleteAll())
+            benchmarkRule.state.resumeTiming()
+        }
+    }
+
+    companion object {
+
+        @JvmStatic
+        @Parameterized.Parameters(name = "sampleSize={0}, batched={1}")
+        fun data(): List<Array<Any>> {
+            return mutableListOf<Array<Any>>().apply {
+                arrayOf(false, true).forEach { batched ->
+                    arrayOf(100, 1000, 10000, 50000).forEach { sampleSize ->
+                        add(arrayOf(sampleSize, batched))
+                    }
+                }
+            }
+        }
+
+        private const val DB_NAME = "insert-benchmark-test"
+    }
+}
@@ -134,6 +134,9 @@ interface UserDao {
     @Insert
     fun insert(user: User)
 
+    @Insert
+    fun insertAll(users: List<User>)
+
     @Query("DELETE FROM User")
     fun deleteAll(): Int
 }
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.benchmark
+
+import androidx.benchmark.BenchmarkRule
+import androidx.room.RoomSQLiteQuery
+import androidx.test.filters.LargeTest
+import org.junit.After
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+
+/**
+ * Measures how long it takes for [threadCount] threads to each acquire and release
+ * [OPS_PER_THREAD] queries from the [RoomSQLiteQuery] pool.
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+class RoomSQLiteQueryPoolBenchmark(private val threadCount: Int) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private val executor: ExecutorService = Executors.newFixedThreadPool(threadCount)
+
+    @Before
+    fun setUp() {
+        // the pool and its counts are global, start each thread count from an empty pool
+        RoomSQLiteQuery.clearPool()
+    }
+
+    @After
+    fun tearDown() {
+        executor.shutdownNow()
+    }
+
+    @Test
+    fun acquireRelease() {
+        val tasks = List(threadCount) {
+            Callable {
+                for (i in 0 until OPS_PER_THREAD) {
+                    // mimic DAO queries, which mostly have a handful of arguments
+                    val query = RoomSQLiteQuery.acquire("SELECT * FROM User", i % 8)
+                    if (query.argCount > 0) {
+                        query.bindLong(query.argCount, i.toLong())
+                    }
+                    query.release()
+                }
+            }
+        }
+        while (benchmarkRule.state.keepRunning()) {
+            executor.invokeAll(tasks).forEach { it.get() }
+        }
+    }
+
+    companion object {
+
+        @JvmStatic
+        @Parameterized.Parameters(name = "threadCount={0}")
+        fun data(): List<Array<Any>> = listOf(1, 4, 16, 32).map { arrayOf<Any>(it) }
+
+        private const val OPS_PER_THREAD = 1000
+    }
+}
@@ -85,10 +85,18 @@ object RoomTypeNames {
             ClassName.get("androidx.room.util", "ViewInfo")
     val LIMIT_OFFSET_DATA_SOURCE: ClassName =
             ClassName.get("androidx.room.paging", "LimitOffsetDataSource")
+    val KEYSET_DATA_SOURCE: ClassName =
+            ClassName.get("androidx.room.paging", "KeysetDataSource")
     val DB_UTIL: ClassName =
             ClassName.get("androidx.room.util", "DBUtil")
     val CURSOR_UTIL: ClassName =
             ClassName.get("androidx.room.util", "CursorUtil")
+    val CLOSEABLE_ITERATOR: ClassName =
+            ClassName.get("androidx.room", "CloseableIterator")
+    val CURSOR_ITERATOR: ClassName =
+            ClassName.get("androidx.room.util", "CursorIterator")
+    val RELATION_UTIL: ClassName =
+            ClassName.get("androidx.room.util", "RelationUtil")
 }
 
 object PagingTypeNames {
@@ -185,3 +193,15 @@ fun CallableTypeSpecBuilder(
         callBody()
     }.build())
 }
+
+fun RunnableTypeSpecBuilder(
+    runBody: MethodSpec.Builder.() -> Unit
+) = TypeSpec.anonymousClassBuilder("").apply {
+    addSuperinterface(Runnable::class.typeName())
+    addMethod(MethodSpec.methodBuilder("run").apply {
+        returns(TypeName.VOID)
+        addModifiers(Modifier.PUBLIC)
+        addAnnotation(Override::class.java)
+        runBody()
+    }.build())
+}
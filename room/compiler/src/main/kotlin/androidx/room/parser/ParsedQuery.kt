@@ -38,6 +38,26 @@ data class Section(val text: String, val type: SectionType) {
 
 data class Table(val name: String, val alias: String)
 
+/**
+ * A term of the ORDER BY clause of a query. [table] and [column] are only set if the term is a
+ * plain column reference.
+ */
+data class OrderingTerm(
+        val text: String,
+        val table: String?,
+        val column: String?,
+        val descending: Boolean,
+        val collated: Boolean)
+
+/**
+ * A top level `column = :bindVar` or `column IN (:bindVar)` term of the WHERE clause of a query
+ * that only reads rows of a single table. [table] is the qualifier of the column, if any.
+ */
+data class KeyFilter(
+        val table: String?,
+        val column: String,
+        val bindVar: String)
+
 data class ParsedQuery(
         val original: String,
         val type: QueryType,
@@ -45,7 +65,11 @@ data class ParsedQuery(
         // pairs of table name and alias,
         val tables: Set<Table>,
         val syntaxErrors: List<String>,
-        val runtimeQueryPlaceholder: Boolean) {
+        val runtimeQueryPlaceholder: Boolean,
+        // the ORDER BY clause of the outermost select statement
+        val orderingTerms: List<OrderingTerm> = emptyList(),
+        // the bound columns the rows of a single table select are filtered on
+        val keyFilters: List<KeyFilter> = emptyList()) {
     companion object {
         val STARTS_WITH_NUMBER = "^\\?[0-9]".toRegex()
         val MISSING = ParsedQuery("missing query", QueryType.UNKNOWN, emptyList(), emptySet(),
@@ -40,15 +40,139 @@ class QueryVisitor(
     private val tableNames = mutableSetOf<Table>()
     private val withClauseNames = mutableSetOf<String>()
     private val queryType: QueryType
+    private val orderingTerms: List<OrderingTerm>
+    private val keyFilters: List<KeyFilter>
 
     init {
         queryType = (0 until statement.childCount).map {
             findQueryType(statement.getChild(it))
         }.filterNot { it == QueryType.UNKNOWN }.firstOrNull() ?: QueryType.UNKNOWN
+        orderingTerms = (0 until statement.childCount).map {
+            findOrderingTerms(statement.getChild(it))
+        }.firstOrNull { it != null } ?: emptyList()
+        keyFilters = (0 until statement.childCount).map {
+            findKeyFilters(statement.getChild(it))
+        }.firstOrNull { it != null } ?: emptyList()
 
         statement.accept(this)
     }
 
+    /**
+     * Returns the ORDER BY clause of the outermost select statement, or null if the statement
+     * is not a select.
+     */
+    private fun findOrderingTerms(statement: ParseTree): List<OrderingTerm>? {
+        val terms = when (statement) {
+            is SQLiteParser.Factored_select_stmtContext -> statement.ordering_term()
+            is SQLiteParser.Compound_select_stmtContext -> statement.ordering_term()
+            is SQLiteParser.Select_stmtContext -> statement.ordering_term()
+            is SQLiteParser.Simple_select_stmtContext -> statement.ordering_term()
+            else -> return null
+        }
+        return terms.map { term ->
+            val expr = term.expr()
+            val isColumn = isColumn(expr)
+            OrderingTerm(
+                    text = term.text,
+                    table = if (isColumn) {
+                        expr.table_name().firstOrNull()?.let { unescapeIdentifier(it.text) }
+                    } else {
+                        null
+                    },
+                    column = if (isColumn) unescapeIdentifier(expr.column_name().text) else null,
+                    descending = term.K_DESC() != null,
+                    collated = term.collation_name() != null)
+        }
+    }
+
+    /**
+     * Returns the `column = :bindVar` and `column IN (:bindVar)` terms of the WHERE clause if the
+     * statement is a select that only reads rows of a single table matching all of them, or null
+     * if it is not such a select.
+     */
+    private fun findKeyFilters(statement: ParseTree): List<KeyFilter>? {
+        val core = when (statement) {
+            is SQLiteParser.Factored_select_stmtContext ->
+                statement.select_core().singleOrNull()?.takeIf { statement.with_clause() == null }
+            is SQLiteParser.Simple_select_stmtContext ->
+                statement.select_core()?.takeIf { statement.with_clause() == null }
+            else -> null
+        } ?: return null
+        val tables = core.join_clause()?.table_or_subquery() ?: core.table_or_subquery()
+        // a subquery or a join may read any other row
+        if (tables.singleOrNull()?.table_name() == null || containsSelect(core)) {
+            return null
+        }
+        val where = core.K_WHERE() ?: return emptyList()
+        val whereExpr = core.getChild(core.children.indexOf(where) + 1)
+                as? SQLiteParser.ExprContext ?: return emptyList()
+        return conjunctsOf(whereExpr).mapNotNull { findKeyFilter(it) }
+    }
+
+    private fun containsSelect(tree: ParseTree): Boolean {
+        return (0 until tree.childCount).any {
+            val child = tree.getChild(it)
+            child is SQLiteParser.Select_stmtContext || containsSelect(child)
+        }
+    }
+
+    private fun conjunctsOf(expr: SQLiteParser.ExprContext): List<SQLiteParser.ExprContext> {
+        val operands = expr.expr()
+        if (operands.size == 2 && expr.childCount == 3 &&
+                isToken(expr.getChild(1), SQLiteParser.K_AND)) {
+            return conjunctsOf(operands[0]) + conjunctsOf(operands[1])
+        }
+        if (operands.size == 1 && expr.childCount == 3 && expr.getChild(0).text == "(") {
+            return conjunctsOf(operands[0])
+        }
+        return listOf(expr)
+    }
+
+    private fun findKeyFilter(expr: SQLiteParser.ExprContext): KeyFilter? {
+        val operands = expr.expr()
+        if (operands.size != 2) {
+            return null
+        }
+        val column: SQLiteParser.ExprContext
+        val bindVar: SQLiteParser.ExprContext
+        if (expr.childCount == 3 && expr.getChild(1).text in EQUALITY_OPERATORS) {
+            if (isColumn(operands[0])) {
+                column = operands[0]
+                bindVar = operands[1]
+            } else {
+                column = operands[1]
+                bindVar = operands[0]
+            }
+        } else if (expr.childCount == 5 && isToken(expr.getChild(1), SQLiteParser.K_IN) &&
+                expr.getChild(2).text == "(") {
+            column = operands[0]
+            bindVar = operands[1]
+        } else {
+            return null
+        }
+        if (!isColumn(column) || bindVar.childCount != 1 || bindVar.BIND_PARAMETER() == null) {
+            return null
+        }
+        return KeyFilter(
+                table = column.table_name().firstOrNull()?.let { unescapeIdentifier(it.text) },
+                column = unescapeIdentifier(column.column_name().text),
+                bindVar = bindVar.BIND_PARAMETER().text)
+    }
+
+    private fun isToken(tree: ParseTree, type: Int): Boolean {
+        return (tree as? TerminalNode)?.symbol?.type == type
+    }
+
+    /**
+     * Returns whether the expression is a bare column reference, optionally qualified by its
+     * table.
+     */
+    private fun isColumn(expr: SQLiteParser.ExprContext): Boolean {
+        val column = expr.column_name()
+        return column != null && expr.expr().isEmpty() &&
+                expr.getChild(expr.childCount - 1) == column
+    }
+
     private fun findQueryType(statement: ParseTree): QueryType {
         return when (statement) {
             is SQLiteParser.Factored_select_stmtContext,
@@ -89,7 +213,9 @@ class QueryVisitor(
                 inputs = bindingExpressions.sortedBy { it.sourceInterval.a },
                 tables = tableNames,
                 syntaxErrors = syntaxErrors,
-                runtimeQueryPlaceholder = forRuntimeQuery)
+                runtimeQueryPlaceholder = forRuntimeQuery,
+                orderingTerms = orderingTerms,
+                keyFilters = keyFilters)
     }
 
     override fun visitCommon_table_expression(
@@ -127,6 +253,7 @@ class QueryVisitor(
 
     companion object {
         private val ESCAPE_LITERALS = listOf("\"", "'", "`")
+        private val EQUALITY_OPERATORS = listOf("=", "==")
     }
 }
 
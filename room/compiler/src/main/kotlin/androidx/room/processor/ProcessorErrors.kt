@@ -371,6 +371,14 @@ object ProcessorErrors {
 
     val RELATION_IN_ENTITY = "Entities cannot have relations."
 
+    val CLOSEABLE_ITERATOR_WITH_RELATION = "CloseableIterator reads the result one row at a" +
+            " time, so it cannot return a Pojo with a @Relation which is loaded for the whole" +
+            " result at once. Return a List instead."
+
+    val TRANSACTION_ON_CLOSEABLE_ITERATOR = "A CloseableIterator reads rows after the method" +
+            " returns, when its @Transaction would already be over. Return a List instead, or" +
+            " iterate inside a transaction of your own."
+
     val CANNOT_FIND_TYPE = "Cannot find type."
 
     fun relationAffinityMismatch(
@@ -537,6 +545,29 @@ object ProcessorErrors {
 
     val PAGING_SPECIFY_DATA_SOURCE_TYPE = "For now, Room only supports PositionalDataSource class."
 
+    val PAGING_KEYSET_REQUIRES_ENTITY = "DataSource.Factory with a key type other than Integer" +
+            " pages by seeking on the primary key, which requires the item type to be an Entity."
+
+    val PAGING_KEYSET_REQUIRES_SINGLE_PRIMARY_KEY = "DataSource.Factory with a key type other" +
+            " than Integer requires the Entity to have a single, non-embedded primary key."
+
+    fun pagingKeysetKeyTypeMismatch(keyType: String, columnName: String, columnType: String):
+            String {
+        return "DataSource.Factory key type $keyType does not match the type of the primary key" +
+                " column $columnName ($columnType)."
+    }
+
+    fun pagingKeysetMissingKeyColumn(columnName: String): String {
+        return "DataSource.Factory with a key type other than Integer requires the query to" +
+                " return the primary key column $columnName."
+    }
+
+    fun pagingKeysetInvalidOrderBy(columnName: String): String {
+        return "DataSource.Factory with a key type other than Integer always loads rows in" +
+                " ascending order of the primary key column $columnName. The query can only be" +
+                " ordered by $columnName ASC."
+    }
+
     fun primaryKeyNull(field: String): String {
         return "You must annotate primary keys with @NonNull. \"$field\" is nullable. SQLite " +
                 "considers this a " +
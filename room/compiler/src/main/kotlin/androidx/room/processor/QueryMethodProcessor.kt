@@ -20,20 +20,30 @@ import androidx.room.Query
 import androidx.room.SkipQueryVerification
 import androidx.room.Transaction
 import androidx.room.ext.hasAnnotation
+import androidx.room.ext.isEntityElement
 import androidx.room.ext.toAnnotationBox
 import androidx.room.ext.typeName
 import androidx.room.parser.ParsedQuery
 import androidx.room.parser.QueryType
+import androidx.room.parser.SQLTypeAffinity
 import androidx.room.parser.SqlParser
+import androidx.room.solver.query.result.CloseableIteratorQueryResultBinder
+import androidx.room.solver.query.result.LiveDataQueryResultBinder
 import androidx.room.solver.query.result.PojoRowAdapter
+import androidx.room.solver.query.result.QueryResultBinder
 import androidx.room.verifier.DatabaseVerificaitonErrors
 import androidx.room.verifier.DatabaseVerifier
+import androidx.room.vo.FtsEntity
+import androidx.room.vo.ObservedKey
 import androidx.room.vo.WriteQueryMethod
 import androidx.room.vo.QueryMethod
 import androidx.room.vo.QueryParameter
 import androidx.room.vo.ReadQueryMethod
 import androidx.room.vo.Warning
+import com.google.auto.common.MoreElements
+import com.google.auto.common.MoreTypes
 import javax.lang.model.element.ExecutableElement
+import javax.lang.model.type.ArrayType
 import javax.lang.model.type.DeclaredType
 import javax.lang.model.type.TypeKind
 import javax.lang.model.type.TypeMirror
@@ -137,6 +147,10 @@ class QueryMethodProcessor(
             ProcessorErrors.cannotFindQueryResultAdapter(returnType.toString()))
 
         val inTransaction = executableElement.hasAnnotation(Transaction::class)
+        context.checker.check(
+            !inTransaction || resultBinder !is CloseableIteratorQueryResultBinder,
+            executableElement,
+            ProcessorErrors.TRANSACTION_ON_CLOSEABLE_ITERATOR)
         if (query.type == QueryType.SELECT && !inTransaction) {
             // put a warning if it is has relations and not annotated w/ transaction
             resultBinder.adapter?.rowAdapter?.let { rowAdapter ->
@@ -156,10 +170,83 @@ class QueryMethodProcessor(
             returnType = returnType,
             parameters = parameters,
             inTransaction = inTransaction,
-            queryResultBinder = resultBinder)
+            queryResultBinder = withObservedKey(resultBinder, query, parameters))
+    }
+
+    /**
+     * Passes the observed key of a LiveData query that only reads rows of a single entity
+     * selected by their primary key to its binder. The key must be an INTEGER PRIMARY KEY, which
+     * is the rowid that row level invalidation records.
+     */
+    private fun withObservedKey(
+        resultBinder: QueryResultBinder,
+        query: ParsedQuery,
+        parameters: List<QueryParameter>
+    ): QueryResultBinder {
+        if (resultBinder !is LiveDataQueryResultBinder) {
+            return resultBinder
+        }
+        val rowType = resultBinder.adapter?.rowAdapter?.out
+        if (rowType == null || rowType.kind != TypeKind.DECLARED ||
+                !MoreTypes.asElement(rowType).isEntityElement()) {
+            return resultBinder
+        }
+        val entity = EntityProcessor(
+                context = context,
+                element = MoreElements.asType(MoreTypes.asElement(rowType))
+        ).process()
+        val table = query.tables.singleOrNull()
+        if (entity is FtsEntity || table == null ||
+                !entity.tableName.equals(table.name, ignoreCase = true) ||
+                resultBinder.tableNames.size != 1) {
+            return resultBinder
+        }
+        val keyField = entity.primaryKey.fields.singleOrNull()
+        if (keyField == null || keyField.parent != null ||
+                keyField.affinity != SQLTypeAffinity.INTEGER) {
+            return resultBinder
+        }
+        val parameter = query.keyFilters.filter { filter ->
+            filter.column.equals(keyField.columnName, ignoreCase = true) &&
+                    (filter.table == null || filter.table.equals(table.name, ignoreCase = true) ||
+                            filter.table.equals(table.alias, ignoreCase = true))
+        }.mapNotNull { filter ->
+            parameters.firstOrNull { ":${it.sqlName}" == filter.bindVar }
+        }.firstOrNull { isIntegerKeys(it.type) } ?: return resultBinder
+        return resultBinder.withObservedKey(ObservedKey(table.name, parameter))
+    }
+
+    /**
+     * Returns whether the type is an integer, an array or a collection of integers.
+     */
+    private fun isIntegerKeys(type: TypeMirror): Boolean {
+        if (isIntegerKey(type)) {
+            return true
+        }
+        if (type is ArrayType) {
+            return isIntegerKey(type.componentType)
+        }
+        val typeUtils = context.processingEnv.typeUtils
+        return type.kind == TypeKind.DECLARED &&
+                typeUtils.isAssignable(type, typeUtils.erasure(context.COMMON_TYPES.COLLECTION)) &&
+                MoreTypes.asDeclared(type).typeArguments.singleOrNull()?.let {
+                    isIntegerKey(it)
+                } == true
+    }
+
+    private fun isIntegerKey(type: TypeMirror): Boolean {
+        if (type.kind.isPrimitive) {
+            return type.kind in INTEGER_KINDS
+        }
+        return type.kind == TypeKind.DECLARED &&
+                MoreTypes.asTypeElement(type).qualifiedName.toString() in BOXED_INTEGERS
     }
 
     companion object {
         val PREPARED_TYPES = arrayOf(QueryType.INSERT, QueryType.DELETE, QueryType.UPDATE)
+        private val INTEGER_KINDS = setOf(TypeKind.LONG, TypeKind.INT, TypeKind.SHORT,
+                TypeKind.BYTE)
+        private val BOXED_INTEGERS = setOf("java.lang.Long", "java.lang.Integer",
+                "java.lang.Short", "java.lang.Byte")
     }
 }
@@ -27,6 +27,7 @@ import androidx.room.processor.Context
 import androidx.room.processor.EntityProcessor
 import androidx.room.processor.FieldProcessor
 import androidx.room.processor.PojoProcessor
+import androidx.room.solver.binderprovider.CloseableIteratorQueryResultBinderProvider
 import androidx.room.solver.binderprovider.CursorQueryResultBinderProvider
 import androidx.room.solver.binderprovider.DataSourceFactoryQueryResultBinderProvider
 import androidx.room.solver.binderprovider.DataSourceQueryResultBinderProvider
@@ -164,6 +165,7 @@ class TypeAdapterStore private constructor(
 
     val queryResultBinderProviders = listOf(
             CursorQueryResultBinderProvider(context),
+            CloseableIteratorQueryResultBinderProvider(context),
             LiveDataQueryResultBinderProvider(context),
             GuavaListenableFutureQueryResultBinderProvider(context),
             RxFlowableQueryResultBinderProvider(context),
@@ -17,15 +17,24 @@
 package androidx.room.solver.binderprovider
 
 import androidx.room.ext.PagingTypeNames
+import androidx.room.ext.isEntityElement
+import androidx.room.ext.typeName
 import androidx.room.parser.ParsedQuery
 import androidx.room.processor.Context
+import androidx.room.processor.EntityProcessor
 import androidx.room.processor.ProcessorErrors
 import androidx.room.solver.QueryResultBinderProvider
 import androidx.room.solver.query.result.DataSourceFactoryQueryResultBinder
+import androidx.room.solver.query.result.KeysetDataSourceFactoryQueryResultBinder
+import androidx.room.solver.query.result.KeysetDataSourceQueryResultBinder
 import androidx.room.solver.query.result.ListQueryResultAdapter
 import androidx.room.solver.query.result.PositionalDataSourceQueryResultBinder
 import androidx.room.solver.query.result.QueryResultBinder
+import androidx.room.vo.Field
+import com.google.auto.common.MoreElements
+import com.google.auto.common.MoreTypes
 import javax.lang.model.type.DeclaredType
+import javax.lang.model.type.TypeKind
 import javax.lang.model.type.TypeMirror
 
 class DataSourceFactoryQueryResultBinderProvider(val context: Context) : QueryResultBinderProvider {
@@ -45,6 +54,16 @@ class DataSourceFactoryQueryResultBinderProvider(val context: Context) : QueryRe
 
         val tableNames = ((adapter?.accessedTableNames() ?: emptyList())
                 + query.tables.map { it.name }).toSet()
+        val keyType = declared.typeArguments[0]
+        if (!isPositionalKey(keyType)) {
+            // any key other than Integer is paged by seeking on the entity's primary key
+            val keyField = findKeysetField(typeArg, keyType, query)
+            if (keyField != null) {
+                return KeysetDataSourceFactoryQueryResultBinder(
+                        KeysetDataSourceQueryResultBinder(
+                                adapter, tableNames, keyField, keyType.typeName()))
+            }
+        }
         val countedBinder = PositionalDataSourceQueryResultBinder(adapter, tableNames)
         return DataSourceFactoryQueryResultBinder(countedBinder)
     }
@@ -52,6 +71,74 @@ class DataSourceFactoryQueryResultBinderProvider(val context: Context) : QueryRe
     override fun matches(declared: DeclaredType): Boolean =
             declared.typeArguments.size == 2 && isLivePagedList(declared)
 
+    private fun isPositionalKey(keyType: TypeMirror): Boolean {
+        val integerType = context.processingEnv.elementUtils
+                .getTypeElement(Integer::class.java.canonicalName).asType()
+        return context.processingEnv.typeUtils.isSameType(keyType, integerType)
+    }
+
+    /**
+     * Finds the single column primary key of the entity returned by the query, which is the key
+     * a KeysetDataSource seeks on. Reports an error and returns null if there isn't one matching
+     * the requested key type.
+     */
+    private fun findKeysetField(
+        itemType: TypeMirror,
+        keyType: TypeMirror,
+        query: ParsedQuery
+    ): Field? {
+        if (itemType.kind != TypeKind.DECLARED ||
+                !MoreTypes.asElement(itemType).isEntityElement()) {
+            context.logger.e(ProcessorErrors.PAGING_KEYSET_REQUIRES_ENTITY)
+            return null
+        }
+        val entity = EntityProcessor(
+                context = context,
+                element = MoreElements.asType(MoreTypes.asElement(itemType))
+        ).process()
+        val keyField = entity.primaryKey.fields.singleOrNull()
+        if (keyField == null || keyField.parent != null) {
+            context.logger.e(ProcessorErrors.PAGING_KEYSET_REQUIRES_SINGLE_PRIMARY_KEY)
+            return null
+        }
+        val typeUtils = context.processingEnv.typeUtils
+        val boxedKeyFieldType = if (keyField.type.kind.isPrimitive) {
+            typeUtils.boxedClass(MoreTypes.asPrimitiveType(keyField.type)).asType()
+        } else {
+            keyField.type
+        }
+        if (!typeUtils.isSameType(boxedKeyFieldType, keyType)) {
+            context.logger.e(ProcessorErrors.pagingKeysetKeyTypeMismatch(
+                    keyType.typeName().toString(), keyField.columnName,
+                    boxedKeyFieldType.typeName().toString()))
+            return null
+        }
+        val resultColumns = query.resultInfo?.columns
+        if (resultColumns != null && resultColumns.none { it.name == keyField.columnName }) {
+            context.logger.e(ProcessorErrors.pagingKeysetMissingKeyColumn(keyField.columnName))
+            return null
+        }
+        if (!isOrderedByKey(query, entity.tableName, keyField.columnName)) {
+            context.logger.e(ProcessorErrors.pagingKeysetInvalidOrderBy(keyField.columnName))
+            return null
+        }
+        return keyField
+    }
+
+    /**
+     * The KeysetDataSource always returns rows in ascending key order, so the query may only be
+     * ordered by the key column, ascending, if at all.
+     */
+    private fun isOrderedByKey(query: ParsedQuery, tableName: String, keyColumn: String):
+            Boolean {
+        val term = query.orderingTerms.singleOrNull() ?: return query.orderingTerms.isEmpty()
+        if (term.column != keyColumn || term.descending || term.collated) {
+            return false
+        }
+        return term.table == null || term.table == tableName ||
+                query.tables.any { it.name == tableName && it.alias == term.table }
+    }
+
     private fun isLivePagedList(declared: DeclaredType): Boolean {
         if (dataSourceFactoryTypeMirror == null) {
             return false
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.solver.query.result
+
+import androidx.room.ext.AndroidTypeNames
+import androidx.room.ext.L
+import androidx.room.ext.RoomTypeNames
+import androidx.room.ext.T
+import androidx.room.ext.typeName
+import androidx.room.solver.CodeGenScope
+import com.squareup.javapoet.MethodSpec
+import com.squareup.javapoet.ParameterizedTypeName
+import com.squareup.javapoet.TypeSpec
+import javax.lang.model.element.Modifier
+
+/**
+ * Wraps the cursor in a CursorIterator which converts each row when it is read, instead of
+ * converting all rows up front.
+ */
+class CloseableIteratorQueryResultAdapter(rowAdapter: RowAdapter)
+    : QueryResultAdapter(rowAdapter) {
+    val type = rowAdapter.out
+
+    override fun convert(outVarName: String, cursorVarName: String, scope: CodeGenScope) {
+        scope.builder().apply {
+            // column indices are resolved once, and captured by the iterator
+            rowAdapter?.onCursorReady(cursorVarName, scope)
+            val convertScope = scope.fork()
+            val rowCursorVar = convertScope.getTmpVar("_cursor")
+            val tmpVarName = convertScope.getTmpVar("_item")
+            convertScope.builder().apply {
+                addStatement("final $T $L", type.typeName(), tmpVarName)
+                rowAdapter?.convert(tmpVarName, rowCursorVar, convertScope)
+                addStatement("return $L", tmpVarName)
+            }
+            val iterator = TypeSpec.anonymousClassBuilder("$L", cursorVarName).apply {
+                superclass(ParameterizedTypeName.get(RoomTypeNames.CURSOR_ITERATOR,
+                        type.typeName()))
+                addMethod(MethodSpec.methodBuilder("convert").apply {
+                    addAnnotation(Override::class.java)
+                    addModifiers(Modifier.PROTECTED)
+                    returns(type.typeName())
+                    addParameter(AndroidTypeNames.CURSOR, rowCursorVar)
+                    addCode(convertScope.builder().build())
+                }.build())
+            }.build()
+            addStatement("final $T $L = $L",
+                    ParameterizedTypeName.get(RoomTypeNames.CLOSEABLE_ITERATOR, type.typeName()),
+                    outVarName, iterator)
+        }
+    }
+
+    // rows are read lazily from the original cursor
+    override fun shouldCopyCursor() = false
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.solver.query.result
+
+import androidx.room.ext.AndroidTypeNames
+import androidx.room.ext.L
+import androidx.room.ext.N
+import androidx.room.ext.T
+import androidx.room.solver.CodeGenScope
+import com.squareup.javapoet.FieldSpec
+
+/**
+ * Runs the query and returns an iterator over the open cursor. The cursor is closed by the
+ * iterator, or here if the iterator cannot be created.
+ *
+ * Rows are read after the method returns, so the processor rejects @Transaction on these methods.
+ */
+class CloseableIteratorQueryResultBinder(adapter: CloseableIteratorQueryResultAdapter?)
+    : QueryResultBinder(adapter) {
+    override fun convertAndReturn(
+        roomSQLiteQueryVar: String,
+        canReleaseQuery: Boolean,
+        dbField: FieldSpec,
+        inTransaction: Boolean,
+        scope: CodeGenScope
+    ) {
+        scope.builder().apply {
+            val outVar = scope.getTmpVar("_result")
+            val cursorVar = scope.getTmpVar("_cursor")
+            addStatement("final $T $L = $N.query($L)", AndroidTypeNames.CURSOR, cursorVar,
+                    dbField, roomSQLiteQueryVar)
+            if (canReleaseQuery) {
+                // the cursor keeps its own copy of the bind arguments
+                addStatement("$L.release()", roomSQLiteQueryVar)
+            }
+            beginControlFlow("try").apply {
+                adapter?.convert(outVar, cursorVar, scope)
+                addStatement("return $L", outVar)
+            }
+            nextControlFlow("catch ($T e)", RuntimeException::class.java).apply {
+                addStatement("$L.close()", cursorVar)
+                addStatement("throw e")
+            }
+            endControlFlow()
+        }
+    }
+}
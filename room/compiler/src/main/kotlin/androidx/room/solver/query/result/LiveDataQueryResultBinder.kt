@@ -25,23 +25,41 @@ import androidx.room.ext.T
 import androidx.room.ext.arrayTypeName
 import androidx.room.ext.typeName
 import androidx.room.solver.CodeGenScope
+import androidx.room.vo.ObservedKey
+import androidx.room.vo.QueryParameter
+import com.squareup.javapoet.ArrayTypeName
 import com.squareup.javapoet.FieldSpec
 import com.squareup.javapoet.MethodSpec
 import com.squareup.javapoet.ParameterSpec
 import com.squareup.javapoet.ParameterizedTypeName
 import com.squareup.javapoet.TypeName
 import com.squareup.javapoet.TypeSpec
+import java.util.Arrays
 import javax.lang.model.element.Modifier
+import javax.lang.model.type.ArrayType
+import javax.lang.model.type.DeclaredType
+import javax.lang.model.type.TypeKind
 import javax.lang.model.type.TypeMirror
 
 /**
  * Converts the query into a LiveData and returns it. No query is run until necessary.
+ *
+ * If the query only reads the rows of a single entity selected by an [observedKey], the LiveData
+ * is created with the selected keys, so that it is not computed again for changes to other rows
+ * when row level invalidation is enabled.
  */
 class LiveDataQueryResultBinder(
     val typeArg: TypeMirror,
     val tableNames: Set<String>,
-    adapter: QueryResultAdapter?
+    adapter: QueryResultAdapter?,
+    val observedKey: ObservedKey? = null
 ) : BaseObservableQueryResultBinder(adapter) {
+    fun withObservedKey(observedKey: ObservedKey) = LiveDataQueryResultBinder(
+            typeArg = typeArg,
+            tableNames = tableNames,
+            adapter = adapter,
+            observedKey = observedKey)
+
     @Suppress("JoinDeclarationAndAssignment")
     override fun convertAndReturn(
         roomSQLiteQueryVar: String,
@@ -66,10 +84,71 @@ class LiveDataQueryResultBinder(
 
         scope.builder().apply {
             val tableNamesList = tableNames.joinToString(",") { "\"$it\"" }
-            addStatement(
-                "return $N.getInvalidationTracker().createLiveData(new $T{$L}, $L)",
-                dbField, String::class.arrayTypeName(), tableNamesList, callableImpl
-            )
+            if (observedKey == null) {
+                addStatement(
+                    "return $N.getInvalidationTracker().createLiveData(new $T{$L}, $L)",
+                    dbField, String::class.arrayTypeName(), tableNamesList, callableImpl
+                )
+            } else {
+                val keyRowIdsVar = scope.getTmpVar("_keyRowIds")
+                addKeyRowIds(keyRowIdsVar, observedKey.parameter, scope)
+                addStatement(
+                    "return $N.getInvalidationTracker().createLiveData(new $T{$L}, $L, $S, $L)",
+                    dbField, String::class.arrayTypeName(), tableNamesList, callableImpl,
+                    observedKey.tableName, keyRowIdsVar
+                )
+            }
+        }
+    }
+
+    /**
+     * Copies the keys held by the given parameter, which is an integer, an array or a collection
+     * of integers, into a new `long[]`. A null key selects no row and is left out.
+     */
+    private fun addKeyRowIds(outVar: String, parameter: QueryParameter, scope: CodeGenScope) {
+        val type = parameter.type
+        val longArray = ArrayTypeName.of(TypeName.LONG)
+        scope.builder().apply {
+            if (type.kind.isPrimitive) {
+                addStatement("final $T $L = new $T{$L}", longArray, outVar, longArray,
+                    parameter.name)
+            } else if (type is ArrayType && type.componentType.kind == TypeKind.LONG) {
+                addStatement("final $T $L = $L", longArray, outVar, parameter.name)
+            } else if (type is ArrayType || (type as DeclaredType).typeArguments.isNotEmpty()) {
+                val elementType = if (type is ArrayType) {
+                    type.componentType
+                } else {
+                    (type as DeclaredType).typeArguments.first()
+                }
+                val size = if (type is ArrayType) "length" else "size()"
+                // null keys are skipped, so boxed keys are trimmed to the keys actually copied
+                val boxed = !elementType.kind.isPrimitive
+                val keysVar = if (boxed) scope.getTmpVar("_keys") else outVar
+                val countVar = scope.getTmpVar("_keyCount")
+                val keyVar = scope.getTmpVar("_key")
+                addStatement("final $T $L = new $T[$L.$L]", longArray, keysVar, TypeName.LONG,
+                    parameter.name, size)
+                addStatement("int $L = 0", countVar)
+                beginControlFlow("for ($T $L : $L)", elementType.typeName(), keyVar,
+                    parameter.name).apply {
+                    if (boxed) {
+                        beginControlFlow("if ($L != null)", keyVar).apply {
+                            addStatement("$L[$L++] = $L", keysVar, countVar, keyVar)
+                        }
+                        endControlFlow()
+                    } else {
+                        addStatement("$L[$L++] = $L", keysVar, countVar, keyVar)
+                    }
+                }
+                endControlFlow()
+                if (boxed) {
+                    addStatement("final $T $L = $T.copyOf($L, $L)", longArray, outVar,
+                        Arrays::class.java, keysVar, countVar)
+                }
+            } else {
+                addStatement("final $T $L = $L == null ? new $T[0] : new $T{$L}", longArray,
+                    outVar, parameter.name, TypeName.LONG, longArray, parameter.name)
+            }
         }
     }
 
@@ -20,6 +20,8 @@ import androidx.room.ext.AndroidTypeNames
 import androidx.room.ext.CommonTypeNames
 import androidx.room.ext.L
 import androidx.room.ext.N
+import androidx.room.ext.RoomTypeNames
+import androidx.room.ext.RunnableTypeSpecBuilder
 import androidx.room.ext.T
 import androidx.room.ext.typeName
 import androidx.room.parser.ParsedQuery
@@ -33,6 +35,7 @@ import androidx.room.solver.query.parameter.QueryParameterAdapter
 import androidx.room.solver.query.result.RowAdapter
 import androidx.room.solver.query.result.SingleColumnRowAdapter
 import androidx.room.verifier.DatabaseVerificaitonErrors
+import androidx.room.writer.DaoWriter
 import androidx.room.writer.QueryWriter
 import androidx.room.writer.RelationCollectorMethodWriter
 import com.google.auto.common.MoreTypes
@@ -41,6 +44,7 @@ import com.squareup.javapoet.ClassName
 import com.squareup.javapoet.CodeBlock
 import com.squareup.javapoet.ParameterizedTypeName
 import com.squareup.javapoet.TypeName
+import com.squareup.javapoet.TypeSpec
 import stripNonJava
 import java.util.ArrayList
 import java.util.HashSet
@@ -128,6 +132,14 @@ data class RelationCollector(
         }
     }
 
+    private fun createFetchRunnable(scope: CodeGenScope): TypeSpec {
+        val method = scope.writer
+                .getOrCreateMethod(RelationCollectorMethodWriter(this))
+        return RunnableTypeSpecBuilder {
+            addStatement("$N($L)", method, varName)
+        }.build()
+    }
+
     fun readKey(
         cursorVarName: String,
         indexVar: String?,
@@ -200,6 +212,20 @@ data class RelationCollector(
     }
 
     companion object {
+        /**
+         * Fetches the relations of all collectors. Each collector fills its own map so when there
+         * is more than one, they are fetched concurrently if the database allows it.
+         */
+        fun writeCollectionCode(collectors: List<RelationCollector>, scope: CodeGenScope) {
+            if (collectors.size == 1) {
+                collectors.first().writeCollectionCode(scope)
+                return
+            }
+            val fetches = collectors.map { it.createFetchRunnable(scope) }
+            scope.builder().addStatement(
+                    "$T.fetchConcurrently($N, ${fetches.joinToString(", ") { "\$L" }})",
+                    RoomTypeNames.RELATION_UTIL, DaoWriter.dbField, *fetches.toTypedArray())
+        }
 
         private val LONG_SPARSE_ARRAY_KEY_QUERY_PARAM_ADAPTER =
                 LongSparseArrayKeyQueryParameterAdapter()
@@ -91,6 +91,12 @@ class EntityInsertionAdapterWriter(val entity: Entity, val onConflict: String) {
                 )
                 addCode(bindScope.builder().build())
             }.build())
+            addMethod(MethodSpec.methodBuilder("getBindArgCountPerRow").apply {
+                addAnnotation(Override::class.java)
+                returns(TypeName.INT)
+                addModifiers(PUBLIC)
+                addStatement("return $L", entity.fields.size)
+            }.build())
         }.build()
     }
 }
@@ -20,11 +20,13 @@ import androidx.room.ext.AndroidTypeNames
 import androidx.room.ext.L
 import androidx.room.ext.N
 import androidx.room.ext.RoomTypeNames
+import androidx.room.ext.RunnableTypeSpecBuilder
 import androidx.room.ext.S
 import androidx.room.ext.T
 import androidx.room.solver.CodeGenScope
 import androidx.room.solver.query.result.PojoRowAdapter
 import androidx.room.vo.RelationCollector
+import com.squareup.javapoet.ArrayTypeName
 import com.squareup.javapoet.ClassName
 import com.squareup.javapoet.MethodSpec
 import com.squareup.javapoet.ParameterSpec
@@ -83,36 +85,41 @@ class RelationCollectorMethodWriter(private val collector: RelationCollector)
             addStatement("// check if the size is too big, if so divide")
             beginControlFlow("if($N.size() > $T.MAX_BIND_PARAMETER_CNT)",
                     param, RoomTypeNames.ROOM_DB).apply {
-                // divide it into chunks
-                val tmpMapVar = scope.getTmpVar("_tmpInnerMap")
-                addStatement("$T $L = new $T($L.MAX_BIND_PARAMETER_CNT)",
-                        collector.mapTypeName, tmpMapVar,
-                        collector.mapTypeName, RoomTypeNames.ROOM_DB)
-                val mapIndexVar = scope.getTmpVar("_mapIndex")
-                val tmpIndexVar = scope.getTmpVar("_tmpIndex")
+                // divide it into chunks and fetch them concurrently if the database allows it
                 val limitVar = scope.getTmpVar("_limit")
-                addStatement("$T $L = 0", TypeName.INT, mapIndexVar)
-                addStatement("$T $L = 0", TypeName.INT, tmpIndexVar)
+                val fetchesVar = scope.getTmpVar("_fetches")
+                val mapIndexVar = scope.getTmpVar("_mapIndex")
+                val fetchIndexVar = scope.getTmpVar("_fetchIndex")
                 addStatement("final $T $L = $N.size()", TypeName.INT, limitVar, param)
+                addStatement("final $T $L = new $T[($L + $T.MAX_BIND_PARAMETER_CNT - 1) / $T" +
+                        ".MAX_BIND_PARAMETER_CNT]",
+                        ArrayTypeName.of(Runnable::class.java), fetchesVar,
+                        Runnable::class.java, limitVar, RoomTypeNames.ROOM_DB,
+                        RoomTypeNames.ROOM_DB)
+                addStatement("$T $L = 0", TypeName.INT, mapIndexVar)
+                addStatement("$T $L = 0", TypeName.INT, fetchIndexVar)
                 beginControlFlow("while($L < $L)", mapIndexVar, limitVar).apply {
-                    addStatement("$L.put($N.keyAt($L), $N.valueAt($L))",
-                            tmpMapVar, param, mapIndexVar, param, mapIndexVar)
-                    addStatement("$L++", mapIndexVar)
-                    addStatement("$L++", tmpIndexVar)
-                    beginControlFlow("if($L == $T.MAX_BIND_PARAMETER_CNT)",
-                            tmpIndexVar, RoomTypeNames.ROOM_DB).apply {
-                        // recursively load that batch
-                        addStatement("$L($L)", methodName, tmpMapVar)
-                        // clear nukes the backing data hence we create a new one
-                        addStatement("$L = new $T($T.MAX_BIND_PARAMETER_CNT)",
-                                tmpMapVar, collector.mapTypeName, RoomTypeNames.ROOM_DB)
-                        addStatement("$L = 0", tmpIndexVar)
+                    val tmpMapVar = scope.getTmpVar("_tmpInnerMap")
+                    val chunkEndVar = scope.getTmpVar("_chunkEnd")
+                    addStatement("final $T $L = new $T($T.MAX_BIND_PARAMETER_CNT)",
+                            collector.mapTypeName, tmpMapVar,
+                            collector.mapTypeName, RoomTypeNames.ROOM_DB)
+                    addStatement("final $T $L = $T.min($L + $T.MAX_BIND_PARAMETER_CNT, $L)",
+                            TypeName.INT, chunkEndVar, Math::class.java, mapIndexVar,
+                            RoomTypeNames.ROOM_DB, limitVar)
+                    beginControlFlow("while($L < $L)", mapIndexVar, chunkEndVar).apply {
+                        addStatement("$L.put($N.keyAt($L), $N.valueAt($L))",
+                                tmpMapVar, param, mapIndexVar, param, mapIndexVar)
+                        addStatement("$L++", mapIndexVar)
                     }.endControlFlow()
+                    // chunks have distinct keys so they add to distinct collections
+                    val fetch = RunnableTypeSpecBuilder {
+                        addStatement("$L($L)", methodName, tmpMapVar)
+                    }.build()
+                    addStatement("$L[$L++] = $L", fetchesVar, fetchIndexVar, fetch)
                 }.endControlFlow()
-                beginControlFlow("if($L > 0)", tmpIndexVar).apply {
-                    // load the last batch
-                    addStatement("$L($L)", methodName, tmpMapVar)
-                }.endControlFlow()
+                addStatement("$T.fetchConcurrently($N, $L)", RoomTypeNames.RELATION_UTIL,
+                        DaoWriter.dbField, fetchesVar)
                 addStatement("return")
             }.endControlFlow()
             collector.queryWriter.prepareReadAndBind(sqlQueryVar, stmtVar, scope)
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package foo.bar;
+import androidx.paging.DataSource;
+import androidx.room.*;
+@Dao
+abstract class PagingDao {
+    @Entity
+    static class Message {
+        @PrimaryKey
+        public long id;
+        public String text;
+    }
+
+    @Query("SELECT * FROM Message WHERE text LIKE :text ORDER BY id")
+    abstract public DataSource.Factory<Long, Message> loadByText(String text);
+
+    @Transaction
+    @Query("SELECT * FROM Message")
+    abstract public DataSource.Factory<Long, Message> loadAllInTransaction();
+}
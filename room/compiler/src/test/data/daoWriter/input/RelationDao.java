@@ -0,0 +1,48 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package foo.bar;
+import androidx.room.*;
+import java.util.List;
+import java.util.Set;
+@Dao
+abstract class RelationDao {
+    static class BookWithOwners {
+        @Embedded
+        public Book book;
+        @Relation(parentColumn = "uid", entityColumn = "uid")
+        public List<User> owners;
+        @Relation(parentColumn = "uid", entityColumn = "uid", entity = User.class,
+                projection = {"name"})
+        public Set<String> ownerNames;
+    }
+
+    static class UserWithBooks {
+        @Embedded
+        public User user;
+        @Relation(parentColumn = "uid", entityColumn = "uid")
+        public List<Book> books;
+        @Relation(parentColumn = "uid", entityColumn = "uid", entity = Book.class,
+                projection = {"bookId"})
+        public List<Integer> bookIds;
+        @Relation(parentColumn = "uid", entityColumn = "uid", entity = Book.class)
+        public List<BookWithOwners> booksWithOwners;
+    }
+
+    @Transaction
+    @Query("SELECT * FROM User")
+    abstract public List<UserWithBooks> loadAll();
+}
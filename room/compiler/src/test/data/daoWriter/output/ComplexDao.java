@@ -274,6 +274,7 @@ public final class ComplexDao_Impl extends ComplexDao {
         final RoomSQLiteQuery _statement = RoomSQLiteQuery.acquire(_sql, 1);
         int _argIndex = 1;
         _statement.bindLong(_argIndex, id);
+        final long[] _keyRowIds = new long[]{id};
         return __db.getInvalidationTracker().createLiveData(new String[]{"user"}, new Callable<User>() {
             @Override
             public User call() throws Exception {
@@ -305,7 +306,7 @@ public final class ComplexDao_Impl extends ComplexDao {
             protected void finalize() {
                 _statement.release();
             }
-        });
+        }, "user", _keyRowIds);
     }
 
     @Override
@@ -323,6 +324,11 @@ public final class ComplexDao_Impl extends ComplexDao {
             _statement.bindLong(_argIndex, _item);
             _argIndex ++;
         }
+        final long[] _keyRowIds = new long[ids.length];
+        int _keyCount = 0;
+        for (int _key : ids) {
+            _keyRowIds[_keyCount++] = _key;
+        }
         return __db.getInvalidationTracker().createLiveData(new String[]{"user"}, new Callable<List<User>>() {
             @Override
             public List<User> call() throws Exception {
@@ -354,7 +360,7 @@ public final class ComplexDao_Impl extends ComplexDao {
             protected void finalize() {
                 _statement.release();
             }
-        });
+        }, "user", _keyRowIds);
     }
 
     @Override
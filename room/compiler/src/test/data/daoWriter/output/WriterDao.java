@@ -61,6 +61,11 @@ public final class WriterDao_Impl implements WriterDao {
                 }
                 stmt.bindLong(4, value.age);
             }
+
+            @Override
+            public int getBindArgCountPerRow() {
+                return 4;
+            }
         };
         this.__insertionAdapterOfUser_1 = new EntityInsertionAdapter<User>(__db) {
             @Override
@@ -84,6 +89,11 @@ public final class WriterDao_Impl implements WriterDao {
                 }
                 stmt.bindLong(4, value.age);
             }
+
+            @Override
+            public int getBindArgCountPerRow() {
+                return 4;
+            }
         };
         this.__insertionAdapterOfBook = new EntityInsertionAdapter<Book>(__db) {
             @Override
@@ -96,6 +106,11 @@ public final class WriterDao_Impl implements WriterDao {
                 stmt.bindLong(1, value.bookId);
                 stmt.bindLong(2, value.uid);
             }
+
+            @Override
+            public int getBindArgCountPerRow() {
+                return 2;
+            }
         };
     }
 
@@ -198,6 +198,47 @@ class SqlParserTest {
                 Section.bindVar(":lastName"))
     }
 
+    @Test
+    fun keyFilters() {
+        assertKeyFilters("SELECT * FROM user WHERE uid = :id",
+                KeyFilter(null, "uid", ":id"))
+        assertKeyFilters("SELECT * FROM user u WHERE :id == u.uid AND name LIKE :name",
+                KeyFilter("u", "uid", ":id"))
+        assertKeyFilters("SELECT * FROM user WHERE (`uid` IN (:ids) AND age > 3) AND team = :t",
+                KeyFilter(null, "uid", ":ids"),
+                KeyFilter(null, "team", ":t"))
+        assertKeyFilters("SELECT * FROM user WHERE uid = :id ORDER BY name LIMIT 1",
+                KeyFilter(null, "uid", ":id"))
+        assertKeyFilters("SELECT COUNT(*) FROM user")
+        // terms that do not select rows by a bound value
+        assertKeyFilters("SELECT * FROM user WHERE uid = :a OR uid = :b")
+        assertKeyFilters("SELECT * FROM user WHERE uid NOT IN (:ids)")
+        assertKeyFilters("SELECT * FROM user WHERE uid IN (:a, :b)")
+        assertKeyFilters("SELECT * FROM user WHERE uid = :id + 1")
+    }
+
+    @Test
+    fun keyFiltersOnlyForSingleTableSelects() {
+        assertNoKeyFilters("SELECT * FROM user, pet WHERE uid = :id")
+        assertNoKeyFilters("SELECT * FROM user JOIN pet ON uid = userId WHERE uid = :id")
+        assertNoKeyFilters("SELECT * FROM user WHERE uid = :id UNION SELECT * FROM user")
+        assertNoKeyFilters("WITH u AS (SELECT * FROM user) SELECT * FROM u WHERE uid = :id")
+        assertNoKeyFilters("SELECT * FROM user WHERE uid = :id AND age > " +
+                "(SELECT AVG(age) FROM user)")
+        assertNoKeyFilters("SELECT *, (SELECT COUNT(*) FROM user) FROM user WHERE uid = :id")
+        assertNoKeyFilters("DELETE FROM user WHERE uid = :id")
+    }
+
+    fun assertKeyFilters(query: String, vararg expected: KeyFilter) {
+        assertThat(SqlParser.parse(query).keyFilters, `is`(expected.toList()))
+    }
+
+    fun assertNoKeyFilters(query: String) {
+        val parsed = SqlParser.parse(query)
+        assertThat(parsed.errors, `is`(emptyList()))
+        assertThat(parsed.keyFilters, `is`(emptyList()))
+    }
+
     fun assertVariables(query: String, vararg expected: String) {
         assertThat((SqlParser.parse(query)).inputs.map { it.text }, `is`(expected.toList()))
     }
@@ -27,12 +27,16 @@ import androidx.room.Transaction
 import androidx.room.ext.CommonTypeNames
 import androidx.room.ext.LifecyclesTypeNames
 import androidx.room.ext.PagingTypeNames
+import androidx.room.ext.RoomTypeNames
 import androidx.room.ext.hasAnnotation
 import androidx.room.ext.typeName
 import androidx.room.parser.QueryType
 import androidx.room.parser.Table
 import androidx.room.processor.ProcessorErrors.cannotFindQueryResultAdapter
+import androidx.room.solver.query.result.CloseableIteratorQueryResultAdapter
+import androidx.room.solver.query.result.CloseableIteratorQueryResultBinder
 import androidx.room.solver.query.result.DataSourceFactoryQueryResultBinder
+import androidx.room.solver.query.result.KeysetDataSourceFactoryQueryResultBinder
 import androidx.room.solver.query.result.ListQueryResultAdapter
 import androidx.room.solver.query.result.LiveDataQueryResultBinder
 import androidx.room.solver.query.result.PojoRowAdapter
@@ -85,6 +89,14 @@ class QueryMethodProcessorTest(val enableVerification: Boolean) {
                 abstract class MyClass {
                 """
         const val DAO_SUFFIX = "}"
+        const val MESSAGE_ENTITY = """
+                @Entity
+                static class Message {
+                    @PrimaryKey
+                    public long id;
+                    public String text;
+                }
+                """
         val POJO: ClassName = ClassName.get("foo.bar", "MyClass.Pojo")
         @Parameterized.Parameters(name = "enableDbVerification={0}")
         @JvmStatic
@@ -490,6 +502,106 @@ class QueryMethodProcessorTest(val enableVerification: Boolean) {
         }.compilesWithoutError()
     }
 
+    @Test
+    fun testLiveDataQuery_observedKey() {
+        listOf("long id" to "select * from Message where id = :id",
+                "Long id" to "select * from Message m where m.id == :id and text like '%a'",
+                "long[] id" to "select * from Message where id in (:id) order by text",
+                "java.util.List<Integer> id" to "select * from Message where id in (:id)")
+                .forEach { (parameter, query) ->
+            singleQueryMethod<ReadQueryMethod>(
+                    MESSAGE_ENTITY,
+                    """
+                    @Query("$query")
+                    abstract ${LifecyclesTypeNames.LIVE_DATA}<java.util.List<Message>>
+                    messagesLiveData($parameter);
+                    """
+            ) { parsedQuery, _ ->
+                val binder = parsedQuery.queryResultBinder as LiveDataQueryResultBinder
+                assertThat(binder.observedKey?.tableName, `is`("Message"))
+                assertThat(binder.observedKey?.parameter?.name, `is`("id"))
+            }.compilesWithoutError()
+        }
+    }
+
+    @Test
+    fun testLiveDataQuery_noObservedKey() {
+        listOf("String text" to "select * from Message where text = :text",
+                "long id" to "select * from Message where id = :id or text is null",
+                "long id" to "select * from Message where id > :id",
+                "String id" to "select * from Message where id = :id")
+                .forEach { (parameter, query) ->
+            singleQueryMethod<ReadQueryMethod>(
+                    MESSAGE_ENTITY,
+                    """
+                    @Query("$query")
+                    abstract ${LifecyclesTypeNames.LIVE_DATA}<java.util.List<Message>>
+                    messagesLiveData($parameter);
+                    """
+            ) { parsedQuery, _ ->
+                val binder = parsedQuery.queryResultBinder as LiveDataQueryResultBinder
+                assertThat(binder.observedKey, nullValue())
+            }.compilesWithoutError()
+        }
+        // only queries returning rows of the entity are observed by key
+        singleQueryMethod<ReadQueryMethod>(
+                MESSAGE_ENTITY,
+                """
+                @Query("select text from Message where id = :id")
+                abstract ${LifecyclesTypeNames.LIVE_DATA}<String> textLiveData(long id);
+                """
+        ) { parsedQuery, _ ->
+            val binder = parsedQuery.queryResultBinder as LiveDataQueryResultBinder
+            assertThat(binder.observedKey, nullValue())
+        }.compilesWithoutError()
+    }
+
+    @Test
+    fun testCloseableIteratorQuery() {
+        singleQueryMethod<ReadQueryMethod>(
+                """
+                @Query("select name from user")
+                abstract ${RoomTypeNames.CLOSEABLE_ITERATOR}<String> iterateNames();
+                """
+        ) { parsedQuery, _ ->
+            assertThat(parsedQuery.returnType.typeName(),
+                    `is`(ParameterizedTypeName.get(RoomTypeNames.CLOSEABLE_ITERATOR,
+                            String::class.typeName()) as TypeName))
+            assertThat(parsedQuery.queryResultBinder,
+                    instanceOf(CloseableIteratorQueryResultBinder::class.java))
+            assertThat(parsedQuery.queryResultBinder.adapter,
+                    instanceOf(CloseableIteratorQueryResultAdapter::class.java))
+        }.compilesWithoutError()
+    }
+
+    @Test
+    fun testCloseableIteratorQuery_relation() {
+        singleQueryMethod<ReadQueryMethod>(
+                """
+                static class Merged extends User {
+                   @Relation(parentColumn = "name", entityColumn = "lastName",
+                             entity = User.class)
+                   java.util.List<User> users;
+                }
+                @Query("select * from user")
+                abstract ${RoomTypeNames.CLOSEABLE_ITERATOR}<Merged> iterateUsers();
+                """
+        ) { _, _ ->
+        }.failsToCompile().withErrorContaining(ProcessorErrors.CLOSEABLE_ITERATOR_WITH_RELATION)
+    }
+
+    @Test
+    fun testCloseableIteratorQuery_transaction() {
+        singleQueryMethod<ReadQueryMethod>(
+                """
+                @Transaction
+                @Query("select * from user")
+                abstract ${RoomTypeNames.CLOSEABLE_ITERATOR}<User> iterateUsers();
+                """
+        ) { _, _ ->
+        }.failsToCompile().withErrorContaining(ProcessorErrors.TRANSACTION_ON_CLOSEABLE_ITERATOR)
+    }
+
     @Test
     fun testBadReturnForDeleteQuery() {
         singleQueryMethod<WriteQueryMethod>(
@@ -558,6 +670,78 @@ class QueryMethodProcessorTest(val enableVerification: Boolean) {
         }.compilesWithoutError()
     }
 
+    @Test
+    fun testKeysetDataSourceFactoryQuery_keyTypeMismatch() {
+        singleQueryMethod<ReadQueryMethod>(
+                """
+                @Query("select * from user")
+                abstract ${PagingTypeNames.DATA_SOURCE_FACTORY}<Long, User>
+                userDataSourceFactory();
+                """
+        ) { _, _ ->
+        }.failsToCompile().withErrorContaining(
+                ProcessorErrors.pagingKeysetKeyTypeMismatch("java.lang.Long", "uid",
+                        "java.lang.Integer"))
+    }
+
+    @Test
+    fun testKeysetDataSourceFactoryQuery_notAnEntity() {
+        singleQueryMethod<ReadQueryMethod>(
+                """
+                @Query("select name from user")
+                abstract ${PagingTypeNames.DATA_SOURCE_FACTORY}<String, String>
+                nameDataSourceFactory();
+                """
+        ) { _, _ ->
+        }.failsToCompile().withErrorContaining(ProcessorErrors.PAGING_KEYSET_REQUIRES_ENTITY)
+    }
+
+    @Test
+    fun testKeysetDataSourceFactoryQuery() {
+        listOf("select * from Message where text like :text",
+                "select * from Message where text like :text order by id",
+                "select * from Message where text like :text order by id asc",
+                "select * from Message where text like :text order by `id`",
+                "select * from Message where text like :text order by Message.id",
+                "select * from Message m where text like :text order by m.id").forEach { query ->
+            singleQueryMethod<ReadQueryMethod>(
+                    MESSAGE_ENTITY,
+                    """
+                    @Query("$query")
+                    abstract ${PagingTypeNames.DATA_SOURCE_FACTORY}<Long, Message>
+                    messageDataSourceFactory(String text);
+                    """
+            ) { parsedQuery, _ ->
+                assertThat(parsedQuery.queryResultBinder,
+                        instanceOf(KeysetDataSourceFactoryQueryResultBinder::class.java))
+                val keysetBinder =
+                        (parsedQuery.queryResultBinder as KeysetDataSourceFactoryQueryResultBinder)
+                                .keysetDataSourceQueryResultBinder
+                assertThat(keysetBinder.keyField.columnName, `is`("id"))
+                assertThat(keysetBinder.keyTypeName, `is`(TypeName.LONG.box()))
+                assertEquals(setOf("Message"), keysetBinder.tableNames)
+            }.compilesWithoutError()
+        }
+    }
+
+    @Test
+    fun testKeysetDataSourceFactoryQuery_invalidOrderBy() {
+        listOf("order by text", "order by id desc", "order by id, text",
+                "order by id collate nocase", "order by -id").forEach {
+            orderBy ->
+            singleQueryMethod<ReadQueryMethod>(
+                    MESSAGE_ENTITY,
+                    """
+                    @Query("select * from Message $orderBy")
+                    abstract ${PagingTypeNames.DATA_SOURCE_FACTORY}<Long, Message>
+                    messageDataSourceFactory();
+                    """
+            ) { _, _ ->
+            }.failsToCompile().withErrorContaining(
+                    ProcessorErrors.pagingKeysetInvalidOrderBy("id"))
+        }
+    }
+
     @Test
     fun query_detectTransaction_select() {
         singleQueryMethod<ReadQueryMethod>(
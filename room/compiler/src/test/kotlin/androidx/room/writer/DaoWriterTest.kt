@@ -23,10 +23,14 @@ import androidx.room.testing.TestProcessor
 import com.google.auto.common.MoreElements
 import com.google.auto.common.MoreTypes
 import com.google.common.truth.Truth
+import com.google.testing.compile.Compilation
 import com.google.testing.compile.CompileTester
+import com.google.testing.compile.Compiler.javac
 import com.google.testing.compile.JavaSourcesSubjectFactory
 import createVerifierFromEntitiesAndViews
 import loadJavaCode
+import org.hamcrest.CoreMatchers.`is`
+import org.hamcrest.MatcherAssert.assertThat
 import org.junit.Test
 import org.junit.runner.RunWith
 import org.junit.runners.JUnit4
@@ -72,38 +76,71 @@ class DaoWriterTest {
         )
     }
 
+    @Test
+    fun keysetPagingDao() {
+        // the generated KeysetDataSource subclasses must compile against the runtime
+        singleDao(
+                loadJavaCode("daoWriter/input/PagingDao.java", "foo.bar.PagingDao")
+        ).compilesWithoutError()
+    }
+
+    @Test
+    fun relationDao() {
+        val compilation = javac()
+                .withProcessors(daoProcessor())
+                .compile(daoSources(
+                        loadJavaCode("daoWriter/input/RelationDao.java", "foo.bar.RelationDao")))
+        assertThat(compilation.status(), `is`(Compilation.Status.SUCCESS))
+        val impl = compilation.generatedSourceFiles()
+                .first { it.name.endsWith("RelationDao_Impl.java") }
+                .getCharContent(true).toString()
+        // the relations of a pojo, nested ones included, are fetched concurrently
+        Truth.assertThat(impl).contains("RelationUtil.fetchConcurrently(__db, new Runnable()")
+        // and so are the chunks of a key set larger than the bind parameter limit
+        Truth.assertThat(impl).contains("RelationUtil.fetchConcurrently(__db, _fetches)")
+        Truth.assertThat(impl).contains("RoomDatabase.MAX_BIND_PARAMETER_CNT")
+    }
+
     private fun singleDao(vararg jfo: JavaFileObject): CompileTester {
         return Truth.assertAbout(JavaSourcesSubjectFactory.javaSources())
-                .that(jfo.toList() + COMMON.USER + COMMON.MULTI_PKEY_ENTITY + COMMON.BOOK +
-                        COMMON.LIVE_DATA + COMMON.COMPUTABLE_LIVE_DATA + COMMON.SINGLE +
-                        COMMON.MAYBE + COMMON.COMPLETABLE + COMMON.USER_SUMMARY + COMMON.RX2_ROOM)
-                .processedWith(TestProcessor.builder()
-                        .forAnnotations(androidx.room.Dao::class)
-                        .nextRunHandler { invocation ->
-                            val dao = invocation.roundEnv
-                                    .getElementsAnnotatedWith(
-                                            androidx.room.Dao::class.java)
-                                    .first()
-                            val db = invocation.roundEnv
-                                    .getElementsAnnotatedWith(
-                                            androidx.room.Database::class.java)
-                                    .firstOrNull()
-                            val dbType = MoreTypes.asDeclared(if (db != null) {
-                                db.asType()
-                            } else {
-                                invocation.context.processingEnv.elementUtils
-                                        .getTypeElement(RoomTypeNames.ROOM_DB.toString()).asType()
-                            })
-                            val parser = DaoProcessor(
-                                    baseContext = invocation.context,
-                                    element = MoreElements.asType(dao),
-                                    dbType = dbType,
-                                    dbVerifier = createVerifierFromEntitiesAndViews(invocation))
-                            val parsedDao = parser.process()
-                            DaoWriter(parsedDao, invocation.processingEnv)
-                                    .write(invocation.processingEnv)
-                            true
-                        }
-                        .build())
+                .that(daoSources(*jfo))
+                .processedWith(daoProcessor())
+    }
+
+    private fun daoSources(vararg jfo: JavaFileObject): List<JavaFileObject> {
+        return jfo.toList() + COMMON.USER + COMMON.MULTI_PKEY_ENTITY + COMMON.BOOK +
+                COMMON.LIVE_DATA + COMMON.COMPUTABLE_LIVE_DATA + COMMON.SINGLE +
+                COMMON.MAYBE + COMMON.COMPLETABLE + COMMON.USER_SUMMARY + COMMON.RX2_ROOM
+    }
+
+    private fun daoProcessor(): TestProcessor {
+        return TestProcessor.builder()
+                .forAnnotations(androidx.room.Dao::class)
+                .nextRunHandler { invocation ->
+                    val dao = invocation.roundEnv
+                            .getElementsAnnotatedWith(
+                                    androidx.room.Dao::class.java)
+                            .first()
+                    val db = invocation.roundEnv
+                            .getElementsAnnotatedWith(
+                                    androidx.room.Database::class.java)
+                            .firstOrNull()
+                    val dbType = MoreTypes.asDeclared(if (db != null) {
+                        db.asType()
+                    } else {
+                        invocation.context.processingEnv.elementUtils
+                                .getTypeElement(RoomTypeNames.ROOM_DB.toString()).asType()
+                    })
+                    val parser = DaoProcessor(
+                            baseContext = invocation.context,
+                            element = MoreElements.asType(dao),
+                            dbType = dbType,
+                            dbVerifier = createVerifierFromEntitiesAndViews(invocation))
+                    val parsedDao = parser.process()
+                    DaoWriter(parsedDao, invocation.processingEnv)
+                            .write(invocation.processingEnv)
+                    true
+                }
+                .build()
     }
 }
@@ -17,6 +17,7 @@
 package androidx.room.integration.testapp.dao;
 
 import androidx.annotation.NonNull;
+import androidx.paging.DataSource;
 import androidx.room.Dao;
 import androidx.room.Insert;
 import androidx.room.Query;
@@ -48,4 +49,7 @@ public interface ProductDao {
 
     @Query("SELECT * FROM products WHERE id = :id")
     Product getProductById(long id);
+
+    @Query("SELECT * FROM products WHERE name LIKE :name ORDER BY id ASC")
+    DataSource.Factory<Long, Product> loadProductsByName(String name);
 }
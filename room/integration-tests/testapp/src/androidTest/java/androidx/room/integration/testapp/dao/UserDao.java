@@ -20,6 +20,7 @@ import android.database.Cursor;
 
 import androidx.lifecycle.LiveData;
 import androidx.paging.DataSource;
+import androidx.room.CloseableIterator;
 import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
@@ -240,6 +241,12 @@ public abstract class UserDao {
     @Query("SELECT * FROM user ORDER BY mAge DESC")
     public abstract DataSource.Factory<Integer, User> loadUsersByAgeDesc();
 
+    @Query("SELECT * FROM user WHERE mAge > :age ORDER BY mId")
+    public abstract CloseableIterator<User> iterateUsersOlderThan(int age);
+
+    @Query("SELECT mName FROM user ORDER BY mId")
+    public abstract CloseableIterator<String> iterateNames();
+
     @Query("DELETE FROM User WHERE mId IN (:ids) AND mAge == :age")
     public abstract int deleteByAgeAndIds(int age, List<Integer> ids);
 
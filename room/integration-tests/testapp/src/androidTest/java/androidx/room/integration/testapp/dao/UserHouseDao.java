@@ -23,6 +23,7 @@ import androidx.room.Transaction;
 import androidx.room.integration.testapp.vo.House;
 import androidx.room.integration.testapp.vo.UserAndAllHouses;
 import androidx.room.integration.testapp.vo.UserAndPetsAndHouses;
+import androidx.room.integration.testapp.vo.UserAndPetsWithToysAndHouses;
 
 import java.util.List;
 
@@ -37,6 +38,10 @@ public interface UserHouseDao {
     @Query("SELECT * FROM user")
     List<UserAndPetsAndHouses> getUsersAndTheirPetsAndHouses();
 
+    @Transaction
+    @Query("SELECT * FROM user")
+    List<UserAndPetsWithToysAndHouses> getUsersAndTheirPetsWithToysAndHouses();
+
     @Insert
     void insertAll(House[] houses);
 }
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.integration.testapp.paging;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import androidx.annotation.NonNull;
+import androidx.paging.ItemKeyedDataSource;
+import androidx.room.integration.testapp.dao.ProductDao;
+import androidx.room.integration.testapp.test.TestDatabaseTest;
+import androidx.room.integration.testapp.vo.Product;
+import androidx.room.paging.KeysetDataSource;
+import androidx.test.filters.SmallTest;
+import androidx.test.runner.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class KeysetDataSourceTest extends TestDatabaseTest {
+    private ProductDao mProductDao;
+
+    @Before
+    public void setProductDao() {
+        mProductDao = mDatabase.getProductDao();
+    }
+
+    private KeysetDataSource<Long, Product> loadProducts() {
+        return (KeysetDataSource<Long, Product>) mProductDao.loadProductsByName("p%").create();
+    }
+
+    @Test
+    public void emptyPage() {
+        KeysetDataSource<Long, Product> dataSource = loadProducts();
+        assertThat(dataSource.countItems(), is(0));
+        InitialResult result = loadInitial(dataSource, null, 10, true);
+        assertThat(result.mData, is(Collections.<Product>emptyList()));
+        assertThat(result.mPosition, is(0));
+        assertThat(result.mTotalCount, is(0));
+    }
+
+    @Test
+    public void countItems() {
+        List<Product> products = createProducts(10);
+        mProductDao.insert("not paged");
+        KeysetDataSource<Long, Product> dataSource = loadProducts();
+        assertThat(dataSource.countItems(), is(10));
+        assertThat(dataSource.countItemsBefore(products.get(0).id), is(0));
+        assertThat(dataSource.countItemsBefore(products.get(4).id), is(4));
+        assertThat(dataSource.countItemsBefore(Long.MAX_VALUE), is(10));
+    }
+
+    @Test
+    public void loadInitialWithoutKey() {
+        List<Product> products = createProducts(10);
+        InitialResult result = loadInitial(loadProducts(), null, 3, true);
+        assertThat(result.mData, is(products.subList(0, 3)));
+        assertThat(result.mPosition, is(0));
+        assertThat(result.mTotalCount, is(10));
+    }
+
+    @Test
+    public void loadInitialWithKey() {
+        List<Product> products = createProducts(10);
+        InitialResult result = loadInitial(loadProducts(), products.get(4).id, 3, true);
+        assertThat(result.mData, is(products.subList(4, 7)));
+        assertThat(result.mPosition, is(4));
+        assertThat(result.mTotalCount, is(10));
+    }
+
+    @Test
+    public void loadInitialWithoutPlaceholders() {
+        List<Product> products = createProducts(10);
+        InitialResult result = loadInitial(loadProducts(), products.get(8).id, 3, false);
+        assertThat(result.mData, is(products.subList(8, 10)));
+        assertThat(result.mPosition, is(-1));
+        assertThat(result.mTotalCount, is(-1));
+    }
+
+    @Test
+    public void loadInitialWithDeletedKey() {
+        List<Product> products = createProducts(10);
+        // every row at or after the requested key is gone, so it restarts from the top
+        InitialResult result = loadInitial(loadProducts(), products.get(9).id + 1, 3, true);
+        assertThat(result.mData, is(products.subList(0, 3)));
+        assertThat(result.mPosition, is(0));
+    }
+
+    @Test
+    public void loadAfter() {
+        List<Product> products = createProducts(10);
+        KeysetDataSource<Long, Product> dataSource = loadProducts();
+        assertThat(loadAfter(dataSource, products.get(3).id, 4), is(products.subList(4, 8)));
+        assertThat(loadAfter(dataSource, products.get(7).id, 4), is(products.subList(8, 10)));
+        assertThat(loadAfter(dataSource, products.get(9).id, 4),
+                is(Collections.<Product>emptyList()));
+    }
+
+    @Test
+    public void loadBefore() {
+        List<Product> products = createProducts(10);
+        KeysetDataSource<Long, Product> dataSource = loadProducts();
+        assertThat(loadBefore(dataSource, products.get(6).id, 4), is(products.subList(2, 6)));
+        assertThat(loadBefore(dataSource, products.get(2).id, 4), is(products.subList(0, 2)));
+        assertThat(loadBefore(dataSource, products.get(0).id, 4),
+                is(Collections.<Product>emptyList()));
+    }
+
+    @Test
+    public void getKey() {
+        List<Product> products = createProducts(1);
+        assertThat(loadProducts().getKey(products.get(0)), is(products.get(0).id));
+    }
+
+    @NonNull
+    private List<Product> createProducts(int count) {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Product product = new Product(0, "product " + i);
+            long id = mProductDao.insert(product);
+            products.add(new Product(id, product.name));
+        }
+        return products;
+    }
+
+    private static InitialResult loadInitial(KeysetDataSource<Long, Product> dataSource,
+            Long key, int loadSize, boolean placeholdersEnabled) {
+        final InitialResult result = new InitialResult();
+        dataSource.loadInitial(
+                new ItemKeyedDataSource.LoadInitialParams<>(key, loadSize, placeholdersEnabled),
+                new ItemKeyedDataSource.LoadInitialCallback<Product>() {
+                    @Override
+                    public void onResult(@NonNull List<Product> data, int position,
+                            int totalCount) {
+                        result.mData = data;
+                        result.mPosition = position;
+                        result.mTotalCount = totalCount;
+                    }
+
+                    @Override
+                    public void onResult(@NonNull List<Product> data) {
+                        result.mData = data;
+                    }
+                });
+        return result;
+    }
+
+    private static List<Product> loadAfter(KeysetDataSource<Long, Product> dataSource, long key,
+            int loadSize) {
+        final List<Product> result = new ArrayList<>();
+        dataSource.loadAfter(new ItemKeyedDataSource.LoadParams<>(key, loadSize),
+                new ResultCollector(result));
+        return result;
+    }
+
+    private static List<Product> loadBefore(KeysetDataSource<Long, Product> dataSource, long key,
+            int loadSize) {
+        final List<Product> result = new ArrayList<>();
+        dataSource.loadBefore(new ItemKeyedDataSource.LoadParams<>(key, loadSize),
+                new ResultCollector(result));
+        return result;
+    }
+
+    private static class InitialResult {
+        List<Product> mData;
+        int mPosition = -1;
+        int mTotalCount = -1;
+    }
+
+    private static class ResultCollector extends ItemKeyedDataSource.LoadCallback<Product> {
+        private final List<Product> mResult;
+
+        ResultCollector(List<Product> result) {
+            mResult = result;
+        }
+
+        @Override
+        public void onResult(@NonNull List<Product> data) {
+            mResult.addAll(data);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.integration.testapp.test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import androidx.room.CloseableIterator;
+import androidx.room.integration.testapp.vo.User;
+import androidx.test.filters.SmallTest;
+import androidx.test.runner.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class CloseableIteratorTest extends TestDatabaseTest {
+
+    @Test
+    public void iterateAll() {
+        User[] users = TestUtil.createUsersArray(3, 1, 2);
+        for (User user : users) {
+            user.setAge(20);
+        }
+        mUserDao.insertAll(users);
+
+        List<User> result = readAll(mUserDao.iterateUsersOlderThan(10));
+        assertThat(result, is(Arrays.asList(users[1], users[2], users[0])));
+    }
+
+    @Test
+    public void iterateWithArgument() {
+        User[] users = TestUtil.createUsersArray(1, 2, 3, 4);
+        for (int i = 0; i < users.length; i++) {
+            users[i].setAge(10 * i);
+        }
+        mUserDao.insertAll(users);
+
+        List<User> result = readAll(mUserDao.iterateUsersOlderThan(15));
+        assertThat(result, is(Arrays.asList(users[2], users[3])));
+    }
+
+    @Test
+    public void iterateSingleColumn() {
+        User[] users = TestUtil.createUsersArray(1, 2);
+        mUserDao.insertAll(users);
+
+        List<String> result = readAll(mUserDao.iterateNames());
+        assertThat(result, is(Arrays.asList(users[0].getName(), users[1].getName())));
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void emptyResult() {
+        CloseableIterator<User> iterator = mUserDao.iterateUsersOlderThan(0);
+        assertThat(iterator.hasNext(), is(false));
+        iterator.next();
+    }
+
+    @Test
+    public void closeBeforeEnd() {
+        mUserDao.insertAll(TestUtil.createUsersArray(1, 2, 3));
+
+        CloseableIterator<String> iterator = mUserDao.iterateNames();
+        assertThat(iterator.hasNext(), is(true));
+        iterator.next();
+        iterator.close();
+        assertThat(iterator.hasNext(), is(false));
+        iterator.close();
+
+        // the database is still usable, and a new iterator sees new rows
+        mUserDao.insert(TestUtil.createUser(4));
+        assertThat(readAll(mUserDao.iterateNames()).size(), is(4));
+    }
+
+    private static <T> List<T> readAll(CloseableIterator<T> iterator) {
+        List<T> result = new ArrayList<>();
+        try {
+            while (iterator.hasNext()) {
+                result.add(iterator.next());
+            }
+        } finally {
+            iterator.close();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.integration.testapp.test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.room.QueryProfile;
+import androidx.room.Room;
+import androidx.room.RoomDatabase;
+import androidx.room.integration.testapp.TestDatabase;
+import androidx.room.integration.testapp.vo.House;
+import androidx.room.integration.testapp.vo.Pet;
+import androidx.room.integration.testapp.vo.PetAndToys;
+import androidx.room.integration.testapp.vo.Toy;
+import androidx.room.integration.testapp.vo.User;
+import androidx.room.integration.testapp.vo.UserAndPetsWithToysAndHouses;
+import androidx.test.InstrumentationRegistry;
+import androidx.test.filters.MediumTest;
+import androidx.test.filters.SdkSuppress;
+import androidx.test.runner.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Loads a pojo with several relations, one of them nested, for more parents than fit in the bind
+ * arguments of a single relation query, so that both the relations and the chunks of each
+ * relation are fetched concurrently on the read connections.
+ */
+@RunWith(AndroidJUnit4.class)
+@MediumTest
+@SdkSuppress(minSdkVersion = 16)
+public class ConcurrentRelationTest {
+
+    private static final String DATABASE_NAME = "concurrent_relation.db";
+    private static final int USER_COUNT = RoomDatabase.MAX_BIND_PARAMETER_CNT + 101;
+
+    private final Set<Thread> mExecutorThreads =
+            Collections.synchronizedSet(new HashSet<Thread>());
+    private final List<Thread> mRelationQueryThreads =
+            Collections.synchronizedList(new ArrayList<Thread>());
+    private ExecutorService mExecutor;
+
+    @Before
+    public void createDatabase() {
+        Context context = InstrumentationRegistry.getTargetContext();
+        context.deleteDatabase(DATABASE_NAME);
+        mExecutor = Executors.newFixedThreadPool(2, new ThreadFactory() {
+            @Override
+            public Thread newThread(@NonNull Runnable r) {
+                Thread thread = new Thread(r);
+                mExecutorThreads.add(thread);
+                return thread;
+            }
+        });
+        TestDatabase db = openDatabase(false);
+        try {
+            User[] users = new User[USER_COUNT];
+            List<Pet> pets = new ArrayList<>();
+            List<Toy> toys = new ArrayList<>();
+            List<House> houses = new ArrayList<>();
+            for (int i = 0; i < USER_COUNT; i++) {
+                users[i] = TestUtil.createUser(i + 1);
+                // every user has a pet with a toy, every other user has a house
+                Pet pet = TestUtil.createPetsForUser(i + 1, i + 1, 1)[0];
+                pets.add(pet);
+                toys.add(TestUtil.createToyForPet(pet, i + 1));
+                if (i % 2 == 0) {
+                    Collections.addAll(houses, TestUtil.createHousesForUser(i + 1, i + 1, 1));
+                }
+            }
+            db.getUserDao().insertAll(users);
+            db.getPetDao().insertAll(pets.toArray(new Pet[0]));
+            db.getToyDao().insert(toys.toArray(new Toy[0]));
+            db.getUserHouseDao().insertAll(houses.toArray(new House[0]));
+        } finally {
+            db.close();
+        }
+    }
+
+    @After
+    public void deleteDatabase() {
+        mExecutor.shutdownNow();
+        Context context = InstrumentationRegistry.getTargetContext();
+        context.deleteDatabase(DATABASE_NAME);
+    }
+
+    @Test
+    public void concurrentFetchesMatchSequentialFetches() {
+        List<UserAndPetsWithToysAndHouses> sequential;
+        TestDatabase db = openDatabase(false);
+        try {
+            sequential = db.getUserHouseDao().getUsersAndTheirPetsWithToysAndHouses();
+        } finally {
+            db.close();
+        }
+        assertThat(sequential.size(), is(USER_COUNT));
+        UserAndPetsWithToysAndHouses first = sequential.get(0);
+        assertThat(first.pets.size(), is(1));
+        assertThat(first.houses.size(), is(1));
+        PetAndToys petAndToys = first.pets.get(0);
+        assertThat(petAndToys.toys.size(), is(1));
+        assertThat(sequential.get(1).houses.size(), is(0));
+
+        mRelationQueryThreads.clear();
+        List<UserAndPetsWithToysAndHouses> concurrent;
+        db = openDatabase(true);
+        try {
+            assertThat(db.getReadConnectionPool().getSize(), is(2));
+            concurrent = db.getUserHouseDao().getUsersAndTheirPetsWithToysAndHouses();
+        } finally {
+            db.close();
+        }
+        assertThat(concurrent, is(sequential));
+
+        boolean ranOnExecutor = false;
+        for (Thread thread : mRelationQueryThreads) {
+            ranOnExecutor |= mExecutorThreads.contains(thread);
+        }
+        assertThat(ranOnExecutor, is(true));
+    }
+
+    private TestDatabase openDatabase(boolean readConnectionPool) {
+        Context context = InstrumentationRegistry.getTargetContext();
+        RoomDatabase.Builder<TestDatabase> builder = Room
+                .databaseBuilder(context, TestDatabase.class, DATABASE_NAME)
+                .setJournalMode(RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING)
+                .setQueryExecutor(mExecutor)
+                .setQueryCallback(new RoomDatabase.QueryCallback() {
+                    @Override
+                    public void onQuery(@NonNull QueryProfile profile) {
+                        String sql = profile.getSql();
+                        if (sql.contains("FROM `Pet`") || sql.contains("FROM `Toy`")
+                                || sql.contains("FROM `House`")) {
+                            mRelationQueryThreads.add(Thread.currentThread());
+                        }
+                    }
+                });
+        if (readConnectionPool) {
+            builder.setReadConnectionPoolSize(2);
+        }
+        return builder.build();
+    }
+}
@@ -32,7 +32,9 @@ import androidx.lifecycle.Observer;
 import androidx.room.InvalidationTrackerTrojan;
 import androidx.room.Room;
 import androidx.room.integration.testapp.FtsTestDatabase;
+import androidx.room.integration.testapp.TestDatabase;
 import androidx.room.integration.testapp.dao.MailDao;
+import androidx.room.integration.testapp.dao.UserDao;
 import androidx.room.integration.testapp.vo.AvgWeightByAge;
 import androidx.room.integration.testapp.vo.Mail;
 import androidx.room.integration.testapp.vo.Pet;
@@ -108,6 +110,45 @@ public class LiveDataQueryTest extends TestDatabaseTest {
         assertThat(observer.hasValue(), is(false));
     }
 
+    @Test
+    public void observeByIdWithRowLevelInvalidation() throws TimeoutException,
+            InterruptedException {
+        final TestDatabase db = Room.inMemoryDatabaseBuilder(
+                InstrumentationRegistry.getTargetContext(), TestDatabase.class)
+                .enableRowLevelInvalidation(10)
+                .build();
+        final UserDao userDao = db.getUserDao();
+        final List<User> values = Collections.synchronizedList(new ArrayList<User>());
+        final Observer<User> observer = values::add;
+        final LiveData<User> userLiveData = userDao.liveUserById(5);
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(
+                () -> userLiveData.observeForever(observer));
+        drain();
+        assertThat(values, is(Collections.<User>singletonList(null)));
+
+        // other rows of the user table do not compute the value again
+        userDao.insert(TestUtil.createUser(7));
+        drain();
+        assertThat(values.size(), is(1));
+
+        final User u5 = TestUtil.createUser(5);
+        userDao.insert(u5);
+        drain();
+        assertThat(values.size(), is(2));
+        assertThat(values.get(1), is(u5));
+
+        // past the row limit, the whole table is invalidated
+        userDao.insertAll(TestUtil.createUsersArray(
+                10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20, 21));
+        drain();
+        assertThat(values.size(), is(3));
+        assertThat(values.get(2), is(u5));
+
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(
+                () -> userLiveData.removeObserver(observer));
+        db.close();
+    }
+
     @Test
     public void observeListQuery() throws InterruptedException, ExecutionException,
             TimeoutException {
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.integration.testapp.test;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.MatrixCursor;
+
+import androidx.annotation.NonNull;
+import androidx.arch.core.executor.testing.CountingTaskExecutorRule;
+import androidx.room.QueryProfile;
+import androidx.room.Room;
+import androidx.room.RoomDatabase;
+import androidx.room.SlowQueryLog;
+import androidx.room.integration.testapp.TestDatabase;
+import androidx.room.integration.testapp.vo.User;
+import androidx.room.integration.testapp.vo.UserAndAllPets;
+import androidx.room.util.DBUtil;
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.test.InstrumentationRegistry;
+import androidx.test.filters.SmallTest;
+import androidx.test.runner.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class QueryProfilingTest {
+    @Rule
+    public CountingTaskExecutorRule mExecutorRule = new CountingTaskExecutorRule();
+
+    private TestDatabase mDb;
+    private final List<QueryProfile> mProfiles =
+            Collections.synchronizedList(new ArrayList<QueryProfile>());
+
+    private final RoomDatabase.QueryCallback mCallback = new RoomDatabase.QueryCallback() {
+        @Override
+        public void onQuery(@NonNull QueryProfile profile) {
+            mProfiles.add(profile);
+        }
+    };
+
+    @After
+    public void closeDb() {
+        if (mDb != null) {
+            mDb.close();
+        }
+    }
+
+    @Test
+    public void queryCallback() {
+        mDb = Room.inMemoryDatabaseBuilder(InstrumentationRegistry.getTargetContext(),
+                TestDatabase.class).setQueryCallback(mCallback).build();
+        mDb.getUserDao().insertAll(TestUtil.createUsersArray(1, 2, 3));
+        mProfiles.clear();
+
+        List<User> users = mDb.getUserDao().findUsersByName("%");
+        assertThat(users.size(), is(3));
+
+        QueryProfile profile = findProfile("select * from user where mName like ?");
+        assertThat(profile.getBindArgs(), is(Collections.<Object>singletonList("%")));
+        assertThat(profile.getRowCount(), is(3L));
+        assertThat(profile.getExecutionTimeNanos() > 0, is(true));
+        assertThat(profile.getConnectionWaitNanos(), is(0L));
+        assertThat(profile.getQueryPlan(), nullValue());
+    }
+
+    @Test
+    public void statementCallback() {
+        mDb = Room.inMemoryDatabaseBuilder(InstrumentationRegistry.getTargetContext(),
+                TestDatabase.class).setQueryCallback(mCallback).build();
+        mDb.getUserDao().insert(TestUtil.createUser(3));
+
+        QueryProfile profile = findProfile("INSERT OR ABORT INTO `User`");
+        assertThat(profile.getBindArgs().get(0), is((Object) 3L));
+        assertThat(profile.getRowCount(), is(-1L));
+    }
+
+    @Test
+    public void relationQueryCopiesProfiledCursor() {
+        mDb = Room.inMemoryDatabaseBuilder(InstrumentationRegistry.getTargetContext(),
+                TestDatabase.class).setQueryCallback(mCallback).build();
+        mDb.getUserDao().insertAll(TestUtil.createUsersLargerThanCursorWindow(40));
+        mDb.getPetDao().insertAll(TestUtil.createPetsForUser(2, 1, 3));
+        mProfiles.clear();
+
+        // the cursor is copied before the pets are queried, since the users don't fit in the
+        // window of the profiled cursor
+        List<UserAndAllPets> usersAndPets = mDb.getUserPetDao().loadAllUsersWithTheirPets();
+        assertThat(usersAndPets.size(), is(40));
+        assertThat(usersAndPets.get(1).pets.size(), is(3));
+        assertThat(findProfile("SELECT * FROM User u").getRowCount(), is(40L));
+
+        Cursor cursor = DBUtil.query(mDb, new SimpleSQLiteQuery("SELECT * FROM User"), true);
+        try {
+            assertThat(cursor, instanceOf(MatrixCursor.class));
+            assertThat(cursor.getCount(), is(40));
+        } finally {
+            cursor.close();
+        }
+    }
+
+    @Test
+    public void redactedBindArgs() {
+        mDb = Room.inMemoryDatabaseBuilder(InstrumentationRegistry.getTargetContext(),
+                TestDatabase.class).setQueryCallback(mCallback).redactQueryBindArgs().build();
+        mDb.getUserDao().load(3);
+
+        QueryProfile profile = findProfile("select * from user where mId = ?");
+        assertThat(profile.getBindArgs(), nullValue());
+        assertThat(profile.toString(), containsString("<redacted>"));
+    }
+
+    @Test
+    public void slowQueryLog() throws TimeoutException, InterruptedException {
+        mDb = Room.inMemoryDatabaseBuilder(InstrumentationRegistry.getTargetContext(),
+                TestDatabase.class).enableSlowQueryLog(0, TimeUnit.MILLISECONDS, 2).build();
+        mDb.getUserDao().insertAll(TestUtil.createUsersArray(1, 2, 3));
+        // every query is slow, so wait for the refresh of the invalidation tracker to be logged
+        // before the queries under test. Reads don't refresh it again.
+        drain();
+        SlowQueryLog log = mDb.getSlowQueryLog();
+        assertThat(log, notNullValue());
+        log.clear();
+
+        mDb.getUserDao().load(1);
+        mDb.getUserDao().load(2);
+        mDb.getUserDao().findUsersByName("%");
+
+        List<QueryProfile> entries = log.getEntries();
+        assertThat(entries.size(), is(2));
+        // the oldest query was replaced
+        assertThat(entries.get(0).getBindArgs(), is(Collections.<Object>singletonList(2L)));
+        assertThat(entries.get(0).getQueryPlan(), containsString("PRIMARY KEY"));
+        assertThat(entries.get(1).getSql(), containsString("mName like"));
+        assertThat(entries.get(1).getQueryPlan(), containsString("SCAN"));
+    }
+
+    @Test
+    public void slowQueryLog_modificationLogExplainedOnWriter()
+            throws TimeoutException, InterruptedException {
+        final String databaseName = "query_profiling.db";
+        Context context = InstrumentationRegistry.getTargetContext();
+        context.deleteDatabase(databaseName);
+        mDb = Room.databaseBuilder(context, TestDatabase.class, databaseName)
+                .setJournalMode(RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING)
+                .setReadConnectionPoolSize(1)
+                .enableSlowQueryLog(0, TimeUnit.MILLISECONDS, 10)
+                .build();
+        try {
+            mDb.getUserDao().insert(TestUtil.createUser(1));
+            drain();
+
+            boolean refreshLogged = false;
+            for (QueryProfile profile : mDb.getSlowQueryLog().getEntries()) {
+                if (profile.getSql().contains("room_table_modification_log")) {
+                    refreshLogged = true;
+                    // the temp table doesn't exist on the readers
+                    assertThat(profile.getQueryPlan(), notNullValue());
+                }
+            }
+            assertThat(refreshLogged, is(true));
+        } finally {
+            mDb.close();
+            mDb = null;
+            context.deleteDatabase(databaseName);
+        }
+    }
+
+    @Test
+    public void disabledByDefault() {
+        mDb = Room.inMemoryDatabaseBuilder(InstrumentationRegistry.getTargetContext(),
+                TestDatabase.class).build();
+        assertThat(mDb.getSlowQueryLog(), nullValue());
+    }
+
+    private void drain() throws TimeoutException, InterruptedException {
+        mExecutorRule.drainTasks(1, TimeUnit.MINUTES);
+    }
+
+    private QueryProfile findProfile(String sqlPrefix) {
+        synchronized (mProfiles) {
+            for (QueryProfile profile : mProfiles) {
+                if (profile.getSql().startsWith(sqlPrefix)) {
+                    return profile;
+                }
+            }
+        }
+        throw new AssertionError("No profile for " + sqlPrefix + " in " + mProfiles);
+    }
+}
@@ -0,0 +1,410 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.integration.testapp.test;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.MatrixCursor;
+
+import androidx.room.ReadConnectionPoolStats;
+import androidx.room.Room;
+import androidx.room.RoomDatabase;
+import androidx.room.integration.testapp.TestDatabase;
+import androidx.room.integration.testapp.vo.UserAndAllPets;
+import androidx.room.util.DBUtil;
+import androidx.room.util.RelationUtil;
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.sqlite.db.framework.FrameworkSQLiteReaderPool;
+import androidx.test.InstrumentationRegistry;
+import androidx.test.filters.MediumTest;
+import androidx.test.filters.SdkSuppress;
+import androidx.test.runner.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+@RunWith(AndroidJUnit4.class)
+@MediumTest
+@SdkSuppress(minSdkVersion = 16)
+public class ReadConnectionPoolTest {
+
+    private static final String DATABASE_NAME = "read_pool.db";
+    private TestDatabase mDatabase;
+    private FrameworkSQLiteReaderPool mPool;
+    private ExecutorService mExecutor;
+
+    @Before
+    public void openDatabase() {
+        Context context = InstrumentationRegistry.getTargetContext();
+        context.deleteDatabase(DATABASE_NAME);
+        mDatabase = Room.databaseBuilder(context, TestDatabase.class, DATABASE_NAME)
+                .setJournalMode(RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING)
+                .setReadConnectionPoolSize(1)
+                .build();
+        mDatabase.getUserDao().insertAll(TestUtil.createUsersArray(1, 2, 3));
+        mPool = mDatabase.getReadConnectionPool();
+        assertThat(mPool, notNullValue());
+        mExecutor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void closeDatabase() {
+        mExecutor.shutdownNow();
+        mDatabase.close();
+        Context context = InstrumentationRegistry.getTargetContext();
+        context.deleteDatabase(DATABASE_NAME);
+    }
+
+    @Test
+    public void cursorClosedOnAnotherThread() throws Exception {
+        final Cursor cursor = mDatabase.query("SELECT * FROM User", null);
+        assertThat(cursor.getCount(), is(3));
+        mExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+                cursor.close();
+            }
+        }).get(1, TimeUnit.SECONDS);
+
+        // the only connection is back in the pool, so another thread can query
+        Integer count = mExecutor.submit(new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                Cursor other = mDatabase.query("SELECT * FROM User", null);
+                try {
+                    return other.getCount();
+                } finally {
+                    other.close();
+                }
+            }
+        }).get(1, TimeUnit.SECONDS);
+        assertThat(count, is(3));
+        assertThat(mPool.getAcquireCount(0), is(2L));
+    }
+
+    @Test
+    public void cursorClosedTwice() throws Exception {
+        Cursor first = mDatabase.query("SELECT * FROM User", null);
+        Cursor second = mDatabase.query("SELECT * FROM User", null);
+        first.close();
+        first.close();
+        // the second cursor still holds the connection
+        Future<FrameworkSQLiteReaderPool.Lease> waiting = mExecutor.submit(acquire());
+        assertWaiting(waiting);
+
+        second.close();
+        waiting.get(1, TimeUnit.SECONDS).release();
+    }
+
+    @Test
+    public void exhaustedPoolWaitsForRelease() throws Exception {
+        final FrameworkSQLiteReaderPool.Lease lease = mPool.acquire();
+        Future<FrameworkSQLiteReaderPool.Lease> waiting = mExecutor.submit(acquire());
+        assertWaiting(waiting);
+
+        mExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+                lease.release();
+            }
+        }).get(1, TimeUnit.SECONDS);
+        FrameworkSQLiteReaderPool.Lease next = waiting.get(1, TimeUnit.SECONDS);
+        assertThat(next.getConnection(), sameInstance(lease.getConnection()));
+        next.release();
+        assertThat(mPool.getAcquireCount(0), is(2L));
+    }
+
+    @Test
+    public void reentrantLeasesReleasedOnAnotherThread() throws Exception {
+        final FrameworkSQLiteReaderPool.Lease outer = mPool.acquire();
+        final FrameworkSQLiteReaderPool.Lease inner = mPool.acquire();
+        assertThat(inner.getConnection(), sameInstance(outer.getConnection()));
+        assertThat(mPool.getAcquireCount(0), is(1L));
+
+        mExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+                outer.release();
+            }
+        }).get(1, TimeUnit.SECONDS);
+        Future<FrameworkSQLiteReaderPool.Lease> waiting = mExecutor.submit(acquire());
+        assertWaiting(waiting);
+
+        inner.release();
+        waiting.get(1, TimeUnit.SECONDS).release();
+
+        // the leases of this thread are gone, so it waits in line like any other thread
+        FrameworkSQLiteReaderPool.Lease again = mPool.acquire();
+        assertThat(mPool.getAcquireCount(0), is(3L));
+        again.release();
+    }
+
+    @Test
+    public void relationQueryCopiesPooledCursor() throws Exception {
+        mDatabase.getUserDao().insertAll(TestUtil.createUsersLargerThanCursorWindow(40));
+        mDatabase.getPetDao().insertAll(TestUtil.createPetsForUser(2, 1, 3));
+
+        Cursor cursor = DBUtil.query(mDatabase, new SimpleSQLiteQuery("SELECT * FROM User"),
+                true);
+        try {
+            // copied, so the connection is back in the pool before the cursor is closed
+            assertThat(cursor, instanceOf(MatrixCursor.class));
+            assertThat(cursor.getCount(), is(40));
+            mExecutor.submit(acquire()).get(1, TimeUnit.SECONDS).release();
+        } finally {
+            cursor.close();
+        }
+
+        // runs on a read connection, since it is not in a transaction
+        List<UserAndAllPets> usersAndPets = mDatabase.getUserPetDao()
+                .loadAllUsersWithTheirPetsWithoutTransaction();
+        assertThat(usersAndPets.size(), is(40));
+        assertThat(usersAndPets.get(1).pets.size(), is(3));
+    }
+
+    @Test
+    public void statsReportWaitTime() throws Exception {
+        ReadConnectionPoolStats stats = mDatabase.getReadConnectionPoolStats();
+        assertThat(stats, notNullValue());
+        assertThat(stats.getSize(), is(1));
+
+        final FrameworkSQLiteReaderPool.Lease lease = mPool.acquire();
+        Future<FrameworkSQLiteReaderPool.Lease> waiting = mExecutor.submit(acquire());
+        assertWaiting(waiting);
+        lease.release();
+        waiting.get(1, TimeUnit.SECONDS).release();
+
+        assertThat(stats.getAcquireCount(0), is(2L));
+        assertThat(stats.getMaxWaitTimeNanos(),
+                greaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(200)));
+        assertThat(stats.getWaitTimeNanos(0), greaterThanOrEqualTo(stats.getMaxWaitTimeNanos()));
+        assertThat(stats.getTotalWaitTimeNanos(), is(stats.getWaitTimeNanos(0)));
+    }
+
+    @Test
+    public void noStatsWithoutPool() {
+        TestDatabase db = Room.inMemoryDatabaseBuilder(InstrumentationRegistry.getTargetContext(),
+                TestDatabase.class).build();
+        try {
+            assertThat(db.getReadConnectionPoolStats(), nullValue());
+        } finally {
+            db.close();
+        }
+    }
+
+    @Test
+    public void tryAcquireDoesNotWait() throws Exception {
+        final FrameworkSQLiteReaderPool.Lease lease = mPool.tryAcquire();
+        assertThat(lease, notNullValue());
+        FrameworkSQLiteReaderPool.Lease inner = mPool.tryAcquire();
+        assertThat(inner, notNullValue());
+        assertThat(inner.getConnection(), sameInstance(lease.getConnection()));
+        inner.release();
+
+        assertThat(mExecutor.submit(tryAcquire()).get(1, TimeUnit.SECONDS), nullValue());
+        lease.release();
+        FrameworkSQLiteReaderPool.Lease next = mExecutor.submit(tryAcquire())
+                .get(1, TimeUnit.SECONDS);
+        assertThat(next, notNullValue());
+        next.release();
+        assertThat(mPool.getAcquireCount(0), is(2L));
+        assertThat(mPool.getTotalWaitTimeNanos(), is(0L));
+    }
+
+    @Test
+    public void relationFetchesRunConcurrentlyOnFreeReadConnection() {
+        final CountDownLatch latch = new CountDownLatch(2);
+        final List<Thread> threads = Collections.synchronizedList(new ArrayList<Thread>());
+        final Runnable fetch = new Runnable() {
+            @Override
+            public void run() {
+                threads.add(Thread.currentThread());
+                assertThat(countUsers(), is(3));
+                latch.countDown();
+                try {
+                    // only completes if both fetches run at the same time
+                    assertThat(latch.await(5, TimeUnit.SECONDS), is(true));
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+        mDatabase.runInTransaction(new Runnable() {
+            @Override
+            public void run() {
+                RelationUtil.fetchConcurrently(mDatabase, fetch, fetch);
+            }
+        });
+        assertThat(threads.size(), is(2));
+        assertThat(threads.get(0), not(sameInstance(threads.get(1))));
+    }
+
+    @Test
+    public void relationFetchesRunOnCallerWhenPoolIsExhausted() throws Exception {
+        // the only read connection is held by another thread, which may wait for the transaction
+        final FrameworkSQLiteReaderPool.Lease lease = mExecutor.submit(acquire())
+                .get(1, TimeUnit.SECONDS);
+        final List<Thread> threads = Collections.synchronizedList(new ArrayList<Thread>());
+        final Runnable fetch = new Runnable() {
+            @Override
+            public void run() {
+                threads.add(Thread.currentThread());
+                assertThat(countUsers(), is(3));
+            }
+        };
+        Thread caller = mExecutor.submit(new Callable<Thread>() {
+            @Override
+            public Thread call() {
+                mDatabase.runInTransaction(new Runnable() {
+                    @Override
+                    public void run() {
+                        RelationUtil.fetchConcurrently(mDatabase, fetch, fetch, fetch);
+                    }
+                });
+                return Thread.currentThread();
+            }
+        }).get(5, TimeUnit.SECONDS);
+        lease.release();
+
+        assertThat(threads.size(), is(3));
+        for (Thread thread : threads) {
+            assertThat(thread, sameInstance(caller));
+        }
+    }
+
+    @Test
+    public void relationFetchesRunOnCallerWhenExecutorIsBusy() {
+        Context context = InstrumentationRegistry.getTargetContext();
+        final TestDatabase db = Room.databaseBuilder(context, TestDatabase.class, DATABASE_NAME)
+                .setJournalMode(RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING)
+                .setReadConnectionPoolSize(1)
+                .setQueryExecutor(new Executor() {
+                    @Override
+                    public void execute(Runnable command) {
+                        // never runs anything
+                    }
+                })
+                .build();
+        try {
+            final List<Thread> threads = Collections.synchronizedList(new ArrayList<Thread>());
+            final Runnable fetch = new Runnable() {
+                @Override
+                public void run() {
+                    threads.add(Thread.currentThread());
+                }
+            };
+            db.runInTransaction(new Runnable() {
+                @Override
+                public void run() {
+                    RelationUtil.fetchConcurrently(db, fetch, fetch, fetch);
+                }
+            });
+            assertThat(threads.size(), is(3));
+            for (Thread thread : threads) {
+                assertThat(thread, sameInstance(Thread.currentThread()));
+            }
+        } finally {
+            db.close();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void relationFetchExceptionIsRethrown() {
+        mDatabase.runInTransaction(new Runnable() {
+            @Override
+            public void run() {
+                RelationUtil.fetchConcurrently(mDatabase, new Runnable() {
+                    @Override
+                    public void run() {
+                    }
+                }, new Runnable() {
+                    @Override
+                    public void run() {
+                        throw new IllegalStateException();
+                    }
+                });
+            }
+        });
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void acquireFromClosedPool() {
+        mPool.close();
+        mPool.acquire();
+    }
+
+    private Callable<FrameworkSQLiteReaderPool.Lease> acquire() {
+        return new Callable<FrameworkSQLiteReaderPool.Lease>() {
+            @Override
+            public FrameworkSQLiteReaderPool.Lease call() {
+                return mPool.acquire();
+            }
+        };
+    }
+
+    private Callable<FrameworkSQLiteReaderPool.Lease> tryAcquire() {
+        return new Callable<FrameworkSQLiteReaderPool.Lease>() {
+            @Override
+            public FrameworkSQLiteReaderPool.Lease call() {
+                return mPool.tryAcquire();
+            }
+        };
+    }
+
+    private int countUsers() {
+        Cursor cursor = mDatabase.query("SELECT * FROM User", null);
+        try {
+            return cursor.getCount();
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static void assertWaiting(Future<?> future)
+            throws InterruptedException, ExecutionException {
+        try {
+            future.get(200, TimeUnit.MILLISECONDS);
+            throw new AssertionError("Acquired a connection from an exhausted pool");
+        } catch (TimeoutException expected) {
+            // still waiting for the connection
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.integration.testapp.test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import android.database.Cursor;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+import androidx.sqlite.db.SupportSQLiteStatement;
+import androidx.sqlite.db.framework.FrameworkSQLiteOpenHelperFactory;
+import androidx.sqlite.db.framework.FrameworkSQLiteStatementCache;
+import androidx.test.InstrumentationRegistry;
+import androidx.test.filters.SmallTest;
+import androidx.test.runner.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class StatementCacheTest {
+    private static final String INSERT = "INSERT INTO Item VALUES(?)";
+    private static final String DELETE = "DELETE FROM Item WHERE id = ?";
+    private static final String UPDATE = "UPDATE Item SET id = ? WHERE id = ?";
+
+    private SupportSQLiteOpenHelper mOpenHelper;
+    private SupportSQLiteDatabase mDatabase;
+    private FrameworkSQLiteStatementCache mCache;
+
+    @Before
+    public void openDatabase() {
+        SupportSQLiteOpenHelper.Configuration configuration = SupportSQLiteOpenHelper
+                .Configuration.builder(InstrumentationRegistry.getTargetContext())
+                .name(null)
+                .callback(new SupportSQLiteOpenHelper.Callback(1) {
+                    @Override
+                    public void onCreate(SupportSQLiteDatabase db) {
+                        db.execSQL("CREATE TABLE Item (id INTEGER PRIMARY KEY)");
+                    }
+
+                    @Override
+                    public void onUpgrade(SupportSQLiteDatabase db, int oldVersion,
+                            int newVersion) {
+                    }
+                })
+                .build();
+        mOpenHelper = new FrameworkSQLiteOpenHelperFactory(2).create(configuration);
+        mDatabase = mOpenHelper.getWritableDatabase();
+        mCache = FrameworkSQLiteStatementCache.of(mDatabase);
+        assertThat(mCache, notNullValue());
+    }
+
+    @After
+    public void closeDatabase() {
+        mOpenHelper.close();
+    }
+
+    @Test
+    public void hitAndMissCounts() throws IOException {
+        SupportSQLiteStatement insert = mDatabase.compileStatement(INSERT);
+        insert.bindLong(1, 1);
+        insert.executeInsert();
+        insert.close();
+        assertThat(mCache.getMissCount(), is(1L));
+        assertThat(mCache.getHitCount(), is(0L));
+        assertThat(mCache.getSize(), is(1));
+
+        insert = mDatabase.compileStatement(INSERT);
+        assertThat(mCache.getHitCount(), is(1L));
+        assertThat(mCache.getSize(), is(0));
+        insert.bindLong(1, 2);
+        insert.executeInsert();
+        insert.close();
+        assertThat(countItems(), is(2L));
+        assertThat(mCache.getMissCount(), is(1L));
+    }
+
+    @Test
+    public void evictsLeastRecentlyReleased() throws IOException {
+        mDatabase.compileStatement(INSERT).close();
+        mDatabase.compileStatement(DELETE).close();
+        // INSERT is used again, so DELETE becomes the least recently released statement
+        mDatabase.compileStatement(INSERT).close();
+        mDatabase.compileStatement(UPDATE).close();
+        assertThat(mCache.getSize(), is(2));
+        assertThat(mCache.getEvictionCount(), is(1L));
+
+        long misses = mCache.getMissCount();
+        SupportSQLiteStatement insert = mDatabase.compileStatement(INSERT);
+        SupportSQLiteStatement update = mDatabase.compileStatement(UPDATE);
+        assertThat(mCache.getMissCount(), is(misses));
+        SupportSQLiteStatement delete = mDatabase.compileStatement(DELETE);
+        assertThat(mCache.getMissCount(), is(misses + 1));
+        insert.close();
+        update.close();
+        delete.close();
+    }
+
+    @Test
+    public void schemaChangeInvalidatesStatements() throws IOException {
+        SupportSQLiteStatement leased = mDatabase.compileStatement(INSERT);
+        mDatabase.compileStatement(DELETE).close();
+        assertThat(mCache.getSize(), is(1));
+
+        mDatabase.execSQL("CREATE TABLE Other (id INTEGER PRIMARY KEY)");
+        assertThat(mCache.getSize(), is(0));
+        assertThat(mCache.getEvictionCount(), is(1L));
+
+        // leased before the schema changed, so it is closed instead of cached
+        leased.close();
+        assertThat(mCache.getSize(), is(0));
+        long misses = mCache.getMissCount();
+        mDatabase.compileStatement(INSERT).close();
+        assertThat(mCache.getMissCount(), is(misses + 1));
+        assertThat(mCache.getSize(), is(1));
+    }
+
+    @Test
+    public void closeTwice() throws IOException {
+        SupportSQLiteStatement first = mDatabase.compileStatement(INSERT);
+        first.close();
+        first.close();
+        assertThat(mCache.getSize(), is(1));
+
+        SupportSQLiteStatement second = mDatabase.compileStatement(INSERT);
+        assertThat(mCache.getHitCount(), is(1L));
+        // must not hand the statement leased by second back to the cache
+        first.close();
+        assertThat(mCache.getSize(), is(0));
+        SupportSQLiteStatement third = mDatabase.compileStatement(INSERT);
+        assertThat(mCache.getHitCount(), is(1L));
+
+        second.bindLong(1, 1);
+        second.executeInsert();
+        third.bindLong(1, 2);
+        third.executeInsert();
+        second.close();
+        third.close();
+        assertThat(countItems(), is(2L));
+        // both went back, the latest release is kept
+        assertThat(mCache.getSize(), is(1));
+    }
+
+    @Test
+    public void closeDatabaseEvictsStatements() throws IOException {
+        mDatabase.compileStatement(INSERT).close();
+        mDatabase.compileStatement(DELETE).close();
+        mOpenHelper.close();
+        assertThat(mCache.getSize(), is(0));
+        assertThat(mCache.getEvictionCount(), is(2L));
+    }
+
+    private long countItems() {
+        // queries do not go through the statement cache
+        Cursor cursor = mDatabase.query("SELECT COUNT(*) FROM Item");
+        try {
+            assertThat(cursor.moveToFirst(), is(true));
+            return cursor.getLong(0);
+        } finally {
+            cursor.close();
+        }
+    }
+}
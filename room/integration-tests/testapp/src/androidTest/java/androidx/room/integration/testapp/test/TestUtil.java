@@ -30,6 +30,7 @@ import androidx.room.integration.testapp.vo.Toy;
 import androidx.room.integration.testapp.vo.User;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import java.util.UUID;
@@ -45,6 +46,21 @@ public class TestUtil {
         return result;
     }
 
+    /**
+     * Creates users with ids 1 to {@code count} whose names take more space than a cursor window
+     * altogether, so that their query does not fit in a single window.
+     */
+    public static User[] createUsersLargerThanCursorWindow(int count) {
+        char[] name = new char[4 * 1024 * 1024 / count];
+        Arrays.fill(name, 'a');
+        User[] result = new User[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = createUser(i + 1);
+            result[i].setName(new String(name));
+        }
+        return result;
+    }
+
     public static List<User> createUsersList(int... ids) {
         List<User> result = new ArrayList<>();
         for (int id : ids) {
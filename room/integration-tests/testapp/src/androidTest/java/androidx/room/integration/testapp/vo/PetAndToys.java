@@ -26,4 +26,22 @@ public class PetAndToys {
     public Pet pet;
     @Relation(parentColumn = "mPetId", entityColumn = "mPetId")
     public List<Toy> toys;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        PetAndToys that = (PetAndToys) o;
+
+        if (pet != null ? !pet.equals(that.pet) : that.pet != null) return false;
+        return toys != null ? toys.equals(that.toys) : that.toys == null;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = pet != null ? pet.hashCode() : 0;
+        result = 31 * result + (toys != null ? toys.hashCode() : 0);
+        return result;
+    }
 }
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.integration.testapp.vo;
+
+import androidx.room.Embedded;
+import androidx.room.Relation;
+
+import java.util.List;
+
+public class UserAndPetsWithToysAndHouses {
+    @Embedded
+    public User user;
+    @Relation(entity = Pet.class, parentColumn = "mId", entityColumn = "mUserId")
+    public List<PetAndToys> pets;
+    @Relation(parentColumn = "mId", entityColumn = "mOwnerId")
+    public List<House> houses;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        UserAndPetsWithToysAndHouses that = (UserAndPetsWithToysAndHouses) o;
+
+        if (user != null ? !user.equals(that.user) : that.user != null) return false;
+        if (pets != null ? !pets.equals(that.pets) : that.pets != null) return false;
+        return houses != null ? houses.equals(that.houses) : that.houses == null;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = user != null ? user.hashCode() : 0;
+        result = 31 * result + (pets != null ? pets.hashCode() : 0);
+        result = 31 * result + (houses != null ? houses.hashCode() : 0);
+        return result;
+    }
+}
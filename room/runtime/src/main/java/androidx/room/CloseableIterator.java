@@ -0,0 +1,52 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+/**
+ * An {@link Iterator} over the rows of a query, which maps each row when it is read.
+ * <p>
+ * A {@link Query} method can return a {@code CloseableIterator} to read results that do not fit
+ * in memory: rows are converted one by one on the thread that iterates, so only the current row
+ * and the cursor window are held at any time.
+ * <pre>
+ * {@literal @}Query("SELECT * FROM song")
+ * CloseableIterator&lt;Song&gt; iterateSongs();
+ *
+ * try (CloseableIterator&lt;Song&gt; songs = dao.iterateSongs()) {
+ *     while (songs.hasNext()) {
+ *         export(songs.next());
+ *     }
+ * }
+ * </pre>
+ * The underlying cursor is closed when the last row has been read, or when {@link #close()} is
+ * called. Iterators that are not read until the end must be closed.
+ * <p>
+ * Queries that return POJOs with {@link Relation} fields cannot be iterated this way, since the
+ * relations are loaded for the whole result at once.
+ *
+ * @param <T> The type of the rows.
+ */
+public interface CloseableIterator<T> extends Iterator<T>, Closeable {
+    /**
+     * Closes the underlying cursor. It is safe to call this method more than once.
+     */
+    @Override
+    void close();
+}
@@ -91,6 +91,47 @@ public class DatabaseConfiguration {
      */
     public final boolean allowDestructiveMigrationOnDowngrade;
 
+    /**
+     * The number of read-only connections Room may use to run queries concurrently, or 0 if all
+     * queries go through the single writable connection.
+     */
+    public final int readConnectionPoolSize;
+
+    /**
+     * The maximum number of modified rows the {@link InvalidationTracker} records per table
+     * between two refreshes, or 0 if row level invalidation is disabled.
+     */
+    public final int maxTrackedRowsPerTable;
+
+    /**
+     * The window, in nanoseconds, within which commits are dispatched together to the
+     * {@link InvalidationTracker} observers when the tracker is refreshed on commit, or -1 if it
+     * is refreshed on the query executor.
+     */
+    public final long invalidationCoalescingWindowNanos;
+
+    /**
+     * The callback notified of each query run by the database, if any.
+     */
+    @Nullable
+    public final RoomDatabase.QueryCallback queryCallback;
+
+    /**
+     * If true, bind arguments are removed from the reported {@link QueryProfile}s.
+     */
+    public final boolean redactQueryBindArgs;
+
+    /**
+     * The execution time, in nanoseconds, above which queries are kept in the
+     * {@link SlowQueryLog}, or -1 if the slow query log is disabled.
+     */
+    public final long slowQueryThresholdNanos;
+
+    /**
+     * The maximum number of queries kept in the {@link SlowQueryLog}.
+     */
+    public final int slowQueryLogCapacity;
+
     /**
      * The collection of schema versions from which migrations aren't required.
      */
@@ -128,6 +169,63 @@ public class DatabaseConfiguration {
             boolean requireMigration,
             boolean allowDestructiveMigrationOnDowngrade,
             @Nullable Set<Integer> migrationNotRequiredFrom) {
+        this(context, name, sqliteOpenHelperFactory, migrationContainer, callbacks,
+                allowMainThreadQueries, journalMode, queryExecutor, multiInstanceInvalidation,
+                requireMigration, allowDestructiveMigrationOnDowngrade, migrationNotRequiredFrom,
+                0, 0, -1, null, false, -1, 0);
+    }
+
+    /**
+     * Creates a database configuration with the given values.
+     *
+     * @param context The application context.
+     * @param name Name of the database, can be null if it is in memory.
+     * @param sqliteOpenHelperFactory The open helper factory to use.
+     * @param migrationContainer The migration container for migrations.
+     * @param callbacks The list of callbacks for database events.
+     * @param allowMainThreadQueries Whether to allow main thread reads/writes or not.
+     * @param journalMode The journal mode. This has to be either TRUNCATE or WRITE_AHEAD_LOGGING.
+     * @param queryExecutor The Executor used to execute asynchronous queries.
+     * @param requireMigration True if Room should require a valid migration if version changes,
+     *                        instead of recreating the tables.
+     * @param allowDestructiveMigrationOnDowngrade True if Room should recreate tables if no
+     *                                             migration is supplied during a downgrade.
+     * @param migrationNotRequiredFrom The collection of schema versions from which migrations
+     *                                 aren't required.
+     * @param readConnectionPoolSize The number of read-only connections used for concurrent
+     *                               queries, 0 to disable the read connection pool.
+     * @param maxTrackedRowsPerTable The maximum number of modified rows recorded per table for
+     *                               row level invalidation, 0 to disable it.
+     * @param invalidationCoalescingWindowNanos The window, in nanoseconds, within which commits
+     *                                          are dispatched together when the invalidation
+     *                                          tracker is refreshed on commit, -1 to disable it.
+     * @param queryCallback The callback notified of each query, null to disable it.
+     * @param redactQueryBindArgs True if bind arguments are removed from query profiles.
+     * @param slowQueryThresholdNanos The execution time, in nanoseconds, above which queries are
+     *                                kept in the slow query log, -1 to disable it.
+     * @param slowQueryLogCapacity The maximum number of queries kept in the slow query log.
+     *
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    public DatabaseConfiguration(@NonNull Context context, @Nullable String name,
+            @NonNull SupportSQLiteOpenHelper.Factory sqliteOpenHelperFactory,
+            @NonNull RoomDatabase.MigrationContainer migrationContainer,
+            @Nullable List<RoomDatabase.Callback> callbacks,
+            boolean allowMainThreadQueries,
+            RoomDatabase.JournalMode journalMode,
+            @NonNull Executor queryExecutor,
+            boolean multiInstanceInvalidation,
+            boolean requireMigration,
+            boolean allowDestructiveMigrationOnDowngrade,
+            @Nullable Set<Integer> migrationNotRequiredFrom,
+            int readConnectionPoolSize,
+            int maxTrackedRowsPerTable,
+            long invalidationCoalescingWindowNanos,
+            @Nullable RoomDatabase.QueryCallback queryCallback,
+            boolean redactQueryBindArgs,
+            long slowQueryThresholdNanos,
+            int slowQueryLogCapacity) {
         this.sqliteOpenHelperFactory = sqliteOpenHelperFactory;
         this.context = context;
         this.name = name;
@@ -140,6 +238,13 @@ public class DatabaseConfiguration {
         this.requireMigration = requireMigration;
         this.allowDestructiveMigrationOnDowngrade = allowDestructiveMigrationOnDowngrade;
         this.mMigrationNotRequiredFrom = migrationNotRequiredFrom;
+        this.readConnectionPoolSize = readConnectionPoolSize;
+        this.maxTrackedRowsPerTable = maxTrackedRowsPerTable;
+        this.invalidationCoalescingWindowNanos = invalidationCoalescingWindowNanos;
+        this.queryCallback = queryCallback;
+        this.redactQueryBindArgs = redactQueryBindArgs;
+        this.slowQueryThresholdNanos = slowQueryThresholdNanos;
+        this.slowQueryLogCapacity = slowQueryLogCapacity;
     }
 
     /**
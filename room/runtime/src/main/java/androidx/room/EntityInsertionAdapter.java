@@ -16,12 +16,20 @@
 
 package androidx.room;
 
+import android.os.Build;
+
 import androidx.annotation.RestrictTo;
+import androidx.annotation.VisibleForTesting;
+import androidx.collection.SparseArrayCompat;
 import androidx.sqlite.db.SupportSQLiteStatement;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Implementations of this class knows how to insert a particular entity.
@@ -34,6 +42,25 @@ import java.util.List;
 @SuppressWarnings({"WeakerAccess", "unused"})
 @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
 public abstract class EntityInsertionAdapter<T> extends SharedSQLiteStatement {
+    /**
+     * SQLite versions before 3.8.8 implement a multi-row VALUES clause as a compound SELECT, which
+     * is limited to this many terms.
+     */
+    private static final int MAX_ROWS_PER_BATCH = 500;
+
+    private static final String VALUES = " VALUES ";
+
+    private static volatile boolean sMultiRowInsertEnabled = true;
+
+    private final AtomicBoolean mBatchLock = new AtomicBoolean(false);
+
+    /**
+     * Multi-row insert statements, keyed by their row count. Only full batches and power of two
+     * row counts are compiled, so this holds at most log2(MAX_ROWS_PER_BATCH) + 1 statements.
+     */
+    private final SparseArrayCompat<SupportSQLiteStatement> mBatchStatements =
+            new SparseArrayCompat<>();
+
     /**
      * Creates an InsertionAdapter that can insert the entity type T into the given database.
      *
@@ -52,6 +79,17 @@ public abstract class EntityInsertionAdapter<T> extends SharedSQLiteStatement {
      */
     protected abstract void bind(SupportSQLiteStatement statement, T entity);
 
+    /**
+     * Returns the number of arguments {@link #bind(SupportSQLiteStatement, Object)} binds for a
+     * single entity. Generated code overrides this to enable multi-row inserts when inserting
+     * multiple entities without returning their row ids.
+     *
+     * @return The number of bind arguments per row or 0 if multi-row inserts are not supported.
+     */
+    protected int getBindArgCountPerRow() {
+        return 0;
+    }
+
     /**
      * Inserts the entity into the database.
      *
@@ -73,6 +111,11 @@ public abstract class EntityInsertionAdapter<T> extends SharedSQLiteStatement {
      * @param entities Entities to insert
      */
     public final void insert(T[] entities) {
+        final int rowsPerBatch = getRowsPerBatch();
+        if (rowsPerBatch > 1 && entities.length > 1) {
+            insertBatched(Arrays.asList(entities).iterator(), rowsPerBatch);
+            return;
+        }
         final SupportSQLiteStatement stmt = acquire();
         try {
             for (T entity : entities) {
@@ -90,6 +133,11 @@ public abstract class EntityInsertionAdapter<T> extends SharedSQLiteStatement {
      * @param entities Entities to insert
      */
     public final void insert(Iterable<T> entities) {
+        final int rowsPerBatch = getRowsPerBatch();
+        if (rowsPerBatch > 1) {
+            insertBatched(entities.iterator(), rowsPerBatch);
+            return;
+        }
         final SupportSQLiteStatement stmt = acquire();
         try {
             for (T entity : entities) {
@@ -248,4 +296,203 @@ public abstract class EntityInsertionAdapter<T> extends SharedSQLiteStatement {
             release(stmt);
         }
     }
+
+    /**
+     * Turns multi-row inserts on or off for all adapters. With multi-row inserts off, inserting
+     * multiple entities binds and executes the single row statement once per entity.
+     * <p>
+     * Benchmarks use this to compare both ways of inserting. Multi-row inserts are on by default.
+     *
+     * @param enabled Whether to insert multiple rows per statement when possible.
+     */
+    @VisibleForTesting
+    public static void setMultiRowInsertEnabled(boolean enabled) {
+        sMultiRowInsertEnabled = enabled;
+    }
+
+    private int getRowsPerBatch() {
+        // multi-row VALUES requires SQLite 3.7.11, which ships with API 16.
+        if (!sMultiRowInsertEnabled || Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) {
+            return 1;
+        }
+        return getRowsPerBatch(getBindArgCountPerRow());
+    }
+
+    /**
+     * Returns the number of rows that fit in a single multi-row insert, given the number of
+     * arguments bound per row.
+     */
+    @VisibleForTesting
+    static int getRowsPerBatch(int argCountPerRow) {
+        if (argCountPerRow <= 0) {
+            return 1;
+        }
+        return Math.max(1, Math.min(MAX_ROWS_PER_BATCH,
+                RoomDatabase.MAX_BIND_PARAMETER_CNT / argCountPerRow));
+    }
+
+    /**
+     * Inserts the entities using statements that insert multiple rows at once, which saves a VM
+     * step and a JNI round trip per row.
+     * <p>
+     * Entities are inserted in full batches of {@code rowsPerBatch} rows. The remainder is split
+     * into power of two sized batches so that only a few statements need to be cached.
+     */
+    @VisibleForTesting
+    void insertBatched(Iterator<T> entities, int rowsPerBatch) {
+        assertNotMainThread();
+        final boolean useCache = mBatchLock.compareAndSet(false, true);
+        try {
+            final RowOffsetStatement rowStatement = new RowOffsetStatement(
+                    getBindArgCountPerRow());
+            final List<T> pending = new ArrayList<>(rowsPerBatch);
+            while (entities.hasNext()) {
+                pending.add(entities.next());
+                if (pending.size() == rowsPerBatch) {
+                    executeBatch(pending, 0, rowsPerBatch, useCache, rowStatement);
+                    pending.clear();
+                }
+            }
+            int start = 0;
+            int remaining = pending.size();
+            while (remaining > 0) {
+                final int rows = Integer.highestOneBit(remaining);
+                executeBatch(pending, start, rows, useCache, rowStatement);
+                start += rows;
+                remaining -= rows;
+            }
+        } finally {
+            if (useCache) {
+                mBatchLock.set(false);
+            }
+        }
+    }
+
+    private void executeBatch(List<T> entities, int start, int rows, boolean useCache,
+            RowOffsetStatement rowStatement) {
+        SupportSQLiteStatement stmt = useCache ? mBatchStatements.get(rows) : null;
+        if (stmt == null) {
+            stmt = compileStatement(createBatchQuery(rows));
+            if (useCache) {
+                mBatchStatements.put(rows, stmt);
+            }
+        }
+        try {
+            rowStatement.mDelegate = stmt;
+            for (int row = 0; row < rows; row++) {
+                rowStatement.mOffset = row * rowStatement.mArgCountPerRow;
+                bind(rowStatement, entities.get(start + row));
+            }
+            stmt.executeInsert();
+        } finally {
+            rowStatement.mDelegate = null;
+            if (!useCache) {
+                closeQuietly(stmt);
+            }
+        }
+    }
+
+    @VisibleForTesting
+    String createBatchQuery(int rows) {
+        final String query = createQuery();
+        if (rows == 1) {
+            return query;
+        }
+        final int valuesEnd = query.lastIndexOf(VALUES) + VALUES.length();
+        final String row = query.substring(valuesEnd);
+        final StringBuilder builder = new StringBuilder(
+                valuesEnd + rows * (row.length() + 1));
+        builder.append(query, 0, valuesEnd);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(row);
+        }
+        return builder.toString();
+    }
+
+    private static void closeQuietly(SupportSQLiteStatement statement) {
+        try {
+            statement.close();
+        } catch (IOException ignored) {
+            // statements of the framework implementation never throw
+        }
+    }
+
+    /**
+     * Shifts the bind indices of a single row into the row's slot of a multi-row statement, so the
+     * generated {@link #bind(SupportSQLiteStatement, Object)} can be reused as is. Everything
+     * else goes to the multi-row statement unchanged, except {@link #close()}, which only detaches
+     * this view since the multi-row statement may be cached.
+     */
+    private static class RowOffsetStatement implements SupportSQLiteStatement {
+        final int mArgCountPerRow;
+        SupportSQLiteStatement mDelegate;
+        int mOffset;
+
+        RowOffsetStatement(int argCountPerRow) {
+            mArgCountPerRow = argCountPerRow;
+        }
+
+        @Override
+        public void bindNull(int index) {
+            mDelegate.bindNull(index + mOffset);
+        }
+
+        @Override
+        public void bindLong(int index, long value) {
+            mDelegate.bindLong(index + mOffset, value);
+        }
+
+        @Override
+        public void bindDouble(int index, double value) {
+            mDelegate.bindDouble(index + mOffset, value);
+        }
+
+        @Override
+        public void bindString(int index, String value) {
+            mDelegate.bindString(index + mOffset, value);
+        }
+
+        @Override
+        public void bindBlob(int index, byte[] value) {
+            mDelegate.bindBlob(index + mOffset, value);
+        }
+
+        @Override
+        public void clearBindings() {
+            mDelegate.clearBindings();
+        }
+
+        @Override
+        public void execute() {
+            mDelegate.execute();
+        }
+
+        @Override
+        public int executeUpdateDelete() {
+            return mDelegate.executeUpdateDelete();
+        }
+
+        @Override
+        public long executeInsert() {
+            return mDelegate.executeInsert();
+        }
+
+        @Override
+        public long simpleQueryForLong() {
+            return mDelegate.simpleQueryForLong();
+        }
+
+        @Override
+        public String simpleQueryForString() {
+            return mDelegate.simpleQueryForString();
+        }
+
+        @Override
+        public void close() {
+            mDelegate = null;
+        }
+    }
 }
@@ -47,6 +47,12 @@ class InvalidationLiveDataContainer {
         return new RoomTrackingLiveData<>(mDatabase, this, computeFunction, tableNames);
     }
 
+    <T> LiveData<T> create(String[] tableNames, Callable<T> computeFunction, String keyTable,
+            long[] keyRowIds) {
+        return new RoomTrackingLiveData<>(mDatabase, this, computeFunction, tableNames, keyTable,
+                keyRowIds);
+    }
+
     void onActive(LiveData liveData) {
         mLiveDataSet.add(liveData);
     }
@@ -45,7 +45,12 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 
 /**
@@ -63,6 +68,12 @@ import java.util.concurrent.locks.Lock;
 // memory table table, flipping the invalidated flag ON.
 // * When multi-instance invalidation is turned on, MultiInstanceInvalidationClient will be created.
 // It works as an Observer, and notifies other instances of table invalidation.
+// * When row level invalidation is turned on, the memory table also counts modified rows and a
+// second memory table (table_id, row_id) records the rowids touched by each write, as long as the
+// count stays within the limit. Past the limit, the table falls back to table level invalidation.
+// * When refresh on commit is turned on, RoomDatabase reads and resets the memory table within the
+// committing transaction, right before it is marked successful, and notifies observers once the
+// outermost transaction commits, either right away or at the end of the coalescing window.
 public class InvalidationTracker {
 
     private static final String[] TRIGGERS = new String[]{"UPDATE", "DELETE", "INSERT"};
@@ -85,6 +96,37 @@ public class InvalidationTracker {
     static final String SELECT_UPDATED_TABLES_SQL = "SELECT * FROM " + UPDATE_TABLE_NAME
             + " WHERE " + INVALIDATED_COLUMN_NAME + " = 1;";
 
+    private static final String ROW_UPDATE_TABLE_NAME = "room_row_modification_log";
+
+    private static final String ROW_COUNT_COLUMN_NAME = "row_count";
+
+    private static final String ROW_ID_COLUMN_NAME = "row_id";
+
+    private static final String CREATE_ROW_COUNTING_TRACKING_TABLE_SQL = "CREATE TEMP TABLE "
+            + UPDATE_TABLE_NAME + "(" + TABLE_ID_COLUMN_NAME + " INTEGER PRIMARY KEY, "
+            + INVALIDATED_COLUMN_NAME + " INTEGER NOT NULL DEFAULT 0, "
+            + ROW_COUNT_COLUMN_NAME + " INTEGER NOT NULL DEFAULT 0)";
+
+    private static final String CREATE_ROW_TRACKING_TABLE_SQL = "CREATE TEMP TABLE "
+            + ROW_UPDATE_TABLE_NAME + "(" + TABLE_ID_COLUMN_NAME + " INTEGER NOT NULL, "
+            + ROW_ID_COLUMN_NAME + " INTEGER NOT NULL, "
+            + "PRIMARY KEY(" + TABLE_ID_COLUMN_NAME + ", " + ROW_ID_COLUMN_NAME + "))";
+
+    @VisibleForTesting
+    static final String RESET_UPDATED_TABLES_AND_ROW_COUNTS_SQL = "UPDATE " + UPDATE_TABLE_NAME
+            + " SET " + INVALIDATED_COLUMN_NAME + " = 0, " + ROW_COUNT_COLUMN_NAME + " = 0"
+            + " WHERE " + INVALIDATED_COLUMN_NAME + " = 1 ";
+
+    @VisibleForTesting
+    static final String SELECT_UPDATED_ROWS_SQL = "SELECT " + TABLE_ID_COLUMN_NAME + ", "
+            + ROW_ID_COLUMN_NAME + " FROM " + ROW_UPDATE_TABLE_NAME
+            + " ORDER BY " + TABLE_ID_COLUMN_NAME + ", " + ROW_ID_COLUMN_NAME;
+
+    @VisibleForTesting
+    static final String DELETE_UPDATED_ROWS_SQL = "DELETE FROM " + ROW_UPDATE_TABLE_NAME;
+
+    private static final long[] EMPTY_ROW_IDS = new long[0];
+
     @NonNull
     @VisibleForTesting
     final ArrayMap<String, Integer> mTableIdLookup;
@@ -100,6 +142,61 @@ public class InvalidationTracker {
     @VisibleForTesting
     final BitSet mTableInvalidStatus;
 
+    /**
+     * Sorted rowids changed in each invalidated table since the last refresh. A table that is
+     * invalidated but has no entry here overflowed the row limit and is invalidated as a whole.
+     */
+    @NonNull
+    @VisibleForTesting
+    final SparseArrayCompat<long[]> mChangedRowIds = new SparseArrayCompat<>();
+
+    /**
+     * Maximum number of modified rows recorded per table between two refreshes, 0 if row level
+     * invalidation is disabled.
+     */
+    private int mMaxTrackedRowsPerTable;
+
+    /**
+     * Guards the pending invalidations and the coalescing state, which are written by committing
+     * threads and read by the thread that notifies the observers.
+     */
+    private final Object mInvalidationLock = new Object();
+
+    /**
+     * The transaction in progress on each thread, when the tracker is refreshed on commit.
+     */
+    private final ThreadLocal<TransactionState> mTransactionState =
+            new ThreadLocal<TransactionState>() {
+                @Override
+                protected TransactionState initialValue() {
+                    return new TransactionState();
+                }
+            };
+
+    private volatile boolean mRefreshOnCommit;
+
+    private long mCoalescingWindowNanos;
+
+    private boolean mDispatchScheduled;
+
+    private long mFirstPendingCommitNanos;
+
+    private int mPendingCommitCount;
+
+    private long mLastDispatchNanos;
+
+    @Nullable
+    private ScheduledExecutorService mCoalescingExecutor;
+
+    // set once the database is closed, so no coalescing executor is created anymore.
+    private boolean mStopped;
+
+    private final AtomicLong mRefreshCount = new AtomicLong();
+    private final AtomicLong mDispatchCount = new AtomicLong();
+    private final AtomicLong mCoalescedCommitCount = new AtomicLong();
+    private final AtomicLong mTotalDispatchLatencyNanos = new AtomicLong();
+    private final AtomicLong mMaxDispatchLatencyNanos = new AtomicLong();
+
     @SuppressWarnings("WeakerAccess") /* synthetic access */
     final RoomDatabase mDatabase;
 
@@ -110,6 +207,9 @@ public class InvalidationTracker {
     @SuppressWarnings("WeakerAccess") /* synthetic access */
     volatile SupportSQLiteStatement mCleanupStatement;
 
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    volatile SupportSQLiteStatement mRowCleanupStatement;
+
     private ObservedTableTracker mObservedTableTracker;
 
     private final InvalidationLiveDataContainer mInvalidationLiveDataContainer;
@@ -178,17 +278,118 @@ public class InvalidationTracker {
             try {
                 database.execSQL("PRAGMA temp_store = MEMORY;");
                 database.execSQL("PRAGMA recursive_triggers='ON';");
-                database.execSQL(CREATE_TRACKING_TABLE_SQL);
+                if (isRowTrackingEnabled()) {
+                    database.execSQL(CREATE_ROW_COUNTING_TRACKING_TABLE_SQL);
+                    database.execSQL(CREATE_ROW_TRACKING_TABLE_SQL);
+                } else {
+                    database.execSQL(CREATE_TRACKING_TABLE_SQL);
+                }
                 database.setTransactionSuccessful();
             } finally {
                 database.endTransaction();
             }
             syncTriggers(database);
-            mCleanupStatement = database.compileStatement(RESET_UPDATED_TABLES_SQL);
+            if (isRowTrackingEnabled()) {
+                mCleanupStatement = database.compileStatement(
+                        RESET_UPDATED_TABLES_AND_ROW_COUNTS_SQL);
+                mRowCleanupStatement = database.compileStatement(DELETE_UPDATED_ROWS_SQL);
+            } else {
+                mCleanupStatement = database.compileStatement(RESET_UPDATED_TABLES_SQL);
+            }
             mInitialized = true;
         }
     }
 
+    /**
+     * Turns on row level invalidation. Must be called before the tracker is initialized.
+     *
+     * @param maxTrackedRowsPerTable The maximum number of modified rows to record per table
+     *                               between two refreshes.
+     */
+    void enableRowTracking(int maxTrackedRowsPerTable) {
+        synchronized (this) {
+            if (mInitialized) {
+                throw new IllegalStateException("Row level invalidation must be enabled before"
+                        + " the invalidation tracker is initialized.");
+            }
+            mMaxTrackedRowsPerTable = maxTrackedRowsPerTable;
+        }
+    }
+
+    boolean isRowTrackingEnabled() {
+        return mMaxTrackedRowsPerTable > 0;
+    }
+
+    /**
+     * Returns whether the given SQL uses the modification log, whose temp tables only exist on
+     * the writable connection.
+     */
+    static boolean usesModificationLog(String sql) {
+        return sql.contains(UPDATE_TABLE_NAME) || sql.contains(ROW_UPDATE_TABLE_NAME);
+    }
+
+    /**
+     * Reads the modification log within each committing transaction instead of refreshing it from
+     * the query executor after the transaction ends. Must be called before the tracker is
+     * initialized.
+     *
+     * @param coalescingWindowNanos The minimum time, in nanoseconds, between two notifications of
+     *                              the observers. Commits within this window are dispatched
+     *                              together.
+     */
+    void enableRefreshOnCommit(long coalescingWindowNanos) {
+        synchronized (this) {
+            if (mInitialized) {
+                throw new IllegalStateException("Refresh on commit must be enabled before"
+                        + " the invalidation tracker is initialized.");
+            }
+            mCoalescingWindowNanos = coalescingWindowNanos;
+            mRefreshOnCommit = true;
+        }
+    }
+
+    boolean isRefreshOnCommitEnabled() {
+        return mRefreshOnCommit;
+    }
+
+    /**
+     * @return The number of times the modification log was read.
+     */
+    public long getRefreshCount() {
+        return mRefreshCount.get();
+    }
+
+    /**
+     * @return The number of times the observers were notified of invalidated tables.
+     */
+    public long getDispatchCount() {
+        return mDispatchCount.get();
+    }
+
+    /**
+     * @return The number of commits whose invalidations were merged into the dispatch of an
+     * earlier commit, when the tracker refreshes on commit with a coalescing window.
+     */
+    public long getCoalescedCommitCount() {
+        return mCoalescedCommitCount.get();
+    }
+
+    /**
+     * @return The total time, in nanoseconds, between the first commit of each dispatch and the
+     * end of the dispatch, when the tracker refreshes on commit.
+     */
+    public long getTotalDispatchLatencyNanos() {
+        return mTotalDispatchLatencyNanos.get();
+    }
+
+    /**
+     * @return The longest time, in nanoseconds, between the first commit of a dispatch and the
+     * end of the dispatch, when the tracker refreshes on commit.
+     */
+    public long getMaxDispatchLatencyNanos() {
+        return mMaxDispatchLatencyNanos.get();
+    }
+
     void startMultiInstanceInvalidation(Context context, String name) {
         mMultiInstanceInvalidationClient = new MultiInstanceInvalidationClient(context, name, this,
                 mDatabase.getQueryExecutor());
@@ -223,6 +424,10 @@ public class InvalidationTracker {
     }
 
     private void startTrackingTable(SupportSQLiteDatabase writableDb, int tableId) {
+        if (isRowTrackingEnabled()) {
+            startTrackingTableRows(writableDb, tableId);
+            return;
+        }
         writableDb.execSQL(
                 "INSERT OR IGNORE INTO " + UPDATE_TABLE_NAME + " VALUES(" + tableId + ", 0)");
         final String tableName = mShadowTableLookup.get(tableId, mTableNames[tableId]);
@@ -245,6 +450,48 @@ public class InvalidationTracker {
         }
     }
 
+    private void startTrackingTableRows(SupportSQLiteDatabase writableDb, int tableId) {
+        writableDb.execSQL(
+                "INSERT OR IGNORE INTO " + UPDATE_TABLE_NAME + " VALUES(" + tableId + ", 0, 0)");
+        final String tableName = mShadowTableLookup.get(tableId, mTableNames[tableId]);
+        StringBuilder stringBuilder = new StringBuilder();
+        for (String trigger : TRIGGERS) {
+            stringBuilder.setLength(0);
+            stringBuilder.append("CREATE TEMP TRIGGER IF NOT EXISTS ");
+            appendTriggerName(stringBuilder, tableName, trigger);
+            stringBuilder.append(" AFTER ")
+                    .append(trigger)
+                    .append(" ON `")
+                    .append(tableName)
+                    .append("` BEGIN UPDATE ")
+                    .append(UPDATE_TABLE_NAME)
+                    .append(" SET ").append(INVALIDATED_COLUMN_NAME).append(" = 1, ")
+                    .append(ROW_COUNT_COLUMN_NAME).append(" = ")
+                    .append(ROW_COUNT_COLUMN_NAME).append(" + 1")
+                    .append(" WHERE ").append(TABLE_ID_COLUMN_NAME).append(" = ").append(tableId)
+                    .append(";");
+            // an update may change the rowid, record both sides
+            if (!"INSERT".equals(trigger)) {
+                appendRowLogStatement(stringBuilder, tableId, "OLD");
+            }
+            if (!"DELETE".equals(trigger)) {
+                appendRowLogStatement(stringBuilder, tableId, "NEW");
+            }
+            stringBuilder.append(" END");
+            writableDb.execSQL(stringBuilder.toString());
+        }
+    }
+
+    private void appendRowLogStatement(StringBuilder builder, int tableId, String row) {
+        builder.append(" INSERT OR IGNORE INTO ").append(ROW_UPDATE_TABLE_NAME)
+                .append(" SELECT ").append(tableId).append(", ").append(row).append(".rowid")
+                .append(" WHERE (SELECT ").append(ROW_COUNT_COLUMN_NAME)
+                .append(" FROM ").append(UPDATE_TABLE_NAME)
+                .append(" WHERE ").append(TABLE_ID_COLUMN_NAME).append(" = ").append(tableId)
+                .append(") <= ").append(mMaxTrackedRowsPerTable)
+                .append(";");
+    }
+
     /**
      * Adds the given observer to the observers list and it will be notified if any table it
      * observes changes.
@@ -392,13 +639,13 @@ public class InvalidationTracker {
                     SupportSQLiteDatabase db = mDatabase.getOpenHelper().getWritableDatabase();
                     db.beginTransaction();
                     try {
-                        hasUpdatedTable = checkUpdatedTable();
+                        hasUpdatedTable = collectUpdatedTables(false);
                         db.setTransactionSuccessful();
                     } finally {
                         db.endTransaction();
                     }
                 } else {
-                    hasUpdatedTable = checkUpdatedTable();
+                    hasUpdatedTable = collectUpdatedTables(false);
                 }
             } catch (IllegalStateException | SQLiteException exception) {
                 // may happen if db is closed. just log.
@@ -408,36 +655,321 @@ public class InvalidationTracker {
                 closeLock.unlock();
             }
             if (hasUpdatedTable) {
-                synchronized (mObserverMap) {
-                    for (Map.Entry<Observer, ObserverWrapper> entry : mObserverMap) {
-                        entry.getValue().notifyByTableVersions(mTableInvalidStatus);
+                dispatchPendingInvalidations();
+            }
+        }
+    };
+
+    /**
+     * Reads and resets the modification log on the writable connection, which must be in a
+     * transaction, and adds the changes either to the pending invalidations or, if
+     * {@code uncommitted} is true, to the changes staged until the transaction of the calling
+     * thread commits.
+     *
+     * @return true if any table was modified.
+     */
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    boolean collectUpdatedTables(boolean uncommitted) {
+        final BitSet updatedTables = new BitSet(mTableInvalidStatus.size());
+        final SparseArrayCompat<long[]> changedRowIds = new SparseArrayCompat<>();
+        if (!checkUpdatedTable(updatedTables, changedRowIds)) {
+            return false;
+        }
+        if (uncommitted) {
+            final TransactionState state = mTransactionState.get();
+            mergeInvalidations(updatedTables, changedRowIds, state.mInvalidStatus,
+                    state.mChangedRowIds);
+            return true;
+        }
+        synchronized (mInvalidationLock) {
+            mergeInvalidations(updatedTables, changedRowIds, mTableInvalidStatus, mChangedRowIds);
+        }
+        return true;
+    }
+
+    private boolean checkUpdatedTable(BitSet updatedTables,
+            SparseArrayCompat<long[]> changedRowIds) {
+        mRefreshCount.incrementAndGet();
+        boolean hasUpdatedTable = false;
+        final boolean trackRows = isRowTrackingEnabled();
+        BitSet overflowedTables = null;
+        Cursor cursor = mDatabase.query(new SimpleSQLiteQuery(SELECT_UPDATED_TABLES_SQL));
+        //noinspection TryFinallyCanBeTryWithResources
+        try {
+            while (cursor.moveToNext()) {
+                final int tableId = cursor.getInt(0);
+                updatedTables.set(tableId);
+                hasUpdatedTable = true;
+                if (trackRows && cursor.getLong(2) > mMaxTrackedRowsPerTable) {
+                    if (overflowedTables == null) {
+                        overflowedTables = new BitSet();
                     }
+                    overflowedTables.set(tableId);
                 }
-                // Reset invalidated status flags.
-                mTableInvalidStatus.clear();
             }
+        } finally {
+            cursor.close();
+        }
+        if (hasUpdatedTable) {
+            if (trackRows) {
+                readChangedRowIds(updatedTables, changedRowIds, overflowedTables);
+                mRowCleanupStatement.executeUpdateDelete();
+            }
+            mCleanupStatement.executeUpdateDelete();
         }
+        return hasUpdatedTable;
+    }
 
-        private boolean checkUpdatedTable() {
-            boolean hasUpdatedTable = false;
-            Cursor cursor = mDatabase.query(new SimpleSQLiteQuery(SELECT_UPDATED_TABLES_SQL));
-            //noinspection TryFinallyCanBeTryWithResources
-            try {
-                while (cursor.moveToNext()) {
-                    final int tableId = cursor.getInt(0);
-                    mTableInvalidStatus.set(tableId);
-                    hasUpdatedTable = true;
+    private void readChangedRowIds(BitSet updatedTables, SparseArrayCompat<long[]> changedRowIds,
+            @Nullable BitSet overflowedTables) {
+        Cursor cursor = mDatabase.query(new SimpleSQLiteQuery(SELECT_UPDATED_ROWS_SQL));
+        //noinspection TryFinallyCanBeTryWithResources
+        try {
+            // rows are sorted by table id, so each table's rowids come in a single run
+            long[] rowIds = EMPTY_ROW_IDS;
+            int count = 0;
+            int currentTableId = -1;
+            while (cursor.moveToNext()) {
+                final int tableId = cursor.getInt(0);
+                if (tableId != currentTableId) {
+                    putChangedRowIds(currentTableId, rowIds, count, updatedTables, changedRowIds,
+                            overflowedTables);
+                    currentTableId = tableId;
+                    count = 0;
+                    rowIds = new long[16];
                 }
-            } finally {
-                cursor.close();
+                if (count == rowIds.length) {
+                    rowIds = Arrays.copyOf(rowIds, count * 2);
+                }
+                rowIds[count++] = cursor.getLong(1);
             }
-            if (hasUpdatedTable) {
-                mCleanupStatement.executeUpdateDelete();
+            putChangedRowIds(currentTableId, rowIds, count, updatedTables, changedRowIds,
+                    overflowedTables);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static void putChangedRowIds(int tableId, long[] rowIds, int count,
+            BitSet updatedTables, SparseArrayCompat<long[]> changedRowIds,
+            @Nullable BitSet overflowedTables) {
+        if (tableId < 0 || !updatedTables.get(tableId)
+                || (overflowedTables != null && overflowedTables.get(tableId))) {
+            return;
+        }
+        changedRowIds.put(tableId, count == rowIds.length ? rowIds : Arrays.copyOf(rowIds, count));
+    }
+
+    /**
+     * Adds the changes of {@code srcTables} to {@code dstTables}. A table stays invalidated as a
+     * whole if either side lacks its rowids or if the merged rowids exceed the row limit.
+     */
+    private void mergeInvalidations(BitSet srcTables, SparseArrayCompat<long[]> srcRowIds,
+            BitSet dstTables, SparseArrayCompat<long[]> dstRowIds) {
+        for (int tableId = srcTables.nextSetBit(0); tableId >= 0;
+                tableId = srcTables.nextSetBit(tableId + 1)) {
+            final long[] src = srcRowIds.get(tableId);
+            if (!dstTables.get(tableId)) {
+                dstTables.set(tableId);
+                if (src != null) {
+                    dstRowIds.put(tableId, src);
+                }
+                continue;
+            }
+            final long[] dst = dstRowIds.get(tableId);
+            if (dst == null) {
+                continue;
+            }
+            final long[] merged = src == null ? null : mergeSorted(src, dst);
+            if (merged == null || merged.length > mMaxTrackedRowsPerTable) {
+                dstRowIds.remove(tableId);
+            } else {
+                dstRowIds.put(tableId, merged);
             }
-            return hasUpdatedTable;
+        }
+    }
+
+    private static long[] mergeSorted(long[] first, long[] second) {
+        final long[] merged = new long[first.length + second.length];
+        int i = 0;
+        int j = 0;
+        int count = 0;
+        while (i < first.length || j < second.length) {
+            final long next;
+            if (j == second.length || (i < first.length && first[i] <= second[j])) {
+                next = first[i++];
+            } else {
+                next = second[j++];
+            }
+            if (count == 0 || merged[count - 1] != next) {
+                merged[count++] = next;
+            }
+        }
+        return count == merged.length ? merged : Arrays.copyOf(merged, count);
+    }
+
+    /**
+     * Notifies the observers of the pending invalidations, if any, and clears them.
+     */
+    @SuppressWarnings("WeakerAccess") /* synthetic access */
+    void dispatchPendingInvalidations() {
+        final BitSet invalidatedTables;
+        final SparseArrayCompat<long[]> changedRowIds;
+        final long firstCommitNanos;
+        final int commitCount;
+        synchronized (mInvalidationLock) {
+            mDispatchScheduled = false;
+            if (mTableInvalidStatus.isEmpty()) {
+                return;
+            }
+            invalidatedTables = (BitSet) mTableInvalidStatus.clone();
+            changedRowIds = mChangedRowIds.clone();
+            firstCommitNanos = mFirstPendingCommitNanos;
+            commitCount = mPendingCommitCount;
+            // Reset invalidated status flags.
+            mTableInvalidStatus.clear();
+            mChangedRowIds.clear();
+            mFirstPendingCommitNanos = 0;
+            mPendingCommitCount = 0;
+            mLastDispatchNanos = System.nanoTime();
+        }
+        synchronized (mObserverMap) {
+            for (Map.Entry<Observer, ObserverWrapper> entry : mObserverMap) {
+                entry.getValue().notifyByTableVersions(invalidatedTables, changedRowIds);
+            }
+        }
+        mDispatchCount.incrementAndGet();
+        if (commitCount > 1) {
+            mCoalescedCommitCount.addAndGet(commitCount - 1);
+        }
+        if (firstCommitNanos != 0) {
+            final long latency = System.nanoTime() - firstCommitNanos;
+            mTotalDispatchLatencyNanos.addAndGet(latency);
+            long max;
+            do {
+                max = mMaxDispatchLatencyNanos.get();
+            } while (latency > max && !mMaxDispatchLatencyNanos.compareAndSet(max, latency));
+        }
+    }
+
+    /**
+     * Called by RoomDatabase after a transaction began on the calling thread, when invalidations
+     * are refreshed on commit.
+     */
+    void onTransactionBegin() {
+        final TransactionState state = mTransactionState.get();
+        state.mDepth++;
+        state.mMarkedSuccessful = false;
+    }
+
+    /**
+     * Called by RoomDatabase right before a transaction is marked successful, when invalidations
+     * are refreshed on commit. If it is the outermost transaction and none of its nested
+     * transactions failed, the modification log is read and reset within the transaction, so no
+     * separate transaction is needed to refresh it. Nested transactions only commit with the
+     * outermost one, which reads their changes as well.
+     */
+    void onTransactionSuccessful() {
+        final TransactionState state = mTransactionState.get();
+        state.mMarkedSuccessful = true;
+        if (!mInitialized || state.mDepth != 1 || state.mFailed) {
+            return;
+        }
+        try {
+            collectUpdatedTables(true);
+        } catch (IllegalStateException | SQLiteException exception) {
+            // the changes are still in the log and will be picked up by the next refresh.
+            Log.e(Room.LOG_TAG, "Cannot run invalidation tracker. Is the db closed?",
+                    exception);
+        }
+    }
+
+    /**
+     * Called by RoomDatabase after a transaction ended on the calling thread, when invalidations
+     * are refreshed on commit. If the outermost transaction committed, observers are notified on
+     * the calling thread unless another dispatch happened within the coalescing window, in which
+     * case a single dispatch is scheduled for the end of the window. If it rolled back, the
+     * changes it read are dropped, since the reset of the modification log rolled back as well.
+     *
+     * @param ended False if ending the transaction failed, in which case it did not commit.
+     */
+    void onTransactionEnded(boolean ended) {
+        final TransactionState state = mTransactionState.get();
+        if (state.mDepth == 0) {
+            // began before refresh on commit was enabled, or not through RoomDatabase.
+            return;
+        }
+        // a transaction that is not successful makes the outermost one roll back.
+        state.mFailed |= !ended || !state.mMarkedSuccessful;
+        state.mMarkedSuccessful = false;
+        if (--state.mDepth > 0) {
+            return;
+        }
+        mTransactionState.remove();
+        if (state.mFailed || state.mInvalidStatus.isEmpty()) {
+            return;
+        }
+        final boolean dispatchNow;
+        synchronized (mInvalidationLock) {
+            mergeInvalidations(state.mInvalidStatus, state.mChangedRowIds,
+                    mTableInvalidStatus, mChangedRowIds);
+            final long now = System.nanoTime();
+            if (mPendingCommitCount++ == 0) {
+                mFirstPendingCommitNanos = now;
+            }
+            if (mDispatchScheduled) {
+                return;
+            }
+            final long delayNanos = mLastDispatchNanos == 0 ? 0
+                    : mLastDispatchNanos + mCoalescingWindowNanos - now;
+            dispatchNow = mStopped || delayNanos <= 0;
+            if (!dispatchNow) {
+                mDispatchScheduled = true;
+                getCoalescingExecutor().schedule(mDispatchRunnable, delayNanos,
+                        TimeUnit.NANOSECONDS);
+            }
+        }
+        if (dispatchNow) {
+            dispatchPendingInvalidations();
+        }
+    }
+
+    private ScheduledExecutorService getCoalescingExecutor() {
+        if (mCoalescingExecutor == null) {
+            mCoalescingExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(@NonNull Runnable runnable) {
+                    Thread thread = new Thread(runnable, "room_invalidation_coalescer");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return mCoalescingExecutor;
+    }
+
+    private final Runnable mDispatchRunnable = new Runnable() {
+        @Override
+        public void run() {
+            dispatchPendingInvalidations();
         }
     };
 
+    /**
+     * Shuts down the coalescing executor. Transactions that commit afterwards, e.g. ones that
+     * were still running when the database was closed, notify observers on the calling thread.
+     */
+    void stopRefreshOnCommit() {
+        synchronized (mInvalidationLock) {
+            mStopped = true;
+            if (mCoalescingExecutor != null) {
+                mCoalescingExecutor.shutdownNow();
+                mCoalescingExecutor = null;
+            }
+            mDispatchScheduled = false;
+        }
+    }
+
     /**
      * Enqueues a task to refresh the list of updated tables.
      * <p>
@@ -567,6 +1099,29 @@ public class InvalidationTracker {
                 validateAndResolveTableNames(tableNames), computeFunction);
     }
 
+    /**
+     * Creates a LiveData for a query that only reads the rows of {@code keyTable} with the given
+     * rowids. Room generates such LiveData for queries that select the rows of an entity by an
+     * INTEGER PRIMARY KEY, which is the rowid. When row level invalidation is enabled,
+     * modifications of other rows in {@code keyTable} do not cause the function to be computed
+     * again.
+     *
+     * @param tableNames      The list of tables to observe, including {@code keyTable}
+     * @param computeFunction The function that calculates the value
+     * @param keyTable        The table whose rows are selected by rowid
+     * @param keyRowIds       The rowids of the selected rows
+     * @param <T>             The return type
+     * @return A new LiveData that computes the given function when the given list of tables
+     * invalidates.
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    public <T> LiveData<T> createLiveData(String[] tableNames, Callable<T> computeFunction,
+            String keyTable, long... keyRowIds) {
+        return mInvalidationLiveDataContainer.create(
+                validateAndResolveTableNames(tableNames), computeFunction, keyTable, keyRowIds);
+    }
+
     /**
      * Wraps an observer and keeps the table information.
      * <p>
@@ -598,13 +1153,23 @@ public class InvalidationTracker {
          * observed tables are invalidated.
          *
          * @param tableInvalidStatus The table invalid statuses.
+         * @param changedRowIds      The rowids changed in each invalidated table, when known.
          */
-        void notifyByTableVersions(BitSet tableInvalidStatus) {
+        void notifyByTableVersions(BitSet tableInvalidStatus,
+                SparseArrayCompat<long[]> changedRowIds) {
             Set<String> invalidatedTables = null;
+            Map<String, long[]> invalidatedRowIds = null;
             final int size = mTableIds.length;
             for (int index = 0; index < size; index++) {
                 final int tableId = mTableIds[index];
                 if (tableInvalidStatus.get(tableId)) {
+                    final long[] rowIds = changedRowIds.get(tableId);
+                    if (rowIds != null) {
+                        if (invalidatedRowIds == null) {
+                            invalidatedRowIds = new ArrayMap<>(size);
+                        }
+                        invalidatedRowIds.put(mTableNames[index], rowIds);
+                    }
                     if (size == 1) {
                         // Optimization for a single-table observer
                         invalidatedTables = mSingleTableSet;
@@ -617,7 +1182,12 @@ public class InvalidationTracker {
                 }
             }
             if (invalidatedTables != null) {
-                mObserver.onInvalidated(invalidatedTables);
+                if (invalidatedRowIds == null) {
+                    mObserver.onInvalidated(invalidatedTables);
+                } else {
+                    mObserver.onInvalidated(invalidatedTables,
+                            Collections.unmodifiableMap(invalidatedRowIds));
+                }
             }
         }
 
@@ -694,6 +1264,25 @@ public class InvalidationTracker {
          */
         public abstract void onInvalidated(@NonNull Set<String> tables);
 
+        /**
+         * Called when one of the observed tables is invalidated in the database and row level
+         * invalidation is enabled with
+         * {@link RoomDatabase.Builder#enableRowLevelInvalidation(int)}.
+         * <p>
+         * A table in {@code tables} that has no entry in {@code changedRowIds} had more modified
+         * rows than the configured limit, and must be considered changed as a whole.
+         * <p>
+         * The default implementation calls {@link #onInvalidated(Set)}.
+         *
+         * @param tables        A set of invalidated tables.
+         * @param changedRowIds The sorted rowids of the modified rows, keyed by table name. For
+         *                      an update, both the old and the new rowid are included.
+         */
+        public void onInvalidated(@NonNull Set<String> tables,
+                @NonNull Map<String, long[]> changedRowIds) {
+            onInvalidated(tables);
+        }
+
         boolean isRemote() {
             return false;
         }
@@ -810,6 +1399,22 @@ public class InvalidationTracker {
         }
     }
 
+    /**
+     * The nesting and outcome of the transaction in progress on a thread, with the changes it
+     * read from the modification log, which are only added to {@link #mTableInvalidStatus} once
+     * the outermost transaction commits.
+     */
+    private static class TransactionState {
+        int mDepth;
+        // Whether the innermost transaction in progress was marked successful.
+        boolean mMarkedSuccessful;
+        // Whether a transaction ended without being marked successful, or failed to end, which
+        // rolls back the outermost transaction.
+        boolean mFailed;
+        final BitSet mInvalidStatus = new BitSet();
+        final SparseArrayCompat<long[]> mChangedRowIds = new SparseArrayCompat<>();
+    }
+
     /**
      * An Observer wrapper that keeps a weak reference to the given object.
      * <p>
@@ -834,5 +1439,16 @@ public class InvalidationTracker {
                 observer.onInvalidated(tables);
             }
         }
+
+        @Override
+        public void onInvalidated(@NonNull Set<String> tables,
+                @NonNull Map<String, long[]> changedRowIds) {
+            final Observer observer = mDelegateRef.get();
+            if (observer == null) {
+                mTracker.removeObserver(this);
+            } else {
+                observer.onInvalidated(tables, changedRowIds);
+            }
+        }
     }
 }
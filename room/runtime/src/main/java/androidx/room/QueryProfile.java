@@ -0,0 +1,120 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Describes the execution of a query or statement by a {@link RoomDatabase}.
+ * <p>
+ * Profiles are passed to the {@link RoomDatabase.QueryCallback} of the database and kept by its
+ * {@link SlowQueryLog} when the query was slow.
+ *
+ * @see RoomDatabase.Builder#setQueryCallback(RoomDatabase.QueryCallback)
+ * @see RoomDatabase.Builder#enableSlowQueryLog(long, TimeUnit, int)
+ */
+@SuppressWarnings("WeakerAccess")
+public final class QueryProfile {
+    private final String mSql;
+    @Nullable
+    private final List<Object> mBindArgs;
+    private final long mExecutionTimeNanos;
+    private final long mConnectionWaitNanos;
+    private final long mRowCount;
+    @Nullable
+    private final String mQueryPlan;
+
+    QueryProfile(@NonNull String sql, @Nullable List<Object> bindArgs, long executionTimeNanos,
+            long connectionWaitNanos, long rowCount, @Nullable String queryPlan) {
+        mSql = sql;
+        mBindArgs = bindArgs;
+        mExecutionTimeNanos = executionTimeNanos;
+        mConnectionWaitNanos = connectionWaitNanos;
+        mRowCount = rowCount;
+        mQueryPlan = queryPlan;
+    }
+
+    /**
+     * @return The SQL of the query.
+     */
+    @NonNull
+    public String getSql() {
+        return mSql;
+    }
+
+    /**
+     * Returns the arguments bound to the query, in the order of their indices. Arguments that
+     * were not bound are null.
+     *
+     * @return The bind arguments, or null if they are redacted.
+     * @see RoomDatabase.Builder#redactQueryBindArgs()
+     */
+    @Nullable
+    public List<Object> getBindArgs() {
+        return mBindArgs;
+    }
+
+    /**
+     * Returns the time spent in the database to run the query. For queries, this includes the
+     * time spent filling the cursor window while stepping through the result.
+     *
+     * @return The execution time in nanoseconds.
+     */
+    public long getExecutionTimeNanos() {
+        return mExecutionTimeNanos;
+    }
+
+    /**
+     * @return The time in nanoseconds the query waited for a read connection, 0 if it ran on
+     * the writable connection.
+     */
+    public long getConnectionWaitNanos() {
+        return mConnectionWaitNanos;
+    }
+
+    /**
+     * @return The number of rows stepped through before the cursor was closed, or -1 if this
+     * profile is not of a query.
+     */
+    public long getRowCount() {
+        return mRowCount;
+    }
+
+    /**
+     * Returns the output of {@code EXPLAIN QUERY PLAN} for the query, one step per line. It is
+     * only captured for queries slower than the threshold of the {@link SlowQueryLog}.
+     *
+     * @return The query plan, or null if it was not captured.
+     */
+    @Nullable
+    public String getQueryPlan() {
+        return mQueryPlan;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "QueryProfile[sql=%s,args=%s,timeMs=%.3f,waitMs=%.3f,"
+                        + "rows=%d]", mSql, mBindArgs == null ? "<redacted>" : mBindArgs,
+                mExecutionTimeNanos / (double) TimeUnit.MILLISECONDS.toNanos(1),
+                mConnectionWaitNanos / (double) TimeUnit.MILLISECONDS.toNanos(1), mRowCount);
+    }
+}
@@ -0,0 +1,374 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import android.database.Cursor;
+import android.database.CursorWrapper;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteProgram;
+import androidx.sqlite.db.SupportSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteStatement;
+import androidx.sqlite.db.framework.FrameworkSQLiteReaderPool;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Wraps the cursors and statements of a {@link RoomDatabase} to measure them, and reports the
+ * resulting {@link QueryProfile}s to the query callback and the slow query log.
+ */
+class QueryProfiler {
+    private static final String EXPLAIN_PREFIX = "EXPLAIN QUERY PLAN ";
+
+    private final RoomDatabase mDatabase;
+    @Nullable
+    private final RoomDatabase.QueryCallback mCallback;
+    private final boolean mRedactBindArgs;
+    @Nullable
+    private final SlowQueryLog mSlowQueryLog;
+
+    QueryProfiler(RoomDatabase database, @Nullable RoomDatabase.QueryCallback callback,
+            boolean redactBindArgs, @Nullable SlowQueryLog slowQueryLog) {
+        mDatabase = database;
+        mCallback = callback;
+        mRedactBindArgs = redactBindArgs;
+        mSlowQueryLog = slowQueryLog;
+    }
+
+    /**
+     * Wraps the cursor of a query that started running at {@code startNanos}. The profile is
+     * reported when the cursor is closed.
+     */
+    Cursor profile(SupportSQLiteQuery query, Cursor cursor, long startNanos,
+            long connectionWaitNanos) {
+        // the query may be reused once the cursor is created, so the arguments are read now.
+        final BindArgsRecorder recorder = new BindArgsRecorder();
+        query.bindTo(recorder);
+        final ProfilingCursor profilingCursor = new ProfilingCursor(cursor, query.getSql(),
+                recorder.mArgs, connectionWaitNanos);
+        profilingCursor.mExecutionTimeNanos = System.nanoTime() - startNanos;
+        return profilingCursor;
+    }
+
+    SupportSQLiteStatement profile(String sql, SupportSQLiteStatement statement) {
+        return new ProfilingStatement(sql, statement);
+    }
+
+    void report(String sql, List<Object> bindArgs, long executionTimeNanos,
+            long connectionWaitNanos, long rowCount) {
+        String queryPlan = null;
+        final boolean slow = mSlowQueryLog != null && mSlowQueryLog.isSlow(executionTimeNanos);
+        if (slow) {
+            queryPlan = explain(sql, bindArgs);
+        }
+        final QueryProfile profile = new QueryProfile(sql,
+                mRedactBindArgs ? null : Collections.unmodifiableList(bindArgs),
+                executionTimeNanos, connectionWaitNanos, rowCount, queryPlan);
+        if (slow) {
+            mSlowQueryLog.add(profile);
+        }
+        if (mCallback != null) {
+            mCallback.onQuery(profile);
+        }
+    }
+
+    @Nullable
+    private String explain(String sql, List<Object> bindArgs) {
+        final SupportSQLiteQuery query = new SimpleSQLiteQuery(EXPLAIN_PREFIX + sql,
+                bindArgs.toArray());
+        final SupportSQLiteDatabase writer = mDatabase.getOpenHelper().getWritableDatabase();
+        final FrameworkSQLiteReaderPool readerPool = mDatabase.getReadConnectionPool();
+        // inTransaction() only reflects the calling thread: if it holds the writable connection,
+        // explain there so the plan sees its uncommitted changes. The modification log of the
+        // invalidation tracker only exists on the writable connection. Anything else is
+        // explained on a reader, so it doesn't wait for the transactions of other threads.
+        final boolean useWriter = readerPool == null || writer.inTransaction()
+                || InvalidationTracker.usesModificationLog(sql);
+        final FrameworkSQLiteReaderPool.Lease lease = useWriter ? null : readerPool.acquire();
+        final SupportSQLiteDatabase connection = lease == null ? writer : lease.getConnection();
+        try {
+            final Cursor cursor = connection.query(query);
+            try {
+                final int detailIndex = cursor.getColumnIndex("detail");
+                if (detailIndex == -1) {
+                    return null;
+                }
+                final StringBuilder plan = new StringBuilder();
+                while (cursor.moveToNext()) {
+                    if (plan.length() > 0) {
+                        plan.append('\n');
+                    }
+                    plan.append(cursor.getString(detailIndex));
+                }
+                return plan.toString();
+            } finally {
+                cursor.close();
+            }
+        } catch (RuntimeException e) {
+            // not every statement can be explained, e.g. PRAGMA or BEGIN
+            Log.w(Room.LOG_TAG, "Cannot capture the query plan of " + sql, e);
+            return null;
+        } finally {
+            if (lease != null) {
+                lease.release();
+            }
+        }
+    }
+
+    /**
+     * Records the arguments bound to a program, by index.
+     */
+    static class BindArgsRecorder implements SupportSQLiteProgram {
+        final ArrayList<Object> mArgs = new ArrayList<>();
+
+        private void bind(int index, Object value) {
+            final int position = index - 1;
+            while (mArgs.size() <= position) {
+                mArgs.add(null);
+            }
+            mArgs.set(position, value);
+        }
+
+        @Override
+        public void bindNull(int index) {
+            bind(index, null);
+        }
+
+        @Override
+        public void bindLong(int index, long value) {
+            bind(index, value);
+        }
+
+        @Override
+        public void bindDouble(int index, double value) {
+            bind(index, value);
+        }
+
+        @Override
+        public void bindString(int index, String value) {
+            bind(index, value);
+        }
+
+        @Override
+        public void bindBlob(int index, byte[] value) {
+            bind(index, Arrays.copyOf(value, value.length));
+        }
+
+        @Override
+        public void clearBindings() {
+            mArgs.clear();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Measures the time spent moving the cursor, which is when the framework fills the cursor
+     * window, and the number of rows stepped through.
+     */
+    private class ProfilingCursor extends CursorWrapper {
+        private final String mSql;
+        private final List<Object> mBindArgs;
+        private final long mConnectionWaitNanos;
+        long mExecutionTimeNanos;
+        private long mRowCount;
+        private boolean mReported;
+
+        ProfilingCursor(Cursor cursor, String sql, List<Object> bindArgs,
+                long connectionWaitNanos) {
+            super(cursor);
+            mSql = sql;
+            mBindArgs = bindArgs;
+            mConnectionWaitNanos = connectionWaitNanos;
+        }
+
+        private boolean afterMove(boolean moved, long startNanos) {
+            mExecutionTimeNanos += System.nanoTime() - startNanos;
+            if (moved) {
+                mRowCount = Math.max(mRowCount, getPosition() + 1);
+            }
+            return moved;
+        }
+
+        @Override
+        public int getCount() {
+            final long startNanos = System.nanoTime();
+            final int count = super.getCount();
+            mExecutionTimeNanos += System.nanoTime() - startNanos;
+            return count;
+        }
+
+        @Override
+        public boolean move(int offset) {
+            final long startNanos = System.nanoTime();
+            return afterMove(super.move(offset), startNanos);
+        }
+
+        @Override
+        public boolean moveToPosition(int position) {
+            final long startNanos = System.nanoTime();
+            return afterMove(super.moveToPosition(position), startNanos);
+        }
+
+        @Override
+        public boolean moveToFirst() {
+            final long startNanos = System.nanoTime();
+            return afterMove(super.moveToFirst(), startNanos);
+        }
+
+        @Override
+        public boolean moveToLast() {
+            final long startNanos = System.nanoTime();
+            return afterMove(super.moveToLast(), startNanos);
+        }
+
+        @Override
+        public boolean moveToNext() {
+            final long startNanos = System.nanoTime();
+            return afterMove(super.moveToNext(), startNanos);
+        }
+
+        @Override
+        public boolean moveToPrevious() {
+            final long startNanos = System.nanoTime();
+            return afterMove(super.moveToPrevious(), startNanos);
+        }
+
+        @Override
+        public void close() {
+            // release the connection first, explaining the query may need it
+            super.close();
+            if (!mReported) {
+                mReported = true;
+                report(mSql, mBindArgs, mExecutionTimeNanos, mConnectionWaitNanos, mRowCount);
+            }
+        }
+    }
+
+    /**
+     * Measures each execution of a compiled statement along with the arguments bound to it.
+     */
+    private class ProfilingStatement implements SupportSQLiteStatement {
+        private final String mSql;
+        private final SupportSQLiteStatement mDelegate;
+        private final BindArgsRecorder mRecorder = new BindArgsRecorder();
+
+        ProfilingStatement(String sql, SupportSQLiteStatement delegate) {
+            mSql = sql;
+            mDelegate = delegate;
+        }
+
+        private void report(long startNanos) {
+            QueryProfiler.this.report(mSql, new ArrayList<>(mRecorder.mArgs),
+                    System.nanoTime() - startNanos, 0, -1);
+        }
+
+        @Override
+        public void execute() {
+            final long startNanos = System.nanoTime();
+            mDelegate.execute();
+            report(startNanos);
+        }
+
+        @Override
+        public int executeUpdateDelete() {
+            final long startNanos = System.nanoTime();
+            final int result = mDelegate.executeUpdateDelete();
+            report(startNanos);
+            return result;
+        }
+
+        @Override
+        public long executeInsert() {
+            final long startNanos = System.nanoTime();
+            final long result = mDelegate.executeInsert();
+            report(startNanos);
+            return result;
+        }
+
+        @Override
+        public long simpleQueryForLong() {
+            final long startNanos = System.nanoTime();
+            final long result = mDelegate.simpleQueryForLong();
+            report(startNanos);
+            return result;
+        }
+
+        @Override
+        public String simpleQueryForString() {
+            final long startNanos = System.nanoTime();
+            final String result = mDelegate.simpleQueryForString();
+            report(startNanos);
+            return result;
+        }
+
+        @Override
+        public void bindNull(int index) {
+            mRecorder.bindNull(index);
+            mDelegate.bindNull(index);
+        }
+
+        @Override
+        public void bindLong(int index, long value) {
+            mRecorder.bindLong(index, value);
+            mDelegate.bindLong(index, value);
+        }
+
+        @Override
+        public void bindDouble(int index, double value) {
+            mRecorder.bindDouble(index, value);
+            mDelegate.bindDouble(index, value);
+        }
+
+        @Override
+        public void bindString(int index, String value) {
+            mRecorder.bindString(index, value);
+            mDelegate.bindString(index, value);
+        }
+
+        @Override
+        public void bindBlob(int index, byte[] value) {
+            mRecorder.bindBlob(index, value);
+            mDelegate.bindBlob(index, value);
+        }
+
+        @Override
+        public void clearBindings() {
+            mRecorder.clearBindings();
+            mDelegate.clearBindings();
+        }
+
+        @Override
+        public void close() throws IOException {
+            mDelegate.close();
+        }
+
+        @Override
+        public String toString() {
+            return mDelegate.toString();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import androidx.sqlite.db.framework.FrameworkSQLiteReaderPool;
+
+/**
+ * Statistics about how long queries waited for a connection of the read connection pool.
+ * <p>
+ * The values are live: each call reads the current counters of the pool.
+ *
+ * @see RoomDatabase.Builder#setReadConnectionPoolSize(int)
+ * @see RoomDatabase#getReadConnectionPoolStats()
+ */
+@SuppressWarnings("WeakerAccess")
+public final class ReadConnectionPoolStats {
+    private final FrameworkSQLiteReaderPool mPool;
+
+    ReadConnectionPoolStats(FrameworkSQLiteReaderPool pool) {
+        mPool = pool;
+    }
+
+    /**
+     * @return The maximum number of read connections in the pool.
+     */
+    public int getSize() {
+        return mPool.getSize();
+    }
+
+    /**
+     * @param connectionIndex The connection index, between 0 and {@link #getSize()} exclusive.
+     * @return The number of times the connection was leased to run a query.
+     */
+    public long getAcquireCount(int connectionIndex) {
+        return mPool.getAcquireCount(connectionIndex);
+    }
+
+    /**
+     * @param connectionIndex The connection index, between 0 and {@link #getSize()} exclusive.
+     * @return The total time, in nanoseconds, queries waited before leasing the connection.
+     */
+    public long getWaitTimeNanos(int connectionIndex) {
+        return mPool.getWaitTimeNanos(connectionIndex);
+    }
+
+    /**
+     * @return The total time, in nanoseconds, queries waited for any connection in the pool.
+     */
+    public long getTotalWaitTimeNanos() {
+        return mPool.getTotalWaitTimeNanos();
+    }
+
+    /**
+     * @return The longest time, in nanoseconds, a single query waited for a connection.
+     */
+    public long getMaxWaitTimeNanos() {
+        return mPool.getMaxWaitTimeNanos();
+    }
+}
@@ -20,6 +20,7 @@ import android.annotation.SuppressLint;
 import android.app.ActivityManager;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.CursorWrapper;
 import android.os.Build;
 import android.os.Looper;
 import android.util.Log;
@@ -34,13 +35,16 @@ import androidx.arch.core.executor.ArchTaskExecutor;
 import androidx.collection.SparseArrayCompat;
 import androidx.core.app.ActivityManagerCompat;
 import androidx.room.migration.Migration;
+import androidx.room.util.DBUtil;
 import androidx.sqlite.db.SimpleSQLiteQuery;
 import androidx.sqlite.db.SupportSQLiteDatabase;
 import androidx.sqlite.db.SupportSQLiteOpenHelper;
 import androidx.sqlite.db.SupportSQLiteQuery;
 import androidx.sqlite.db.SupportSQLiteStatement;
 import androidx.sqlite.db.framework.FrameworkSQLiteOpenHelperFactory;
+import androidx.sqlite.db.framework.FrameworkSQLiteReaderPool;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
@@ -48,6 +52,7 @@ import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -79,6 +84,19 @@ public abstract class RoomDatabase {
     protected volatile SupportSQLiteDatabase mDatabase;
     private Executor mQueryExecutor;
     private SupportSQLiteOpenHelper mOpenHelper;
+    @Nullable
+    private FrameworkSQLiteReaderPool mReaderPool;
+    @Nullable
+    private ReadConnectionPoolStats mReaderPoolStats;
+    // total_changes() of the writable connection when the outermost transaction began, and the
+    // statement reading it, compiled once. Only used by the thread holding the transaction.
+    private long mTransactionChangesBaseline = -1;
+    @Nullable
+    private SupportSQLiteStatement mTotalChangesStatement;
+    @Nullable
+    private QueryProfiler mQueryProfiler;
+    @Nullable
+    private SlowQueryLog mSlowQueryLog;
     private final InvalidationTracker mInvalidationTracker;
     private boolean mAllowMainThreadQueries;
     boolean mWriteAheadLoggingEnabled;
@@ -134,6 +152,31 @@ public abstract class RoomDatabase {
         mQueryExecutor = configuration.queryExecutor;
         mAllowMainThreadQueries = configuration.allowMainThreadQueries;
         mWriteAheadLoggingEnabled = wal;
+        // read connections can only run concurrently with the writer in WAL mode, and only work
+        // if the file is readable by the framework, i.e. it is not opened by a custom factory.
+        if (wal && configuration.readConnectionPoolSize > 0 && configuration.name != null
+                && configuration.sqliteOpenHelperFactory
+                instanceof FrameworkSQLiteOpenHelperFactory) {
+            mReaderPool = new FrameworkSQLiteReaderPool(
+                    configuration.context.getDatabasePath(configuration.name),
+                    configuration.readConnectionPoolSize);
+            mReaderPoolStats = new ReadConnectionPoolStats(mReaderPool);
+        }
+        if (configuration.slowQueryThresholdNanos >= 0) {
+            mSlowQueryLog = new SlowQueryLog(configuration.slowQueryThresholdNanos,
+                    configuration.slowQueryLogCapacity);
+        }
+        if (configuration.queryCallback != null || mSlowQueryLog != null) {
+            mQueryProfiler = new QueryProfiler(this, configuration.queryCallback,
+                    configuration.redactQueryBindArgs, mSlowQueryLog);
+        }
+        if (configuration.maxTrackedRowsPerTable > 0) {
+            mInvalidationTracker.enableRowTracking(configuration.maxTrackedRowsPerTable);
+        }
+        if (configuration.invalidationCoalescingWindowNanos >= 0) {
+            mInvalidationTracker.enableRefreshOnCommit(
+                    configuration.invalidationCoalescingWindowNanos);
+        }
         if (configuration.multiInstanceInvalidation) {
             mInvalidationTracker.startMultiInstanceInvalidation(configuration.context,
                     configuration.name);
@@ -205,6 +248,11 @@ public abstract class RoomDatabase {
             try {
                 closeLock.lock();
                 mInvalidationTracker.stopMultiInstanceInvalidation();
+                mInvalidationTracker.stopRefreshOnCommit();
+                if (mReaderPool != null) {
+                    mReaderPool.close();
+                }
+                closeTotalChangesStatement();
                 mOpenHelper.close();
             } finally {
                 closeLock.unlock();
@@ -242,7 +290,7 @@ public abstract class RoomDatabase {
      * @return A Cursor obtained by running the given query in the Room database.
      */
     public Cursor query(String query, @Nullable Object[] args) {
-        return mOpenHelper.getWritableDatabase().query(new SimpleSQLiteQuery(query, args));
+        return queryInternal(new SimpleSQLiteQuery(query, args));
     }
 
     /**
@@ -253,7 +301,69 @@ public abstract class RoomDatabase {
      */
     public Cursor query(SupportSQLiteQuery query) {
         assertNotMainThread();
-        return mOpenHelper.getWritableDatabase().query(query);
+        return queryInternal(query);
+    }
+
+    private Cursor queryInternal(SupportSQLiteQuery query) {
+        final SupportSQLiteDatabase writer = mOpenHelper.getWritableDatabase();
+        final FrameworkSQLiteReaderPool readerPool = mReaderPool;
+        final QueryProfiler profiler = mQueryProfiler;
+        final long startNanos = profiler == null ? 0 : System.nanoTime();
+        if (readerPool == null || writer.inTransaction()
+                || !DBUtil.isReadOnlyQuery(query.getSql())) {
+            final Cursor cursor = writer.query(query);
+            return profiler == null ? cursor : profiler.profile(query, cursor, startNanos, 0);
+        }
+        final FrameworkSQLiteReaderPool.Lease lease = readerPool.acquire();
+        final long acquiredNanos = profiler == null ? 0 : System.nanoTime();
+        final Cursor cursor;
+        try {
+            cursor = lease.getConnection().query(query);
+        } catch (RuntimeException e) {
+            lease.release();
+            throw e;
+        }
+        // the cursor fills its window lazily, so the connection is leased until it is closed,
+        // possibly on another thread. DBUtil looks through the wrapper for the window, and
+        // copies results that need it through the wrapper, which releases the connection.
+        final Cursor releasingCursor = new CursorWrapper(cursor) {
+            @Override
+            public void close() {
+                try {
+                    super.close();
+                } finally {
+                    lease.release();
+                }
+            }
+        };
+        return profiler == null ? releasingCursor : profiler.profile(query, releasingCursor,
+                acquiredNanos, acquiredNanos - startNanos);
+    }
+
+    /**
+     * Returns the pool of read-only connections used to run queries concurrently, if enabled via
+     * {@link Builder#setReadConnectionPoolSize(int)}.
+     *
+     * @return The read connection pool, or null if all queries run on the writable connection.
+     *
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    @Nullable
+    public FrameworkSQLiteReaderPool getReadConnectionPool() {
+        return mReaderPool;
+    }
+
+    /**
+     * Returns statistics about how long queries waited for a read connection, if the pool is
+     * enabled via {@link Builder#setReadConnectionPoolSize(int)}.
+     *
+     * @return The read connection pool statistics, or null if all queries run on the writable
+     * connection.
+     */
+    @Nullable
+    public ReadConnectionPoolStats getReadConnectionPoolStats() {
+        return mReaderPoolStats;
     }
 
     /**
@@ -264,7 +374,21 @@ public abstract class RoomDatabase {
      */
     public SupportSQLiteStatement compileStatement(@NonNull String sql) {
         assertNotMainThread();
-        return mOpenHelper.getWritableDatabase().compileStatement(sql);
+        final SupportSQLiteStatement statement =
+                mOpenHelper.getWritableDatabase().compileStatement(sql);
+        final QueryProfiler profiler = mQueryProfiler;
+        return profiler == null ? statement : profiler.profile(sql, statement);
+    }
+
+    /**
+     * Returns the log of slow queries, if enabled via
+     * {@link Builder#enableSlowQueryLog(long, TimeUnit, int)}.
+     *
+     * @return The slow query log, or null if it is not enabled.
+     */
+    @Nullable
+    public SlowQueryLog getSlowQueryLog() {
+        return mSlowQueryLog;
     }
 
     /**
@@ -274,13 +398,73 @@ public abstract class RoomDatabase {
         assertNotMainThread();
         SupportSQLiteDatabase database = mOpenHelper.getWritableDatabase();
         mInvalidationTracker.syncTriggers(database);
+        final boolean outermost = !database.inTransaction();
         database.beginTransaction();
+        if (mInvalidationTracker.isRefreshOnCommitEnabled()) {
+            mInvalidationTracker.onTransactionBegin();
+        }
+        if (outermost && mReaderPool != null) {
+            mTransactionChangesBaseline = totalChanges(database);
+        }
+    }
+
+    /**
+     * Returns true if queries can run concurrently on the read connections while the current
+     * thread is in a transaction, without observing a different state of the database.
+     * <p>
+     * This is the case when the transaction has not modified the database yet: it holds the
+     * write lock, so no other connection can commit and all read connections see the same
+     * snapshot as the transaction itself.
+     *
+     * @return True if the read connections see the same data as the current transaction.
+     *
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    public boolean canQueryConcurrently() {
+        if (mReaderPool == null) {
+            return false;
+        }
+        final SupportSQLiteDatabase database = mOpenHelper.getWritableDatabase();
+        return database.inTransaction()
+                && totalChanges(database) == mTransactionChangesBaseline;
+    }
+
+    // Only called while the calling thread holds a transaction, which serializes the callers.
+    private long totalChanges(SupportSQLiteDatabase database) {
+        if (mTotalChangesStatement == null) {
+            mTotalChangesStatement = database.compileStatement("SELECT total_changes()");
+        }
+        return mTotalChangesStatement.simpleQueryForLong();
+    }
+
+    private void closeTotalChangesStatement() {
+        final SupportSQLiteStatement statement = mTotalChangesStatement;
+        mTotalChangesStatement = null;
+        if (statement != null) {
+            try {
+                statement.close();
+            } catch (IOException ignored) {
+            }
+        }
     }
 
     /**
      * Wrapper for {@link SupportSQLiteDatabase#endTransaction()}.
      */
     public void endTransaction() {
+        if (mInvalidationTracker.isRefreshOnCommitEnabled()) {
+            boolean ended = false;
+            try {
+                mOpenHelper.getWritableDatabase().endTransaction();
+                ended = true;
+            } finally {
+                // the changes were already read by setTransactionSuccessful, they are dispatched
+                // if the outermost transaction committed.
+                mInvalidationTracker.onTransactionEnded(ended);
+            }
+            return;
+        }
         mOpenHelper.getWritableDatabase().endTransaction();
         if (!inTransaction()) {
             // enqueue refresh only if we are NOT in a transaction. Otherwise, wait for the last
@@ -301,6 +485,9 @@ public abstract class RoomDatabase {
      * Wrapper for {@link SupportSQLiteDatabase#setTransactionSuccessful()}.
      */
     public void setTransactionSuccessful() {
+        if (mInvalidationTracker.isRefreshOnCommitEnabled()) {
+            mInvalidationTracker.onTransactionSuccessful();
+        }
         mOpenHelper.getWritableDatabase().setTransactionSuccessful();
     }
 
@@ -442,6 +629,13 @@ public abstract class RoomDatabase {
         private boolean mAllowMainThreadQueries;
         private JournalMode mJournalMode;
         private boolean mMultiInstanceInvalidation;
+        private int mReadConnectionPoolSize;
+        private int mMaxTrackedRowsPerTable;
+        private long mInvalidationCoalescingWindowNanos = -1;
+        private QueryCallback mQueryCallback;
+        private boolean mRedactQueryBindArgs;
+        private long mSlowQueryThresholdNanos = -1;
+        private int mSlowQueryLogCapacity;
         private boolean mRequireMigration;
         private boolean mAllowDestructiveMigrationOnDowngrade;
         /**
@@ -568,6 +762,162 @@ public abstract class RoomDatabase {
             return this;
         }
 
+        /**
+         * Sets the number of read-only connections Room uses to run queries concurrently.
+         * <p>
+         * By default, all queries go through a single connection and run one after the other. In
+         * {@link JournalMode#WRITE_AHEAD_LOGGING} mode, SQLite can serve readers in parallel with
+         * each other and with the writer, so Room can route queries that do not run inside a
+         * transaction to a pool of read-only connections. Writes and transactions always use the
+         * single writable connection.
+         * <p>
+         * Room only sends a query to the pool when its text is a single {@code SELECT} or
+         * {@code VALUES} statement, optionally preceded by comments and {@code WITH} clauses.
+         * Other statements, including {@code PRAGMA} reads, run on the writable connection.
+         * <p>
+         * A query holds its connection until the returned {@link Cursor} is closed, so cursors
+         * returned by {@code @Query} methods must always be closed when a pool is used.
+         * <p>
+         * This value is ignored for in-memory databases, databases not using write-ahead
+         * logging and databases opened by a custom {@link #openHelperFactory}.
+         * <p>
+         * The default value is 0, which disables the read connection pool.
+         *
+         * @param size The maximum number of read-only connections.
+         * @return this
+         */
+        @NonNull
+        public Builder<T> setReadConnectionPoolSize(int size) {
+            if (size < 0) {
+                throw new IllegalArgumentException("Read connection pool size cannot be"
+                        + " negative.");
+            }
+            mReadConnectionPoolSize = size;
+            return this;
+        }
+
+        /**
+         * Enables row level invalidation.
+         * <p>
+         * By default, {@link InvalidationTracker} only knows which tables were modified by a
+         * transaction. With row level invalidation, it also records the rowids of the modified
+         * rows and passes them to
+         * {@link InvalidationTracker.Observer#onInvalidated(Set, java.util.Map)}, so observers can
+         * ignore changes to rows they do not care about. A {@code LiveData} returned by a
+         * {@link Query} method that selects the rows of an entity with an {@code INTEGER}
+         * primary key, such as {@code WHERE id = :id} or {@code WHERE id IN (:ids)}, is not
+         * computed again when only other rows of the entity change.
+         * <p>
+         * Recording rowids makes each write to an observed table slightly more expensive. If more
+         * than {@code maxTrackedRowsPerTable} rows of a table are modified between two refreshes
+         * of the tracker, the remaining rowids are not recorded and the table is reported as
+         * changed as a whole.
+         * <p>
+         * This is not enabled by default.
+         *
+         * @param maxTrackedRowsPerTable The maximum number of modified rows to record per table.
+         * @return this
+         */
+        @NonNull
+        public Builder<T> enableRowLevelInvalidation(int maxTrackedRowsPerTable) {
+            if (maxTrackedRowsPerTable < 1) {
+                throw new IllegalArgumentException("The number of tracked rows must be"
+                        + " positive.");
+            }
+            mMaxTrackedRowsPerTable = maxTrackedRowsPerTable;
+            return this;
+        }
+
+        /**
+         * Refreshes the {@link InvalidationTracker} within each committing transaction.
+         * <p>
+         * By default, when a transaction ends, the {@link InvalidationTracker} posts a task to
+         * the query executor which opens another transaction to read and reset the list of
+         * modified tables. With this option, the list is read right before
+         * {@link RoomDatabase#setTransactionSuccessful()} marks the outermost transaction
+         * successful, and the observers are notified on the committing thread once it commits.
+         * Nothing is dispatched for a transaction that rolls back, including when one of its
+         * nested transactions was not marked successful.
+         * <p>
+         * Commits that end within {@code coalescingWindow} of the previous notification are
+         * merged and dispatched together at the end of the window, on a background thread owned
+         * by the tracker. A window of 0 notifies the observers after every commit.
+         * <p>
+         * Writes made outside of {@link RoomDatabase#beginTransaction()} still require a call to
+         * {@link InvalidationTracker#refreshVersionsAsync()}.
+         * <p>
+         * This is not enabled by default.
+         *
+         * @param coalescingWindow The minimum time between two notifications of the observers.
+         * @param timeUnit         The unit of {@code coalescingWindow}.
+         * @return this
+         */
+        @NonNull
+        public Builder<T> enableInvalidationRefreshOnCommit(long coalescingWindow,
+                @NonNull TimeUnit timeUnit) {
+            if (coalescingWindow < 0) {
+                throw new IllegalArgumentException("The coalescing window cannot be negative.");
+            }
+            mInvalidationCoalescingWindowNanos = timeUnit.toNanos(coalescingWindow);
+            return this;
+        }
+
+        /**
+         * Sets a callback notified after each query or compiled statement run through this
+         * database, with its SQL, bind arguments and timings.
+         * <p>
+         * The callback is invoked on the thread that ran the query, when its cursor is closed, or
+         * right after the statement executed, so it should return quickly.
+         *
+         * @param callback The callback to notify.
+         * @return this
+         * @see #redactQueryBindArgs()
+         */
+        @NonNull
+        public Builder<T> setQueryCallback(@NonNull QueryCallback callback) {
+            mQueryCallback = callback;
+            return this;
+        }
+
+        /**
+         * Removes the bind arguments from the {@link QueryProfile}s passed to the query callback
+         * and kept in the slow query log, e.g. when they may contain personal data.
+         *
+         * @return this
+         */
+        @NonNull
+        public Builder<T> redactQueryBindArgs() {
+            mRedactQueryBindArgs = true;
+            return this;
+        }
+
+        /**
+         * Keeps the profiles of the last {@code capacity} queries that took longer than
+         * {@code threshold} to run, along with their {@code EXPLAIN QUERY PLAN} output, in the
+         * {@link SlowQueryLog} returned by {@link RoomDatabase#getSlowQueryLog()}.
+         * <p>
+         * The query plan is captured on the thread that ran the query, so a threshold of 0 makes
+         * every query run twice.
+         *
+         * @param threshold The execution time above which a query is logged.
+         * @param timeUnit  The unit of {@code threshold}.
+         * @param capacity  The maximum number of queries kept in the log.
+         * @return this
+         */
+        @NonNull
+        public Builder<T> enableSlowQueryLog(long threshold, @NonNull TimeUnit timeUnit,
+                int capacity) {
+            if (threshold < 0) {
+                throw new IllegalArgumentException("The threshold cannot be negative.");
+            }
+            if (capacity < 1) {
+                throw new IllegalArgumentException("The capacity must be at least 1.");
+            }
+            mSlowQueryThresholdNanos = timeUnit.toNanos(threshold);
+            mSlowQueryLogCapacity = capacity;
+            return this;
+        }
+
         /**
          * Sets whether table invalidation in this instance of {@link RoomDatabase} should be
          * broadcast and synchronized with other instances of the same {@link RoomDatabase},
@@ -725,7 +1075,14 @@ public abstract class RoomDatabase {
                             mQueryExecutor,
                             mMultiInstanceInvalidation,
                             mRequireMigration,
-                            mAllowDestructiveMigrationOnDowngrade, mMigrationsNotRequiredFrom);
+                            mAllowDestructiveMigrationOnDowngrade, mMigrationsNotRequiredFrom,
+                            mReadConnectionPoolSize,
+                            mMaxTrackedRowsPerTable,
+                            mInvalidationCoalescingWindowNanos,
+                            mQueryCallback,
+                            mRedactQueryBindArgs,
+                            mSlowQueryThresholdNanos,
+                            mSlowQueryLogCapacity);
             T db = Room.getGeneratedImplementation(mDatabaseClass, DB_IMPL_SUFFIX);
             db.init(configuration);
             return db;
@@ -858,4 +1215,18 @@ public abstract class RoomDatabase {
         public void onOpen(@NonNull SupportSQLiteDatabase db) {
         }
     }
+
+    /**
+     * Callback notified of the queries run by a {@link RoomDatabase}.
+     *
+     * @see Builder#setQueryCallback(QueryCallback)
+     */
+    public interface QueryCallback {
+        /**
+         * Called after a query or compiled statement ran.
+         *
+         * @param profile The SQL, bind arguments and timings of the query.
+         */
+        void onQuery(@NonNull QueryProfile profile);
+    }
 }
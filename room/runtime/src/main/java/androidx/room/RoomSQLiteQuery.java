@@ -25,15 +25,19 @@ import androidx.sqlite.db.SupportSQLiteQuery;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.util.Arrays;
-import java.util.Iterator;
-import java.util.Map;
-import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * This class is used as an intermediate place to keep binding arguments so that we can run
  * Cursor queries with correct types rather than passing everything as a string.
  * <p>
  * Because it is relatively a big object, they are pooled and must be released after each use.
+ * <p>
+ * The pool is bucketed by size class: a query for {@code n} arguments is allocated with a capacity
+ * of the next {@code 2^k - 1} and lives in bucket {@code k}. Each bucket has a few slots which are
+ * claimed and filled with atomic operations, starting from a slot picked by the calling thread, so
+ * concurrent acquire and release calls neither lock nor usually touch the same slot.
  *
  * @hide
  */
@@ -42,13 +46,24 @@ import java.util.TreeMap;
 public class RoomSQLiteQuery implements SupportSQLiteQuery, SupportSQLiteProgram {
     @SuppressWarnings("WeakerAccess")
     @VisibleForTesting
-    // Maximum number of queries we'll keep cached.
-    static final int POOL_LIMIT = 15;
-    @SuppressWarnings("WeakerAccess")
-    @VisibleForTesting
-    // Once we hit POOL_LIMIT, we'll bring the pool size back to the desired number. We always
-    // clear the bigger queries (# of arguments).
-    static final int DESIRED_POOL_SIZE = 10;
+    // Number of size classes, the largest one has a capacity of 2^(SIZE_CLASS_COUNT - 1) - 1 which
+    // covers RoomDatabase.MAX_BIND_PARAMETER_CNT. Larger queries are not pooled.
+    static final int SIZE_CLASS_COUNT = 11;
+    // Slots per size class. Small queries are the most common so they get more slots, large ones
+    // are expensive to keep around.
+    private static final int[] SLOT_COUNTS = {4, 4, 4, 4, 4, 2, 2, 1, 1, 1, 1};
+    private static final int[] SLOT_OFFSETS = new int[SIZE_CLASS_COUNT];
+    private static final int TOTAL_SLOTS;
+
+    static {
+        int offset = 0;
+        for (int i = 0; i < SIZE_CLASS_COUNT; i++) {
+            SLOT_OFFSETS[i] = offset;
+            offset += SLOT_COUNTS[i];
+        }
+        TOTAL_SLOTS = offset;
+    }
+
     private volatile String mQuery;
     @SuppressWarnings("WeakerAccess")
     @VisibleForTesting
@@ -76,7 +91,19 @@ public class RoomSQLiteQuery implements SupportSQLiteQuery, SupportSQLiteProgram
 
     @SuppressWarnings("WeakerAccess")
     @VisibleForTesting
-    static final TreeMap<Integer, RoomSQLiteQuery> sQueryPool = new TreeMap<>();
+    static final AtomicReferenceArray<RoomSQLiteQuery> sQueryPool =
+            new AtomicReferenceArray<>(TOTAL_SLOTS);
+
+    // Hit and miss counts are striped by thread, like the pool slots, so counting does not bring
+    // back a single contended cache line. Each stripe is padded to 128 bytes and the stripes are
+    // summed when read.
+    private static final int COUNTER_STRIPES = 8;
+    private static final int COUNTER_STRIDE = 16;
+
+    private static final AtomicLongArray sPoolHits =
+            new AtomicLongArray(COUNTER_STRIPES * COUNTER_STRIDE);
+    private static final AtomicLongArray sPoolMisses =
+            new AtomicLongArray(COUNTER_STRIPES * COUNTER_STRIDE);
 
     /**
      * Copies the given SupportSQLiteQuery and converts it into RoomSQLiteQuery.
@@ -138,17 +165,27 @@ public class RoomSQLiteQuery implements SupportSQLiteQuery, SupportSQLiteProgram
      */
     @SuppressWarnings("WeakerAccess")
     public static RoomSQLiteQuery acquire(String query, int argumentCount) {
-        synchronized (sQueryPool) {
-            final Map.Entry<Integer, RoomSQLiteQuery> entry =
-                    sQueryPool.ceilingEntry(argumentCount);
-            if (entry != null) {
-                sQueryPool.remove(entry.getKey());
-                final RoomSQLiteQuery sqliteQuery = entry.getValue();
-                sqliteQuery.init(query, argumentCount);
-                return sqliteQuery;
+        final int sizeClass = sizeClassOf(argumentCount);
+        if (sizeClass < SIZE_CLASS_COUNT) {
+            final int offset = SLOT_OFFSETS[sizeClass];
+            final int slotCount = SLOT_COUNTS[sizeClass];
+            final int start = threadStripe(slotCount);
+            for (int i = 0; i < slotCount; i++) {
+                final int slot = offset + (start + i) % slotCount;
+                if (sQueryPool.get(slot) == null) {
+                    continue;
+                }
+                final RoomSQLiteQuery sqliteQuery = sQueryPool.getAndSet(slot, null);
+                if (sqliteQuery != null) {
+                    increment(sPoolHits);
+                    sqliteQuery.init(query, argumentCount);
+                    return sqliteQuery;
+                }
             }
         }
-        RoomSQLiteQuery sqLiteQuery = new RoomSQLiteQuery(argumentCount);
+        increment(sPoolMisses);
+        final int capacity = sizeClass < SIZE_CLASS_COUNT ? capacityOf(sizeClass) : argumentCount;
+        RoomSQLiteQuery sqLiteQuery = new RoomSQLiteQuery(capacity);
         sqLiteQuery.init(query, argumentCount);
         return sqLiteQuery;
     }
@@ -179,21 +216,85 @@ public class RoomSQLiteQuery implements SupportSQLiteQuery, SupportSQLiteProgram
      */
     @SuppressWarnings("WeakerAccess")
     public void release() {
-        synchronized (sQueryPool) {
-            sQueryPool.put(mCapacity, this);
-            prunePoolLocked();
+        final int sizeClass = sizeClassOf(mCapacity);
+        if (sizeClass >= SIZE_CLASS_COUNT || capacityOf(sizeClass) != mCapacity) {
+            return;
+        }
+        final int offset = SLOT_OFFSETS[sizeClass];
+        final int slotCount = SLOT_COUNTS[sizeClass];
+        final int start = threadStripe(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            final int slot = offset + (start + i) % slotCount;
+            if (sQueryPool.get(slot) == null && sQueryPool.compareAndSet(slot, null, this)) {
+                return;
+            }
         }
+        // size class is full, let this one be garbage collected.
     }
 
-    private static void prunePoolLocked() {
-        if (sQueryPool.size() > POOL_LIMIT) {
-            int toBeRemoved = sQueryPool.size() - DESIRED_POOL_SIZE;
-            final Iterator<Integer> iterator = sQueryPool.descendingKeySet().iterator();
-            while (toBeRemoved-- > 0) {
-                iterator.next();
-                iterator.remove();
+    /**
+     * @return The number of {@link #acquire(String, int)} calls that reused a pooled query.
+     */
+    public static long getPoolHitCount() {
+        return sum(sPoolHits);
+    }
+
+    /**
+     * @return The number of {@link #acquire(String, int)} calls that allocated a new query.
+     */
+    public static long getPoolMissCount() {
+        return sum(sPoolMisses);
+    }
+
+    @VisibleForTesting
+    static int getPooledQueryCount() {
+        int count = 0;
+        for (int i = 0; i < TOTAL_SLOTS; i++) {
+            if (sQueryPool.get(i) != null) {
+                count++;
             }
         }
+        return count;
+    }
+
+    /**
+     * Empties the pool and resets its hit and miss counts.
+     */
+    @VisibleForTesting(otherwise = VisibleForTesting.PACKAGE_PRIVATE)
+    public static void clearPool() {
+        for (int i = 0; i < TOTAL_SLOTS; i++) {
+            sQueryPool.set(i, null);
+        }
+        for (int i = 0; i < COUNTER_STRIPES; i++) {
+            sPoolHits.set(i * COUNTER_STRIDE, 0);
+            sPoolMisses.set(i * COUNTER_STRIDE, 0);
+        }
+    }
+
+    @VisibleForTesting
+    static int sizeClassOf(int argumentCount) {
+        return 32 - Integer.numberOfLeadingZeros(argumentCount);
+    }
+
+    @VisibleForTesting
+    static int capacityOf(int sizeClass) {
+        return (1 << sizeClass) - 1;
+    }
+
+    private static int threadStripe(int slotCount) {
+        return slotCount == 1 ? 0 : (int) (Thread.currentThread().getId() % slotCount);
+    }
+
+    private static void increment(AtomicLongArray counts) {
+        counts.incrementAndGet(threadStripe(COUNTER_STRIPES) * COUNTER_STRIDE);
+    }
+
+    private static long sum(AtomicLongArray counts) {
+        long sum = 0;
+        for (int i = 0; i < COUNTER_STRIPES; i++) {
+            sum += counts.get(i * COUNTER_STRIDE);
+        }
+        return sum;
     }
 
     @Override
@@ -20,10 +20,13 @@ import android.annotation.SuppressLint;
 
 import androidx.annotation.MainThread;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.WorkerThread;
 import androidx.arch.core.executor.ArchTaskExecutor;
 import androidx.lifecycle.LiveData;
 
+import java.util.Arrays;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -126,17 +129,79 @@ class RoomTrackingLiveData<T> extends LiveData<T> {
             InvalidationLiveDataContainer container,
             Callable<T> computeFunction,
             String[] tableNames) {
+        this(database, container, computeFunction, tableNames, null, null);
+    }
+
+    /**
+     * Creates a LiveData whose value only depends on the given rows of {@code keyTable}, plus any
+     * row of the other tables. When row level invalidation is enabled, changes to other rows of
+     * {@code keyTable} do not trigger a new computation.
+     */
+    @SuppressLint("RestrictedApi")
+    RoomTrackingLiveData(
+            RoomDatabase database,
+            InvalidationLiveDataContainer container,
+            Callable<T> computeFunction,
+            String[] tableNames,
+            @Nullable final String keyTable,
+            @Nullable long[] keyRowIds) {
         mDatabase = database;
         mComputeFunction = computeFunction;
         mContainer = container;
+        final long[] sortedKeyRowIds;
+        if (keyRowIds != null) {
+            sortedKeyRowIds = Arrays.copyOf(keyRowIds, keyRowIds.length);
+            Arrays.sort(sortedKeyRowIds);
+        } else {
+            sortedKeyRowIds = null;
+        }
         mObserver = new InvalidationTracker.Observer(tableNames) {
             @Override
             public void onInvalidated(@NonNull Set<String> tables) {
                 ArchTaskExecutor.getInstance().executeOnMainThread(mInvalidationRunnable);
             }
+
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables,
+                    @NonNull Map<String, long[]> changedRowIds) {
+                if (sortedKeyRowIds != null && tables.size() == 1
+                        && !containsAny(tables.iterator().next(), keyTable, changedRowIds,
+                        sortedKeyRowIds)) {
+                    return;
+                }
+                onInvalidated(tables);
+            }
         };
     }
 
+    /**
+     * @return false only if {@code table} is the key table and its changed rowids are known and
+     * do not intersect with the key rowids.
+     */
+    static boolean containsAny(String table, String keyTable, Map<String, long[]> changedRowIds,
+            long[] sortedKeyRowIds) {
+        if (!table.equalsIgnoreCase(keyTable)) {
+            return true;
+        }
+        final long[] changed = changedRowIds.get(table);
+        if (changed == null) {
+            return true;
+        }
+        // both arrays are sorted
+        int i = 0;
+        int j = 0;
+        while (i < changed.length && j < sortedKeyRowIds.length) {
+            if (changed[i] == sortedKeyRowIds[j]) {
+                return true;
+            } else if (changed[i] < sortedKeyRowIds[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return false;
+    }
+
     @Override
     protected void onActive() {
         super.onActive();
@@ -62,6 +62,13 @@ public abstract class SharedSQLiteStatement {
 
     private SupportSQLiteStatement createNewStatement() {
         String query = createQuery();
+        return compileStatement(query);
+    }
+
+    /**
+     * Compiles the given query in the database of this statement.
+     */
+    SupportSQLiteStatement compileStatement(String query) {
         return mDatabase.compileStatement(query);
     }
 
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the profiles of the most recent queries that took longer than a threshold to run.
+ * <p>
+ * The log is a fixed size ring buffer: once full, each new slow query replaces the oldest one.
+ *
+ * @see RoomDatabase.Builder#enableSlowQueryLog(long, TimeUnit, int)
+ * @see RoomDatabase#getSlowQueryLog()
+ */
+@SuppressWarnings("WeakerAccess")
+public final class SlowQueryLog {
+    private final long mThresholdNanos;
+    private final QueryProfile[] mEntries;
+    // index of the next entry to write
+    private int mNext;
+    private long mTotalCount;
+
+    SlowQueryLog(long thresholdNanos, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1, was " + capacity);
+        }
+        mThresholdNanos = thresholdNanos;
+        mEntries = new QueryProfile[capacity];
+    }
+
+    boolean isSlow(long executionTimeNanos) {
+        return executionTimeNanos >= mThresholdNanos;
+    }
+
+    synchronized void add(QueryProfile profile) {
+        mEntries[mNext] = profile;
+        mNext = (mNext + 1) % mEntries.length;
+        mTotalCount++;
+    }
+
+    /**
+     * @return The profiles of the slow queries in the log, the oldest first.
+     */
+    @NonNull
+    public synchronized List<QueryProfile> getEntries() {
+        final List<QueryProfile> result = new ArrayList<>(mEntries.length);
+        for (int i = 0; i < mEntries.length; i++) {
+            final QueryProfile profile = mEntries[(mNext + i) % mEntries.length];
+            if (profile != null) {
+                result.add(profile);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Removes all entries from the log.
+     */
+    public synchronized void clear() {
+        for (int i = 0; i < mEntries.length; i++) {
+            mEntries[i] = null;
+        }
+        mNext = 0;
+    }
+
+    /**
+     * @return The execution time in nanoseconds above which a query is logged.
+     */
+    public long getThresholdNanos() {
+        return mThresholdNanos;
+    }
+
+    /**
+     * @return The maximum number of entries kept by the log.
+     */
+    public int getCapacity() {
+        return mEntries.length;
+    }
+
+    /**
+     * @return The number of slow queries recorded since the database was opened, including the
+     * ones that are no longer in the log.
+     */
+    public synchronized long getTotalCount() {
+        return mTotalCount;
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.paging;
+
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+import androidx.paging.ItemKeyedDataSource;
+import androidx.room.InvalidationTracker;
+import androidx.room.RoomDatabase;
+import androidx.room.RoomSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteQuery;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A data source implementation that pages the query by seeking on an indexed, unique key column.
+ * <p>
+ * Unlike {@link LimitOffsetDataSource}, each page is loaded with a
+ * {@code WHERE key > ? ORDER BY key LIMIT ?} query so the cost of loading a page does not depend on
+ * how far the user has scrolled. The total row count is only computed when the
+ * {@link androidx.paging.PagedList} requests placeholders.
+ * <p>
+ * The key column must be unique, otherwise rows sharing a key at a page boundary will be skipped.
+ * Rows are always returned in ascending key order, so the source query must either have no ORDER BY
+ * clause or be ordered by the key column, ascending. The compiler rejects any other ORDER BY.
+ *
+ * @param <Key> Type of the key column.
+ * @param <T> Data type returned by the data source.
+ *
+ * @hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+public abstract class KeysetDataSource<Key, T> extends ItemKeyedDataSource<Key, T> {
+    private final RoomSQLiteQuery mSourceQuery;
+    private final String mCountQuery;
+    private final String mCountBeforeQuery;
+    private final String mFirstPageQuery;
+    private final String mAtOrAfterQuery;
+    private final String mAfterQuery;
+    private final String mBeforeQuery;
+    private final RoomDatabase mDb;
+    @SuppressWarnings("FieldCanBeLocal")
+    private final InvalidationTracker.Observer mObserver;
+    private final boolean mInTransaction;
+
+    protected KeysetDataSource(RoomDatabase db, SupportSQLiteQuery query,
+            boolean inTransaction, String keyColumn, String... tables) {
+        this(db, RoomSQLiteQuery.copyFrom(query), inTransaction, keyColumn, tables);
+    }
+
+    protected KeysetDataSource(RoomDatabase db, RoomSQLiteQuery query,
+            boolean inTransaction, String keyColumn, String... tables) {
+        mDb = db;
+        mSourceQuery = query;
+        mInTransaction = inTransaction;
+        final String source = "SELECT * FROM ( " + mSourceQuery.getSql() + " )";
+        final String key = "`" + keyColumn + "`";
+        mCountQuery = "SELECT COUNT(*) FROM ( " + mSourceQuery.getSql() + " )";
+        mCountBeforeQuery = mCountQuery + " WHERE " + key + " < ?";
+        mFirstPageQuery = source + " ORDER BY " + key + " ASC LIMIT ?";
+        mAtOrAfterQuery = source + " WHERE " + key + " >= ? ORDER BY " + key + " ASC LIMIT ?";
+        mAfterQuery = source + " WHERE " + key + " > ? ORDER BY " + key + " ASC LIMIT ?";
+        mBeforeQuery = source + " WHERE " + key + " < ? ORDER BY " + key + " DESC LIMIT ?";
+        mObserver = new InvalidationTracker.Observer(tables) {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                invalidate();
+            }
+        };
+        db.getInvalidationTracker().addWeakObserver(mObserver);
+    }
+
+    @Override
+    public boolean isInvalid() {
+        mDb.getInvalidationTracker().refreshVersionsSync();
+        return super.isInvalid();
+    }
+
+    @SuppressWarnings("WeakerAccess")
+    protected abstract List<T> convertRows(Cursor cursor);
+
+    @NonNull
+    @Override
+    public abstract Key getKey(@NonNull T item);
+
+    /**
+     * Count number of rows query can return
+     */
+    @SuppressWarnings("WeakerAccess")
+    public int countItems() {
+        final RoomSQLiteQuery sqLiteQuery = RoomSQLiteQuery.acquire(mCountQuery,
+                mSourceQuery.getArgCount());
+        sqLiteQuery.copyArgumentsFrom(mSourceQuery);
+        return queryCount(sqLiteQuery);
+    }
+
+    /**
+     * Count number of rows whose key is strictly smaller than the given key, which is the
+     * position of that key in the list.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public int countItemsBefore(@NonNull Key key) {
+        final RoomSQLiteQuery sqLiteQuery = RoomSQLiteQuery.acquire(mCountBeforeQuery,
+                mSourceQuery.getArgCount() + 1);
+        sqLiteQuery.copyArgumentsFrom(mSourceQuery);
+        bindKey(sqLiteQuery, sqLiteQuery.getArgCount(), key);
+        return queryCount(sqLiteQuery);
+    }
+
+    @Override
+    public void loadInitial(@NonNull LoadInitialParams<Key> params,
+            @NonNull LoadInitialCallback<T> callback) {
+        final Key initialKey = params.requestedInitialKey;
+        List<T> list = null;
+        if (initialKey != null) {
+            list = loadPage(mAtOrAfterQuery, initialKey, params.requestedLoadSize, false);
+        }
+        if (list == null || list.isEmpty()) {
+            // no anchor, or every row at or after the anchor is gone; restart from the top.
+            list = loadPage(mFirstPageQuery, null, params.requestedLoadSize, false);
+        }
+        if (list == null) {
+            invalidate();
+            return;
+        }
+        if (!params.placeholdersEnabled) {
+            callback.onResult(list);
+            return;
+        }
+        if (list.isEmpty()) {
+            callback.onResult(Collections.<T>emptyList(), 0, 0);
+            return;
+        }
+        final int totalCount = countItems();
+        final int position = initialKey == null ? 0 : countItemsBefore(getKey(list.get(0)));
+        if (position + list.size() <= totalCount) {
+            callback.onResult(list, position, totalCount);
+        } else {
+            // DB modified between load and count
+            invalidate();
+        }
+    }
+
+    @Override
+    public void loadAfter(@NonNull LoadParams<Key> params, @NonNull LoadCallback<T> callback) {
+        List<T> list = loadPage(mAfterQuery, params.key, params.requestedLoadSize, false);
+        if (list != null) {
+            callback.onResult(list);
+        } else {
+            invalidate();
+        }
+    }
+
+    @Override
+    public void loadBefore(@NonNull LoadParams<Key> params, @NonNull LoadCallback<T> callback) {
+        List<T> list = loadPage(mBeforeQuery, params.key, params.requestedLoadSize, true);
+        if (list != null) {
+            callback.onResult(list);
+        } else {
+            invalidate();
+        }
+    }
+
+    /**
+     * Binds the given key to the query. The default implementation supports integral, floating
+     * point, String and byte[] keys.
+     */
+    @SuppressWarnings("WeakerAccess")
+    protected void bindKey(RoomSQLiteQuery query, int index, Key key) {
+        if (key instanceof Long || key instanceof Integer || key instanceof Short
+                || key instanceof Byte) {
+            query.bindLong(index, ((Number) key).longValue());
+        } else if (key instanceof Double || key instanceof Float) {
+            query.bindDouble(index, ((Number) key).doubleValue());
+        } else if (key instanceof String) {
+            query.bindString(index, (String) key);
+        } else if (key instanceof byte[]) {
+            query.bindBlob(index, (byte[]) key);
+        } else {
+            throw new IllegalArgumentException("Cannot bind " + key + " as a paging key. Override"
+                    + " bindKey to support this type.");
+        }
+    }
+
+    private int queryCount(RoomSQLiteQuery sqLiteQuery) {
+        Cursor cursor = mDb.query(sqLiteQuery);
+        try {
+            if (cursor.moveToFirst()) {
+                return cursor.getInt(0);
+            }
+            return 0;
+        } finally {
+            cursor.close();
+            sqLiteQuery.release();
+        }
+    }
+
+    @Nullable
+    private List<T> loadPage(String sql, @Nullable Key key, int loadCount, boolean reverse) {
+        final int extraArgs = key == null ? 1 : 2;
+        final RoomSQLiteQuery sqLiteQuery = RoomSQLiteQuery.acquire(sql,
+                mSourceQuery.getArgCount() + extraArgs);
+        sqLiteQuery.copyArgumentsFrom(mSourceQuery);
+        if (key != null) {
+            bindKey(sqLiteQuery, sqLiteQuery.getArgCount() - 1, key);
+        }
+        sqLiteQuery.bindLong(sqLiteQuery.getArgCount(), loadCount);
+        List<T> rows;
+        if (mInTransaction) {
+            mDb.beginTransaction();
+            Cursor cursor = null;
+            try {
+                cursor = mDb.query(sqLiteQuery);
+                rows = convertRows(cursor);
+                mDb.setTransactionSuccessful();
+            } finally {
+                if (cursor != null) {
+                    cursor.close();
+                }
+                mDb.endTransaction();
+                sqLiteQuery.release();
+            }
+        } else {
+            Cursor cursor = mDb.query(sqLiteQuery);
+            //noinspection TryFinallyCanBeTryWithResources
+            try {
+                rows = convertRows(cursor);
+            } finally {
+                cursor.close();
+                sqLiteQuery.release();
+            }
+        }
+        if (rows != null && reverse) {
+            Collections.reverse(rows);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.util;
+
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RestrictTo;
+import androidx.room.CloseableIterator;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A {@link CloseableIterator} that moves a cursor forward and converts each row with
+ * {@link #convert(Cursor)}. Used by the generated code for query methods returning
+ * {@link CloseableIterator}.
+ *
+ * @param <T> The type of the rows.
+ * @hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+public abstract class CursorIterator<T> implements CloseableIterator<T> {
+    private final Cursor mCursor;
+    // whether mCursor was moved to the row returned by the next call to next()
+    private boolean mMoved;
+    private boolean mHasNext;
+    private boolean mClosed;
+
+    protected CursorIterator(@NonNull Cursor cursor) {
+        mCursor = cursor;
+    }
+
+    /**
+     * Converts the current row of the cursor.
+     *
+     * @param cursor The cursor, positioned on the row to convert.
+     * @return The converted row.
+     */
+    protected abstract T convert(@NonNull Cursor cursor);
+
+    @Override
+    public boolean hasNext() {
+        if (!mMoved) {
+            mHasNext = mCursor.moveToNext();
+            mMoved = true;
+            if (!mHasNext) {
+                close();
+            }
+        }
+        return mHasNext;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        mMoved = false;
+        return convert(mCursor);
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("Query results cannot be removed.");
+    }
+
+    @Override
+    public void close() {
+        // nothing is left to read once closed
+        mMoved = true;
+        mHasNext = false;
+        if (!mClosed) {
+            mClosed = true;
+            mCursor.close();
+        }
+    }
+}
@@ -18,6 +18,7 @@ package androidx.room.util;
 
 import android.database.AbstractWindowedCursor;
 import android.database.Cursor;
+import android.database.CursorWrapper;
 import android.os.Build;
 
 import androidx.annotation.NonNull;
@@ -28,6 +29,7 @@ import androidx.sqlite.db.SupportSQLiteQuery;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 /**
  * Database utilities for Room
@@ -52,9 +54,11 @@ public class DBUtil {
     @NonNull
     public static Cursor query(RoomDatabase db, SupportSQLiteQuery sqLiteQuery, boolean maybeCopy) {
         final Cursor cursor = db.query(sqLiteQuery);
-        if (maybeCopy && cursor instanceof AbstractWindowedCursor) {
-            AbstractWindowedCursor windowedCursor = (AbstractWindowedCursor) cursor;
-            int rowsInCursor = windowedCursor.getCount(); // Should fill the window.
+        final Cursor unwrapped = unwrap(cursor);
+        if (maybeCopy && unwrapped instanceof AbstractWindowedCursor) {
+            AbstractWindowedCursor windowedCursor = (AbstractWindowedCursor) unwrapped;
+            // the wrappers see the rows being read and closed, so they are read through them.
+            int rowsInCursor = cursor.getCount(); // Should fill the window.
             int rowsInWindow;
             if (windowedCursor.hasWindow()) {
                 rowsInWindow = windowedCursor.getWindow().getNumRows();
@@ -62,13 +66,24 @@ public class DBUtil {
                 rowsInWindow = rowsInCursor;
             }
             if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M || rowsInWindow < rowsInCursor) {
-                return CursorUtil.copyAndClose(windowedCursor);
+                return CursorUtil.copyAndClose(cursor);
             }
         }
 
         return cursor;
     }
 
+    /**
+     * Returns the cursor wrapped by {@link RoomDatabase#query(SupportSQLiteQuery)}, which may wrap
+     * it to profile the query, or to release its read connection when it is closed.
+     */
+    private static Cursor unwrap(Cursor cursor) {
+        while (cursor instanceof CursorWrapper) {
+            cursor = ((CursorWrapper) cursor).getWrappedCursor();
+        }
+        return cursor;
+    }
+
     /**
      * Drops all FTS content sync triggers created by Room.
      * <p>
@@ -96,6 +111,83 @@ public class DBUtil {
         }
     }
 
+    /**
+     * Returns whether the given SQL is a single statement that only reads the database: a
+     * {@code SELECT} or {@code VALUES} statement, which may start with common table expressions
+     * ({@code WITH ... SELECT}) and comments.
+     * <p>
+     * The framework does not expose {@code sqlite3_stmt_readonly()}, so this looks at the text of
+     * the statement and errs on the side of returning false. In particular, {@code PRAGMA}
+     * statements are never read-only here, since many of them change or report the settings of
+     * the connection they run on, and neither is a statement followed by another statement.
+     *
+     * @param sql The SQL to check.
+     * @return True if the SQL only reads the database.
+     */
+    public static boolean isReadOnlyQuery(@NonNull String sql) {
+        final int length = sql.length();
+        int depth = 0;
+        boolean firstWord = true;
+        boolean withClause = false;
+        boolean readOnly = false;
+        boolean ended = false;
+        int i = 0;
+        while (i < length) {
+            final char c = sql.charAt(i);
+            if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                final int newline = sql.indexOf('\n', i + 2);
+                i = newline < 0 ? length : newline + 1;
+            } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                final int close = sql.indexOf("*/", i + 2);
+                i = close < 0 ? length : close + 2;
+            } else if (Character.isWhitespace(c)) {
+                i++;
+            } else if (ended) {
+                // another statement follows the first one.
+                return false;
+            } else if (c == '\'' || c == '"' || c == '`' || c == '[') {
+                // an escaped quote reads as two adjacent literals, which is fine here.
+                final int close = sql.indexOf(c == '[' ? ']' : c, i + 1);
+                if (close < 0) {
+                    return false;
+                }
+                i = close + 1;
+            } else if (isWordChar(c)) {
+                int end = i + 1;
+                while (end < length && isWordChar(sql.charAt(end))) {
+                    end++;
+                }
+                if (depth == 0 && !readOnly) {
+                    final String word = sql.substring(i, end).toUpperCase(Locale.US);
+                    if ("SELECT".equals(word) || "VALUES".equals(word)) {
+                        readOnly = true;
+                    } else if (firstWord && "WITH".equals(word)) {
+                        withClause = true;
+                    } else if (!withClause || "INSERT".equals(word) || "REPLACE".equals(word)
+                            || "UPDATE".equals(word) || "DELETE".equals(word)) {
+                        return false;
+                    }
+                    firstWord = false;
+                }
+                i = end;
+            } else {
+                if (c == '(') {
+                    depth++;
+                } else if (c == ')') {
+                    depth--;
+                } else if (c == ';' && depth == 0) {
+                    ended = true;
+                }
+                i++;
+            }
+        }
+        return readOnly;
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
     private DBUtil() {
     }
 }
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.util;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RestrictTo;
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.framework.FrameworkSQLiteReaderPool;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Relation fetching utilities for Room
+ *
+ * @hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+public class RelationUtil {
+
+    /**
+     * Runs the given relation fetches, concurrently on the query executor of the database when
+     * its read connections see the same data as the calling thread.
+     * <p>
+     * The first fetch always runs on the calling thread, which holds the transaction and queries
+     * the writable connection. A fetch started by the executor only runs if it can lease a read
+     * connection without waiting, since the connections may be held by threads waiting for the
+     * transaction of the calling thread. Fetches that the executor did not start by the time the
+     * calling thread is done, or that could not lease a connection, run on the calling thread.
+     * Returns once all fetches completed.
+     *
+     * @param db      The database to fetch the relations from.
+     * @param fetches The fetches to run, each one writing to a distinct set of collections.
+     * @see RoomDatabase#canQueryConcurrently()
+     */
+    public static void fetchConcurrently(@NonNull RoomDatabase db, @NonNull Runnable... fetches) {
+        final FrameworkSQLiteReaderPool pool = db.getReadConnectionPool();
+        if (fetches.length < 2 || pool == null || !db.canQueryConcurrently()) {
+            for (Runnable fetch : fetches) {
+                fetch.run();
+            }
+            return;
+        }
+        final Executor executor = db.getQueryExecutor();
+        final LeasedFetch[] leasedFetches = new LeasedFetch[fetches.length - 1];
+        @SuppressWarnings("unchecked")
+        final FutureTask<Boolean>[] tasks = new FutureTask[leasedFetches.length];
+        for (int i = 0; i < tasks.length; i++) {
+            leasedFetches[i] = new LeasedFetch(pool, fetches[i + 1]);
+            tasks[i] = new FutureTask<>(leasedFetches[i]);
+            executor.execute(tasks[i]);
+        }
+        try {
+            fetches[0].run();
+        } catch (RuntimeException | Error e) {
+            for (LeasedFetch leasedFetch : leasedFetches) {
+                leasedFetch.claim();
+            }
+            throw e;
+        }
+        boolean interrupted = false;
+        try {
+            for (int i = 0; i < tasks.length; i++) {
+                if (leasedFetches[i].claim()) {
+                    // the executor did not start it yet
+                    fetches[i + 1].run();
+                    continue;
+                }
+                boolean fetched;
+                while (true) {
+                    try {
+                        fetched = tasks[i].get();
+                        break;
+                    } catch (InterruptedException e) {
+                        // the results are needed to build the returned objects
+                        interrupted = true;
+                    } catch (ExecutionException e) {
+                        final Throwable cause = e.getCause();
+                        if (cause instanceof RuntimeException) {
+                            throw (RuntimeException) cause;
+                        }
+                        if (cause instanceof Error) {
+                            throw (Error) cause;
+                        }
+                        throw new RuntimeException("Exception while fetching a relation", cause);
+                    }
+                }
+                if (!fetched) {
+                    fetches[i + 1].run();
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * A fetch that only runs on the executor if it can lease a read connection without waiting,
+     * and if the calling thread did not claim it first. The queries of the fetch reuse the lease
+     * of their thread.
+     */
+    private static class LeasedFetch implements Callable<Boolean> {
+        private final FrameworkSQLiteReaderPool mPool;
+        private final Runnable mFetch;
+        private final AtomicBoolean mClaimed = new AtomicBoolean();
+
+        LeasedFetch(FrameworkSQLiteReaderPool pool, Runnable fetch) {
+            mPool = pool;
+            mFetch = fetch;
+        }
+
+        /**
+         * @return True if the caller claimed the fetch, false if another thread did before.
+         */
+        boolean claim() {
+            return mClaimed.compareAndSet(false, true);
+        }
+
+        /**
+         * @return True if the fetch ran, false if it is left to the calling thread.
+         */
+        @Override
+        public Boolean call() {
+            if (!claim()) {
+                // run, or abandoned, by the calling thread
+                return true;
+            }
+            final FrameworkSQLiteReaderPool.Lease lease = mPool.tryAcquire();
+            if (lease == null) {
+                return false;
+            }
+            try {
+                mFetch.run();
+            } finally {
+                lease.release();
+            }
+            return true;
+        }
+    }
+
+    private RelationUtil() {
+    }
+}
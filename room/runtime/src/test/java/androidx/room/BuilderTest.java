@@ -39,6 +39,7 @@ import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @SuppressWarnings("ArraysAsListWithZeroOrOneArgument")
 @RunWith(JUnit4.class)
@@ -124,6 +125,31 @@ public class BuilderTest {
         assertThat(migrations.findMigrationPath(3, 1), is(asList(m3_2, m2_1)));
     }
 
+    @Test
+    public void readConnectionPoolSize() {
+        TestDatabase db = Room.databaseBuilder(mock(Context.class), TestDatabase.class, "foo")
+                .setReadConnectionPoolSize(4)
+                .build();
+        DatabaseConfiguration config = ((BuilderTest_TestDatabase_Impl) db).mConfig;
+        assertThat(config.readConnectionPoolSize, is(4));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void readConnectionPoolSize_negative() {
+        Room.databaseBuilder(mock(Context.class), TestDatabase.class, "foo")
+                .setReadConnectionPoolSize(-1);
+    }
+
+    @Test
+    public void slowQueryThreshold_subMillisecond() {
+        TestDatabase db = Room.databaseBuilder(mock(Context.class), TestDatabase.class, "foo")
+                .enableSlowQueryLog(500, TimeUnit.MICROSECONDS, 10)
+                .build();
+        DatabaseConfiguration config = ((BuilderTest_TestDatabase_Impl) db).mConfig;
+        // not rounded down to 0, which would log every query
+        assertThat(config.slowQueryThresholdNanos, is(500000L));
+    }
+
     @Test
     public void skipMigration() {
         Context context = mock(Context.class);
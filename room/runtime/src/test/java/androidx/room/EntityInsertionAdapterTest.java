@@ -0,0 +1,141 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import androidx.sqlite.db.SupportSQLiteStatement;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.InOrder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@RunWith(JUnit4.class)
+public class EntityInsertionAdapterTest {
+    private static final String INSERT_QUERY =
+            "INSERT OR ABORT INTO `User`(`uid`,`name`) VALUES (?,?)";
+
+    private final List<String> mCompiledQueries = new ArrayList<>();
+    private final List<SupportSQLiteStatement> mCompiledStatements = new ArrayList<>();
+    private EntityInsertionAdapter<Long> mAdapter;
+
+    @Before
+    public void init() {
+        RoomDatabase db = mock(RoomDatabase.class);
+        when(db.compileStatement(anyString())).thenAnswer(
+                new Answer<SupportSQLiteStatement>() {
+                    @Override
+                    public SupportSQLiteStatement answer(InvocationOnMock invocation) {
+                        SupportSQLiteStatement statement = mock(SupportSQLiteStatement.class);
+                        mCompiledQueries.add((String) invocation.getArguments()[0]);
+                        mCompiledStatements.add(statement);
+                        return statement;
+                    }
+                });
+        mAdapter = new EntityInsertionAdapter<Long>(db) {
+            @Override
+            protected String createQuery() {
+                return INSERT_QUERY;
+            }
+
+            @Override
+            protected void bind(SupportSQLiteStatement statement, Long entity) {
+                statement.bindLong(1, entity);
+                statement.bindString(2, "name" + entity);
+            }
+
+            @Override
+            protected int getBindArgCountPerRow() {
+                return 2;
+            }
+        };
+    }
+
+    @Test
+    public void rowsPerBatch() {
+        assertThat(EntityInsertionAdapter.getRowsPerBatch(0), is(1));
+        // limited by the compound SELECT limit of old SQLite versions
+        assertThat(EntityInsertionAdapter.getRowsPerBatch(1), is(500));
+        // limited by the bind argument limit
+        assertThat(EntityInsertionAdapter.getRowsPerBatch(2), is(499));
+        assertThat(EntityInsertionAdapter.getRowsPerBatch(3), is(333));
+        assertThat(EntityInsertionAdapter.getRowsPerBatch(999), is(1));
+        assertThat(EntityInsertionAdapter.getRowsPerBatch(1000), is(1));
+    }
+
+    @Test
+    public void createBatchQuery() {
+        assertThat(mAdapter.createBatchQuery(1), is(INSERT_QUERY));
+        assertThat(mAdapter.createBatchQuery(3),
+                is("INSERT OR ABORT INTO `User`(`uid`,`name`) VALUES (?,?),(?,?),(?,?)"));
+    }
+
+    @Test
+    public void remainderSplitIntoPowersOfTwo() {
+        mAdapter.insertBatched(Arrays.asList(0L, 1L, 2L, 3L, 4L, 5L, 6L).iterator(), 4);
+
+        assertThat(mCompiledQueries, is(Arrays.asList(
+                mAdapter.createBatchQuery(4),
+                mAdapter.createBatchQuery(2),
+                mAdapter.createBatchQuery(1))));
+        for (SupportSQLiteStatement statement : mCompiledStatements) {
+            verify(statement).executeInsert();
+        }
+    }
+
+    @Test
+    public void bindIndicesShiftedPerRow() {
+        mAdapter.insertBatched(Arrays.asList(0L, 1L, 2L).iterator(), 4);
+
+        SupportSQLiteStatement twoRows = mCompiledStatements.get(0);
+        InOrder inOrder = inOrder(twoRows);
+        inOrder.verify(twoRows).bindLong(1, 0L);
+        inOrder.verify(twoRows).bindString(2, "name0");
+        inOrder.verify(twoRows).bindLong(3, 1L);
+        inOrder.verify(twoRows).bindString(4, "name1");
+        inOrder.verify(twoRows).executeInsert();
+
+        SupportSQLiteStatement oneRow = mCompiledStatements.get(1);
+        verify(oneRow).bindLong(1, 2L);
+        verify(oneRow).bindString(2, "name2");
+    }
+
+    @Test
+    public void batchStatementsCached() {
+        mAdapter.insertBatched(Arrays.asList(0L, 1L, 2L).iterator(), 4);
+        mAdapter.insertBatched(Arrays.asList(3L, 4L, 5L).iterator(), 4);
+
+        assertThat(mCompiledQueries.size(), is(2));
+        verify(mCompiledStatements.get(0), times(2)).executeInsert();
+        verify(mCompiledStatements.get(1), times(2)).executeInsert();
+    }
+}
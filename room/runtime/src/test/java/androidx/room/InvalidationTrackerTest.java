@@ -17,6 +17,7 @@
 package androidx.room;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.IsCollectionContaining.hasItem;
 import static org.hamcrest.core.IsCollectionContaining.hasItems;
@@ -64,6 +65,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
@@ -285,6 +287,259 @@ public class InvalidationTrackerTest {
         }
     }
 
+    @Test
+    public void createRowTrackingTrigger() {
+        InvalidationTracker tracker = new InvalidationTracker(mRoomDatabase, "a");
+        tracker.enableRowTracking(10);
+        tracker.internalInit(mSqliteDb);
+        reset(mSqliteDb);
+
+        tracker.addObserver(new LatchObserver(1, "a"));
+        ArgumentCaptor<String> sqlArgCaptor = ArgumentCaptor.forClass(String.class);
+        verify(mSqliteDb, times(4)).execSQL(sqlArgCaptor.capture());
+        List<String> sqlCaptorValues = sqlArgCaptor.getAllValues();
+        assertThat(sqlCaptorValues.get(0),
+                is("INSERT OR IGNORE INTO room_table_modification_log VALUES(0, 0, 0)"));
+        assertThat(sqlCaptorValues.get(3),
+                is("CREATE TEMP TRIGGER IF NOT EXISTS "
+                        + "`room_table_modification_trigger_a_INSERT` AFTER INSERT ON `a` "
+                        + "BEGIN UPDATE room_table_modification_log "
+                        + "SET invalidated = 1, row_count = row_count + 1 WHERE table_id = 0; "
+                        + "INSERT OR IGNORE INTO room_row_modification_log SELECT 0, NEW.rowid "
+                        + "WHERE (SELECT row_count FROM room_table_modification_log "
+                        + "WHERE table_id = 0) <= 10; END"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void enableRowTrackingAfterInit() {
+        mTracker.enableRowTracking(10);
+    }
+
+    @Test
+    public void containsAnyChangedRow() {
+        Map<String, long[]> changedRowIds = new HashMap<>();
+        changedRowIds.put("a", new long[]{1, 4, 9});
+        long[] keys = new long[]{2, 3, 9};
+        assertThat(RoomTrackingLiveData.containsAny("a", "a", changedRowIds, keys), is(true));
+        assertThat(RoomTrackingLiveData.containsAny("a", "a", changedRowIds,
+                new long[]{2, 3, 5}), is(false));
+        // another table, or a table that overflowed, is always considered changed
+        assertThat(RoomTrackingLiveData.containsAny("b", "a", changedRowIds, keys), is(true));
+        changedRowIds.remove("a");
+        assertThat(RoomTrackingLiveData.containsAny("a", "a", changedRowIds, keys), is(true));
+    }
+
+    @Test
+    public void readChangedRowIds() {
+        InvalidationTracker tracker = createRowTrackingTracker(3);
+        RowIdObserver observer = new RowIdObserver("a", "B");
+        tracker.addObserver(observer);
+
+        // table_id, invalidated, row_count
+        setUpdatedRows(new long[][]{{0, 1, 2}, {1, 1, 1}},
+                // table_id, row_id, sorted by both
+                new long[][]{{0, 5}, {0, 7}, {1, 2}});
+        assertThat(tracker.collectUpdatedTables(false), is(true));
+        tracker.dispatchPendingInvalidations();
+
+        assertThat(observer.mInvalidatedTables, hasItems("a", "B"));
+        assertThat(observer.mChangedRowIds.size(), is(2));
+        assertThat(observer.mChangedRowIds.get("a"), is(new long[]{5, 7}));
+        assertThat(observer.mChangedRowIds.get("B"), is(new long[]{2}));
+    }
+
+    @Test
+    public void readChangedRowIds_overflowInvalidatesWholeTable() {
+        InvalidationTracker tracker = createRowTrackingTracker(3);
+        RowIdObserver observer = new RowIdObserver("a", "B");
+        tracker.addObserver(observer);
+
+        // the triggers stopped logging the rowids of "a" after the third one
+        setUpdatedRows(new long[][]{{0, 1, 4}, {1, 1, 1}},
+                new long[][]{{0, 1}, {0, 2}, {0, 3}, {1, 2}});
+        tracker.collectUpdatedTables(false);
+        tracker.dispatchPendingInvalidations();
+
+        assertThat(observer.mInvalidatedTables, hasItems("a", "B"));
+        assertThat(observer.mChangedRowIds.containsKey("a"), is(false));
+        assertThat(observer.mChangedRowIds.get("B"), is(new long[]{2}));
+    }
+
+    @Test
+    public void readChangedRowIds_mergedOverflowInvalidatesWholeTable() {
+        InvalidationTracker tracker = createRowTrackingTracker(3);
+        RowIdObserver observer = new RowIdObserver("a");
+        tracker.addObserver(observer);
+
+        setUpdatedRows(new long[][]{{0, 1, 2}}, new long[][]{{0, 1}, {0, 2}});
+        tracker.collectUpdatedTables(false);
+        // rowids shared by both refreshes are only counted once
+        setUpdatedRows(new long[][]{{0, 1, 1}}, new long[][]{{0, 2}});
+        tracker.collectUpdatedTables(false);
+        tracker.dispatchPendingInvalidations();
+        assertThat(observer.mChangedRowIds.get("a"), is(new long[]{1, 2}));
+
+        setUpdatedRows(new long[][]{{0, 1, 2}}, new long[][]{{0, 1}, {0, 2}});
+        tracker.collectUpdatedTables(false);
+        setUpdatedRows(new long[][]{{0, 1, 2}}, new long[][]{{0, 3}, {0, 4}});
+        tracker.collectUpdatedTables(false);
+        tracker.dispatchPendingInvalidations();
+        assertThat(observer.mInvalidatedTables, hasItem("a"));
+        assertThat(observer.mChangedRowIds, nullValue());
+    }
+
+    private InvalidationTracker createRowTrackingTracker(int maxTrackedRowsPerTable) {
+        InvalidationTracker tracker = new InvalidationTracker(mRoomDatabase, "a", "B");
+        tracker.enableRowTracking(maxTrackedRowsPerTable);
+        doReturn(mock(SupportSQLiteStatement.class)).when(mSqliteDb).compileStatement(
+                eq(InvalidationTracker.RESET_UPDATED_TABLES_AND_ROW_COUNTS_SQL));
+        doReturn(mock(SupportSQLiteStatement.class)).when(mSqliteDb).compileStatement(
+                eq(InvalidationTracker.DELETE_UPDATED_ROWS_SQL));
+        tracker.internalInit(mSqliteDb);
+        return tracker;
+    }
+
+    @Test
+    public void refreshOnCommit() throws InterruptedException {
+        InvalidationTracker tracker = createRefreshOnCommitTracker(0);
+        LatchObserver observer = new LatchObserver(1, "a");
+        tracker.addObserver(observer);
+
+        setInvalidatedTables(0);
+        tracker.onTransactionBegin();
+        tracker.onTransactionSuccessful();
+        assertThat(observer.getInvalidatedTables(), nullValue());
+        tracker.onTransactionEnded(true);
+        // dispatched on the committing thread
+        assertThat(observer.getInvalidatedTables(), hasItem("a"));
+        assertThat(tracker.getRefreshCount(), is(1L));
+        assertThat(tracker.getDispatchCount(), is(1L));
+
+        observer.reset(1);
+        setInvalidatedTables();
+        tracker.onTransactionBegin();
+        tracker.onTransactionSuccessful();
+        tracker.onTransactionEnded(true);
+        assertThat(observer.getInvalidatedTables(), nullValue());
+        assertThat(tracker.getDispatchCount(), is(1L));
+    }
+
+    @Test
+    public void refreshOnCommit_nestedTransactions() throws InterruptedException {
+        InvalidationTracker tracker = createRefreshOnCommitTracker(0);
+        LatchObserver observer = new LatchObserver(1, "a");
+        tracker.addObserver(observer);
+
+        setInvalidatedTables(0);
+        tracker.onTransactionBegin();
+        tracker.onTransactionBegin();
+        tracker.onTransactionSuccessful();
+        tracker.onTransactionEnded(true);
+        // the nested transaction only commits with the outermost one
+        assertThat(tracker.getRefreshCount(), is(0L));
+        assertThat(observer.getInvalidatedTables(), nullValue());
+
+        tracker.onTransactionSuccessful();
+        tracker.onTransactionEnded(true);
+        assertThat(tracker.getRefreshCount(), is(1L));
+        assertThat(observer.getInvalidatedTables(), hasItem("a"));
+    }
+
+    @Test
+    public void refreshOnCommit_rollback() throws InterruptedException {
+        InvalidationTracker tracker = createRefreshOnCommitTracker(0);
+        LatchObserver observer = new LatchObserver(1, "a");
+        tracker.addObserver(observer);
+
+        setInvalidatedTables(0);
+        tracker.onTransactionBegin();
+        tracker.onTransactionEnded(true);
+        assertThat(tracker.getRefreshCount(), is(0L));
+
+        // a nested transaction that is not successful rolls back the outermost one
+        tracker.onTransactionBegin();
+        tracker.onTransactionBegin();
+        tracker.onTransactionEnded(true);
+        tracker.onTransactionSuccessful();
+        tracker.onTransactionEnded(true);
+        assertThat(tracker.getRefreshCount(), is(0L));
+
+        // the commit fails after the changes were read
+        tracker.onTransactionBegin();
+        tracker.onTransactionSuccessful();
+        tracker.onTransactionEnded(false);
+        assertThat(tracker.getRefreshCount(), is(1L));
+        assertThat(tracker.getDispatchCount(), is(0L));
+        assertThat(observer.getInvalidatedTables(), nullValue());
+
+        setInvalidatedTables();
+        tracker.onTransactionBegin();
+        tracker.onTransactionSuccessful();
+        tracker.onTransactionEnded(true);
+        assertThat(tracker.getDispatchCount(), is(0L));
+        assertThat(observer.getInvalidatedTables(), nullValue());
+    }
+
+    @Test
+    public void refreshOnCommitCoalescesCommits() throws InterruptedException {
+        InvalidationTracker tracker = createRefreshOnCommitTracker(
+                TimeUnit.MILLISECONDS.toNanos(100));
+        LatchObserver observer = new LatchObserver(1, "a", "B");
+        tracker.addObserver(observer);
+
+        setInvalidatedTables(0);
+        commit(tracker);
+        assertThat(observer.await(), is(true));
+        assertThat(observer.getInvalidatedTables(), hasItem("a"));
+
+        observer.reset(1);
+        setInvalidatedTables(0);
+        commit(tracker);
+        setInvalidatedTables(1);
+        commit(tracker);
+        assertThat(observer.await(), is(true));
+        assertThat(observer.getInvalidatedTables(), hasItems("a", "B"));
+        assertThat(tracker.getDispatchCount(), is(2L));
+        assertThat(tracker.getCoalescedCommitCount(), is(1L));
+        tracker.stopRefreshOnCommit();
+    }
+
+    @Test
+    public void refreshOnCommitAfterStop() throws InterruptedException {
+        InvalidationTracker tracker = createRefreshOnCommitTracker(TimeUnit.HOURS.toNanos(1));
+        LatchObserver observer = new LatchObserver(1, "a", "B");
+        tracker.addObserver(observer);
+
+        setInvalidatedTables(0);
+        commit(tracker);
+        assertThat(observer.await(), is(true));
+        tracker.stopRefreshOnCommit();
+
+        // within the coalescing window, so it would only be dispatched in an hour if it were
+        // scheduled on a new executor.
+        observer.reset(1);
+        setInvalidatedTables(1);
+        commit(tracker);
+        assertThat(observer.await(), is(true));
+        assertThat(observer.getInvalidatedTables(), hasItem("B"));
+        assertThat(tracker.getDispatchCount(), is(2L));
+    }
+
+    private InvalidationTracker createRefreshOnCommitTracker(long coalescingWindowNanos) {
+        InvalidationTracker tracker = new InvalidationTracker(mRoomDatabase, "a", "B");
+        tracker.enableRefreshOnCommit(coalescingWindowNanos);
+        doReturn(mock(SupportSQLiteStatement.class)).when(mSqliteDb)
+                .compileStatement(eq(InvalidationTracker.RESET_UPDATED_TABLES_SQL));
+        tracker.internalInit(mSqliteDb);
+        return tracker;
+    }
+
+    private static void commit(InvalidationTracker tracker) {
+        tracker.onTransactionBegin();
+        tracker.onTransactionSuccessful();
+        tracker.onTransactionEnded(true);
+    }
+
     @Test
     public void observeView() throws InterruptedException {
         LatchObserver observer = new LatchObserver(1, "E");
@@ -375,6 +630,73 @@ public class InvalidationTrackerTest {
         return cursor;
     }
 
+    /**
+     * Makes the modification log return the given rows of the table log and of the row log.
+     */
+    private void setUpdatedRows(long[][] tableRows, long[][] rowIdRows) {
+        Cursor tableCursor = createCursorWithRows(tableRows);
+        doReturn(tableCursor).when(mRoomDatabase).query(argThat(querySql(
+                InvalidationTracker.SELECT_UPDATED_TABLES_SQL)));
+        Cursor rowIdCursor = createCursorWithRows(rowIdRows);
+        doReturn(rowIdCursor).when(mRoomDatabase).query(argThat(querySql(
+                InvalidationTracker.SELECT_UPDATED_ROWS_SQL)));
+    }
+
+    private static ArgumentMatcher<SimpleSQLiteQuery> querySql(final String sql) {
+        return new ArgumentMatcher<SimpleSQLiteQuery>() {
+            @Override
+            public boolean matches(SimpleSQLiteQuery argument) {
+                return argument != null && argument.getSql().equals(sql);
+            }
+        };
+    }
+
+    private static Cursor createCursorWithRows(final long[][] rows) {
+        Cursor cursor = mock(Cursor.class);
+        final AtomicInteger index = new AtomicInteger(-1);
+        when(cursor.moveToNext()).thenAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) throws Throwable {
+                return index.addAndGet(1) < rows.length;
+            }
+        });
+        when(cursor.getLong(anyInt())).thenAnswer(new Answer<Long>() {
+            @Override
+            public Long answer(InvocationOnMock invocation) throws Throwable {
+                return rows[index.intValue()][(Integer) invocation.getArguments()[0]];
+            }
+        });
+        when(cursor.getInt(anyInt())).thenAnswer(new Answer<Integer>() {
+            @Override
+            public Integer answer(InvocationOnMock invocation) throws Throwable {
+                return (int) rows[index.intValue()][(Integer) invocation.getArguments()[0]];
+            }
+        });
+        return cursor;
+    }
+
+    static class RowIdObserver extends InvalidationTracker.Observer {
+        Set<String> mInvalidatedTables;
+        Map<String, long[]> mChangedRowIds;
+
+        RowIdObserver(String... tableNames) {
+            super(tableNames);
+        }
+
+        @Override
+        public void onInvalidated(@NonNull Set<String> tables) {
+            mInvalidatedTables = tables;
+            mChangedRowIds = null;
+        }
+
+        @Override
+        public void onInvalidated(@NonNull Set<String> tables,
+                @NonNull Map<String, long[]> changedRowIds) {
+            mInvalidatedTables = tables;
+            mChangedRowIds = changedRowIds;
+        }
+    }
+
     static class LatchObserver extends InvalidationTracker.Observer {
         private CountDownLatch mLatch;
         private Set<String> mInvalidatedTables;
@@ -31,14 +31,13 @@ import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 
 @RunWith(JUnit4.class)
 public class RoomSQLiteQueryTest {
     @Before
     public void clear() {
-        RoomSQLiteQuery.sQueryPool.clear();
+        RoomSQLiteQuery.clearPool();
     }
 
     @Test
@@ -90,17 +89,35 @@ public class RoomSQLiteQueryTest {
     }
 
     @Test
-    public void dontKeepSameSizeTwice() {
+    public void sizeClassCapacity() {
+        assertThat(RoomSQLiteQuery.acquire("a", 0).mCapacity, is(0));
+        assertThat(RoomSQLiteQuery.acquire("a", 1).mCapacity, is(1));
+        assertThat(RoomSQLiteQuery.acquire("a", 2).mCapacity, is(3));
+        assertThat(RoomSQLiteQuery.acquire("a", 4).mCapacity, is(7));
+        assertThat(RoomSQLiteQuery.acquire("a", RoomDatabase.MAX_BIND_PARAMETER_CNT).mCapacity,
+                is(1023));
+    }
+
+    @Test
+    public void keepSeveralOfSameSize() {
         RoomSQLiteQuery query1 = RoomSQLiteQuery.acquire("abc", 3);
         RoomSQLiteQuery query2 = RoomSQLiteQuery.acquire("zx", 3);
         RoomSQLiteQuery query3 = RoomSQLiteQuery.acquire("qw", 0);
 
         query1.release();
         query2.release();
-        assertThat(RoomSQLiteQuery.sQueryPool.size(), is(1));
+        assertThat(RoomSQLiteQuery.getPooledQueryCount(), is(2));
 
         query3.release();
-        assertThat(RoomSQLiteQuery.sQueryPool.size(), is(2));
+        assertThat(RoomSQLiteQuery.getPooledQueryCount(), is(3));
+    }
+
+    @Test
+    public void acquireRemovesFromPool() {
+        RoomSQLiteQuery query = RoomSQLiteQuery.acquire("abc", 3);
+        query.release();
+        assertThat(RoomSQLiteQuery.acquire("dsa", 3), sameInstance(query));
+        assertThat(RoomSQLiteQuery.getPooledQueryCount(), is(0));
     }
 
     @Test
@@ -118,32 +135,63 @@ public class RoomSQLiteQueryTest {
     }
 
     @Test
-    public void pruneCache() {
-        for (int i = 0; i < RoomSQLiteQuery.POOL_LIMIT; i++) {
-            RoomSQLiteQuery.acquire("dsdsa", i).release();
-        }
-        pruneCacheTest();
-    }
-
-    @Test
-    public void pruneCacheReverseInsertion() {
+    public void sizeClassIsBounded() {
         List<RoomSQLiteQuery> queries = new ArrayList<>();
-        for (int i = RoomSQLiteQuery.POOL_LIMIT - 1; i >= 0; i--) {
-            queries.add(RoomSQLiteQuery.acquire("dsdsa", i));
+        for (int i = 0; i < 20; i++) {
+            queries.add(RoomSQLiteQuery.acquire("dsdsa", 5));
         }
         for (RoomSQLiteQuery query : queries) {
             query.release();
         }
-        pruneCacheTest();
+        int pooled = RoomSQLiteQuery.getPooledQueryCount();
+        assertThat(pooled > 0, is(true));
+        assertThat(pooled < 20, is(true));
+        for (int i = 0; i < pooled; i++) {
+            assertThat(queries.contains(RoomSQLiteQuery.acquire("dsdsa", 5)), is(true));
+        }
+        assertThat(queries.contains(RoomSQLiteQuery.acquire("dsdsa", 5)), is(false));
+    }
+
+    @Test
+    public void dontPoolHugeQueries() {
+        int argCount = RoomSQLiteQuery.capacityOf(RoomSQLiteQuery.SIZE_CLASS_COUNT - 1) + 1;
+        RoomSQLiteQuery query = RoomSQLiteQuery.acquire("abc", argCount);
+        assertThat(query.mCapacity, is(argCount));
+        query.release();
+        assertThat(RoomSQLiteQuery.getPooledQueryCount(), is(0));
     }
 
-    private void pruneCacheTest() {
-        assertThat(RoomSQLiteQuery.sQueryPool.size(), is(RoomSQLiteQuery.POOL_LIMIT));
-        RoomSQLiteQuery.acquire("dsadsa", RoomSQLiteQuery.POOL_LIMIT + 1).release();
-        assertThat(RoomSQLiteQuery.sQueryPool.size(), is(RoomSQLiteQuery.DESIRED_POOL_SIZE));
-        Iterator<RoomSQLiteQuery> itr = RoomSQLiteQuery.sQueryPool.values().iterator();
-        for (int i = 0; i < RoomSQLiteQuery.DESIRED_POOL_SIZE; i++) {
-            assertThat(itr.next().mCapacity, is(i));
+    @Test
+    public void hitAndMissCounts() {
+        RoomSQLiteQuery.acquire("abc", 3).release();
+        RoomSQLiteQuery.acquire("abc", 3).release();
+        RoomSQLiteQuery.acquire("abc", 8).release();
+        assertThat(RoomSQLiteQuery.getPoolHitCount(), is(1L));
+        assertThat(RoomSQLiteQuery.getPoolMissCount(), is(2L));
+    }
+
+    @Test
+    public void hitAndMissCountsFromManyThreads() throws InterruptedException {
+        final int threadCount = 10;
+        final int acquiresPerThread = 100;
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < threadCount; i++) {
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < acquiresPerThread; j++) {
+                        RoomSQLiteQuery.acquire("abc", 3).release();
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
         }
+        assertThat(RoomSQLiteQuery.getPoolHitCount() + RoomSQLiteQuery.getPoolMissCount(),
+                is((long) threadCount * acquiresPerThread));
     }
 }
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.util;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.NoSuchElementException;
+
+@RunWith(JUnit4.class)
+public class CursorIteratorTest {
+    @Test
+    public void iterateAndCloseAtEnd() {
+        Cursor cursor = mock(Cursor.class);
+        when(cursor.moveToNext()).thenReturn(true, true, false);
+        when(cursor.getInt(0)).thenReturn(1, 2);
+        CursorIterator<Integer> iterator = createIterator(cursor);
+
+        assertThat(iterator.hasNext(), is(true));
+        // hasNext does not move the cursor twice
+        assertThat(iterator.hasNext(), is(true));
+        assertThat(iterator.next(), is(1));
+        assertThat(iterator.next(), is(2));
+        assertThat(iterator.hasNext(), is(false));
+        verify(cursor, times(3)).moveToNext();
+        verify(cursor).close();
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void nextAfterClose() {
+        Cursor cursor = mock(Cursor.class);
+        when(cursor.moveToNext()).thenReturn(true);
+        CursorIterator<Integer> iterator = createIterator(cursor);
+
+        assertThat(iterator.hasNext(), is(true));
+        iterator.close();
+        iterator.close();
+        verify(cursor).close();
+        iterator.next();
+    }
+
+    private static CursorIterator<Integer> createIterator(Cursor cursor) {
+        return new CursorIterator<Integer>(cursor) {
+            @Override
+            protected Integer convert(@NonNull Cursor cursor) {
+                return cursor.getInt(0);
+            }
+        };
+    }
+}
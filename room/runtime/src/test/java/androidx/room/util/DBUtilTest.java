@@ -0,0 +1,70 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.util;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class DBUtilTest {
+    @Test
+    public void readOnlyQueries() {
+        assertThat(DBUtil.isReadOnlyQuery("SELECT * FROM t"), is(true));
+        assertThat(DBUtil.isReadOnlyQuery("  select 1"), is(true));
+        assertThat(DBUtil.isReadOnlyQuery("VALUES (1), (2)"), is(true));
+        assertThat(DBUtil.isReadOnlyQuery("SELECT 1;"), is(true));
+        assertThat(DBUtil.isReadOnlyQuery("SELECT ';DELETE FROM t' FROM t"), is(true));
+        assertThat(DBUtil.isReadOnlyQuery("SELECT 'it''s' FROM [a;b]"), is(true));
+    }
+
+    @Test
+    public void readOnlyQueries_leadingComments() {
+        assertThat(DBUtil.isReadOnlyQuery("-- comment\nSELECT 1"), is(true));
+        assertThat(DBUtil.isReadOnlyQuery("/* comment */ SELECT 1 -- trailing"), is(true));
+    }
+
+    @Test
+    public void readOnlyQueries_commonTableExpressions() {
+        assertThat(DBUtil.isReadOnlyQuery("WITH x AS (SELECT 1) SELECT * FROM x"), is(true));
+        assertThat(DBUtil.isReadOnlyQuery("WITH RECURSIVE x(n) AS (SELECT 1 UNION ALL "
+                + "SELECT n + 1 FROM x) SELECT n FROM x"), is(true));
+        assertThat(DBUtil.isReadOnlyQuery("WITH x AS (SELECT 1) "
+                + "INSERT INTO t SELECT * FROM x"), is(false));
+        assertThat(DBUtil.isReadOnlyQuery("WITH x AS (SELECT 1), y AS (SELECT 2) "
+                + "DELETE FROM t"), is(false));
+    }
+
+    @Test
+    public void writesAndOtherStatements() {
+        assertThat(DBUtil.isReadOnlyQuery("INSERT INTO t VALUES (1)"), is(false));
+        assertThat(DBUtil.isReadOnlyQuery("UPDATE t SET a = (SELECT 1)"), is(false));
+        assertThat(DBUtil.isReadOnlyQuery("PRAGMA user_version"), is(false));
+        assertThat(DBUtil.isReadOnlyQuery("EXPLAIN SELECT 1"), is(false));
+        assertThat(DBUtil.isReadOnlyQuery("SELECTED"), is(false));
+        assertThat(DBUtil.isReadOnlyQuery(""), is(false));
+    }
+
+    @Test
+    public void multipleStatements() {
+        assertThat(DBUtil.isReadOnlyQuery("SELECT 1; DELETE FROM t"), is(false));
+        assertThat(DBUtil.isReadOnlyQuery("SELECT 1; -- only a comment"), is(true));
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.room.util;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import androidx.room.RoomDatabase;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@RunWith(JUnit4.class)
+public class RelationUtilTest {
+    private final ExecutorService mExecutor = Executors.newFixedThreadPool(2);
+
+    @After
+    public void shutdown() {
+        mExecutor.shutdownNow();
+    }
+
+    @Test
+    public void sequentialWhenReadersCannotBeUsed() {
+        RoomDatabase db = createDatabase(false);
+        final List<Thread> threads = Collections.synchronizedList(new ArrayList<Thread>());
+        RelationUtil.fetchConcurrently(db, recordThread(threads), recordThread(threads));
+        assertThat(threads.size(), is(2));
+        assertThat(threads.get(0), sameInstance(Thread.currentThread()));
+        assertThat(threads.get(1), sameInstance(Thread.currentThread()));
+    }
+
+    @Test
+    public void sequentialWithoutReadConnectionPool() {
+        // a mocked database has no pool, so the executor has no connection to run fetches on
+        RoomDatabase db = createDatabase(true);
+        final List<Thread> threads = Collections.synchronizedList(new ArrayList<Thread>());
+        RelationUtil.fetchConcurrently(db, recordThread(threads), recordThread(threads));
+        assertThat(threads.size(), is(2));
+        assertThat(threads.get(0), sameInstance(Thread.currentThread()));
+        assertThat(threads.get(1), sameInstance(Thread.currentThread()));
+        verify(db, never()).getQueryExecutor();
+    }
+
+    private RoomDatabase createDatabase(boolean canQueryConcurrently) {
+        RoomDatabase db = mock(RoomDatabase.class);
+        when(db.canQueryConcurrently()).thenReturn(canQueryConcurrently);
+        when(db.getQueryExecutor()).thenReturn(mExecutor);
+        return db;
+    }
+
+    private static Runnable recordThread(final List<Thread> threads) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                threads.add(Thread.currentThread());
+            }
+        };
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.benchmark
+
+import androidx.benchmark.BenchmarkRule
+import androidx.test.filters.LargeTest
+import androidx.work.Data
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import java.io.ByteArrayOutputStream
+import java.io.ObjectOutputStream
+
+/**
+ * Measures encoding and decoding [Data] in the compact binary format, against the Java
+ * serialization format used by earlier versions of WorkManager, for a few typical payloads.
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+class DataSerializationBenchmark(private val payload: String) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private val data: Data = when (payload) {
+        "small" -> Data.Builder()
+            .putString("id", "7f4c6b1e-2a58-4c5e-9d64-0b2d7a3e1c90")
+            .putInt("attempt", 3)
+            .putBoolean("metered", false)
+            .build()
+        "strings" -> Data.Builder()
+            .putStringArray("uris", Array(64) { "content://media/external/images/${it % 8}" })
+            .putString("album", "Camera")
+            .build()
+        else -> Data.Builder()
+            .putIntArray("ids", IntArray(512) { it })
+            .putDoubleArray("weights", DoubleArray(128) { it / 128.0 })
+            .putLongArray("timestamps", LongArray(128) { 1_540_000_000_000L + it * 1000L })
+            .build()
+    }
+
+    @Test
+    fun encode() {
+        val state = benchmarkRule.state
+        while (state.keepRunning()) {
+            Data.toByteArray(data)
+        }
+    }
+
+    @Test
+    fun decode() {
+        val bytes = Data.toByteArray(data)
+        val state = benchmarkRule.state
+        while (state.keepRunning()) {
+            Data.fromByteArray(bytes)
+        }
+    }
+
+    @Test
+    fun encodeLegacy() {
+        val state = benchmarkRule.state
+        while (state.keepRunning()) {
+            toLegacyByteArray(data)
+        }
+    }
+
+    @Test
+    fun decodeLegacy() {
+        val bytes = toLegacyByteArray(data)
+        val state = benchmarkRule.state
+        while (state.keepRunning()) {
+            Data.fromByteArray(bytes)
+        }
+    }
+
+    /**
+     * Writes [data] the way [Data.toByteArray] did before the compact format.
+     */
+    private fun toLegacyByteArray(data: Data): ByteArray {
+        val outputStream = ByteArrayOutputStream()
+        ObjectOutputStream(outputStream).use { objectOutputStream ->
+            val values = data.keyValueMap
+            objectOutputStream.writeInt(values.size)
+            for ((key, value) in values) {
+                objectOutputStream.writeUTF(key)
+                objectOutputStream.writeObject(value)
+            }
+        }
+        return outputStream.toByteArray()
+    }
+
+    companion object {
+
+        @JvmStatic
+        @Parameterized.Parameters(name = "payload={0}")
+        fun data(): List<Array<Any>> = listOf("small", "strings", "arrays").map { arrayOf<Any>(it) }
+    }
+}
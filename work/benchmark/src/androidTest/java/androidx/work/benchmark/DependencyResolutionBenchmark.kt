@@ -0,0 +1,153 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.benchmark
+
+import android.content.Context
+import androidx.benchmark.BenchmarkRule
+import androidx.test.InstrumentationRegistry
+import androidx.test.filters.LargeTest
+import androidx.work.Configuration
+import androidx.work.ListenableWorker
+import androidx.work.OneTimeWorkRequest
+import androidx.work.WorkInfo
+import androidx.work.Worker
+import androidx.work.WorkerParameters
+import androidx.work.impl.WorkDatabase
+import androidx.work.impl.WorkerWrapper
+import androidx.work.impl.model.Dependency
+import androidx.work.impl.utils.taskexecutor.TaskExecutor
+import org.junit.After
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+import java.util.concurrent.Executor
+
+/**
+ * Measures how long [WorkerWrapper] takes to complete the root of a [WorkContinuation][
+ * androidx.work.WorkContinuation] graph, that is to unblock or fail its dependents.
+ *
+ * A wide graph has [size] work requests depending directly on the root, while a deep graph is a
+ * chain of [size] work requests.
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+class DependencyResolutionBenchmark(private val shape: String, private val size: Int) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private val context: Context = InstrumentationRegistry.getTargetContext()
+    private val executor = Executor { it.run() }
+    private val configuration = Configuration.Builder().setExecutor(executor).build()
+    private val taskExecutor = object : TaskExecutor {
+        override fun postToMainThread(runnable: Runnable) = runnable.run()
+        override fun getMainThreadExecutor() = executor
+        override fun executeOnBackgroundThread(runnable: Runnable) = runnable.run()
+        override fun getBackgroundExecutorThread(): Thread = Thread.currentThread()
+        override fun getBackgroundExecutor() = executor
+    }
+    private lateinit var database: WorkDatabase
+
+    @Before
+    fun setUp() {
+        database = WorkDatabase.create(context, true)
+    }
+
+    @After
+    fun tearDown() {
+        database.close()
+    }
+
+    @Test
+    fun success() {
+        measure(SuccessWorker::class.java, WorkInfo.State.ENQUEUED)
+    }
+
+    @Test
+    fun failure() {
+        measure(FailureWorker::class.java, WorkInfo.State.FAILED)
+    }
+
+    private fun measure(rootWorker: Class<out ListenableWorker>, expectedState: WorkInfo.State) {
+        val state = benchmarkRule.state
+        while (state.keepRunning()) {
+            state.pauseTiming()
+            database.clearAllTables()
+            val root = OneTimeWorkRequest.Builder(rootWorker).build()
+            val dependents = insertGraph(root)
+            state.resumeTiming()
+
+            WorkerWrapper.Builder(context, configuration, taskExecutor, database, root.stringId)
+                .build()
+                .run()
+
+            state.pauseTiming()
+            check(database.workSpecDao().getState(dependents.first()) == expectedState)
+            state.resumeTiming()
+        }
+    }
+
+    /**
+     * Inserts [root] and its blocked dependents, and returns the ids of the direct dependents.
+     */
+    private fun insertGraph(root: OneTimeWorkRequest): List<String> {
+        val workSpecDao = database.workSpecDao()
+        val dependencyDao = database.dependencyDao()
+        val dependents = ArrayList<String>()
+        database.beginTransaction()
+        try {
+            workSpecDao.insertWorkSpec(root.workSpec)
+            var prerequisite = root.stringId
+            repeat(size) {
+                val work = OneTimeWorkRequest.Builder(SuccessWorker::class.java)
+                    .setInitialState(WorkInfo.State.BLOCKED)
+                    .build()
+                workSpecDao.insertWorkSpec(work.workSpec)
+                dependencyDao.insertDependency(Dependency(work.stringId, prerequisite))
+                if (prerequisite == root.stringId) {
+                    dependents.add(work.stringId)
+                }
+                if (shape == "deep") {
+                    prerequisite = work.stringId
+                }
+            }
+            database.setTransactionSuccessful()
+        } finally {
+            database.endTransaction()
+        }
+        return dependents
+    }
+
+    companion object {
+
+        @JvmStatic
+        @Parameterized.Parameters(name = "shape={0}, size={1}")
+        fun data(): List<Array<Any>> = listOf("wide", "deep").flatMap { shape ->
+            listOf(10, 100, 1000).map { size -> arrayOf<Any>(shape, size) }
+        }
+    }
+}
+
+class SuccessWorker(context: Context, params: WorkerParameters) : Worker(context, params) {
+    override fun doWork() = Result.success()
+}
+
+class FailureWorker(context: Context, params: WorkerParameters) : Worker(context, params) {
+    override fun doWork() = Result.failure()
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.benchmark
+
+import androidx.benchmark.BenchmarkRule
+import androidx.test.InstrumentationRegistry
+import androidx.test.filters.LargeTest
+import androidx.work.Configuration
+import androidx.work.OneTimeWorkRequest
+import androidx.work.WorkInfo
+import androidx.work.impl.Scheduler
+import androidx.work.impl.Schedulers
+import androidx.work.impl.WorkDatabase
+import androidx.work.impl.model.WorkSpec
+import org.junit.After
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+
+/**
+ * Measures how long a [Schedulers.schedule] pass takes to hand newly enqueued work to the
+ * [Scheduler]s, when the database also holds [historySize] finished work requests.
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+class SchedulingBenchmark(private val historySize: Int) {
+
+    @get:Rule
+    val benchmarkRule = BenchmarkRule()
+
+    private val configuration = Configuration.Builder().build()
+    private val schedulers = listOf<Scheduler>(object : Scheduler {
+        override fun schedule(vararg workSpecs: WorkSpec) {}
+        override fun cancel(workSpecId: String) {}
+    })
+    private val enqueued = ArrayList<String>()
+    private lateinit var database: WorkDatabase
+
+    @Before
+    fun setUp() {
+        database = WorkDatabase.create(InstrumentationRegistry.getTargetContext(), true)
+        val workSpecDao = database.workSpecDao()
+        val now = System.currentTimeMillis()
+        val finishedStates = listOf(
+            WorkInfo.State.SUCCEEDED,
+            WorkInfo.State.FAILED,
+            WorkInfo.State.CANCELLED
+        )
+        database.beginTransaction()
+        try {
+            for (i in 0 until historySize) {
+                val work = OneTimeWorkRequest.Builder(SuccessWorker::class.java)
+                    .setInitialState(finishedStates[i % finishedStates.size])
+                    .build()
+                work.workSpec.scheduleRequestedAt = now
+                workSpecDao.insertWorkSpec(work.workSpec)
+            }
+            repeat(NEW_WORK_SIZE) {
+                val work = OneTimeWorkRequest.Builder(SuccessWorker::class.java).build()
+                workSpecDao.insertWorkSpec(work.workSpec)
+                enqueued.add(work.stringId)
+            }
+            database.setTransactionSuccessful()
+        } finally {
+            database.endTransaction()
+        }
+    }
+
+    @After
+    fun tearDown() {
+        database.close()
+    }
+
+    @Test
+    fun schedule() {
+        val workSpecDao = database.workSpecDao()
+        val state = benchmarkRule.state
+        while (state.keepRunning()) {
+            state.pauseTiming()
+            database.beginTransaction()
+            try {
+                for (id in enqueued) {
+                    workSpecDao.markWorkSpecScheduled(id, WorkSpec.SCHEDULE_NOT_REQUESTED_YET)
+                }
+                database.setTransactionSuccessful()
+            } finally {
+                database.endTransaction()
+            }
+            state.resumeTiming()
+
+            Schedulers.schedule(configuration, database, schedulers)
+        }
+    }
+
+    companion object {
+
+        private const val NEW_WORK_SIZE = 10
+
+        @JvmStatic
+        @Parameterized.Parameters(name = "historySize={0}")
+        fun data(): List<Array<Any>> = listOf(0, 1000, 10000, 100000).map { arrayOf<Any>(it) }
+    }
+}
@@ -24,13 +24,16 @@ import android.content.Context;
 import androidx.test.InstrumentationRegistry;
 import androidx.test.filters.SmallTest;
 import androidx.test.runner.AndroidJUnit4;
+import androidx.work.Configuration;
 import androidx.work.Constraints;
+import androidx.work.ExecutionPolicy;
 import androidx.work.NetworkType;
 import androidx.work.OneTimeWorkRequest;
 import androidx.work.PeriodicWorkRequest;
 import androidx.work.WorkContinuation;
 import androidx.work.WorkInfo;
 import androidx.work.WorkManager;
+import androidx.work.WorkPriority;
 import androidx.work.WorkRequest;
 import androidx.work.impl.WorkManagerImpl;
 import androidx.work.testing.workers.CountingTestWorker;
@@ -160,6 +163,29 @@ public class TestSchedulerTest {
         }
     }
 
+    @Test
+    public void testGetExecutionMetrics_countsStartedWork() {
+        // Work only goes through the queue when the ExecutionPolicy has limits.
+        WorkManagerTestInitHelper.initializeTestWorkManager(
+                InstrumentationRegistry.getTargetContext(),
+                new Configuration.Builder()
+                        .setExecutor(new SynchronousExecutor())
+                        .setExecutionPolicy(new ExecutionPolicy.Builder()
+                                .setMaxConcurrentWork(1)
+                                .build())
+                        .build());
+        mTestDriver = WorkManagerTestInitHelper.getTestDriver();
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(TestWorker.class)
+                .setPriority(WorkPriority.HIGH)
+                .build();
+        WorkManager.getInstance().enqueue(request);
+        ExecutionMetrics metrics = mTestDriver.getExecutionMetrics();
+        assertThat(metrics.getQueuedCount(), is(0));
+        assertThat(metrics.getRunningCount(), is(0));
+        assertThat(metrics.getStartedCount(WorkPriority.HIGH), is(1L));
+        assertThat(metrics.getStartedCount(WorkPriority.DEFAULT), is(0L));
+    }
+
     private static OneTimeWorkRequest createWorkRequest() {
         return new OneTimeWorkRequest.Builder(TestWorker.class).build();
     }
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.testing;
+
+import android.support.annotation.NonNull;
+
+import androidx.work.WorkPriority;
+import androidx.work.impl.WorkQueue;
+
+/**
+ * A snapshot of how work waited to start under the {@link androidx.work.ExecutionPolicy} of the
+ * test {@link androidx.work.WorkManager}.
+ * <p>
+ * Work is only counted when the {@link androidx.work.ExecutionPolicy} has limits; otherwise it
+ * starts right away without going through a queue.
+ */
+public final class ExecutionMetrics {
+
+    private final WorkQueue.Metrics mMetrics;
+
+    ExecutionMetrics(@NonNull WorkQueue.Metrics metrics) {
+        mMetrics = metrics;
+    }
+
+    /**
+     * @return The number of units of work waiting to start
+     */
+    public int getQueuedCount() {
+        int queuedCount = 0;
+        for (WorkPriority priority : WorkPriority.values()) {
+            queuedCount += mMetrics.getQueuedCount(priority);
+        }
+        return queuedCount;
+    }
+
+    /**
+     * @param priority A {@link WorkPriority}
+     * @return The number of units of work of {@code priority} waiting to start
+     */
+    public int getQueuedCount(@NonNull WorkPriority priority) {
+        return mMetrics.getQueuedCount(priority);
+    }
+
+    /**
+     * @return The number of units of work that started and have not finished yet
+     */
+    public int getRunningCount() {
+        return mMetrics.getRunningCount();
+    }
+
+    /**
+     * @param priority A {@link WorkPriority}
+     * @return The number of units of work of {@code priority} started so far
+     */
+    public long getStartedCount(@NonNull WorkPriority priority) {
+        return mMetrics.getStartedCount(priority);
+    }
+
+    /**
+     * @param priority A {@link WorkPriority}
+     * @return The total time in milliseconds the started units of work of {@code priority}
+     *         waited to start
+     */
+    public long getTotalWaitTimeMillis(@NonNull WorkPriority priority) {
+        return mMetrics.getTotalWaitTimeMillis(priority);
+    }
+
+    /**
+     * @param priority A {@link WorkPriority}
+     * @return The longest time in milliseconds a started unit of work of {@code priority} waited
+     *         to start
+     */
+    public long getMaxWaitTimeMillis(@NonNull WorkPriority priority) {
+        return mMetrics.getMaxWaitTimeMillis(priority);
+    }
+}
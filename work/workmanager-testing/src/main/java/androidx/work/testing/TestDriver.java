@@ -55,4 +55,12 @@ public interface TestDriver {
      * @throws IllegalArgumentException if {@code workSpecId} is not enqueued
      */
     void setPeriodDelayMet(@NonNull UUID workSpecId);
+
+    /**
+     * Returns how much work is waiting to start and how long started work waited, as decided by
+     * the {@link androidx.work.ExecutionPolicy} of the test {@link androidx.work.WorkManager}.
+     *
+     * @return A snapshot of the {@link ExecutionMetrics}
+     */
+    @NonNull ExecutionMetrics getExecutionMetrics();
 }
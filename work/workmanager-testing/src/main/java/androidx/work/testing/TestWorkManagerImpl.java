@@ -76,4 +76,9 @@ abstract class TestWorkManagerImpl extends WorkManagerImpl implements TestDriver
                 },
                 true);
     }
+
+    @Override
+    public @NonNull ExecutionMetrics getExecutionMetrics() {
+        return new ExecutionMetrics(getProcessor().getQueueMetrics());
+    }
 }
@@ -20,11 +20,15 @@ import static android.database.sqlite.SQLiteDatabase.CONFLICT_FAIL;
 
 import static androidx.work.impl.WorkDatabaseMigrations.MIGRATION_3_4;
 import static androidx.work.impl.WorkDatabaseMigrations.MIGRATION_4_5;
+import static androidx.work.impl.WorkDatabaseMigrations.MIGRATION_5_6;
+import static androidx.work.impl.WorkDatabaseMigrations.MIGRATION_6_7;
 import static androidx.work.impl.WorkDatabaseMigrations.VERSION_1;
 import static androidx.work.impl.WorkDatabaseMigrations.VERSION_2;
 import static androidx.work.impl.WorkDatabaseMigrations.VERSION_3;
 import static androidx.work.impl.WorkDatabaseMigrations.VERSION_4;
 import static androidx.work.impl.WorkDatabaseMigrations.VERSION_5;
+import static androidx.work.impl.WorkDatabaseMigrations.VERSION_6;
+import static androidx.work.impl.WorkDatabaseMigrations.VERSION_7;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -76,6 +80,7 @@ public class WorkDatabaseMigrationTest {
     private static final String CHECK_ALARM_INFO = "SELECT * FROM alarmInfo";
     private static final String CHECK_TABLE_NAME = "SELECT * FROM %s";
     private static final String CHECK_TABLE_FIELD = "PRAGMA table_info(%s)";
+    private static final String CHECK_TABLE_INDEX = "PRAGMA index_list(%s)";
 
     private static final String TABLE_ALARM_INFO = "alarmInfo";
     private static final String TABLE_SYSTEM_ID_INFO = "SystemIdInfo";
@@ -86,6 +91,11 @@ public class WorkDatabaseMigrationTest {
     private static final String NAME = "name";
     private static final String TRIGGER_CONTENT_UPDATE_DELAY = "trigger_content_update_delay";
     private static final String TRIGGER_MAX_CONTENT_DELAY = "trigger_max_content_delay";
+    private static final String PRIORITY = "priority";
+    private static final String INDEX_SCHEDULE_REQUESTED_AT =
+            "index_WorkSpec_schedule_requested_at";
+    private static final String INDEX_STATE_SCHEDULE_REQUESTED_AT =
+            "index_WorkSpec_state_schedule_requested_at";
 
     private Context mContext;
     private File mDatabasePath;
@@ -263,6 +273,40 @@ public class WorkDatabaseMigrationTest {
         database.close();
     }
 
+    @Test
+    @SmallTest
+    public void testMigrationVersion5To6() throws IOException {
+        SupportSQLiteDatabase database =
+                mMigrationTestHelper.createDatabase(TEST_DATABASE, VERSION_5);
+        database = mMigrationTestHelper.runMigrationsAndValidate(
+                TEST_DATABASE,
+                VERSION_6,
+                VALIDATE_DROPPED_TABLES,
+                MIGRATION_5_6);
+        assertThat(checkExists(database, TABLE_WORKSPEC), is(true));
+        assertThat(checkColumnExists(database, TABLE_WORKSPEC, PRIORITY), is(true));
+        database.close();
+    }
+
+    @Test
+    @SmallTest
+    public void testMigrationVersion6To7() throws IOException {
+        SupportSQLiteDatabase database =
+                mMigrationTestHelper.createDatabase(TEST_DATABASE, VERSION_6);
+        assertThat(checkIndexExists(database, TABLE_WORKSPEC, INDEX_SCHEDULE_REQUESTED_AT),
+                is(true));
+        database = mMigrationTestHelper.runMigrationsAndValidate(
+                TEST_DATABASE,
+                VERSION_7,
+                VALIDATE_DROPPED_TABLES,
+                MIGRATION_6_7);
+        assertThat(checkIndexExists(database, TABLE_WORKSPEC, INDEX_SCHEDULE_REQUESTED_AT),
+                is(false));
+        assertThat(checkIndexExists(database, TABLE_WORKSPEC, INDEX_STATE_SCHEDULE_REQUESTED_AT),
+                is(true));
+        database.close();
+    }
+
     @NonNull
     private ContentValues contentValues(String workSpecId) {
         ContentValues contentValues = new ContentValues();
@@ -307,6 +351,32 @@ public class WorkDatabaseMigrationTest {
         }
     }
 
+    private boolean checkIndexExists(
+            SupportSQLiteDatabase database,
+            String tableName,
+            String indexName) {
+
+        Cursor cursor = null;
+        try {
+            cursor = database.query(String.format(CHECK_TABLE_INDEX, tableName));
+            cursor.moveToFirst();
+            while (!cursor.isAfterLast()) {
+                // https://www.sqlite.org/pragma.html#pragma_index_list
+                // Columns are: (seq, name, unique, origin, partial)
+                String name = cursor.getString(cursor.getColumnIndex(NAME));
+                if (indexName.equals(name)) {
+                    return true;
+                }
+                cursor.moveToNext();
+            }
+            return false;
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+    }
+
     private boolean checkColumnExists(
             SupportSQLiteDatabase database,
             String tableName,
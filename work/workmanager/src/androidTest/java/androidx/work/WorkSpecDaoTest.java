@@ -18,6 +18,7 @@ package androidx.work;
 
 import static androidx.work.WorkInfo.State.BLOCKED;
 import static androidx.work.WorkInfo.State.FAILED;
+import static androidx.work.WorkInfo.State.RUNNING;
 import static androidx.work.WorkInfo.State.SUCCEEDED;
 import static androidx.work.impl.Scheduler.MAX_SCHEDULER_LIMIT;
 
@@ -140,6 +141,39 @@ public class WorkSpecDaoTest extends DatabaseTest {
         assertThat(eligibleWorkSpecs.size(), is(0));
     }
 
+    @Test
+    @SmallTest
+    public void testScheduledUnfinishedWorkCountsTowardsSchedulerLimit() {
+        WorkSpecDao workSpecDao = mDatabase.workSpecDao();
+
+        long startTime = System.currentTimeMillis();
+        OneTimeWorkRequest running = new OneTimeWorkRequest.Builder(TestWorker.class)
+                .setScheduleRequestedAt(startTime, TimeUnit.MILLISECONDS)
+                .setPeriodStartTime(startTime, TimeUnit.MILLISECONDS)
+                .setInitialState(RUNNING)
+                .build();
+        OneTimeWorkRequest succeeded = new OneTimeWorkRequest.Builder(TestWorker.class)
+                .setScheduleRequestedAt(startTime, TimeUnit.MILLISECONDS)
+                .setPeriodStartTime(startTime, TimeUnit.MILLISECONDS)
+                .setInitialState(SUCCEEDED)
+                .build();
+        OneTimeWorkRequest enqueued1 = new OneTimeWorkRequest.Builder(TestWorker.class)
+                .setPeriodStartTime(startTime, TimeUnit.MILLISECONDS)
+                .build();
+        OneTimeWorkRequest enqueued2 = new OneTimeWorkRequest.Builder(TestWorker.class)
+                .setPeriodStartTime(startTime, TimeUnit.MILLISECONDS)
+                .build();
+
+        insertWork(running);
+        insertWork(succeeded);
+        insertWork(enqueued1);
+        insertWork(enqueued2);
+
+        // The running work takes one of the two slots; the succeeded work takes none.
+        List<WorkSpec> eligibleWorkSpecs = workSpecDao.getEligibleWorkForScheduling(2);
+        assertThat(eligibleWorkSpecs.size(), is(1));
+    }
+
     @Test
     @SmallTest
     public void testResetScheduledState() {
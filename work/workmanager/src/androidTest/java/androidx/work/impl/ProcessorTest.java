@@ -17,27 +17,39 @@
 package androidx.work.impl;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 import android.content.Context;
+import android.support.annotation.NonNull;
 
 import androidx.test.InstrumentationRegistry;
 import androidx.test.filters.SmallTest;
 import androidx.test.runner.AndroidJUnit4;
 import androidx.work.Configuration;
 import androidx.work.DatabaseTest;
+import androidx.work.ExecutionPolicy;
 import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkInfo;
+import androidx.work.WorkPriority;
+import androidx.work.impl.model.WorkTag;
+import androidx.work.impl.utils.SynchronousExecutor;
 import androidx.work.impl.utils.taskexecutor.InstantWorkTaskExecutor;
+import androidx.work.impl.utils.taskexecutor.TaskExecutor;
 import androidx.work.worker.InfiniteTestWorker;
+import androidx.work.worker.TestWorker;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.ArrayDeque;
 import java.util.Collections;
+import java.util.Queue;
+import java.util.concurrent.Executor;
 
 @RunWith(AndroidJUnit4.class)
 public class ProcessorTest extends DatabaseTest {
@@ -93,4 +105,161 @@ public class ProcessorTest extends DatabaseTest {
         mProcessor.onExecuted("dummy", true);
         verify(mMockScheduler, never()).cancel("dummy");
     }
+
+    @Test
+    @SmallTest
+    public void testStopAndRestart_staleCompletionDoesNotLeakTagLimit() {
+        Context appContext = InstrumentationRegistry.getTargetContext().getApplicationContext();
+        Configuration configuration = new Configuration.Builder()
+                .setExecutor(new SynchronousExecutor())
+                .setExecutionPolicy(new ExecutionPolicy.Builder()
+                        .setTagConcurrencyLimit("sync", 1)
+                        .build())
+                .build();
+        QueuedTaskExecutor taskExecutor = new QueuedTaskExecutor();
+        Processor processor = new Processor(
+                appContext,
+                configuration,
+                taskExecutor,
+                mDatabase,
+                Collections.singletonList(mMockScheduler));
+
+        OneTimeWorkRequest work = insertWorkWithTag("sync");
+        String id = work.getStringId();
+        assertThat(processor.startWork(id), is(true));
+        // Queue the work and start it, without running it yet.
+        taskExecutor.mBackgroundQueue.poll().run();
+        assertThat(processor.getQueueMetrics().getRunningCount(), is(1));
+
+        // Stop it, and start it again before the stopped run reports that it finished.
+        assertThat(processor.stopWork(id), is(true));
+        assertThat(processor.startWork(id), is(true));
+        taskExecutor.runBackground();
+        assertThat(processor.getQueueMetrics().getRunningCount(), is(1));
+        assertThat(processor.getQueueMetrics().getQueuedCount(WorkPriority.DEFAULT), is(1));
+
+        // The stopped run finishes; the restarted run takes its place.
+        taskExecutor.runMainThread();
+        assertThat(processor.isEnqueued(id), is(true));
+        taskExecutor.runAll();
+        assertThat(mDatabase.workSpecDao().getState(id), is(WorkInfo.State.SUCCEEDED));
+        assertThat(processor.hasWork(), is(false));
+
+        WorkQueue.Metrics metrics = processor.getQueueMetrics();
+        assertThat(metrics.getRunningCount(), is(0));
+        assertThat(metrics.getStartedCount(WorkPriority.DEFAULT), is(2L));
+
+        // The tag limit is free again.
+        OneTimeWorkRequest next = insertWorkWithTag("sync");
+        assertThat(processor.startWork(next.getStringId()), is(true));
+        taskExecutor.runAll();
+        assertThat(mDatabase.workSpecDao().getState(next.getStringId()),
+                is(WorkInfo.State.SUCCEEDED));
+    }
+
+    @Test
+    @SmallTest
+    public void testStartWork_withoutLimitsSkipsQueue() {
+        Context appContext = InstrumentationRegistry.getTargetContext().getApplicationContext();
+        Configuration configuration = new Configuration.Builder()
+                .setExecutor(new SynchronousExecutor())
+                .build();
+        QueuedTaskExecutor taskExecutor = new QueuedTaskExecutor();
+        Processor processor = new Processor(
+                appContext,
+                configuration,
+                taskExecutor,
+                mDatabase,
+                Collections.singletonList(mMockScheduler));
+
+        OneTimeWorkRequest work = insertWorkWithTag("sync");
+        String id = work.getStringId();
+        assertThat(processor.startWork(id), is(true));
+        // The only background task is the work itself.
+        assertThat(taskExecutor.mBackgroundQueue.size(), is(1));
+        assertThat(taskExecutor.mBackgroundQueue.peek(), is(instanceOf(WorkerWrapper.class)));
+
+        taskExecutor.runAll();
+        assertThat(mDatabase.workSpecDao().getState(id), is(WorkInfo.State.SUCCEEDED));
+        assertThat(processor.hasWork(), is(false));
+        assertThat(processor.getQueueMetrics().getStartedCount(WorkPriority.DEFAULT), is(0L));
+    }
+
+    private OneTimeWorkRequest insertWorkWithTag(@NonNull String tag) {
+        OneTimeWorkRequest work = new OneTimeWorkRequest.Builder(TestWorker.class)
+                .addTag(tag)
+                .build();
+        insertWork(work);
+        mDatabase.workTagDao().insert(new WorkTag(tag, work.getStringId()));
+        return work;
+    }
+
+    /**
+     * A {@link TaskExecutor} that queues everything until the test runs it.
+     */
+    private static class QueuedTaskExecutor implements TaskExecutor {
+        final Queue<Runnable> mMainThreadQueue = new ArrayDeque<>();
+        final Queue<Runnable> mBackgroundQueue = new ArrayDeque<>();
+
+        private final Executor mMainThreadExecutor = new Executor() {
+            @Override
+            public void execute(@NonNull Runnable command) {
+                mMainThreadQueue.add(command);
+            }
+        };
+
+        private final Executor mBackgroundExecutor = new Executor() {
+            @Override
+            public void execute(@NonNull Runnable command) {
+                mBackgroundQueue.add(command);
+            }
+        };
+
+        @Override
+        public void postToMainThread(Runnable runnable) {
+            mMainThreadQueue.add(runnable);
+        }
+
+        @Override
+        public Executor getMainThreadExecutor() {
+            return mMainThreadExecutor;
+        }
+
+        @Override
+        public void executeOnBackgroundThread(Runnable runnable) {
+            mBackgroundQueue.add(runnable);
+        }
+
+        @Override
+        public Executor getBackgroundExecutor() {
+            return mBackgroundExecutor;
+        }
+
+        @NonNull
+        @Override
+        public Thread getBackgroundExecutorThread() {
+            return Thread.currentThread();
+        }
+
+        void runMainThread() {
+            Runnable runnable;
+            while ((runnable = mMainThreadQueue.poll()) != null) {
+                runnable.run();
+            }
+        }
+
+        void runBackground() {
+            Runnable runnable;
+            while ((runnable = mBackgroundQueue.poll()) != null) {
+                runnable.run();
+            }
+        }
+
+        void runAll() {
+            while (!mMainThreadQueue.isEmpty() || !mBackgroundQueue.isEmpty()) {
+                runBackground();
+                runMainThread();
+            }
+        }
+    }
 }
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.impl;
+
+import static androidx.work.WorkInfo.State.ENQUEUED;
+import static androidx.work.WorkInfo.State.SUCCEEDED;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import androidx.test.filters.SmallTest;
+import androidx.test.runner.AndroidJUnit4;
+import androidx.work.DatabaseTest;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkInfo;
+import androidx.work.impl.model.Dependency;
+import androidx.work.impl.model.WorkSpecDao;
+import androidx.work.impl.model.WorkTag;
+import androidx.work.impl.utils.Preferences;
+import androidx.work.worker.TestWorker;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.TimeUnit;
+
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class WorkDatabaseMaintenanceTest extends DatabaseTest {
+
+    private static final String TAG = "tag";
+
+    private Preferences mPreferences;
+    private WorkDatabaseMaintenance mMaintenance;
+
+    @Before
+    public void setUp() {
+        mPreferences = mock(Preferences.class);
+        mMaintenance = new WorkDatabaseMaintenance(mDatabase, mPreferences);
+    }
+
+    @Test
+    public void testPerformMaintenance_prunesOldFinishedWorkInBatches() {
+        int count = WorkDatabaseMaintenance.PRUNE_BATCH_SIZE + 1;
+        mDatabase.beginTransaction();
+        try {
+            for (int i = 0; i < count; i++) {
+                insertWorkWithTag(createOldWork(SUCCEEDED));
+            }
+            mDatabase.setTransactionSuccessful();
+        } finally {
+            mDatabase.endTransaction();
+        }
+        OneTimeWorkRequest enqueued = createOldWork(ENQUEUED);
+        insertWorkWithTag(enqueued);
+
+        WorkDatabaseMaintenance.Result result = mMaintenance.performMaintenance();
+
+        assertThat(result.getPrunedCount(), is(count));
+        assertThat(mDatabase.workTagDao().getWorkSpecIdsWithTag(TAG).size(), is(1));
+        assertThat(mDatabase.workSpecDao().getWorkSpec(enqueued.getStringId()),
+                is(notNullValue()));
+    }
+
+    @Test
+    public void testPerformMaintenance_keepsRecentWorkAndWorkWithUnfinishedDependents() {
+        OneTimeWorkRequest recent = new OneTimeWorkRequest.Builder(TestWorker.class)
+                .setInitialState(SUCCEEDED)
+                .build();
+        OneTimeWorkRequest prerequisite = createOldWork(SUCCEEDED);
+        OneTimeWorkRequest dependent = createOldWork(ENQUEUED);
+        insertWorkWithTag(recent);
+        insertWorkWithTag(prerequisite);
+        insertWorkWithTag(dependent);
+        mDatabase.dependencyDao().insertDependency(
+                new Dependency(dependent.getStringId(), prerequisite.getStringId()));
+
+        WorkDatabaseMaintenance.Result result = mMaintenance.performMaintenance();
+
+        WorkSpecDao workSpecDao = mDatabase.workSpecDao();
+        assertThat(result.getPrunedCount(), is(0));
+        assertThat(workSpecDao.getWorkSpec(recent.getStringId()), is(notNullValue()));
+        assertThat(workSpecDao.getWorkSpec(prerequisite.getStringId()), is(notNullValue()));
+    }
+
+    @Test
+    public void testRun_skipsWhenNotDue() {
+        OneTimeWorkRequest work = createOldWork(SUCCEEDED);
+        insertWorkWithTag(work);
+        when(mPreferences.getLastMaintenanceTimeMillis()).thenReturn(System.currentTimeMillis());
+
+        mMaintenance.run();
+
+        assertThat(mDatabase.workSpecDao().getWorkSpec(work.getStringId()), is(notNullValue()));
+        verify(mPreferences, never()).setLastMaintenanceTimeMillis(anyLong());
+    }
+
+    @Test
+    public void testRun_prunesWhenDue() {
+        OneTimeWorkRequest work = createOldWork(SUCCEEDED);
+        insertWorkWithTag(work);
+        when(mPreferences.getLastMaintenanceTimeMillis()).thenReturn(
+                System.currentTimeMillis() - WorkDatabaseMaintenance.MAINTENANCE_INTERVAL_MILLIS);
+
+        mMaintenance.run();
+
+        assertThat(mDatabase.workSpecDao().getWorkSpec(work.getStringId()), is(nullValue()));
+        verify(mPreferences).setLastMaintenanceTimeMillis(anyLong());
+    }
+
+    @Test
+    public void testRun_closedDatabase_doesNotThrow() {
+        WorkDatabase database = mock(WorkDatabase.class);
+        when(database.workSpecDao()).thenThrow(
+                new IllegalStateException("attempt to re-open an already-closed object"));
+        when(mPreferences.getLastMaintenanceTimeMillis()).thenReturn(
+                System.currentTimeMillis() - WorkDatabaseMaintenance.MAINTENANCE_INTERVAL_MILLIS);
+
+        new WorkDatabaseMaintenance(database, mPreferences).run();
+
+        verify(mPreferences).setLastMaintenanceTimeMillis(anyLong());
+    }
+
+    private static OneTimeWorkRequest createOldWork(WorkInfo.State state) {
+        return new OneTimeWorkRequest.Builder(TestWorker.class)
+                .setInitialState(state)
+                .setPeriodStartTime(WorkDatabase.getPruneDate() - 1L, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    private void insertWorkWithTag(OneTimeWorkRequest work) {
+        insertWork(work);
+        mDatabase.workTagDao().insert(new WorkTag(TAG, work.getStringId()));
+    }
+}
@@ -95,6 +95,7 @@ import androidx.work.impl.model.WorkTagDao;
 import androidx.work.impl.utils.CancelWorkRunnable;
 import androidx.work.impl.utils.Preferences;
 import androidx.work.impl.utils.RepeatRule;
+import androidx.work.impl.utils.SynchronousExecutor;
 import androidx.work.impl.utils.taskexecutor.InstantWorkTaskExecutor;
 import androidx.work.impl.workers.ConstraintTrackingWorker;
 import androidx.work.worker.InfiniteTestWorker;
@@ -154,6 +155,8 @@ public class WorkManagerImplTest {
                 .setExecutor(Executors.newSingleThreadExecutor())
                 .setMinimumLoggingLevel(Log.DEBUG)
                 .build();
+        // Finish database maintenance before the tests look at the database.
+        WorkManagerImpl.setDatabaseMaintenanceExecutor(new SynchronousExecutor());
         mWorkManagerImpl =
                 new WorkManagerImpl(mContext, mConfiguration, new InstantWorkTaskExecutor());
         WorkManagerImpl.setDelegate(mWorkManagerImpl);
@@ -163,6 +166,7 @@ public class WorkManagerImplTest {
     @After
     public void tearDown() {
         WorkManagerImpl.setDelegate(null);
+        WorkManagerImpl.setDatabaseMaintenanceExecutor(null);
         ArchTaskExecutor.getInstance().setDelegate(null);
     }
 
@@ -83,6 +83,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -524,6 +525,95 @@ public class WorkerWrapperTest extends DatabaseTest {
         assertThat(mWorkSpecDao.getState(cancelledWork.getStringId()), is(CANCELLED));
     }
 
+    @Test
+    @LargeTest
+    public void testDependencies_enqueuesWideFanOutOnSuccess() {
+        OneTimeWorkRequest prerequisiteWork =
+                new OneTimeWorkRequest.Builder(TestWorker.class).build();
+        OneTimeWorkRequest otherPrerequisiteWork =
+                new OneTimeWorkRequest.Builder(TestWorker.class).build();
+        List<OneTimeWorkRequest> dependents = new ArrayList<>();
+        OneTimeWorkRequest stillBlockedWork = new OneTimeWorkRequest.Builder(TestWorker.class)
+                .setInitialState(BLOCKED)
+                .build();
+
+        mDatabase.beginTransaction();
+        try {
+            insertWork(prerequisiteWork);
+            insertWork(otherPrerequisiteWork);
+            insertWork(stillBlockedWork);
+            mDependencyDao.insertDependency(
+                    new Dependency(stillBlockedWork.getStringId(), prerequisiteWork.getStringId()));
+            mDependencyDao.insertDependency(new Dependency(
+                    stillBlockedWork.getStringId(), otherPrerequisiteWork.getStringId()));
+            for (int i = 0; i < WorkerWrapper.MAX_IDS_PER_STATEMENT + 10; i++) {
+                OneTimeWorkRequest work = new OneTimeWorkRequest.Builder(TestWorker.class)
+                        .setInitialState(BLOCKED)
+                        .build();
+                insertWork(work);
+                mDependencyDao.insertDependency(
+                        new Dependency(work.getStringId(), prerequisiteWork.getStringId()));
+                dependents.add(work);
+            }
+            mDatabase.setTransactionSuccessful();
+        } finally {
+            mDatabase.endTransaction();
+        }
+
+        createBuilder(prerequisiteWork.getStringId())
+                .build()
+                .run();
+
+        assertThat(mWorkSpecDao.getState(prerequisiteWork.getStringId()), is(SUCCEEDED));
+        for (OneTimeWorkRequest work : dependents) {
+            assertThat(mWorkSpecDao.getState(work.getStringId()), is(ENQUEUED));
+        }
+        assertThat(mWorkSpecDao.getState(stillBlockedWork.getStringId()), is(BLOCKED));
+    }
+
+    @Test
+    @LargeTest
+    public void testDependencies_failsDeepChainOnFailure() {
+        OneTimeWorkRequest prerequisiteWork =
+                new OneTimeWorkRequest.Builder(FailureWorker.class).build();
+        List<OneTimeWorkRequest> chain = new ArrayList<>();
+        OneTimeWorkRequest cancelledWork = new OneTimeWorkRequest.Builder(TestWorker.class)
+                .setInitialState(CANCELLED)
+                .build();
+
+        mDatabase.beginTransaction();
+        try {
+            insertWork(prerequisiteWork);
+            OneTimeWorkRequest previous = prerequisiteWork;
+            for (int i = 0; i < 100; i++) {
+                OneTimeWorkRequest work = new OneTimeWorkRequest.Builder(TestWorker.class)
+                        .setInitialState(BLOCKED)
+                        .build();
+                insertWork(work);
+                mDependencyDao.insertDependency(
+                        new Dependency(work.getStringId(), previous.getStringId()));
+                chain.add(work);
+                previous = work;
+            }
+            insertWork(cancelledWork);
+            mDependencyDao.insertDependency(
+                    new Dependency(cancelledWork.getStringId(), previous.getStringId()));
+            mDatabase.setTransactionSuccessful();
+        } finally {
+            mDatabase.endTransaction();
+        }
+
+        createBuilder(prerequisiteWork.getStringId())
+                .build()
+                .run();
+
+        assertThat(mWorkSpecDao.getState(prerequisiteWork.getStringId()), is(FAILED));
+        for (OneTimeWorkRequest work : chain) {
+            assertThat(mWorkSpecDao.getState(work.getStringId()), is(FAILED));
+        }
+        assertThat(mWorkSpecDao.getState(cancelledWork.getStringId()), is(CANCELLED));
+    }
+
     @Test
     @SmallTest
     public void testRun_periodicWork_success_updatesPeriodStartTime() {
@@ -54,6 +54,7 @@ public final class Configuration {
     private final int mMinJobSchedulerId;
     private final int mMaxJobSchedulerId;
     private final int mMaxSchedulerLimit;
+    private final @NonNull ExecutionPolicy mExecutionPolicy;
 
     Configuration(@NonNull Configuration.Builder builder) {
         if (builder.mExecutor == null) {
@@ -72,6 +73,12 @@ public final class Configuration {
         mMinJobSchedulerId = builder.mMinJobSchedulerId;
         mMaxJobSchedulerId = builder.mMaxJobSchedulerId;
         mMaxSchedulerLimit = builder.mMaxSchedulerLimit;
+
+        if (builder.mExecutionPolicy == null) {
+            mExecutionPolicy = new ExecutionPolicy.Builder().build();
+        } else {
+            mExecutionPolicy = builder.mExecutionPolicy;
+        }
     }
 
     /**
@@ -89,6 +96,14 @@ public final class Configuration {
         return mWorkerFactory;
     }
 
+    /**
+     * @return The {@link ExecutionPolicy} used by {@link WorkManager} to decide which work that is
+     *         ready to run starts next
+     */
+    public @NonNull ExecutionPolicy getExecutionPolicy() {
+        return mExecutionPolicy;
+    }
+
     /**
      * @return The minimum logging level.
      * @hide
@@ -155,6 +170,7 @@ public final class Configuration {
         int mMinJobSchedulerId = IdGenerator.INITIAL_ID;
         int mMaxJobSchedulerId = Integer.MAX_VALUE;
         int mMaxSchedulerLimit = MIN_SCHEDULER_LIMIT;
+        ExecutionPolicy mExecutionPolicy;
 
         /**
          * Specifies a custom {@link WorkerFactory} for WorkManager.
@@ -178,6 +194,19 @@ public final class Configuration {
             return this;
         }
 
+        /**
+         * Specifies a custom {@link ExecutionPolicy} for WorkManager, to limit how much work runs
+         * at the same time and to prioritize work that is waiting to run.  By default, all work
+         * that is ready to run is started immediately.
+         *
+         * @param executionPolicy An {@link ExecutionPolicy} for starting work
+         * @return This {@link Builder} instance
+         */
+        public @NonNull Builder setExecutionPolicy(@NonNull ExecutionPolicy executionPolicy) {
+            mExecutionPolicy = executionPolicy;
+            return this;
+        }
+
         /**
          * Specifies the range of {@link android.app.job.JobInfo} IDs that can be used by
          * {@link WorkManager}.  WorkManager needs a range of at least {@code 1000} IDs.
@@ -0,0 +1,486 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work;
+
+import android.support.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Converts the values of a {@link Data} to and from a compact binary format.
+ * <p>
+ * The format starts with a version byte, followed by a table of all the distinct Strings used as
+ * keys or values, and by the entries. Each entry is the index of its key in the table, a type
+ * byte, and its value. Lengths, indices and integers are written as varints, with integers
+ * zigzag-encoded so that small negative values stay small. Arrays of primitives are written
+ * unboxed, booleans as bits.
+ * <p>
+ * Payloads written with Java serialization by earlier versions start with the serialization
+ * magic number, which can't be mistaken for the version byte.
+ */
+final class DataSerializer {
+
+    static final byte FORMAT_VERSION = 1;
+
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_FALSE = 1;
+    private static final byte TYPE_TRUE = 2;
+    private static final byte TYPE_INT = 3;
+    private static final byte TYPE_LONG = 4;
+    private static final byte TYPE_FLOAT = 5;
+    private static final byte TYPE_DOUBLE = 6;
+    private static final byte TYPE_STRING = 7;
+    private static final byte TYPE_BOOLEAN_ARRAY = 8;
+    private static final byte TYPE_INT_ARRAY = 9;
+    private static final byte TYPE_LONG_ARRAY = 10;
+    private static final byte TYPE_FLOAT_ARRAY = 11;
+    private static final byte TYPE_DOUBLE_ARRAY = 12;
+    private static final byte TYPE_STRING_ARRAY = 13;
+
+    // Set on the type of an array of primitives holding nulls, which is followed by a bitmap of
+    // the null elements, the other elements being written in order.
+    private static final int FLAG_NULL_ELEMENTS = 0x80;
+
+    private DataSerializer() {
+    }
+
+    /**
+     * Returns whether the payload was written by Java serialization.
+     */
+    static boolean isLegacyFormat(@NonNull byte[] bytes) {
+        return bytes.length >= 2 && bytes[0] == (byte) 0xAC && bytes[1] == (byte) 0xED;
+    }
+
+    static @NonNull byte[] serialize(@NonNull Map<String, Object> values) {
+        // Strings are written once, in the order they are first used
+        final Map<String, Integer> stringIndices = new HashMap<>();
+        final List<String> strings = new ArrayList<>();
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            addString(entry.getKey(), stringIndices, strings);
+            final Object value = entry.getValue();
+            if (value instanceof String) {
+                addString((String) value, stringIndices, strings);
+            } else if (value instanceof String[]) {
+                for (String element : (String[]) value) {
+                    if (element != null) {
+                        addString(element, stringIndices, strings);
+                    }
+                }
+            }
+        }
+
+        final Output out = new Output();
+        out.writeByte(FORMAT_VERSION);
+        out.writeVarint(strings.size());
+        for (String string : strings) {
+            out.writeString(string);
+        }
+        out.writeVarint(values.size());
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            out.writeVarint(stringIndices.get(entry.getKey()));
+            writeValue(out, entry.getValue(), stringIndices);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Reads the values of a payload written by {@link #serialize(Map)} into the given map.
+     *
+     * @throws IllegalArgumentException if the payload is truncated, malformed, or written in an
+     *                                  unknown version of the format. Values read before the
+     *                                  error are kept in the map.
+     */
+    static void deserialize(@NonNull byte[] bytes, @NonNull Map<String, Object> values) {
+        final Input in = new Input(bytes);
+        final int version = in.readByte();
+        if (version != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unknown Data format version " + version);
+        }
+        final String[] strings = new String[in.readLength()];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = in.readString();
+        }
+        for (int i = in.readLength(); i > 0; i--) {
+            final String key = stringAt(strings, in.readVarint());
+            values.put(key, readValue(in, strings));
+        }
+    }
+
+    private static void addString(String string, Map<String, Integer> stringIndices,
+            List<String> strings) {
+        if (!stringIndices.containsKey(string)) {
+            stringIndices.put(string, strings.size());
+            strings.add(string);
+        }
+    }
+
+    private static String stringAt(String[] strings, long index) {
+        if (index < 0 || index >= strings.length) {
+            throw new IllegalArgumentException("Invalid string index " + index);
+        }
+        return strings[(int) index];
+    }
+
+    private static void writeValue(Output out, Object value, Map<String, Integer> stringIndices) {
+        if (value == null) {
+            out.writeByte(TYPE_NULL);
+        } else if (value instanceof Boolean) {
+            out.writeByte((Boolean) value ? TYPE_TRUE : TYPE_FALSE);
+        } else if (value instanceof Integer) {
+            out.writeByte(TYPE_INT);
+            out.writeSignedVarint((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(TYPE_LONG);
+            out.writeSignedVarint((Long) value);
+        } else if (value instanceof Float) {
+            out.writeByte(TYPE_FLOAT);
+            out.writeFixed(Float.floatToIntBits((Float) value), 4);
+        } else if (value instanceof Double) {
+            out.writeByte(TYPE_DOUBLE);
+            out.writeFixed(Double.doubleToLongBits((Double) value), 8);
+        } else if (value instanceof String) {
+            out.writeByte(TYPE_STRING);
+            out.writeVarint(stringIndices.get(value));
+        } else if (value instanceof String[]) {
+            final String[] array = (String[]) value;
+            out.writeByte(TYPE_STRING_ARRAY);
+            out.writeVarint(array.length);
+            for (String element : array) {
+                // 0 stands for a null element
+                out.writeVarint(element == null ? 0 : stringIndices.get(element) + 1);
+            }
+        } else {
+            writePrimitiveArray(out, (Object[]) value);
+        }
+    }
+
+    private static void writePrimitiveArray(Output out, Object[] array) {
+        final byte type;
+        if (array instanceof Boolean[]) {
+            type = TYPE_BOOLEAN_ARRAY;
+        } else if (array instanceof Integer[]) {
+            type = TYPE_INT_ARRAY;
+        } else if (array instanceof Long[]) {
+            type = TYPE_LONG_ARRAY;
+        } else if (array instanceof Float[]) {
+            type = TYPE_FLOAT_ARRAY;
+        } else if (array instanceof Double[]) {
+            type = TYPE_DOUBLE_ARRAY;
+        } else {
+            throw new IllegalArgumentException(
+                    "Invalid value type " + array.getClass().getSimpleName());
+        }
+
+        boolean hasNullElements = false;
+        for (Object element : array) {
+            if (element == null) {
+                hasNullElements = true;
+                break;
+            }
+        }
+        out.writeByte(hasNullElements ? type | FLAG_NULL_ELEMENTS : type);
+        out.writeVarint(array.length);
+        if (hasNullElements) {
+            final boolean[] isNull = new boolean[array.length];
+            for (int i = 0; i < array.length; i++) {
+                isNull[i] = array[i] == null;
+            }
+            out.writeBits(isNull, array.length);
+        }
+
+        if (type == TYPE_BOOLEAN_ARRAY) {
+            final boolean[] bits = new boolean[array.length];
+            int count = 0;
+            for (Object element : array) {
+                if (element != null) {
+                    bits[count++] = (Boolean) element;
+                }
+            }
+            out.writeBits(bits, count);
+            return;
+        }
+        for (Object element : array) {
+            if (element == null) {
+                continue;
+            }
+            switch (type) {
+                case TYPE_INT_ARRAY:
+                    out.writeSignedVarint((Integer) element);
+                    break;
+                case TYPE_LONG_ARRAY:
+                    out.writeSignedVarint((Long) element);
+                    break;
+                case TYPE_FLOAT_ARRAY:
+                    out.writeFixed(Float.floatToIntBits((Float) element), 4);
+                    break;
+                default:
+                    out.writeFixed(Double.doubleToLongBits((Double) element), 8);
+                    break;
+            }
+        }
+    }
+
+    private static Object readValue(Input in, String[] strings) {
+        final int type = in.readByte();
+        switch (type) {
+            case TYPE_NULL:
+                return null;
+            case TYPE_FALSE:
+                return false;
+            case TYPE_TRUE:
+                return true;
+            case TYPE_INT:
+                return (int) in.readSignedVarint();
+            case TYPE_LONG:
+                return in.readSignedVarint();
+            case TYPE_FLOAT:
+                return Float.intBitsToFloat((int) in.readFixed(4));
+            case TYPE_DOUBLE:
+                return Double.longBitsToDouble(in.readFixed(8));
+            case TYPE_STRING:
+                return stringAt(strings, in.readVarint());
+            case TYPE_STRING_ARRAY: {
+                final String[] array = new String[in.readLength()];
+                for (int i = 0; i < array.length; i++) {
+                    final long index = in.readVarint();
+                    array[i] = index == 0 ? null : stringAt(strings, index - 1);
+                }
+                return array;
+            }
+            default:
+                return readPrimitiveArray(in, type);
+        }
+    }
+
+    private static Object[] readPrimitiveArray(Input in, int typeAndFlags) {
+        final int type = typeAndFlags & ~FLAG_NULL_ELEMENTS;
+        final Object[] array;
+        // booleans and null elements take a bit each
+        final int length = in.readLength(8);
+        switch (type) {
+            case TYPE_BOOLEAN_ARRAY:
+                array = new Boolean[length];
+                break;
+            case TYPE_INT_ARRAY:
+                array = new Integer[length];
+                break;
+            case TYPE_LONG_ARRAY:
+                array = new Long[length];
+                break;
+            case TYPE_FLOAT_ARRAY:
+                array = new Float[length];
+                break;
+            case TYPE_DOUBLE_ARRAY:
+                array = new Double[length];
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown value type " + typeAndFlags);
+        }
+
+        final boolean[] isNull = new boolean[length];
+        int count = length;
+        if ((typeAndFlags & FLAG_NULL_ELEMENTS) != 0) {
+            in.readBits(isNull, length);
+            for (boolean elementIsNull : isNull) {
+                if (elementIsNull) {
+                    count--;
+                }
+            }
+        }
+
+        if (type == TYPE_BOOLEAN_ARRAY) {
+            final boolean[] bits = new boolean[count];
+            in.readBits(bits, count);
+            for (int i = 0, j = 0; i < length; i++) {
+                if (!isNull[i]) {
+                    array[i] = bits[j++];
+                }
+            }
+            return array;
+        }
+        for (int i = 0; i < length; i++) {
+            if (isNull[i]) {
+                continue;
+            }
+            switch (type) {
+                case TYPE_INT_ARRAY:
+                    array[i] = (int) in.readSignedVarint();
+                    break;
+                case TYPE_LONG_ARRAY:
+                    array[i] = in.readSignedVarint();
+                    break;
+                case TYPE_FLOAT_ARRAY:
+                    array[i] = Float.intBitsToFloat((int) in.readFixed(4));
+                    break;
+                default:
+                    array[i] = Double.longBitsToDouble(in.readFixed(8));
+                    break;
+            }
+        }
+        return array;
+    }
+
+    private static final class Output {
+        private byte[] mBuffer = new byte[64];
+        private int mPosition;
+
+        void writeByte(int value) {
+            if (mPosition == mBuffer.length) {
+                mBuffer = Arrays.copyOf(mBuffer, mBuffer.length * 2);
+            }
+            mBuffer[mPosition++] = (byte) value;
+        }
+
+        void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                writeByte((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            writeByte((int) value);
+        }
+
+        void writeSignedVarint(long value) {
+            writeVarint((value << 1) ^ (value >> 63));
+        }
+
+        void writeFixed(long value, int byteCount) {
+            for (int i = 0; i < byteCount; i++) {
+                writeByte((int) (value >>> (8 * i)));
+            }
+        }
+
+        void writeBits(boolean[] bits, int count) {
+            for (int i = 0; i < count; i += 8) {
+                int packed = 0;
+                for (int j = 0; j < 8 && i + j < count; j++) {
+                    if (bits[i + j]) {
+                        packed |= 1 << j;
+                    }
+                }
+                writeByte(packed);
+            }
+        }
+
+        // Writes the length of the string in chars, then its chars encoded like
+        // DataOutput#writeUTF, so that any String, including unpaired surrogates, is kept as is.
+        void writeString(String string) {
+            final int length = string.length();
+            writeVarint(length);
+            for (int i = 0; i < length; i++) {
+                final char c = string.charAt(i);
+                if (c >= 0x0001 && c <= 0x007F) {
+                    writeByte(c);
+                } else if (c <= 0x07FF) {
+                    writeByte(0xC0 | (c >> 6));
+                    writeByte(0x80 | (c & 0x3F));
+                } else {
+                    writeByte(0xE0 | (c >> 12));
+                    writeByte(0x80 | ((c >> 6) & 0x3F));
+                    writeByte(0x80 | (c & 0x3F));
+                }
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(mBuffer, mPosition);
+        }
+    }
+
+    private static final class Input {
+        private final byte[] mBuffer;
+        private int mPosition;
+
+        Input(byte[] buffer) {
+            mBuffer = buffer;
+        }
+
+        int readByte() {
+            if (mPosition >= mBuffer.length) {
+                throw new IllegalArgumentException("Truncated Data");
+            }
+            return mBuffer[mPosition++] & 0xFF;
+        }
+
+        long readVarint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                final int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        long readSignedVarint() {
+            final long value = readVarint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        int readLength() {
+            return readLength(1);
+        }
+
+        // Lengths can't exceed what the remaining bytes can hold, which protects from allocating
+        // huge arrays when reading a malformed payload
+        int readLength(int elementsPerByte) {
+            final long length = readVarint();
+            if (length < 0 || length > (long) (mBuffer.length - mPosition) * elementsPerByte) {
+                throw new IllegalArgumentException("Invalid length " + length);
+            }
+            return (int) length;
+        }
+
+        long readFixed(int byteCount) {
+            long value = 0;
+            for (int i = 0; i < byteCount; i++) {
+                value |= (long) readByte() << (8 * i);
+            }
+            return value;
+        }
+
+        void readBits(boolean[] bits, int count) {
+            for (int i = 0; i < count; i += 8) {
+                final int packed = readByte();
+                for (int j = 0; j < 8 && i + j < count; j++) {
+                    bits[i + j] = (packed & (1 << j)) != 0;
+                }
+            }
+        }
+
+        String readString() {
+            final char[] chars = new char[readLength()];
+            for (int i = 0; i < chars.length; i++) {
+                final int b = readByte();
+                if (b < 0x80) {
+                    chars[i] = (char) b;
+                } else if ((b & 0xE0) == 0xC0) {
+                    chars[i] = (char) (((b & 0x1F) << 6) | (readByte() & 0x3F));
+                } else {
+                    chars[i] = (char) (((b & 0x0F) << 12) | ((readByte() & 0x3F) << 6)
+                            | (readByte() & 0x3F));
+                }
+            }
+            return new String(chars);
+        }
+    }
+}
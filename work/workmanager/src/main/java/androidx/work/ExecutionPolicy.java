@@ -0,0 +1,172 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work;
+
+import android.support.annotation.IntRange;
+import android.support.annotation.NonNull;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Describes how {@link WorkManager} shares its execution slots between work that is ready to run.
+ * <p>
+ * By default, all work that is ready to run is started immediately, in the order in which it
+ * became ready.  When a maximum amount of concurrent work or per-tag limits are specified, work
+ * that cannot start immediately waits in a queue per {@link WorkPriority}.  Free slots are then
+ * shared between the queues in proportion to their weights, and work that would exceed the limit
+ * of one of its tags is skipped until other work with that tag finishes.
+ * <p>
+ * To set a custom ExecutionPolicy, see {@link Configuration.Builder#setExecutionPolicy}.
+ */
+
+public final class ExecutionPolicy {
+
+    /**
+     * The default weight of {@link WorkPriority#LOW} work.
+     */
+    public static final int DEFAULT_LOW_PRIORITY_WEIGHT = 1;
+
+    /**
+     * The default weight of {@link WorkPriority#DEFAULT} work.
+     */
+    public static final int DEFAULT_PRIORITY_WEIGHT = 4;
+
+    /**
+     * The default weight of {@link WorkPriority#HIGH} work.
+     */
+    public static final int DEFAULT_HIGH_PRIORITY_WEIGHT = 16;
+
+    private final int mMaxConcurrentWork;
+    private final @NonNull Map<String, Integer> mTagConcurrencyLimits;
+    private final @NonNull int[] mPriorityWeights;
+
+    ExecutionPolicy(@NonNull ExecutionPolicy.Builder builder) {
+        mMaxConcurrentWork = builder.mMaxConcurrentWork;
+        mTagConcurrencyLimits =
+                Collections.unmodifiableMap(new HashMap<>(builder.mTagConcurrencyLimits));
+        mPriorityWeights = builder.mPriorityWeights.clone();
+    }
+
+    /**
+     * @return The maximum number of units of work that run at the same time, or
+     *         {@link Integer#MAX_VALUE} if it is not limited
+     */
+    public int getMaxConcurrentWork() {
+        return mMaxConcurrentWork;
+    }
+
+    /**
+     * @return The maximum number of units of work that run at the same time per tag
+     */
+    public @NonNull Map<String, Integer> getTagConcurrencyLimits() {
+        return mTagConcurrencyLimits;
+    }
+
+    /**
+     * @param priority A {@link WorkPriority}
+     * @return The share of execution slots given to {@code priority} work, relative to the other
+     *         priorities
+     */
+    public int getPriorityWeight(@NonNull WorkPriority priority) {
+        return mPriorityWeights[priority.ordinal()];
+    }
+
+    /**
+     * A Builder for {@link ExecutionPolicy}s.
+     */
+    public static final class Builder {
+
+        int mMaxConcurrentWork = Integer.MAX_VALUE;
+        Map<String, Integer> mTagConcurrencyLimits = new HashMap<>();
+        int[] mPriorityWeights = new int[] {
+                DEFAULT_LOW_PRIORITY_WEIGHT,
+                DEFAULT_PRIORITY_WEIGHT,
+                DEFAULT_HIGH_PRIORITY_WEIGHT
+        };
+
+        /**
+         * Specifies the maximum number of units of work that run at the same time.  Additional
+         * work that is ready to run waits until running work finishes.  By default this is not
+         * limited.
+         *
+         * @param maxConcurrentWork The maximum number of units of work running at the same time
+         * @return This {@link Builder} instance
+         * @throws IllegalArgumentException if {@code maxConcurrentWork} is less than {@code 1}
+         */
+        public @NonNull Builder setMaxConcurrentWork(@IntRange(from = 1) int maxConcurrentWork) {
+            if (maxConcurrentWork < 1) {
+                throw new IllegalArgumentException(
+                        "maxConcurrentWork must be positive: " + maxConcurrentWork);
+            }
+            mMaxConcurrentWork = maxConcurrentWork;
+            return this;
+        }
+
+        /**
+         * Specifies the maximum number of units of work tagged with {@code tag} that run at the
+         * same time.  Additional work with that tag waits, without holding back work that does
+         * not have it.
+         *
+         * @param tag The tag to limit, as added by {@link WorkRequest.Builder#addTag(String)}
+         * @param limit The maximum number of units of work with {@code tag} running at the same
+         *              time
+         * @return This {@link Builder} instance
+         * @throws IllegalArgumentException if {@code limit} is less than {@code 1}
+         */
+        public @NonNull Builder setTagConcurrencyLimit(
+                @NonNull String tag,
+                @IntRange(from = 1) int limit) {
+            if (limit < 1) {
+                throw new IllegalArgumentException("limit must be positive: " + limit);
+            }
+            mTagConcurrencyLimits.put(tag, limit);
+            return this;
+        }
+
+        /**
+         * Specifies the share of execution slots given to work of a {@link WorkPriority} while
+         * work of several priorities is waiting.  For example, with the default weights, up to
+         * {@code 16} units of {@link WorkPriority#HIGH} work start for each unit of
+         * {@link WorkPriority#LOW} work.
+         *
+         * @param priority The {@link WorkPriority} to weigh
+         * @param weight The relative share of execution slots given to {@code priority} work
+         * @return This {@link Builder} instance
+         * @throws IllegalArgumentException if {@code weight} is less than {@code 1}
+         */
+        public @NonNull Builder setPriorityWeight(
+                @NonNull WorkPriority priority,
+                @IntRange(from = 1) int weight) {
+            if (weight < 1) {
+                throw new IllegalArgumentException("weight must be positive: " + weight);
+            }
+            mPriorityWeights[priority.ordinal()] = weight;
+            return this;
+        }
+
+        /**
+         * Builds an {@link ExecutionPolicy} object.
+         *
+         * @return An {@link ExecutionPolicy} object with this {@link Builder}'s parameters.
+         */
+        public @NonNull ExecutionPolicy build() {
+            return new ExecutionPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work;
+
+/**
+ * An enumeration of priority classes for work.  When the {@link ExecutionPolicy} limits how much
+ * work runs at the same time, work that is ready to run waits in a queue per priority class, and
+ * each class is given a share of the available slots proportional to its weight.  Priorities are
+ * set in {@link WorkRequest.Builder#setPriority(WorkPriority)}.
+ */
+
+public enum WorkPriority {
+
+    /**
+     * Used to indicate that the work can wait behind other work, such as periodic syncs
+     */
+    LOW,
+
+    /**
+     * Used to indicate that the work has no particular priority; this is the default
+     */
+    DEFAULT,
+
+    /**
+     * Used to indicate that the work is latency-sensitive
+     */
+    HIGH
+}
@@ -193,6 +193,20 @@ public abstract class WorkRequest {
             return getThis();
         }
 
+        /**
+         * Sets the priority class of the work.  When the {@link ExecutionPolicy} of the
+         * {@link Configuration} limits how much work runs at the same time, work with a higher
+         * priority is given a larger share of the available slots.  The default value is
+         * {@link WorkPriority#DEFAULT}.
+         *
+         * @param priority The {@link WorkPriority} of the work
+         * @return The current {@link Builder}
+         */
+        public final @NonNull B setPriority(@NonNull WorkPriority priority) {
+            mWorkSpec.priority = priority;
+            return getThis();
+        }
+
         /**
          * Adds a tag for the work.  You can query and cancel work by tags.  Tags are particularly
          * useful for modules or libraries to find and operate on their own work.
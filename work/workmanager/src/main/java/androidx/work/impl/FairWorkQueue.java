@@ -0,0 +1,208 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.impl;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.RestrictTo;
+
+import androidx.work.ExecutionPolicy;
+import androidx.work.WorkPriority;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link WorkQueue} that enforces the limits of an {@link ExecutionPolicy}, and shares free
+ * slots between priorities with start-time fair queuing: every priority has a virtual clock that
+ * advances by the inverse of its weight each time its work starts, and the waiting priority with
+ * the earliest clock goes next.  A priority that had nothing waiting catches up with the current
+ * virtual time, so it cannot save up slots while idle.  Within a priority, work starts in the
+ * order it was added, skipping work held back by a tag limit.
+ *
+ * @hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+public class FairWorkQueue<T> implements WorkQueue<T> {
+
+    private static final WorkPriority[] PRIORITIES = WorkPriority.values();
+
+    private final ExecutionPolicy mPolicy;
+    private final List<LinkedList<Entry<T>>> mQueues;
+    private final double[] mFinishTimes;
+    private double mVirtualTime;
+
+    private final Map<T, Entry<T>> mRunning;
+    private final Map<String, Integer> mRunningCountsByTag;
+
+    private final long[] mStartedCounts;
+    private final long[] mTotalWaitTimesMillis;
+    private final long[] mMaxWaitTimesMillis;
+
+    public FairWorkQueue(@NonNull ExecutionPolicy policy) {
+        mPolicy = policy;
+        mQueues = new ArrayList<>(PRIORITIES.length);
+        for (int i = 0; i < PRIORITIES.length; i++) {
+            mQueues.add(new LinkedList<Entry<T>>());
+        }
+        mFinishTimes = new double[PRIORITIES.length];
+        mRunning = new HashMap<>();
+        mRunningCountsByTag = new HashMap<>();
+        mStartedCounts = new long[PRIORITIES.length];
+        mTotalWaitTimesMillis = new long[PRIORITIES.length];
+        mMaxWaitTimesMillis = new long[PRIORITIES.length];
+    }
+
+    @Override
+    public void add(@NonNull T work, @NonNull WorkPriority priority,
+            @NonNull List<String> tags) {
+        LinkedList<Entry<T>> queue = mQueues.get(priority.ordinal());
+        if (queue.isEmpty()) {
+            // Don't let a priority that had nothing waiting make up for the time it was idle.
+            mFinishTimes[priority.ordinal()] =
+                    Math.max(mFinishTimes[priority.ordinal()], mVirtualTime);
+        }
+        queue.add(new Entry<>(work, priority, tags, System.currentTimeMillis()));
+    }
+
+    @Override
+    public boolean remove(@NonNull T work) {
+        for (LinkedList<Entry<T>> queue : mQueues) {
+            Iterator<Entry<T>> iterator = queue.iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().mWork.equals(work)) {
+                    iterator.remove();
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public @Nullable T poll() {
+        if (mRunning.size() >= mPolicy.getMaxConcurrentWork()) {
+            return null;
+        }
+
+        Entry<T> next = null;
+        double nextFinishTime = Double.MAX_VALUE;
+        // Higher priorities go first on ties.
+        for (int i = PRIORITIES.length - 1; i >= 0; i--) {
+            double finishTime = mFinishTimes[i] + 1.0 / mPolicy.getPriorityWeight(PRIORITIES[i]);
+            if (finishTime < nextFinishTime) {
+                Entry<T> entry = findStartable(mQueues.get(i));
+                if (entry != null) {
+                    next = entry;
+                    nextFinishTime = finishTime;
+                }
+            }
+        }
+        if (next == null) {
+            return null;
+        }
+
+        int index = next.mPriority.ordinal();
+        mQueues.get(index).remove(next);
+        mVirtualTime = Math.max(mVirtualTime, mFinishTimes[index]);
+        mFinishTimes[index] = nextFinishTime;
+
+        mRunning.put(next.mWork, next);
+        for (String tag : next.mTags) {
+            Integer count = mRunningCountsByTag.get(tag);
+            mRunningCountsByTag.put(tag, count == null ? 1 : count + 1);
+        }
+
+        long waitTimeMillis = Math.max(0, System.currentTimeMillis() - next.mEnqueueTimeMillis);
+        mStartedCounts[index]++;
+        mTotalWaitTimesMillis[index] += waitTimeMillis;
+        mMaxWaitTimesMillis[index] = Math.max(mMaxWaitTimesMillis[index], waitTimeMillis);
+        return next.mWork;
+    }
+
+    @Override
+    public void onFinished(@NonNull T work) {
+        Entry<T> entry = mRunning.remove(work);
+        if (entry == null) {
+            return;
+        }
+        for (String tag : entry.mTags) {
+            Integer count = mRunningCountsByTag.get(tag);
+            if (count == null || count <= 1) {
+                mRunningCountsByTag.remove(tag);
+            } else {
+                mRunningCountsByTag.put(tag, count - 1);
+            }
+        }
+    }
+
+    @Override
+    public @NonNull Metrics getMetrics() {
+        int[] queuedCounts = new int[PRIORITIES.length];
+        for (int i = 0; i < PRIORITIES.length; i++) {
+            queuedCounts[i] = mQueues.get(i).size();
+        }
+        return new Metrics(queuedCounts, mRunning.size(), mStartedCounts, mTotalWaitTimesMillis,
+                mMaxWaitTimesMillis);
+    }
+
+    private @Nullable Entry<T> findStartable(@NonNull LinkedList<Entry<T>> queue) {
+        Map<String, Integer> limits = mPolicy.getTagConcurrencyLimits();
+        if (limits.isEmpty()) {
+            return queue.peek();
+        }
+        for (Entry<T> entry : queue) {
+            if (isWithinTagLimits(entry, limits)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private boolean isWithinTagLimits(
+            @NonNull Entry<T> entry,
+            @NonNull Map<String, Integer> limits) {
+        for (String tag : entry.mTags) {
+            Integer limit = limits.get(tag);
+            if (limit != null) {
+                Integer count = mRunningCountsByTag.get(tag);
+                if (count != null && count >= limit) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static final class Entry<T> {
+        final T mWork;
+        final WorkPriority mPriority;
+        final List<String> mTags;
+        final long mEnqueueTimeMillis;
+
+        Entry(T work, WorkPriority priority, List<String> tags, long enqueueTimeMillis) {
+            mWork = work;
+            mPriority = priority;
+            mTags = tags;
+            mEnqueueTimeMillis = enqueueTimeMillis;
+        }
+    }
+}
@@ -17,10 +17,14 @@ package androidx.work.impl;
 
 import android.content.Context;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.support.annotation.RestrictTo;
+import android.support.annotation.WorkerThread;
 
 import androidx.work.Configuration;
+import androidx.work.ExecutionPolicy;
 import androidx.work.Logger;
+import androidx.work.WorkPriority;
 import androidx.work.WorkerParameters;
 import androidx.work.impl.utils.taskexecutor.TaskExecutor;
 
@@ -36,6 +40,10 @@ import java.util.concurrent.ExecutionException;
 
 /**
  * A Processor can intelligently schedule and execute work on demand.
+ * <p>
+ * When the {@link ExecutionPolicy} of the {@link Configuration} limits concurrent work, work that
+ * is ready to run goes through a {@link WorkQueue}, which decides when it starts.  Otherwise it
+ * starts right away.
  *
  * @hide
  */
@@ -49,6 +57,9 @@ public class Processor implements ExecutionListener {
     private WorkDatabase mWorkDatabase;
     private Map<String, WorkerWrapper> mEnqueuedWorkMap;
     private List<Scheduler> mSchedulers;
+    private WorkQueue<WorkerWrapper> mWorkQueue;
+    // Without limits, work never waits, so it skips the queue and the lookups it needs.
+    private boolean mQueueWork;
 
     private Set<String> mCancelledIds;
 
@@ -61,12 +72,29 @@ public class Processor implements ExecutionListener {
             TaskExecutor workTaskExecutor,
             WorkDatabase workDatabase,
             List<Scheduler> schedulers) {
+        this(appContext,
+                configuration,
+                workTaskExecutor,
+                workDatabase,
+                schedulers,
+                new FairWorkQueue<WorkerWrapper>(configuration.getExecutionPolicy()));
+    }
+
+    public Processor(
+            Context appContext,
+            Configuration configuration,
+            TaskExecutor workTaskExecutor,
+            WorkDatabase workDatabase,
+            List<Scheduler> schedulers,
+            WorkQueue<WorkerWrapper> workQueue) {
         mAppContext = appContext;
         mConfiguration = configuration;
         mWorkTaskExecutor = workTaskExecutor;
         mWorkDatabase = workDatabase;
         mEnqueuedWorkMap = new HashMap<>();
         mSchedulers = schedulers;
+        mWorkQueue = workQueue;
+        mQueueWork = hasLimits(configuration.getExecutionPolicy());
         mCancelledIds = new HashSet<>();
         mOuterListeners = new ArrayList<>();
         mLock = new Object();
@@ -113,11 +141,13 @@ public class Processor implements ExecutionListener {
                             .build();
             ListenableFuture<Boolean> future = workWrapper.getFuture();
             future.addListener(
-                    new FutureListener(this, id, future),
+                    new FutureListener(this, id, workWrapper, future),
                     mWorkTaskExecutor.getMainThreadExecutor());
             mEnqueuedWorkMap.put(id, workWrapper);
         }
-        mWorkTaskExecutor.getBackgroundExecutor().execute(workWrapper);
+        mWorkTaskExecutor.getBackgroundExecutor().execute(mQueueWork
+                ? new QueueWorkRunnable(this, id, workWrapper)
+                : workWrapper);
         Logger.get().debug(TAG, String.format("%s: processing %s", getClass().getSimpleName(), id));
         return true;
     }
@@ -133,6 +163,7 @@ public class Processor implements ExecutionListener {
             Logger.get().debug(TAG, String.format("Processor stopping %s", id));
             WorkerWrapper wrapper = mEnqueuedWorkMap.remove(id);
             if (wrapper != null) {
+                mWorkQueue.remove(wrapper);
                 wrapper.interrupt(false);
                 Logger.get().debug(TAG, String.format("WorkerWrapper stopped for %s", id));
                 return true;
@@ -154,6 +185,7 @@ public class Processor implements ExecutionListener {
             mCancelledIds.add(id);
             WorkerWrapper wrapper = mEnqueuedWorkMap.remove(id);
             if (wrapper != null) {
+                mWorkQueue.remove(wrapper);
                 wrapper.interrupt(true);
                 Logger.get().debug(TAG, String.format("WorkerWrapper cancelled for %s", id));
                 return true;
@@ -194,6 +226,17 @@ public class Processor implements ExecutionListener {
         }
     }
 
+    /**
+     * @return A snapshot of the queue depths and wait times of the work started by this
+     * processor.  Only work that went through the queue is counted, i.e. none when the
+     * {@link ExecutionPolicy} has no limits.
+     */
+    public @NonNull WorkQueue.Metrics getQueueMetrics() {
+        synchronized (mLock) {
+            return mWorkQueue.getMetrics();
+        }
+    }
+
     /**
      * Adds an {@link ExecutionListener} to track when work finishes.
      *
@@ -220,9 +263,35 @@ public class Processor implements ExecutionListener {
     public void onExecuted(
             @NonNull final String workSpecId,
             boolean needsReschedule) {
+        onExecuted(workSpecId, null, needsReschedule);
+    }
+
+    /**
+     * Called when a {@link WorkerWrapper} finished running.
+     *
+     * @param workSpecId The {@link androidx.work.impl.model.WorkSpec} id
+     * @param workWrapper The {@link WorkerWrapper} that finished, or {@code null} for the one
+     *                    currently enqueued for {@code workSpecId}
+     * @param needsReschedule {@code true} if the work needs to be rescheduled
+     */
+    void onExecuted(
+            @NonNull String workSpecId,
+            @Nullable WorkerWrapper workWrapper,
+            boolean needsReschedule) {
 
         synchronized (mLock) {
-            mEnqueuedWorkMap.remove(workSpecId);
+            WorkerWrapper enqueuedWrapper = mEnqueuedWorkMap.get(workSpecId);
+            if (workWrapper == null) {
+                workWrapper = enqueuedWrapper;
+            }
+            // A stopped wrapper can finish after the same work was started again; leave the new
+            // wrapper enqueued.
+            if (enqueuedWrapper == workWrapper) {
+                mEnqueuedWorkMap.remove(workSpecId);
+            }
+            if (workWrapper != null) {
+                mWorkQueue.onFinished(workWrapper);
+            }
             Logger.get().debug(TAG, String.format("%s %s executed; reschedule = %s",
                     getClass().getSimpleName(), workSpecId, needsReschedule));
 
@@ -230,21 +299,84 @@ public class Processor implements ExecutionListener {
                 executionListener.onExecuted(workSpecId, needsReschedule);
             }
         }
+        startQueuedWork();
+    }
+
+    // Package-private for synthetic accessor.
+    @WorkerThread
+    void queueWork(@NonNull String workSpecId, @NonNull WorkerWrapper workWrapper) {
+        WorkPriority priority = mWorkDatabase.workSpecDao().getPriority(workSpecId);
+        List<String> tags = mWorkDatabase.workTagDao().getTagsForWorkSpecId(workSpecId);
+        synchronized (mLock) {
+            if (mEnqueuedWorkMap.get(workSpecId) != workWrapper) {
+                // The work was stopped before it got queued.
+                return;
+            }
+            mWorkQueue.add(
+                    workWrapper,
+                    priority == null ? WorkPriority.DEFAULT : priority,
+                    tags);
+        }
+        startQueuedWork();
+    }
+
+    private static boolean hasLimits(@NonNull ExecutionPolicy policy) {
+        return policy.getMaxConcurrentWork() != Integer.MAX_VALUE
+                || !policy.getTagConcurrencyLimits().isEmpty();
+    }
+
+    private void startQueuedWork() {
+        List<WorkerWrapper> workWrappers = new ArrayList<>();
+        synchronized (mLock) {
+            // Stopped work is removed from the queue, so everything polled is still enqueued.
+            WorkerWrapper workWrapper;
+            while ((workWrapper = mWorkQueue.poll()) != null) {
+                workWrappers.add(workWrapper);
+            }
+        }
+        // Start work outside of the lock, as executors may run it synchronously.
+        for (WorkerWrapper workWrapper : workWrappers) {
+            mWorkTaskExecutor.getBackgroundExecutor().execute(workWrapper);
+        }
+    }
+
+    private static class QueueWorkRunnable implements Runnable {
+
+        private @NonNull Processor mProcessor;
+        private @NonNull String mWorkSpecId;
+        private @NonNull WorkerWrapper mWorkWrapper;
+
+        QueueWorkRunnable(
+                @NonNull Processor processor,
+                @NonNull String workSpecId,
+                @NonNull WorkerWrapper workWrapper) {
+            mProcessor = processor;
+            mWorkSpecId = workSpecId;
+            mWorkWrapper = workWrapper;
+        }
+
+        @Override
+        public void run() {
+            mProcessor.queueWork(mWorkSpecId, mWorkWrapper);
+        }
     }
 
     // TODO: Clean this up some more.
     private static class FutureListener implements Runnable {
 
-        private @NonNull ExecutionListener mExecutionListener;
+        private @NonNull Processor mProcessor;
         private @NonNull String mWorkSpecId;
+        private @NonNull WorkerWrapper mWorkWrapper;
         private @NonNull ListenableFuture<Boolean> mFuture;
 
         FutureListener(
-                @NonNull ExecutionListener executionListener,
+                @NonNull Processor processor,
                 @NonNull String workSpecId,
+                @NonNull WorkerWrapper workWrapper,
                 @NonNull ListenableFuture<Boolean> future) {
-            mExecutionListener = executionListener;
+            mProcessor = processor;
             mWorkSpecId = workSpecId;
+            mWorkWrapper = workWrapper;
             mFuture = future;
         }
 
@@ -257,7 +389,7 @@ public class Processor implements ExecutionListener {
                 // Should never really happen(?)
                 needsReschedule = true;
             }
-            mExecutionListener.onExecuted(mWorkSpecId, needsReschedule);
+            mProcessor.onExecuted(mWorkSpecId, mWorkWrapper, needsReschedule);
         }
     }
 }
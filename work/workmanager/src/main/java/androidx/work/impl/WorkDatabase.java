@@ -18,11 +18,14 @@ package androidx.work.impl;
 
 import static androidx.work.impl.WorkDatabaseMigrations.MIGRATION_3_4;
 import static androidx.work.impl.WorkDatabaseMigrations.MIGRATION_4_5;
+import static androidx.work.impl.WorkDatabaseMigrations.MIGRATION_5_6;
+import static androidx.work.impl.WorkDatabaseMigrations.MIGRATION_6_7;
 import static androidx.work.impl.WorkDatabaseMigrations.VERSION_2;
 import static androidx.work.impl.WorkDatabaseMigrations.VERSION_3;
 import static androidx.work.impl.model.WorkTypeConverters.StateIds.COMPLETED_STATES;
 import static androidx.work.impl.model.WorkTypeConverters.StateIds.ENQUEUED;
 import static androidx.work.impl.model.WorkTypeConverters.StateIds.RUNNING;
+import static androidx.work.impl.model.WorkTypeConverters.StateIds.UNFINISHED_STATES;
 
 import android.arch.persistence.db.SupportSQLiteDatabase;
 import android.arch.persistence.room.Database;
@@ -60,7 +63,7 @@ import java.util.concurrent.TimeUnit;
         WorkTag.class,
         SystemIdInfo.class,
         WorkName.class},
-        version = 5)
+        version = 7)
 @TypeConverters(value = {Data.class, WorkTypeConverters.class})
 public abstract class WorkDatabase extends RoomDatabase {
 
@@ -70,18 +73,20 @@ public abstract class WorkDatabase extends RoomDatabase {
             + " schedule_requested_at=" + WorkSpec.SCHEDULE_NOT_REQUESTED_YET
             + " WHERE state=" + RUNNING;
 
-    // Delete rows in the workspec table that...
-    private static final String PRUNE_SQL_FORMAT_PREFIX = "DELETE FROM workspec WHERE "
+    // Delete up to PRUNE_ON_OPEN_LIMIT rows in the workspec table that...
+    private static final String PRUNE_SQL_FORMAT_PREFIX = "DELETE FROM workspec WHERE id IN "
+            + "(SELECT id FROM workspec WHERE "
             // are completed...
             + "state IN " + COMPLETED_STATES + " AND "
             // and the minimum retention time has expired...
             + "(period_start_time + minimum_retention_duration) < ";
     // and all dependents are completed.
     private static final String PRUNE_SQL_FORMAT_SUFFIX = " AND "
-            + "(SELECT COUNT(*)=0 FROM dependency WHERE "
-            + "    prerequisite_id=id AND "
-            + "    work_spec_id NOT IN "
-            + "        (SELECT id FROM workspec WHERE state IN " + COMPLETED_STATES + "))";
+            + "NOT EXISTS (SELECT 1 FROM dependency "
+            + "    INNER JOIN workspec AS dependent ON dependency.work_spec_id=dependent.id "
+            + "    WHERE dependency.prerequisite_id=workspec.id "
+            + "    AND dependent.state IN " + UNFINISHED_STATES + ") "
+            + "LIMIT " + WorkDatabaseMaintenance.PRUNE_BATCH_SIZE + ")";
 
     private static final long PRUNE_THRESHOLD_MILLIS = TimeUnit.DAYS.toMillis(7);
 
@@ -108,6 +113,8 @@ public abstract class WorkDatabase extends RoomDatabase {
                         new WorkDatabaseMigrations.WorkMigration(context, VERSION_2, VERSION_3))
                 .addMigrations(MIGRATION_3_4)
                 .addMigrations(MIGRATION_4_5)
+                .addMigrations(MIGRATION_5_6)
+                .addMigrations(MIGRATION_6_7)
                 .fallbackToDestructiveMigration()
                 .build();
     }
@@ -121,8 +128,9 @@ public abstract class WorkDatabase extends RoomDatabase {
                 try {
                     db.execSQL(CLEANUP_SQL);
 
-                    // Prune everything that is completed, has an expired retention time, and has no
-                    // active dependents:
+                    // Prune a batch of work that is completed, has an expired retention time, and
+                    // has no active dependents.  WorkDatabaseMaintenance prunes the rest in the
+                    // background.
                     db.execSQL(getPruneSQL());
 
                     db.setTransactionSuccessful();
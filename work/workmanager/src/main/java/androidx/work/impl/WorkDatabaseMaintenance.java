@@ -0,0 +1,220 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.impl;
+
+import android.arch.persistence.db.SupportSQLiteDatabase;
+import android.database.Cursor;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.RestrictTo;
+import android.support.annotation.VisibleForTesting;
+import android.support.annotation.WorkerThread;
+
+import androidx.work.Logger;
+import androidx.work.impl.model.WorkSpecDao;
+import androidx.work.impl.utils.Preferences;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A Runnable that keeps the {@link WorkDatabase} small.  At most once per
+ * {@link #MAINTENANCE_INTERVAL_MILLIS}, it:
+ * - prunes finished work whose retention time expired, in batches of {@link #PRUNE_BATCH_SIZE}
+ *   so that no single transaction blocks the database for long.  Tags, names and dependencies
+ *   of the pruned work are deleted by their foreign keys.
+ * - returns up to {@link #MAX_VACUUMED_PAGES_PER_RUN} free pages to the file system with an
+ *   incremental vacuum.  Databases in full auto-vacuum mode, the default on Android, are switched
+ *   to incremental mode, which does not rewrite the database.  Databases without auto-vacuum are
+ *   not vacuumed, because enabling it takes a full {@code VACUUM}.
+ * - checkpoints and truncates the write-ahead log.
+ *
+ * WorkManager runs it on the {@link androidx.work.Configuration#getExecutor()}, not on its serial
+ * background executor, so that a long run does not delay enqueueing, cancelling or rescheduling
+ * work.
+ *
+ * @hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+public class WorkDatabaseMaintenance implements Runnable {
+
+    private static final String TAG = Logger.tagWithPrefix("WorkDatabaseMaintenance");
+
+    // The number of units of work pruned per transaction.
+    public static final int PRUNE_BATCH_SIZE = 500;
+    // The maximum number of units of work pruned per run.  The rest is pruned on the next run.
+    @VisibleForTesting
+    static final int MAX_PRUNED_PER_RUN = 20 * PRUNE_BATCH_SIZE;
+    // The maximum number of free pages returned to the file system per run.
+    @VisibleForTesting
+    static final int MAX_VACUUMED_PAGES_PER_RUN = 1024;
+    @VisibleForTesting
+    static final long MAINTENANCE_INTERVAL_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    // https://www.sqlite.org/pragma.html#pragma_auto_vacuum
+    private static final int AUTO_VACUUM_FULL = 1;
+    private static final int AUTO_VACUUM_INCREMENTAL = 2;
+
+    private final WorkDatabase mWorkDatabase;
+    private final Preferences mPreferences;
+
+    public WorkDatabaseMaintenance(
+            @NonNull WorkDatabase workDatabase,
+            @NonNull Preferences preferences) {
+        mWorkDatabase = workDatabase;
+        mPreferences = preferences;
+    }
+
+    @Override
+    public void run() {
+        long now = System.currentTimeMillis();
+        if (now - mPreferences.getLastMaintenanceTimeMillis() < MAINTENANCE_INTERVAL_MILLIS) {
+            return;
+        }
+        try {
+            Result result = performMaintenance();
+            Logger.get().info(TAG, String.format(
+                    "Pruned %s units of work and reclaimed %s pages in %s ms",
+                    result.getPrunedCount(),
+                    result.getReclaimedPageCount(),
+                    result.getDurationMillis()));
+            if (result.getPrunedCount() >= MAX_PRUNED_PER_RUN) {
+                // There is more to prune; continue on the next run instead of waiting.
+                return;
+            }
+        } catch (RuntimeException exception) {
+            // Maintenance is best effort; don't retry it until the next interval.  This also
+            // catches the IllegalStateException thrown when the database is closed.
+            Logger.get().error(TAG, "Unable to maintain the database", exception);
+        }
+        mPreferences.setLastMaintenanceTimeMillis(now);
+    }
+
+    /**
+     * Performs maintenance now, regardless of when it last ran.
+     *
+     * @return The {@link Result} of the maintenance
+     */
+    @VisibleForTesting
+    @WorkerThread
+    public @NonNull Result performMaintenance() {
+        long startTime = SystemClock.elapsedRealtime();
+        int prunedCount = prune();
+
+        SupportSQLiteDatabase database = mWorkDatabase.getOpenHelper().getWritableDatabase();
+        int reclaimedPageCount = vacuum(database);
+        stepPragma(database, "PRAGMA wal_checkpoint(TRUNCATE)");
+
+        return new Result(
+                prunedCount,
+                reclaimedPageCount,
+                SystemClock.elapsedRealtime() - startTime);
+    }
+
+    private int prune() {
+        WorkSpecDao workSpecDao = mWorkDatabase.workSpecDao();
+        long pruneBefore = WorkDatabase.getPruneDate();
+        int prunedCount = 0;
+        int batchCount;
+        do {
+            // Every batch is a transaction of its own, so writes from other threads, like
+            // enqueueing work, only wait for the current batch rather than the whole run.
+            batchCount = workSpecDao.pruneFinishedWorkWithZeroDependents(
+                    pruneBefore,
+                    PRUNE_BATCH_SIZE);
+            prunedCount += batchCount;
+        } while (batchCount == PRUNE_BATCH_SIZE && prunedCount < MAX_PRUNED_PER_RUN);
+        return prunedCount;
+    }
+
+    private static int vacuum(@NonNull SupportSQLiteDatabase database) {
+        long autoVacuum = queryPragma(database, "PRAGMA auto_vacuum");
+        if (autoVacuum == AUTO_VACUUM_FULL) {
+            // Switching between full and incremental mode does not need a VACUUM.
+            database.execSQL("PRAGMA auto_vacuum = " + AUTO_VACUUM_INCREMENTAL);
+        } else if (autoVacuum != AUTO_VACUUM_INCREMENTAL) {
+            return 0;
+        }
+        long freePageCount = queryPragma(database, "PRAGMA freelist_count");
+        if (freePageCount == 0) {
+            return 0;
+        }
+        stepPragma(database, "PRAGMA incremental_vacuum(" + MAX_VACUUMED_PAGES_PER_RUN + ")");
+        return (int) (freePageCount - queryPragma(database, "PRAGMA freelist_count"));
+    }
+
+    private static long queryPragma(
+            @NonNull SupportSQLiteDatabase database,
+            @NonNull String pragma) {
+        Cursor cursor = database.query(pragma);
+        try {
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static void stepPragma(
+            @NonNull SupportSQLiteDatabase database,
+            @NonNull String pragma) {
+        Cursor cursor = database.query(pragma);
+        try {
+            // Some pragmas, like incremental_vacuum, do one unit of work per step; step through
+            // all of their rows.
+            while (cursor.moveToNext()) {
+                // Nothing to read.
+            }
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * The outcome of a run of {@link WorkDatabaseMaintenance}.
+     */
+    public static final class Result {
+        private final int mPrunedCount;
+        private final int mReclaimedPageCount;
+        private final long mDurationMillis;
+
+        Result(int prunedCount, int reclaimedPageCount, long durationMillis) {
+            mPrunedCount = prunedCount;
+            mReclaimedPageCount = reclaimedPageCount;
+            mDurationMillis = durationMillis;
+        }
+
+        /**
+         * @return The number of units of work that were pruned
+         */
+        public int getPrunedCount() {
+            return mPrunedCount;
+        }
+
+        /**
+         * @return The number of database pages that were returned to the file system
+         */
+        public int getReclaimedPageCount() {
+            return mReclaimedPageCount;
+        }
+
+        /**
+         * @return The time the maintenance took, in milliseconds
+         */
+        public long getDurationMillis() {
+            return mDurationMillis;
+        }
+    }
+}
@@ -45,6 +45,8 @@ public class WorkDatabaseMigrations {
     public static final int VERSION_3 = 3;
     public static final int VERSION_4 = 4;
     public static final int VERSION_5 = 5;
+    public static final int VERSION_6 = 6;
+    public static final int VERSION_7 = 7;
 
     private static final String CREATE_SYSTEM_ID_INFO =
             "CREATE TABLE IF NOT EXISTS `SystemIdInfo` (`work_spec_id` TEXT NOT NULL, `system_id`"
@@ -71,6 +73,17 @@ public class WorkDatabaseMigrations {
             "ALTER TABLE workspec ADD COLUMN `trigger_max_content_delay` INTEGER NOT NULL DEFAULT"
                     + " -1";
 
+    private static final String WORKSPEC_ADD_PRIORITY =
+            "ALTER TABLE workspec ADD COLUMN `priority` INTEGER NOT NULL DEFAULT "
+                    + WorkTypeConverters.PriorityIds.DEFAULT;
+
+    private static final String DROP_INDEX_SCHEDULE_REQUESTED_AT =
+            "DROP INDEX IF EXISTS `index_WorkSpec_schedule_requested_at`";
+
+    private static final String CREATE_INDEX_STATE_SCHEDULE_REQUESTED_AT =
+            "CREATE INDEX IF NOT EXISTS `index_WorkSpec_state_schedule_requested_at` ON `WorkSpec`"
+                    + " (`state`, `schedule_requested_at`)";
+
     /**
      * Removes the {@code alarmInfo} table and substitutes it for a more general
      * {@code SystemIdInfo} table.
@@ -128,4 +141,26 @@ public class WorkDatabaseMigrations {
             database.execSQL(WORKSPEC_ADD_TRIGGER_MAX_CONTENT_DELAY);
         }
     };
+
+    /**
+     * Adds the {@code priority} to the WorkSpec table.
+     */
+    public static Migration MIGRATION_5_6 = new Migration(VERSION_5, VERSION_6) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL(WORKSPEC_ADD_PRIORITY);
+        }
+    };
+
+    /**
+     * Replaces the {@code schedule_requested_at} index of the {@code workspec} table with a
+     * {@code (state, schedule_requested_at)} index.
+     */
+    public static Migration MIGRATION_6_7 = new Migration(VERSION_6, VERSION_7) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL(DROP_INDEX_SCHEDULE_REQUESTED_AT);
+            database.execSQL(CREATE_INDEX_STATE_SCHEDULE_REQUESTED_AT);
+        }
+    };
 }
@@ -24,6 +24,7 @@ import android.os.Build;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.annotation.RestrictTo;
+import android.support.annotation.VisibleForTesting;
 
 import androidx.work.Configuration;
 import androidx.work.ExistingPeriodicWorkPolicy;
@@ -60,6 +61,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.Executor;
 
 /**
  * A concrete implementation of {@link WorkManager}.
@@ -86,6 +88,7 @@ public class WorkManagerImpl extends WorkManager {
 
     private static WorkManagerImpl sDelegatedInstance = null;
     private static WorkManagerImpl sDefaultInstance = null;
+    private static Executor sDatabaseMaintenanceExecutor = null;
     private static final Object sLock = new Object();
 
 
@@ -101,6 +104,21 @@ public class WorkManagerImpl extends WorkManager {
         }
     }
 
+    /**
+     * @param executor The {@link Executor} on which new instances of {@link WorkManagerImpl} run
+     *                 their {@link WorkDatabaseMaintenance}; {@code null} to use the
+     *                 {@link Configuration#getExecutor()}.  Tests can pass an {@link Executor}
+     *                 that runs it synchronously, or one that drops it to turn maintenance off.
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    @VisibleForTesting
+    public static void setDatabaseMaintenanceExecutor(@Nullable Executor executor) {
+        synchronized (sLock) {
+            sDatabaseMaintenanceExecutor = executor;
+        }
+    }
+
     /**
      * Retrieves the singleton instance of {@link WorkManagerImpl}.
      *
@@ -618,6 +636,17 @@ public class WorkManagerImpl extends WorkManager {
 
         // Checks for app force stops.
         mWorkTaskExecutor.executeOnBackgroundThread(new ForceStopRunnable(context, this));
+        // Prunes and compacts the database, if it is due.  A run can keep the database busy for a
+        // while, so it does not go on the serial background executor, where it would hold up the
+        // tasks queued behind it.
+        Executor maintenanceExecutor;
+        synchronized (sLock) {
+            maintenanceExecutor = sDatabaseMaintenanceExecutor;
+        }
+        if (maintenanceExecutor == null) {
+            maintenanceExecutor = configuration.getExecutor();
+        }
+        maintenanceExecutor.execute(new WorkDatabaseMaintenance(mWorkDatabase, mPreferences));
     }
 
     /**
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.impl;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.RestrictTo;
+
+import androidx.work.WorkPriority;
+
+import java.util.List;
+
+/**
+ * Decides in which order the {@link Processor} starts work that is ready to run.  A WorkQueue is
+ * not thread safe; the {@link Processor} guards it with its own lock.
+ * <p>
+ * Work is identified by the objects added to the queue, not by its
+ * {@link androidx.work.impl.model.WorkSpec} id: work that is stopped and started again while it
+ * still runs is added again as a different unit of work, and each one counts as running until
+ * {@link #onFinished(Object)} is called for it.
+ *
+ * @param <T> The type of the units of work
+ * @hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+public interface WorkQueue<T> {
+
+    /**
+     * Adds work that is ready to run.
+     *
+     * @param work The unit of work
+     * @param priority The {@link WorkPriority} of the work
+     * @param tags The tags of the work
+     */
+    void add(@NonNull T work, @NonNull WorkPriority priority, @NonNull List<String> tags);
+
+    /**
+     * Removes work that has not been started yet.
+     *
+     * @param work The unit of work
+     * @return {@code true} if the work was waiting in this queue
+     */
+    boolean remove(@NonNull T work);
+
+    /**
+     * Removes the next unit of work that may start now.  The work counts as running until
+     * {@link #onFinished(Object)} is called for it.
+     *
+     * @return The unit of work to start, or {@code null} if no work may start now
+     */
+    @Nullable T poll();
+
+    /**
+     * Notifies the queue that work finished running.  Does nothing if the work was never
+     * returned by {@link #poll()}.
+     *
+     * @param work The unit of work
+     */
+    void onFinished(@NonNull T work);
+
+    /**
+     * @return A snapshot of the queue depths and wait times
+     */
+    @NonNull Metrics getMetrics();
+
+    /**
+     * A snapshot of the queue depths and wait times of a {@link WorkQueue}.
+     */
+    final class Metrics {
+        private final int[] mQueuedCounts;
+        private final int mRunningCount;
+        private final long[] mStartedCounts;
+        private final long[] mTotalWaitTimesMillis;
+        private final long[] mMaxWaitTimesMillis;
+
+        public Metrics(@NonNull int[] queuedCounts, int runningCount,
+                @NonNull long[] startedCounts, @NonNull long[] totalWaitTimesMillis,
+                @NonNull long[] maxWaitTimesMillis) {
+            mQueuedCounts = queuedCounts.clone();
+            mRunningCount = runningCount;
+            mStartedCounts = startedCounts.clone();
+            mTotalWaitTimesMillis = totalWaitTimesMillis.clone();
+            mMaxWaitTimesMillis = maxWaitTimesMillis.clone();
+        }
+
+        /**
+         * @param priority A {@link WorkPriority}
+         * @return The number of units of work of {@code priority} waiting to start
+         */
+        public int getQueuedCount(@NonNull WorkPriority priority) {
+            return mQueuedCounts[priority.ordinal()];
+        }
+
+        /**
+         * @return The number of units of work that started and have not finished yet
+         */
+        public int getRunningCount() {
+            return mRunningCount;
+        }
+
+        /**
+         * @param priority A {@link WorkPriority}
+         * @return The number of units of work of {@code priority} started so far
+         */
+        public long getStartedCount(@NonNull WorkPriority priority) {
+            return mStartedCounts[priority.ordinal()];
+        }
+
+        /**
+         * @param priority A {@link WorkPriority}
+         * @return The total time the started units of work of {@code priority} waited to start
+         */
+        public long getTotalWaitTimeMillis(@NonNull WorkPriority priority) {
+            return mTotalWaitTimesMillis[priority.ordinal()];
+        }
+
+        /**
+         * @param priority A {@link WorkPriority}
+         * @return The longest time a started unit of work of {@code priority} waited to start
+         */
+        public long getMaxWaitTimeMillis(@NonNull WorkPriority priority) {
+            return mMaxWaitTimesMillis[priority.ordinal()];
+        }
+    }
+}
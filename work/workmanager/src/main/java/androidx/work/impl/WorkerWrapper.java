@@ -16,10 +16,7 @@
 
 package androidx.work.impl;
 
-import static androidx.work.WorkInfo.State.BLOCKED;
-import static androidx.work.WorkInfo.State.CANCELLED;
 import static androidx.work.WorkInfo.State.ENQUEUED;
-import static androidx.work.WorkInfo.State.FAILED;
 import static androidx.work.WorkInfo.State.RUNNING;
 import static androidx.work.WorkInfo.State.SUCCEEDED;
 import static androidx.work.impl.model.WorkSpec.SCHEDULE_NOT_REQUESTED_YET;
@@ -53,7 +50,10 @@ import androidx.work.impl.utils.taskexecutor.TaskExecutor;
 import com.google.common.util.concurrent.ListenableFuture;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
@@ -69,6 +69,10 @@ public class WorkerWrapper implements Runnable {
 
     private static final String TAG = Logger.tagWithPrefix("WorkerWrapper");
 
+    // SQLite limits a statement to 999 host parameters by default; leave room for the others.
+    @VisibleForTesting
+    static final int MAX_IDS_PER_STATEMENT = 990;
+
     private Context mAppContext;
     private String mWorkSpecId;
     private List<Scheduler> mSchedulers;
@@ -439,7 +443,12 @@ public class WorkerWrapper implements Runnable {
     private void setFailedAndResolve() {
         mWorkDatabase.beginTransaction();
         try {
-            recursivelyFailWorkAndDependents(mWorkSpecId);
+            List<String> failedIds = getAllDependentWorkIds(mWorkSpecId);
+            failedIds.add(mWorkSpecId);
+            // Don't fail already cancelled work.
+            for (List<String> chunk : chunked(failedIds)) {
+                mWorkSpecDao.setFailedUnlessCancelled(chunk);
+            }
             ListenableWorker.Result.Failure failure = (ListenableWorker.Result.Failure) mResult;
             // Update Data as necessary.
             Data output = failure.getOutputData();
@@ -451,16 +460,26 @@ public class WorkerWrapper implements Runnable {
         }
     }
 
-    private void recursivelyFailWorkAndDependents(String workSpecId) {
-        List<String> dependentIds = mDependencyDao.getDependentWorkIds(workSpecId);
-        for (String id : dependentIds) {
-            recursivelyFailWorkAndDependents(id);
+    private List<String> getAllDependentWorkIds(String workSpecId) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            return new ArrayList<>(mDependencyDao.getAllDependentWorkIds(workSpecId));
         }
-
-        // Don't fail already cancelled work.
-        if (mWorkSpecDao.getState(workSpecId) != CANCELLED) {
-            mWorkSpecDao.setState(FAILED, workSpecId);
+        // Recursive common table expressions need SQLite 3.8.3, so walk the dependency graph one
+        // level at a time instead of one WorkSpec at a time.
+        Set<String> dependentIds = new LinkedHashSet<>();
+        List<String> level = Collections.singletonList(workSpecId);
+        while (!level.isEmpty()) {
+            List<String> nextLevel = new ArrayList<>();
+            for (List<String> chunk : chunked(level)) {
+                for (String id : mDependencyDao.getDependentWorkIdsForIds(chunk)) {
+                    if (dependentIds.add(id)) {
+                        nextLevel.add(id);
+                    }
+                }
+            }
+            level = nextLevel;
         }
+        return new ArrayList<>(dependentIds);
     }
 
     private void rescheduleAndResolve() {
@@ -528,14 +547,12 @@ public class WorkerWrapper implements Runnable {
 
             // Unblock Dependencies and set Period Start Time
             long currentTimeMillis = System.currentTimeMillis();
-            List<String> dependentWorkIds = mDependencyDao.getDependentWorkIds(mWorkSpecId);
-            for (String dependentWorkId : dependentWorkIds) {
-                if (mWorkSpecDao.getState(dependentWorkId) == BLOCKED
-                        && mDependencyDao.hasCompletedAllPrerequisites(dependentWorkId)) {
-                    Logger.get().info(TAG,
-                            String.format("Setting status to enqueued for %s", dependentWorkId));
-                    mWorkSpecDao.setState(ENQUEUED, dependentWorkId);
-                    mWorkSpecDao.setPeriodStartTime(dependentWorkId, currentTimeMillis);
+            List<String> unblockedIds = mDependencyDao.getUnblockedDependentWorkIds(mWorkSpecId);
+            if (!unblockedIds.isEmpty()) {
+                Logger.get().info(TAG, String.format("Setting status to enqueued for %d dependents "
+                        + "of %s", unblockedIds.size(), mWorkSpecId));
+                for (List<String> chunk : chunked(unblockedIds)) {
+                    mWorkSpecDao.setStateAndPeriodStartTime(ENQUEUED, currentTimeMillis, chunk);
                 }
             }
 
@@ -546,6 +563,17 @@ public class WorkerWrapper implements Runnable {
         }
     }
 
+    /**
+     * Splits {@code ids} so that each part can be bound to a single statement.
+     */
+    private static List<List<String>> chunked(List<String> ids) {
+        List<List<String>> chunks = new ArrayList<>();
+        for (int start = 0; start < ids.size(); start += MAX_IDS_PER_STATEMENT) {
+            chunks.add(ids.subList(start, Math.min(ids.size(), start + MAX_IDS_PER_STATEMENT)));
+        }
+        return chunks;
+    }
+
     private void assertBackgroundExecutorThread() {
         if (mWorkTaskExecutor.getBackgroundExecutorThread() != Thread.currentThread()) {
             throw new IllegalStateException(
@@ -66,6 +66,48 @@ public interface DependencyDao {
     @Query("SELECT work_spec_id FROM dependency WHERE prerequisite_id=:id")
     List<String> getDependentWorkIds(String id);
 
+    /**
+     * Gets all {@link WorkSpec} id's dependent on any of the given ids
+     *
+     * @param ids A list of {@link WorkSpec} identifiers
+     * @return A list of all identifiers that depend on one of the inputs
+     */
+    @Query("SELECT DISTINCT work_spec_id FROM dependency WHERE prerequisite_id IN (:ids)")
+    List<String> getDependentWorkIdsForIds(List<String> ids);
+
+    /**
+     * Gets all {@link WorkSpec} id's that directly or transitively depend on a given id.
+     * <p>
+     * This uses a recursive common table expression, which requires SQLite 3.8.3 (API 21).
+     *
+     * @param id A {@link WorkSpec} identifier
+     * @return A list of all identifiers that transitively depend on the input
+     */
+    @Query("WITH RECURSIVE dependent(id) AS ("
+            + "SELECT work_spec_id FROM dependency WHERE prerequisite_id=:id"
+            + " UNION "
+            + "SELECT dependency.work_spec_id FROM dependency"
+            + " INNER JOIN dependent ON dependency.prerequisite_id=dependent.id"
+            + ") SELECT id FROM dependent")
+    List<String> getAllDependentWorkIds(String id);
+
+    /**
+     * Gets the {@link WorkSpec} id's that directly depend on a given id, are blocked, and have
+     * completed all of their prerequisites.
+     *
+     * @param id A {@link WorkSpec} identifier
+     * @return A list of identifiers that can be unblocked
+     */
+    @Query("SELECT work_spec_id FROM dependency"
+            + " INNER JOIN workspec ON dependency.work_spec_id=workspec.id"
+            + " WHERE dependency.prerequisite_id=:id AND workspec.state="
+            + WorkTypeConverters.StateIds.BLOCKED
+            + " AND NOT EXISTS (SELECT 1 FROM dependency AS other"
+            + " INNER JOIN workspec AS prerequisite ON other.prerequisite_id=prerequisite.id"
+            + " WHERE other.work_spec_id=dependency.work_spec_id AND prerequisite.state!="
+            + WorkTypeConverters.StateIds.SUCCEEDED + ")")
+    List<String> getUnblockedDependentWorkIds(String id);
+
     /**
      * Determines if a {@link WorkSpec} has any dependents.
      *
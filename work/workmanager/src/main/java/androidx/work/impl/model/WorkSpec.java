@@ -37,6 +37,7 @@ import androidx.work.Constraints;
 import androidx.work.Data;
 import androidx.work.Logger;
 import androidx.work.WorkInfo;
+import androidx.work.WorkPriority;
 import androidx.work.WorkRequest;
 
 import java.util.ArrayList;
@@ -50,7 +51,7 @@ import java.util.UUID;
  */
 @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
 @Entity(
-        indices = {@Index(value = {"schedule_requested_at"})}
+        indices = {@Index(value = {"state", "schedule_requested_at"})}
 )
 public class WorkSpec {
     private static final String TAG = Logger.tagWithPrefix("WorkSpec");
@@ -103,6 +104,10 @@ public class WorkSpec {
     @ColumnInfo(name = "backoff_delay_duration")
     public long backoffDelayDuration = WorkRequest.DEFAULT_BACKOFF_DELAY_MILLIS;
 
+    @ColumnInfo(name = "priority")
+    @NonNull
+    public WorkPriority priority = WorkPriority.DEFAULT;
+
     /**
      * For one-off work, this is the time that the work was unblocked by prerequisites.
      * For periodic work, this is the time that the period started.
@@ -143,6 +148,7 @@ public class WorkSpec {
         runAttemptCount = other.runAttemptCount;
         backoffPolicy = other.backoffPolicy;
         backoffDelayDuration = other.backoffDelayDuration;
+        priority = other.priority;
         periodStartTime = other.periodStartTime;
         minimumRetentionDuration = other.minimumRetentionDuration;
         scheduleRequestedAt = other.scheduleRequestedAt;
@@ -287,7 +293,8 @@ public class WorkSpec {
         if (!input.equals(workSpec.input)) return false;
         if (!output.equals(workSpec.output)) return false;
         if (!constraints.equals(workSpec.constraints)) return false;
-        return backoffPolicy == workSpec.backoffPolicy;
+        if (backoffPolicy != workSpec.backoffPolicy) return false;
+        return priority == workSpec.priority;
     }
 
     @Override
@@ -305,6 +312,7 @@ public class WorkSpec {
         result = 31 * result + runAttemptCount;
         result = 31 * result + backoffPolicy.hashCode();
         result = 31 * result + (int) (backoffDelayDuration ^ (backoffDelayDuration >>> 32));
+        result = 31 * result + priority.hashCode();
         result = 31 * result + (int) (periodStartTime ^ (periodStartTime >>> 32));
         result = 31 * result + (int) (minimumRetentionDuration ^ (minimumRetentionDuration >>> 32));
         result = 31 * result + (int) (scheduleRequestedAt ^ (scheduleRequestedAt >>> 32));
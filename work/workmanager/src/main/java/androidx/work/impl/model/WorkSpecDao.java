@@ -19,6 +19,7 @@ package androidx.work.impl.model;
 import static android.arch.persistence.room.OnConflictStrategy.IGNORE;
 
 import static androidx.work.impl.model.WorkTypeConverters.StateIds.COMPLETED_STATES;
+import static androidx.work.impl.model.WorkTypeConverters.StateIds.UNFINISHED_STATES;
 
 import android.arch.lifecycle.LiveData;
 import android.arch.persistence.room.Dao;
@@ -29,6 +30,7 @@ import android.support.annotation.NonNull;
 
 import androidx.work.Data;
 import androidx.work.WorkInfo;
+import androidx.work.WorkPriority;
 
 import java.util.List;
 
@@ -96,6 +98,28 @@ public interface WorkSpecDao {
     @Query("UPDATE workspec SET state=:state WHERE id IN (:ids)")
     int setState(WorkInfo.State state, String... ids);
 
+    /**
+     * Updates the state and period start time of at least one {@link WorkSpec} by ID.
+     *
+     * @param state The new state
+     * @param periodStartTime The time when the period started.
+     * @param ids The IDs for the {@link WorkSpec}s to update
+     * @return The number of rows that were updated
+     */
+    @Query("UPDATE workspec SET state=:state, period_start_time=:periodStartTime"
+            + " WHERE id IN (:ids)")
+    int setStateAndPeriodStartTime(WorkInfo.State state, long periodStartTime, List<String> ids);
+
+    /**
+     * Marks the {@link WorkSpec}s with the given IDs as failed, unless they are cancelled.
+     *
+     * @param ids The IDs for the {@link WorkSpec}s to update
+     * @return The number of rows that were updated
+     */
+    @Query("UPDATE workspec SET state=" + WorkTypeConverters.StateIds.FAILED
+            + " WHERE id IN (:ids) AND state!=" + WorkTypeConverters.StateIds.CANCELLED)
+    int setFailedUnlessCancelled(List<String> ids);
+
     /**
      * Updates the output of a {@link WorkSpec}.
      *
@@ -132,6 +156,15 @@ public interface WorkSpecDao {
     @Query("UPDATE workspec SET run_attempt_count=0 WHERE id=:id")
     int resetWorkSpecRunAttemptCount(String id);
 
+    /**
+     * Retrieves the priority of a {@link WorkSpec}.
+     *
+     * @param id The identifier for the {@link WorkSpec}
+     * @return The priority of the {@link WorkSpec}
+     */
+    @Query("SELECT priority FROM workspec WHERE id=:id")
+    WorkPriority getPriority(String id);
+
     /**
      * Retrieves the state of a {@link WorkSpec}.
      *
@@ -255,7 +288,7 @@ public interface WorkSpecDao {
      *
      * @return A list of work ids
      */
-    @Query("SELECT id FROM workspec WHERE state NOT IN " + COMPLETED_STATES)
+    @Query("SELECT id FROM workspec WHERE state IN " + UNFINISHED_STATES)
     List<String> getAllUnfinishedWork();
 
     /**
@@ -273,7 +306,7 @@ public interface WorkSpecDao {
      * @return The number of rows that were updated
      */
     @Query("UPDATE workspec SET schedule_requested_at=" + WorkSpec.SCHEDULE_NOT_REQUESTED_YET
-            + " WHERE state NOT IN " + COMPLETED_STATES)
+            + " WHERE state IN " + UNFINISHED_STATES)
     int resetScheduledState();
 
     /**
@@ -285,22 +318,53 @@ public interface WorkSpecDao {
             + " AND schedule_requested_at=" + WorkSpec.SCHEDULE_NOT_REQUESTED_YET
             + " LIMIT "
                 + "(SELECT MAX(:schedulerLimit" + "-COUNT(*), 0) FROM workspec WHERE"
-                    + " schedule_requested_at<>" + WorkSpec.SCHEDULE_NOT_REQUESTED_YET
-                    + " AND state NOT IN " + COMPLETED_STATES
+                    // Both lookups only visit unfinished work in the (state, schedule_requested_at)
+                    // index, however much finished work the table holds.
+                    + " state IN " + UNFINISHED_STATES
+                    + " AND schedule_requested_at<>" + WorkSpec.SCHEDULE_NOT_REQUESTED_YET
                 + ")"
     )
     List<WorkSpec> getEligibleWorkForScheduling(int schedulerLimit);
 
     /**
-     * Immediately prunes eligible work from the database meeting the following criteria:
+     * Prunes up to {@code limit} units of work from the database meeting the following criteria:
      * - Is finished (succeeded, failed, or cancelled)
+     * - Has a retention time that expired before {@code pruneBefore}
      * - Has zero unfinished dependents
+     * Tags, names and dependencies of the pruned work are deleted along with it.
+     *
+     * @param pruneBefore The time (in milliseconds) before which the retention time must expire
+     * @param limit The maximum number of units of work to prune
+     * @return The number of units of work that were pruned
+     */
+    @Query("DELETE FROM workspec WHERE id IN "
+            + "(SELECT id FROM workspec WHERE "
+            + "    state IN " + COMPLETED_STATES
+            + "    AND (period_start_time + minimum_retention_duration) < :pruneBefore"
+            + "    AND NOT EXISTS (SELECT 1 FROM dependency"
+            + "        INNER JOIN workspec AS dependent ON dependency.work_spec_id=dependent.id"
+            + "        WHERE dependency.prerequisite_id=workspec.id"
+            + "        AND dependent.state IN " + UNFINISHED_STATES + ")"
+            + "    LIMIT :limit)")
+    int pruneFinishedWorkWithZeroDependents(long pruneBefore, int limit);
+
+    /**
+     * Immediately prunes up to {@code limit} units of work from the database meeting the following
+     * criteria:
+     * - Is finished (succeeded, failed, or cancelled)
+     * - Has zero unfinished dependents
+     * Tags, names and dependencies of the pruned work are deleted along with it.
+     *
+     * @param limit The maximum number of units of work to prune
+     * @return The number of units of work that were pruned
      */
-    @Query("DELETE FROM workspec WHERE "
-            + "state IN " + COMPLETED_STATES
-            + " AND (SELECT COUNT(*)=0 FROM dependency WHERE "
-            + "    prerequisite_id=id AND "
-            + "    work_spec_id NOT IN "
-            + "        (SELECT id FROM workspec WHERE state IN " + COMPLETED_STATES + "))")
-    void pruneFinishedWorkWithZeroDependentsIgnoringKeepForAtLeast();
+    @Query("DELETE FROM workspec WHERE id IN "
+            + "(SELECT id FROM workspec WHERE "
+            + "    state IN " + COMPLETED_STATES
+            + "    AND NOT EXISTS (SELECT 1 FROM dependency"
+            + "        INNER JOIN workspec AS dependent ON dependency.work_spec_id=dependent.id"
+            + "        WHERE dependency.prerequisite_id=workspec.id"
+            + "        AND dependent.state IN " + UNFINISHED_STATES + ")"
+            + "    LIMIT :limit)")
+    int pruneFinishedWorkWithZeroDependentsIgnoringKeepForAtLeast(int limit);
 }
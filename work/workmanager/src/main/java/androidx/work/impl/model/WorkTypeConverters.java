@@ -32,6 +32,7 @@ import androidx.work.BackoffPolicy;
 import androidx.work.ContentUriTriggers;
 import androidx.work.NetworkType;
 import androidx.work.WorkInfo;
+import androidx.work.WorkPriority;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -57,6 +58,10 @@ public class WorkTypeConverters {
         int CANCELLED = 5;
 
         String COMPLETED_STATES = "(" + SUCCEEDED + ", " + FAILED + ", " + CANCELLED + ")";
+
+        // The complement of COMPLETED_STATES.  Unlike "NOT IN COMPLETED_STATES", this lets SQLite
+        // look up unfinished work in an index on state without scanning finished work.
+        String UNFINISHED_STATES = "(" + ENQUEUED + ", " + RUNNING + ", " + BLOCKED + ")";
     }
 
     /**
@@ -67,6 +72,15 @@ public class WorkTypeConverters {
         int LINEAR = 1;
     }
 
+    /**
+     * Integer identifiers that map to {@link WorkPriority}.
+     */
+    public interface PriorityIds {
+        int LOW = 0;
+        int DEFAULT = 1;
+        int HIGH = 2;
+    }
+
     /**
      * Integer identifiers that map to {@link NetworkType}.
      */
@@ -186,6 +200,54 @@ public class WorkTypeConverters {
         }
     }
 
+    /**
+     * TypeConverter for a WorkPriority to an int.
+     *
+     * @param priority The input WorkPriority
+     * @return The associated int constant
+     */
+    @TypeConverter
+    public static int priorityToInt(WorkPriority priority) {
+        switch (priority) {
+            case LOW:
+                return PriorityIds.LOW;
+
+            case DEFAULT:
+                return PriorityIds.DEFAULT;
+
+            case HIGH:
+                return PriorityIds.HIGH;
+
+            default:
+                throw new IllegalArgumentException(
+                        "Could not convert " + priority + " to int");
+        }
+    }
+
+    /**
+     * TypeConverter for an int to a WorkPriority.
+     *
+     * @param value The input integer
+     * @return The associated WorkPriority enum value
+     */
+    @TypeConverter
+    public static WorkPriority intToPriority(int value) {
+        switch (value) {
+            case PriorityIds.LOW:
+                return WorkPriority.LOW;
+
+            case PriorityIds.DEFAULT:
+                return WorkPriority.DEFAULT;
+
+            case PriorityIds.HIGH:
+                return WorkPriority.HIGH;
+
+            default:
+                throw new IllegalArgumentException(
+                        "Could not convert " + value + " to WorkPriority");
+        }
+    }
+
     /**
      * TypeConverter for a NetworkType to an int.
      *
@@ -38,6 +38,7 @@ public class Preferences {
 
     private static final String KEY_LAST_CANCEL_ALL_TIME_MS = "last_cancel_all_time_ms";
     private static final String KEY_RESCHEDULE_NEEDED = "reschedule_needed";
+    private static final String KEY_LAST_MAINTENANCE_TIME_MS = "last_maintenance_time_ms";
 
     private Context mContext;
     private SharedPreferences mSharedPreferences;
@@ -91,6 +92,22 @@ public class Preferences {
         getSharedPreferences().edit().putBoolean(KEY_RESCHEDULE_NEEDED, needsReschedule).apply();
     }
 
+    /**
+     * @return The last time (in milliseconds) the database was maintained
+     */
+    public long getLastMaintenanceTimeMillis() {
+        return getSharedPreferences().getLong(KEY_LAST_MAINTENANCE_TIME_MS, 0L);
+    }
+
+    /**
+     * Sets the last time the database was maintained
+     *
+     * @param timeMillis The time the database was maintained (in milliseconds)
+     */
+    public void setLastMaintenanceTimeMillis(long timeMillis) {
+        getSharedPreferences().edit().putLong(KEY_LAST_MAINTENANCE_TIME_MS, timeMillis).apply();
+    }
+
     private SharedPreferences getSharedPreferences() {
         synchronized (Preferences.class) {
             if (mSharedPreferences == null) {
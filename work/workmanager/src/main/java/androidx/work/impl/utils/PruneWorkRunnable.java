@@ -21,6 +21,7 @@ import android.support.annotation.RestrictTo;
 import androidx.work.Operation;
 import androidx.work.impl.OperationImpl;
 import androidx.work.impl.WorkDatabase;
+import androidx.work.impl.WorkDatabaseMaintenance;
 import androidx.work.impl.WorkManagerImpl;
 import androidx.work.impl.model.WorkSpecDao;
 
@@ -28,6 +29,7 @@ import androidx.work.impl.model.WorkSpecDao;
  * A Runnable that prunes work in the background.  Pruned work meets the following criteria:
  * - Is finished (succeeded, failed, or cancelled)
  * - Has zero unfinished dependents
+ * Work is pruned in batches, so that no single transaction blocks the database for long.
  *
  * @hide
  */
@@ -55,7 +57,11 @@ public class PruneWorkRunnable implements Runnable {
         try {
             WorkDatabase workDatabase = mWorkManagerImpl.getWorkDatabase();
             WorkSpecDao workSpecDao = workDatabase.workSpecDao();
-            workSpecDao.pruneFinishedWorkWithZeroDependentsIgnoringKeepForAtLeast();
+            int prunedCount;
+            do {
+                prunedCount = workSpecDao.pruneFinishedWorkWithZeroDependentsIgnoringKeepForAtLeast(
+                        WorkDatabaseMaintenance.PRUNE_BATCH_SIZE);
+            } while (prunedCount == WorkDatabaseMaintenance.PRUNE_BATCH_SIZE);
             mOperation.setState(Operation.SUCCESS);
         } catch (Throwable exception) {
             mOperation.setState(new Operation.State.FAILURE(exception));
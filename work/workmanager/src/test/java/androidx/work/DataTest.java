@@ -24,6 +24,10 @@ import static org.hamcrest.MatcherAssert.assertThat;
 
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -147,4 +151,113 @@ public class DataTest {
         }
         assertThat(caughtIllegalArgumentException, is(true));
     }
+
+    @Test
+    public void testSerializeAllTypes() {
+        boolean[] booleans = new boolean[]{true, false, false, true, true, false, true, false, true};
+        long[] longs = new long[]{Long.MIN_VALUE, -1L, 0L, Long.MAX_VALUE};
+        float[] floats = new float[]{Float.NaN, -0f, Float.MIN_VALUE, Float.POSITIVE_INFINITY};
+        double[] doubles = new double[]{Double.NaN, -1.5, Double.MAX_VALUE};
+        String[] strings = new String[]{"a", null, "\u00e9\ud83d\ude00", "a", "\u0000", "\ud800"};
+        Data data = new Data.Builder()
+                .putBoolean("boolean", true)
+                .putInt("int", Integer.MIN_VALUE)
+                .putLong("long", Long.MIN_VALUE)
+                .putFloat("float", Float.NaN)
+                .putDouble("double", -0.0)
+                .putString("string", "a")
+                .putString("null", null)
+                .putBooleanArray("booleans", booleans)
+                .putLongArray("longs", longs)
+                .putFloatArray("floats", floats)
+                .putDoubleArray("doubles", doubles)
+                .putStringArray("strings", strings)
+                .build();
+
+        Data restoredData = Data.fromByteArray(Data.toByteArray(data));
+
+        assertThat(restoredData.size(), is(data.size()));
+        assertThat(restoredData.getBoolean("boolean", false), is(true));
+        assertThat(restoredData.getInt("int", 0), is(Integer.MIN_VALUE));
+        assertThat(restoredData.getLong("long", 0L), is(Long.MIN_VALUE));
+        assertThat(Float.isNaN(restoredData.getFloat("float", 0f)), is(true));
+        assertThat(Double.doubleToRawLongBits(restoredData.getDouble("double", 0.0)),
+                is(Double.doubleToRawLongBits(-0.0)));
+        assertThat(restoredData.getString("string"), is("a"));
+        assertThat(restoredData.getKeyValueMap().containsKey("null"), is(true));
+        assertThat(restoredData.getString("null"), is(nullValue()));
+        assertThat(Arrays.equals(restoredData.getBooleanArray("booleans"), booleans), is(true));
+        assertThat(Arrays.equals(restoredData.getLongArray("longs"), longs), is(true));
+        assertThat(Arrays.equals(restoredData.getFloatArray("floats"), floats), is(true));
+        assertThat(Arrays.equals(restoredData.getDoubleArray("doubles"), doubles), is(true));
+        assertThat(Arrays.equals(restoredData.getStringArray("strings"), strings), is(true));
+    }
+
+    @Test
+    public void testSerializeArrayWithNullElements() {
+        Integer[] expectedValue = new Integer[]{-1, null, 1};
+        Data data = new Data.Builder().put(KEY1, expectedValue).build();
+
+        Data restoredData = Data.fromByteArray(Data.toByteArray(data));
+
+        Integer[] restoredValue = (Integer[]) restoredData.getKeyValueMap().get(KEY1);
+        assertThat(Arrays.equals(restoredValue, expectedValue), is(true));
+    }
+
+    @Test
+    public void testDeserializeLegacyFormat() throws IOException {
+        Map<String, Object> map = new HashMap<>();
+        map.put(KEY1, "value1");
+        map.put(KEY2, new Integer[]{1, 2, 3});
+        map.put("null", null);
+
+        Data restoredData = Data.fromByteArray(toLegacyByteArray(map));
+
+        assertThat(restoredData.size(), is(3));
+        assertThat(restoredData.getString(KEY1), is("value1"));
+        assertThat(Arrays.equals(restoredData.getIntArray(KEY2), new int[]{1, 2, 3}), is(true));
+        assertThat(restoredData.getString("null"), is(nullValue()));
+    }
+
+    @Test
+    public void testSerializeSmallerThanLegacyFormat() throws IOException {
+        int[] payload = new int[256];
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] = i;
+        }
+        Data data = new Data.Builder()
+                .putIntArray(KEY1, payload)
+                .putString(KEY2, "value")
+                .build();
+
+        byte[] byteArray = Data.toByteArray(data);
+
+        assertThat(byteArray.length < toLegacyByteArray(data.getKeyValueMap()).length, is(true));
+    }
+
+    @Test
+    public void testDeserializeTruncated() {
+        Data data = new Data.Builder()
+                .putString(KEY1, "value1")
+                .putLongArray(KEY2, new long[]{1L, 2L, 3L})
+                .build();
+        byte[] byteArray = Data.toByteArray(data);
+
+        for (int length = 0; length < byteArray.length; length++) {
+            Data restoredData = Data.fromByteArray(Arrays.copyOf(byteArray, length));
+            assertThat(restoredData, is(notNullValue()));
+        }
+    }
+
+    private static byte[] toLegacyByteArray(Map<String, Object> map) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ObjectOutputStream objectOutputStream = new ObjectOutputStream(outputStream);
+        objectOutputStream.writeInt(map.size());
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            objectOutputStream.writeUTF(entry.getKey());
+            objectOutputStream.writeObject(entry.getValue());
+        }
+        objectOutputStream.close();
+        return outputStream.toByteArray();
+    }
 }
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2018 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package androidx.work.impl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import androidx.work.ExecutionPolicy;
+import androidx.work.WorkPriority;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class FairWorkQueueTest {
+
+    private static final List<String> NO_TAGS = Collections.emptyList();
+
+    @Test
+    public void testPoll_defaultPolicyStartsEverything() {
+        FairWorkQueue<String> queue = new FairWorkQueue<>(new ExecutionPolicy.Builder().build());
+        queue.add("a", WorkPriority.LOW, NO_TAGS);
+        queue.add("b", WorkPriority.DEFAULT, NO_TAGS);
+        queue.add("c", WorkPriority.HIGH, NO_TAGS);
+
+        assertThat(queue.poll(), is("c"));
+        assertThat(queue.poll(), is("b"));
+        assertThat(queue.poll(), is("a"));
+        assertThat(queue.poll(), is(nullValue()));
+        assertThat(queue.getMetrics().getRunningCount(), is(3));
+    }
+
+    @Test
+    public void testPoll_respectsMaxConcurrentWork() {
+        FairWorkQueue<String> queue = new FairWorkQueue<>(
+                new ExecutionPolicy.Builder().setMaxConcurrentWork(2).build());
+        queue.add("a", WorkPriority.DEFAULT, NO_TAGS);
+        queue.add("b", WorkPriority.DEFAULT, NO_TAGS);
+        queue.add("c", WorkPriority.DEFAULT, NO_TAGS);
+
+        assertThat(queue.poll(), is("a"));
+        assertThat(queue.poll(), is("b"));
+        assertThat(queue.poll(), is(nullValue()));
+
+        queue.onFinished("a");
+        assertThat(queue.poll(), is("c"));
+    }
+
+    @Test
+    public void testPoll_sharesSlotsByWeight() {
+        FairWorkQueue<String> queue = new FairWorkQueue<>(new ExecutionPolicy.Builder()
+                .setMaxConcurrentWork(1)
+                .setPriorityWeight(WorkPriority.LOW, 1)
+                .setPriorityWeight(WorkPriority.HIGH, 3)
+                .build());
+        for (int i = 0; i < 8; i++) {
+            queue.add("low" + i, WorkPriority.LOW, NO_TAGS);
+            queue.add("high" + i, WorkPriority.HIGH, NO_TAGS);
+        }
+
+        int highCount = 0;
+        for (int i = 0; i < 8; i++) {
+            String id = queue.poll();
+            if (id.startsWith("high")) {
+                highCount++;
+            }
+            queue.onFinished(id);
+        }
+        assertThat(highCount, is(6));
+    }
+
+    @Test
+    public void testPoll_idlePriorityDoesNotSaveUpSlots() {
+        FairWorkQueue<String> queue = new FairWorkQueue<>(
+                new ExecutionPolicy.Builder().setMaxConcurrentWork(1).build());
+        for (int i = 0; i < 10; i++) {
+            queue.add("default" + i, WorkPriority.DEFAULT, NO_TAGS);
+            queue.onFinished(queue.poll());
+        }
+        queue.add("default", WorkPriority.DEFAULT, NO_TAGS);
+        queue.add("low", WorkPriority.LOW, NO_TAGS);
+
+        assertThat(queue.poll(), is("default"));
+    }
+
+    @Test
+    public void testPoll_skipsWorkOverTagLimit() {
+        FairWorkQueue<String> queue = new FairWorkQueue<>(new ExecutionPolicy.Builder()
+                .setTagConcurrencyLimit("network", 1)
+                .build());
+        queue.add("a", WorkPriority.DEFAULT, Arrays.asList("network", "sync"));
+        queue.add("b", WorkPriority.DEFAULT, Collections.singletonList("network"));
+        queue.add("c", WorkPriority.DEFAULT, Collections.singletonList("sync"));
+
+        assertThat(queue.poll(), is("a"));
+        assertThat(queue.poll(), is("c"));
+        assertThat(queue.poll(), is(nullValue()));
+
+        queue.onFinished("a");
+        assertThat(queue.poll(), is("b"));
+    }
+
+    @Test
+    public void testOnFinished_tracksEachUnitOfWork() {
+        FairWorkQueue<Object> queue = new FairWorkQueue<>(new ExecutionPolicy.Builder()
+                .setTagConcurrencyLimit("sync", 1)
+                .build());
+        // Two units of work for the same id, e.g. work that was stopped and started again.
+        Object stopped = new Object();
+        Object restarted = new Object();
+        List<String> tags = Collections.singletonList("sync");
+        queue.add(stopped, WorkPriority.DEFAULT, tags);
+        assertThat(queue.poll(), is(stopped));
+        queue.add(restarted, WorkPriority.DEFAULT, tags);
+        assertThat(queue.poll(), is(nullValue()));
+
+        queue.onFinished(stopped);
+        assertThat(queue.poll(), is(restarted));
+        queue.onFinished(stopped);
+        assertThat(queue.getMetrics().getRunningCount(), is(1));
+
+        queue.add(new Object(), WorkPriority.DEFAULT, tags);
+        assertThat(queue.poll(), is(nullValue()));
+        queue.onFinished(restarted);
+        assertThat(queue.poll(), is(notNullValue()));
+    }
+
+    @Test
+    public void testRemove() {
+        FairWorkQueue<String> queue = new FairWorkQueue<>(
+                new ExecutionPolicy.Builder().setMaxConcurrentWork(1).build());
+        queue.add("a", WorkPriority.DEFAULT, NO_TAGS);
+        queue.add("b", WorkPriority.DEFAULT, NO_TAGS);
+
+        assertThat(queue.remove("a"), is(true));
+        assertThat(queue.remove("a"), is(false));
+        assertThat(queue.poll(), is("b"));
+        assertThat(queue.remove("b"), is(false));
+    }
+
+    @Test
+    public void testGetMetrics() {
+        FairWorkQueue<String> queue = new FairWorkQueue<>(
+                new ExecutionPolicy.Builder().setMaxConcurrentWork(1).build());
+        queue.add("a", WorkPriority.HIGH, NO_TAGS);
+        queue.add("b", WorkPriority.LOW, NO_TAGS);
+        queue.add("c", WorkPriority.LOW, NO_TAGS);
+        queue.poll();
+
+        WorkQueue.Metrics metrics = queue.getMetrics();
+        assertThat(metrics.getQueuedCount(WorkPriority.HIGH), is(0));
+        assertThat(metrics.getQueuedCount(WorkPriority.LOW), is(2));
+        assertThat(metrics.getRunningCount(), is(1));
+        assertThat(metrics.getStartedCount(WorkPriority.HIGH), is(1L));
+        assertThat(metrics.getStartedCount(WorkPriority.LOW), is(0L));
+        assertThat(metrics.getMaxWaitTimeMillis(WorkPriority.LOW), is(0L));
+    }
+}